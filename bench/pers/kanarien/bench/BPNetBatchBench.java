@@ -0,0 +1,185 @@
+package pers.kanarien.bench;
+
+import java.util.Random;
+
+import pers.kanarien.bpnet.BPNet;
+
+/**
+ * BP网络训练的吞吐量对比，单位为每秒样本数：
+ * 1. 原实现：二维数组，输入层到隐层的修正为O(i * h * o)（LegacyNet，原代码的副本）
+ * 2. 逐个样本：一维数组，隐层误差项只计算一次
+ * 3. 小批量：一批样本按矩阵乘法计算，只修正一次权值
+ * 输入16维、输出4维，隐层宽度分别为10、256和1024，样本随机生成
+ * @author Kanarien
+ * @version 1.0
+ */
+public class BPNetBatchBench {
+
+    public static void main(String[] args) {
+        int in = 16;
+        int out = 4;
+        final int samples = 256;
+        final int batchSize = 32;
+        Random random = new Random(1);
+        final double[] inputs = new double[samples * in];
+        final double[] outputs = new double[samples * out];
+        for (int x = 0; x < inputs.length; x++) {
+            inputs[x] = random.nextDouble();
+        }
+        for (int x = 0; x < outputs.length; x++) {
+            outputs[x] = random.nextDouble();
+        }
+        for (int hidden : new int[] {10, 256, 1024}) {
+            final LegacyNet legacy = new LegacyNet(in, hidden, out);
+            final BPNet single = new BPNet(in, hidden, out);
+            final BPNet batch = new BPNet(in, hidden, out);
+            final double[] input = new double[in];
+            final double[] output = new double[out];
+            final int inNum = in;
+            final int outNum = out;
+            int runs = Math.max(5, 20000 / hidden);
+            System.out.println(in + "-" + hidden + "-" + out + "，每次运行" + samples + "个样本");
+            double legacyNs = Bench.run("原实现", runs, runs, new Runnable() {
+                @Override
+                public void run() {
+                    for (int s = 0; s < samples; s++) {
+                        System.arraycopy(inputs, s * inNum, input, 0, inNum);
+                        System.arraycopy(outputs, s * outNum, output, 0, outNum);
+                        legacy.forwardProcess(input, output);
+                        legacy.backProcess();
+                    }
+                }
+            });
+            double singleNs = Bench.run("逐个样本", runs, runs, new Runnable() {
+                @Override
+                public void run() {
+                    for (int s = 0; s < samples; s++) {
+                        System.arraycopy(inputs, s * inNum, input, 0, inNum);
+                        System.arraycopy(outputs, s * outNum, output, 0, outNum);
+                        single.forwardProcess(input, output);
+                        single.backProcess();
+                    }
+                }
+            });
+            double batchNs = Bench.run("小批量（" + batchSize + "）", runs, runs, new Runnable() {
+                @Override
+                public void run() {
+                    double[] in = new double[batchSize * inNum];
+                    double[] out = new double[batchSize * outNum];
+                    for (int s = 0; s < samples; s += batchSize) {
+                        System.arraycopy(inputs, s * inNum, in, 0, batchSize * inNum);
+                        System.arraycopy(outputs, s * outNum, out, 0, batchSize * outNum);
+                        batch.trainBatch(in, out, batchSize);
+                    }
+                }
+            });
+            System.out.format("每秒样本数：原实现 %.0f，逐个 %.0f，小批量 %.0f，小批量为原实现的 %.1f倍%n",
+                    samples * 1e9 / legacyNs, samples * 1e9 / singleNs, samples * 1e9 / batchNs, legacyNs / batchNs);
+        }
+    }
+
+    /**
+     * 原BPNet的前向和反向处理，权值为二维数组，用于对比
+     */
+    static class LegacyNet {
+
+        private static final double RHO = 0.1;
+        private static final double ALFA = 0.67;
+        private final int inputLayerNum;
+        private final int hiddenLayerNum;
+        private final int outputLayerNum;
+        private final double[][] inWeight;
+        private final double[][] outWeight;
+        private final double[][] dInWeight;
+        private final double[][] dOutWeight;
+        private final double[][] preInWeight;
+        private final double[][] prePreInWeight;
+        private final double[][] preOutWeight;
+        private final double[][] prePreOutWeight;
+        private final double[] xi;
+        private final double[] xj;
+        private final double[] xjActive;
+        private final double[] xk;
+        private final double[] ek;
+
+        LegacyNet(int in, int hidden, int out) {
+            inputLayerNum = in;
+            hiddenLayerNum = hidden;
+            outputLayerNum = out;
+            inWeight = new double[in][hidden];
+            outWeight = new double[hidden][out];
+            dInWeight = new double[in][hidden];
+            dOutWeight = new double[hidden][out];
+            preInWeight = new double[in][hidden];
+            prePreInWeight = new double[in][hidden];
+            preOutWeight = new double[hidden][out];
+            prePreOutWeight = new double[hidden][out];
+            xi = new double[in];
+            xj = new double[hidden];
+            xjActive = new double[hidden];
+            xk = new double[out];
+            ek = new double[out];
+            Random random = new Random(2);
+            for (int i = 0; i < in; i++) {
+                for (int j = 0; j < hidden; j++) {
+                    inWeight[i][j] = 0.5 - random.nextDouble();
+                }
+            }
+            for (int j = 0; j < hidden; j++) {
+                for (int k = 0; k < out; k++) {
+                    outWeight[j][k] = 0.5 - random.nextDouble();
+                }
+            }
+        }
+
+        void forwardProcess(double[] input, double[] output) {
+            for (int i = 0; i < inputLayerNum; i++) {
+                xi[i] = input[i];
+            }
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                xj[j] = 0;
+                for (int i = 0; i < inputLayerNum; i++) {
+                    xj[j] = xj[j] + xi[i] * inWeight[i][j];
+                }
+            }
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                xjActive[j] = 1 / (1 + Math.exp(-xj[j]));
+            }
+            for (int k = 0; k < outputLayerNum; k++) {
+                xk[k] = 0;
+                for (int j = 0; j < hiddenLayerNum; j++) {
+                    xk[k] = xk[k] + xjActive[j] * outWeight[j][k];
+                }
+            }
+            for (int k = 0; k < outputLayerNum; k++) {
+                ek[k] = output[k] - xk[k];
+            }
+        }
+
+        void backProcess() {
+            for (int i = 0; i < inputLayerNum; i++) {
+                for (int j = 0; j < hiddenLayerNum; j++) {
+                    for (int k = 0; k < outputLayerNum; k++) {
+                        dInWeight[i][j] = dInWeight[i][j] + RHO * (ek[k] * xjActive[j] * outWeight[j][k]
+                                * (1 - xjActive[j]) * xi[i]);
+                    }
+                    inWeight[i][j] = inWeight[i][j] + dInWeight[i][j] + ALFA
+                            * (preInWeight[i][j] - prePreInWeight[i][j]);
+                    prePreInWeight[i][j] = preInWeight[i][j];
+                    preInWeight[i][j] = inWeight[i][j];
+                }
+            }
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                for (int k = 0; k < outputLayerNum; k++) {
+                    dOutWeight[j][k] = RHO * ek[k] * xjActive[j];
+                    outWeight[j][k] = outWeight[j][k] + dOutWeight[j][k] + ALFA
+                            * (preOutWeight[j][k] - prePreOutWeight[j][k]);
+                    prePreOutWeight[j][k] = preOutWeight[j][k];
+                    preOutWeight[j][k] = outWeight[j][k];
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+package pers.kanarien.bench;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import pers.kanarien.bpnet.BPNet;
+
+/**
+ * BP网络数据并行训练的吞吐量，单位为每秒样本数
+ * 线程数从1开始每次翻倍，直到CPU核数（至少测到2个线程），工作者数量等于线程数
+ * 每种线程数用同一个种子训练两次，检查结果是否完全相同
+ * 参数：[隐层宽度，默认1024] [批大小，默认256]，输入16维、输出4维，样本随机生成
+ * @author Kanarien
+ * @version 1.0
+ */
+public class BPNetParallelBench {
+
+    public static void main(String[] args) {
+        final int in = 16;
+        final int hidden = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        final int out = 4;
+        final int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        final int batches = 8;
+        Random random = new Random(1);
+        final double[] inputs = new double[batches * batchSize * in];
+        final double[] outputs = new double[batches * batchSize * out];
+        for (int x = 0; x < inputs.length; x++) {
+            inputs[x] = random.nextDouble();
+        }
+        for (int x = 0; x < outputs.length; x++) {
+            outputs[x] = random.nextDouble();
+        }
+        final double[] in0 = new double[batchSize * in];
+        final double[] out0 = new double[batchSize * out];
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println(in + "-" + hidden + "-" + out + "，批大小" + batchSize + "，每次运行" + batches + "批，CPU核数" + cores);
+        double baseNs = 0;
+        for (int threads = 1; threads <= Math.max(2, cores); threads *= 2) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                final BPNet net = new BPNet(in, hidden, out, 3);
+                net.setExecutor(pool, threads);
+                int runs = Math.max(5, 4000 / hidden);
+                double ns = Bench.run(threads + "个线程", runs, runs, new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int b = 0; b < batches; b++) {
+                            System.arraycopy(inputs, b * batchSize * in, in0, 0, in0.length);
+                            System.arraycopy(outputs, b * batchSize * out, out0, 0, out0.length);
+                            net.trainBatch(in0, out0, batchSize);
+                        }
+                    }
+                });
+                if (threads == 1) {
+                    baseNs = ns;
+                }
+                boolean same = train(pool, threads, in, hidden, out, batchSize, batches, inputs, outputs)
+                        == train(pool, threads, in, hidden, out, batchSize, batches, inputs, outputs);
+                System.out.format("每秒样本数 %.0f，加速比 %.2f，结果可重复：%s%n", batches * batchSize * 1e9 / ns,
+                        baseNs / ns, same ? "是" : "否");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 用固定种子训练若干批，返回最后一批误差和一个样本输出的位模式，用于比较两次训练是否完全相同
+     */
+    private static long train(ExecutorService pool, int workerNum, int in, int hidden, int out, int batchSize,
+            int batches, double[] inputs, double[] outputs) {
+        BPNet net = new BPNet(in, hidden, out, 3);
+        net.setExecutor(pool, workerNum);
+        double[] in0 = new double[batchSize * in];
+        double[] out0 = new double[batchSize * out];
+        double loss = 0;
+        for (int b = 0; b < batches; b++) {
+            System.arraycopy(inputs, b * batchSize * in, in0, 0, in0.length);
+            System.arraycopy(outputs, b * batchSize * out, out0, 0, out0.length);
+            loss = net.trainBatch(in0, out0, batchSize);
+        }
+        double[] probe = new double[in];
+        System.arraycopy(inputs, 0, probe, 0, in);
+        return Double.doubleToLongBits(loss) * 31 + Double.doubleToLongBits(net.calculate(probe)[0]);
+    }
+
+}
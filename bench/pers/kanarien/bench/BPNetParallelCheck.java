@@ -0,0 +1,162 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import pers.kanarien.bpnet.BPNet;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * BP网络数据并行训练的自检：
+ * 1. 工作者数量相同时，不设线程池与使用不同大小的线程池训练得到的每批误差和最终快照文件按位相同
+ * 2. 工作者数量不同时只有梯度相加的顺序不同，网络输出只相差舍入误差；
+ *    修正值被重复累加或者漏加时输出会明显不同
+ * 3. 批大小不能被工作者数量整除、小于工作者数量时同样成立
+ * 4. 批大小为1时逐个样本调用trainBatch，与forwardProcess加backProcess的逐样本训练只相差舍入误差，
+ *    这一项不依赖工作者之间的比较，修正值在各批之间被累加时也能发现
+ * 5. BPNet.main的问题（拟合x * x - x）用train()训练后，在1到100上的平均误差不超过CONVERGED
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class BPNetParallelCheck {
+
+    private static final int IN = 8;
+    private static final int HIDDEN = 40;
+    private static final int OUT = 3;
+    private static final int BATCHES = 40;
+    private static final double CONVERGED = 5e-5; // 种子1到20实测为7e-6到3.2e-5，修正值被累加时远大于此
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("bpnet").toFile();
+        ExecutorService[] pools = {Executors.newFixedThreadPool(3), new ForkJoinPool(2)};
+        try {
+            for (int batchSize : new int[] {37, 3}) {
+                double[] reference = null;
+                for (int workerNum : new int[] {1, 2, 3, 4}) {
+                    String name = "批大小" + batchSize + " " + workerNum + "个工作者";
+                    File serial = new File(dir, "serial.bin");
+                    double[] errors = new double[BATCHES];
+                    double[] output = train(null, workerNum, batchSize, errors, serial);
+                    for (int p = 0; p < pools.length; p++) {
+                        File parallel = new File(dir, "parallel.bin");
+                        double[] parallelErrors = new double[BATCHES];
+                        double[] parallelOutput = train(pools[p], workerNum, batchSize, parallelErrors, parallel);
+                        Check.equal(errors, parallelErrors, name + " 线程池" + p + "：每批误差");
+                        Check.equal(output, parallelOutput, name + " 线程池" + p + "：网络输出");
+                        Check.isTrue(Arrays.equals(Files.readAllBytes(serial.toPath()),
+                                Files.readAllBytes(parallel.toPath())), name + " 线程池" + p + "：快照与串行训练的不同");
+                    }
+                    if (reference == null) {
+                        reference = output;
+                        continue;
+                    }
+                    for (int i = 0; i < output.length; i++) {
+                        Check.isTrue(Math.abs(output[i] - reference[i]) <= 1e-9 * Math.max(1, Math.abs(reference[i])),
+                                name + "：输出" + i + "与1个工作者相差过大 " + output[i] + " / " + reference[i]);
+                    }
+                }
+            }
+            for (int workerNum : new int[] {1, 3}) {
+                checkSingleSample(workerNum);
+            }
+            for (long seed = 1; seed <= 5; seed++) {
+                checkConvergence(seed);
+            }
+        } finally {
+            for (ExecutorService pool : pools) {
+                pool.shutdown();
+            }
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+        Check.done("BP网络并行训练");
+    }
+
+    /**
+     * 批大小为1的trainBatch与forwardProcess加backProcess逐样本训练相比
+     */
+    private static void checkSingleSample(int workerNum) {
+        BPNet single = new BPNet(IN, HIDDEN, OUT, 1);
+        BPNet batch = new BPNet(IN, HIDDEN, OUT, 1);
+        batch.setExecutor(null, workerNum);
+        Random random = new Random(3);
+        double[] input = new double[IN];
+        double[] output = new double[OUT];
+        for (int s = 0; s < BATCHES * 10; s++) {
+            for (int i = 0; i < IN; i++) {
+                input[i] = random.nextDouble();
+            }
+            for (int k = 0; k < OUT; k++) {
+                output[k] = random.nextDouble();
+            }
+            single.forwardProcess(input, output);
+            single.backProcess();
+            batch.trainBatch(input, output, 1);
+        }
+        double[] expected = single.calculate(input);
+        double[] actual = batch.calculate(input);
+        for (int k = 0; k < OUT; k++) {
+            Check.isTrue(Math.abs(actual[k] - expected[k]) <= 1e-9 * Math.max(1, Math.abs(expected[k])),
+                    workerNum + "个工作者 批大小1：输出" + k + "与逐样本训练相差过大 " + actual[k] + " / " + expected[k]);
+        }
+    }
+
+    /**
+     * 与BPNet.main相同地训练1-10-1网络，再按train()的规约方式计算1到100上的平均误差
+     */
+    private static void checkConvergence(long seed) {
+        BPNet net = new BPNet(1, 10, 1, seed);
+        net.setListener(MetricsListener.NONE);
+        net.train();
+        double loss = 0;
+        for (int x = 1; x <= 100; x++) {
+            double diff = net.calculate(new double[] {x / 100.0})[0] - (x * x - x) / 10000.0;
+            loss += diff * diff / 2;
+        }
+        loss /= 100;
+        Check.isTrue(loss <= CONVERGED, "种子" + seed + "：train()后的平均误差 " + loss + " 超过 " + CONVERGED);
+    }
+
+    /**
+     * 用固定的样本序列训练BATCHES批，把每批误差写入errors、最终快照写入file
+     * @return 训练后网络对最后一批输入的输出
+     */
+    private static double[] train(ExecutorService executor, int workerNum, int batchSize, double[] errors, File file)
+            throws IOException {
+        BPNet net = new BPNet(IN, HIDDEN, OUT, 1);
+        net.setExecutor(executor, workerNum);
+        Random random = new Random(2);
+        double[] inputs = new double[batchSize * IN];
+        double[] outputs = new double[batchSize * OUT];
+        for (int b = 0; b < BATCHES; b++) {
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = random.nextDouble();
+            }
+            for (int i = 0; i < outputs.length; i++) {
+                outputs[i] = random.nextDouble();
+            }
+            errors[b] = net.trainBatch(inputs, outputs, batchSize);
+        }
+        net.snapshot().write(file);
+        double[] output = new double[batchSize * OUT];
+        for (int s = 0; s < batchSize; s++) {
+            double[] input = new double[IN];
+            System.arraycopy(inputs, s * IN, input, 0, IN);
+            System.arraycopy(net.calculate(input), 0, output, s * OUT, OUT);
+        }
+        return output;
+    }
+
+}
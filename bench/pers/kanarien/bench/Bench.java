@@ -0,0 +1,211 @@
+package pers.kanarien.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 简单的基准测试工具：先预热让JIT编译完成，再计时测量，输出每次操作的平均耗时
+ * measure另外分多轮计时给出误差，并统计每次操作在当前线程中申请的内存；结果可以写入文件作为基线，之后与基线比较
+ * 无需额外的jar包，直接运行各个基准测试类的main方法即可
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class Bench {
+
+    /** 防止JIT把计算结果当作无用代码消除 */
+    public static volatile long sink;
+
+    private Bench() {
+    }
+
+    /**
+     * 运行一项基准测试
+     * @param name 名称
+     * @param warmup 预热次数
+     * @param measure 计时次数
+     * @param op 被测操作
+     * @return 每次操作的平均耗时，单位纳秒
+     */
+    public static double run(String name, int warmup, int measure, Runnable op) {
+        for (int i = 0; i < warmup; i++) {
+            op.run();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < measure; i++) {
+            op.run();
+        }
+        double nsPerOp = (double) (System.nanoTime() - begin) / measure;
+        System.out.format("%-40s %14.1f ns/op%n", name, nsPerOp);
+        return nsPerOp;
+    }
+
+    /**
+     * 运行一项基准测试，计时分为rounds轮，每轮measure次
+     * @param name 名称
+     * @param warmup 预热次数
+     * @param rounds 计时轮数
+     * @param measure 每轮计时次数
+     * @param opsPerRun 每次运行op包含的操作数，如一条路径包含n - 1次选择城市
+     * @param op 被测操作，只能在当前线程中运行
+     * @return 测量结果
+     */
+    public static Result measure(String name, int warmup, int rounds, int measure, int opsPerRun, Runnable op) {
+        for (int i = 0; i < warmup; i++) {
+            op.run();
+        }
+        double[] nsPerOp = new double[rounds];
+        long bytes = allocatedBytes();
+        for (int r = 0; r < rounds; r++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < measure; i++) {
+                op.run();
+            }
+            nsPerOp[r] = (double) (System.nanoTime() - begin) / measure / opsPerRun;
+        }
+        bytes = allocatedBytes() - bytes;
+        double mean = 0;
+        for (double v : nsPerOp) {
+            mean += v;
+        }
+        mean /= rounds;
+        double variance = 0;
+        for (double v : nsPerOp) {
+            variance += (v - mean) * (v - mean);
+        }
+        double error = rounds > 1 ? Math.sqrt(variance / (rounds - 1)) : 0;
+        double bytesPerOp = bytes < 0 ? Double.NaN : (double) bytes / ((long) rounds * measure * opsPerRun);
+        Result result = new Result(name, mean, error, bytesPerOp);
+        System.out.format("%-40s %14.1f ± %8.1f ns/op %12.1f B/op%n", name, mean, error, bytesPerOp);
+        return result;
+    }
+
+    /**
+     * @return 当前线程累计申请的内存，JVM不支持时为-1
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把结果写入文件，每行为：名称、ns/op、误差、B/op，以制表符分隔
+     * @param file 结果文件
+     * @param results 结果
+     * @throws IOException
+     */
+    public static void writeResults(File file, List<Result> results) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        try {
+            for (Result result : results) {
+                writer.println(result.name + "\t" + result.nsPerOp + "\t" + result.error + "\t" + result.bytesPerOp);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 读取writeResults写出的结果文件
+     * @param file 结果文件
+     * @return 名称到结果的映射，保持文件中的顺序
+     * @throws IOException
+     */
+    public static Map<String, Result> readResults(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length == 4) {
+                    results.put(fields[0], new Result(fields[0], Double.parseDouble(fields[1]),
+                            Double.parseDouble(fields[2]), Double.parseDouble(fields[3])));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    /**
+     * 与基线比较，耗时超出基线tolerance比例且超出两者误差之和，或者每次操作申请的内存明显增加时视为退化
+     * @param baseline 基线结果
+     * @param results 本次结果
+     * @param tolerance 允许的耗时增加比例，如0.1
+     * @return 退化的项数
+     */
+    public static int compare(Map<String, Result> baseline, List<Result> results, double tolerance) {
+        int regressions = 0;
+        System.out.format("%-40s %14s %14s %8s%n", "与基线比较", "基线 ns/op", "本次 ns/op", "变化");
+        for (Result result : results) {
+            Result base = baseline.get(result.name);
+            if (base == null) {
+                System.out.format("%-40s %14s %14.1f%n", result.name, "-", result.nsPerOp);
+                continue;
+            }
+            double change = result.nsPerOp / base.nsPerOp - 1;
+            boolean slower = change > tolerance && result.nsPerOp - base.nsPerOp > result.error + base.error;
+            boolean moreGarbage = result.bytesPerOp > base.bytesPerOp * 1.1 + 16; // 忽略测量本身的少量申请
+            System.out.format("%-40s %14.1f %14.1f %+7.1f%% %s%n", result.name, base.nsPerOp, result.nsPerOp,
+                    change * 100, slower ? "变慢" : moreGarbage ? "内存增加" : "");
+            if (slower || moreGarbage) {
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * 一项基准测试的结果
+     */
+    public static class Result {
+
+        private final String name;
+        private final double nsPerOp;
+        private final double error;
+        private final double bytesPerOp;
+
+        public Result(String name, double nsPerOp, double error, double bytesPerOp) {
+            this.name = name;
+            this.nsPerOp = nsPerOp;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getNsPerOp() {
+            return nsPerOp;
+        }
+
+        public double getError() {
+            return error;
+        }
+
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+    }
+
+}
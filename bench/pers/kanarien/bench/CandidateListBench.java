@@ -0,0 +1,59 @@
+package pers.kanarien.bench;
+
+import pers.kanarien.aco.Ant;
+import pers.kanarien.aco.CandidateList;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.FloatMatrix;
+import pers.kanarien.aco.MatrixDistance;
+
+/**
+ * 对比一只蚂蚁构造一条完整路径时，全部搜索和候选列表两种方式的耗时与路径长度
+ * 城市数量可通过参数指定，如 1000 10000 50000
+ * 距离矩阵和选择权值矩阵使用对称存储，50000个城市时两个矩阵共需约10GB堆内存
+ * @author Kanarien
+ * @version 1.0
+ */
+public class CandidateListBench {
+
+    public static void main(String[] args) {
+        int[] sizes = {1000, 10000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        int k = 20;
+        for (int n : sizes) {
+            final DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(n, 1), true);
+            final FloatMatrix choiceInfo = FloatMatrix.symmetric(n);
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    choiceInfo.set(i, j, (float) (0.1 * Math.pow(1.0 / Math.max(distance.distance(i, j), 1), 3)));
+                }
+            }
+            long begin = System.nanoTime();
+            int[][] candidates = CandidateList.build(distance, k);
+            System.out.format("cityNum = %d, 构建%d近邻候选列表耗时 %.1f ms%n", n, k, (System.nanoTime() - begin) / 1e6);
+
+            final Ant ant = new Ant(n, 1);
+            int iterations = Math.max(3, 20000000 / (n * n));
+            Runnable tour = new Runnable() {
+                @Override
+                public void run() {
+                    ant.init(distance);
+                    ant.buildTour(choiceInfo);
+                    Bench.sink = ant.getTourLength();
+                }
+            };
+            ant.setCandidates(null);
+            double full = Bench.run("全部搜索", iterations, iterations, tour);
+            System.out.println("路径长度: " + ant.getTourLength());
+            ant.setCandidates(candidates);
+            double candidate = Bench.run("候选列表 k=" + k, iterations, iterations, tour);
+            System.out.println("路径长度: " + ant.getTourLength());
+            System.out.format("speedup: %.1fx%n%n", full / candidate);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package pers.kanarien.bench;
+
+import java.util.Arrays;
+
+/**
+ * 自检程序使用的断言：条件不成立时抛出AssertionError，main方法异常退出，退出码不为0
+ * 不依赖-ea参数，也无需额外的jar包，各个自检类的main方法直接运行即可
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class Check {
+
+    private static int passed; // 已通过的检查数
+
+    private Check() {
+    }
+
+    /**
+     * 可能抛出受检异常的操作
+     */
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static void isTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+        passed++;
+    }
+
+    public static void equal(long expected, long actual, String message) {
+        isTrue(expected == actual, message + "：期望 " + expected + "，实际 " + actual);
+    }
+
+    public static void equal(double expected, double actual, String message) {
+        isTrue(Double.compare(expected, actual) == 0, message + "：期望 " + expected + "，实际 " + actual);
+    }
+
+    public static void equal(int[] expected, int[] actual, String message) {
+        isTrue(Arrays.equals(expected, actual),
+                message + "：期望 " + Arrays.toString(expected) + "，实际 " + Arrays.toString(actual));
+    }
+
+    /**
+     * 按位比较两个数组，用于检查结果与线程数或者中断恢复无关
+     */
+    public static void equal(float[] expected, float[] actual, String message) {
+        isTrue(Arrays.equals(expected, actual), message + "：数组不同");
+    }
+
+    public static void equal(double[] expected, double[] actual, String message) {
+        isTrue(Arrays.equals(expected, actual), message + "：数组不同");
+    }
+
+    /**
+     * 检查操作抛出type类型的异常
+     */
+    public static void fails(Class<? extends Exception> type, Action action, String message) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            isTrue(type.isInstance(e), message + "：期望 " + type.getSimpleName() + "，实际 " + e);
+            return;
+        }
+        throw new AssertionError(message + "：没有抛出 " + type.getSimpleName());
+    }
+
+    /**
+     * 输出通过的检查数，在main方法最后调用
+     * @param name 自检名称
+     */
+    public static void done(String name) {
+        System.out.println(name + "：" + passed + " 项检查全部通过");
+    }
+
+}
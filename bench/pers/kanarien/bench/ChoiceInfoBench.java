@@ -0,0 +1,144 @@
+package pers.kanarien.bench;
+
+import java.util.Random;
+
+import pers.kanarien.aco.Ant;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.CoordinateDistance;
+import pers.kanarien.aco.FloatMatrix;
+import pers.kanarien.aco.MatrixDistance;
+
+/**
+ * 对比一次迭代（antNum只蚂蚁各走一条路径）的两种实现：
+ * 1. pow：每一步对每个候选城市调用Math.pow计算τ^α * (1/d)^β（原实现的做法）
+ * 2. choiceInfo：每次迭代刷新一次选择权值矩阵，蚂蚁只读矩阵
+ * @author Kanarien
+ * @version 1.0
+ */
+public class ChoiceInfoBench {
+
+    public static void main(String[] args) {
+        int antNum = 50;
+        final float alpha = 1.0f;
+        final float beta = 3.0f;
+        for (final int n : new int[] {100, 500, 1000}) {
+            final DistanceProvider distance = MatrixDistance.of(randomCities(n, 1), false);
+            final FloatMatrix pheromone = FloatMatrix.dense(n);
+            final FloatMatrix heuristic = FloatMatrix.dense(n);
+            final FloatMatrix choiceInfo = FloatMatrix.dense(n);
+            Random random = new Random(2);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    pheromone.set(i, j, 0.05f + 0.1f * random.nextFloat());
+                    heuristic.set(i, j, i == j ? 0.f : (float) Math.pow(1.0 / Math.max(distance.distance(i, j), 1), beta));
+                }
+            }
+            final Ant[] ants = new Ant[antNum];
+            final PowAnt[] powAnts = new PowAnt[antNum];
+            for (int k = 0; k < antNum; k++) {
+                ants[k] = new Ant(n, k);
+                powAnts[k] = new PowAnt(n, k);
+            }
+            int iterations = Math.max(5, 2000000 / (n * n));
+            System.out.println("cityNum = " + n + ", antNum = " + antNum);
+            double pow = Bench.run("pow", iterations, iterations, new Runnable() {
+                @Override
+                public void run() {
+                    long len = 0;
+                    for (PowAnt ant : powAnts) {
+                        len += ant.buildTour(distance, pheromone, alpha, beta);
+                    }
+                    Bench.sink = len;
+                }
+            });
+            double table = Bench.run("choiceInfo", iterations, iterations, new Runnable() {
+                @Override
+                public void run() {
+                    float[] tau = pheromone.data();
+                    float[] eta = heuristic.data();
+                    float[] choice = choiceInfo.data();
+                    for (int k = 0; k < choice.length; k++) {
+                        choice[k] = tau[k] * eta[k];
+                    }
+                    long len = 0;
+                    for (Ant ant : ants) {
+                        ant.init(distance);
+                        ant.buildTour(choiceInfo);
+                        len += ant.getTourLength();
+                    }
+                    Bench.sink = len;
+                }
+            });
+            System.out.format("speedup: %.1fx%n%n", pow / table);
+        }
+    }
+
+    /**
+     * 生成随机坐标的实例，坐标为[0, 10000)内的整数
+     * @param n 城市数量
+     * @param seed 随机种子
+     * @return 实时计算的欧氏距离
+     */
+    static CoordinateDistance randomCities(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextInt(10000);
+            y[i] = random.nextInt(10000);
+        }
+        return new CoordinateDistance(x, y);
+    }
+
+    /**
+     * 每一步调用Math.pow计算权值的蚂蚁，其余逻辑与Ant一致
+     */
+    static class PowAnt {
+        private int[] allowedCities;
+        private double[] p;
+        private Random random;
+
+        PowAnt(int n, long seed) {
+            allowedCities = new int[n];
+            p = new double[n];
+            random = new Random(seed);
+        }
+
+        int buildTour(DistanceProvider distance, FloatMatrix pheromone, float alpha, float beta) {
+            int n = allowedCities.length;
+            for (int i = 0; i < n; i++) {
+                allowedCities[i] = i;
+            }
+            int allowedNum = n;
+            int first = random.nextInt(n);
+            allowedCities[first] = allowedCities[--allowedNum];
+            int current = first;
+            int len = 0;
+            while (allowedNum > 0) {
+                double sum = 0.0;
+                for (int k = 0; k < allowedNum; k++) {
+                    int i = allowedCities[k];
+                    p[k] = Math.pow(pheromone.get(current, i), alpha)
+                            * Math.pow(1.0 / Math.max(distance.distance(current, i), 1), beta);
+                    sum += p[k];
+                }
+                double selectP = random.nextDouble() * sum;
+                int select = allowedNum - 1;
+                double sum1 = 0.0;
+                for (int k = 0; k < allowedNum; k++) {
+                    sum1 += p[k];
+                    if (sum1 >= selectP) {
+                        select = k;
+                        break;
+                    }
+                }
+                int next = allowedCities[select];
+                allowedCities[select] = allowedCities[--allowedNum];
+                len += distance.distance(current, next);
+                current = next;
+            }
+            return len + distance.distance(current, first);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.CoordinateDistance;
+import pers.kanarien.aco.MappedDistance;
+import pers.kanarien.aco.MatrixDistance;
+
+/**
+ * 按实例规模对比三种距离实现：堆内矩阵、内存映射文件、实时计算
+ * 测量两种访问方式：
+ * 1. 随机路径：按随机排列计算路径长度，对应计算蚂蚁路径长度
+ * 2. 整行扫描：读取一个城市到所有城市的距离，对应构建候选列表
+ * 城市数量可通过参数指定，如 1000 5000 20000
+ * @author Kanarien
+ * @version 1.0
+ */
+public class DistanceBench {
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {1000, 5000, 20000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int n : sizes) {
+            CoordinateDistance euclidean = ChoiceInfoBench.randomCities(n, 1);
+            long begin = System.nanoTime();
+            MatrixDistance matrix = MatrixDistance.of(euclidean, true);
+            System.out.format("cityNum = %d%n构建堆内矩阵耗时 %.1f ms，堆内存 %d MB%n", n,
+                    (System.nanoTime() - begin) / 1e6, (long) n * (n + 1) / 2 * 4 >> 20);
+            File file = File.createTempFile("distance-" + n + "-", ".bin");
+            file.deleteOnExit();
+            begin = System.nanoTime();
+            MappedDistance mapped = MappedDistance.build(file, euclidean);
+            System.out.format("生成距离文件耗时 %.1f ms，文件大小 %d MB%n",
+                    (System.nanoTime() - begin) / 1e6, file.length() >> 20);
+
+            final int[] tour = randomTour(n, 2);
+            int iterations = Math.max(20, 20000000 / n);
+            DistanceProvider[] providers = {matrix, mapped, euclidean};
+            String[] names = {"堆内矩阵", "内存映射", "实时计算"};
+            for (int p = 0; p < providers.length; p++) {
+                final DistanceProvider distance = providers[p];
+                Bench.run(names[p] + " 随机路径", iterations / 10, iterations / 10, new Runnable() {
+                    @Override
+                    public void run() {
+                        long len = 0;
+                        for (int i = 0; i < tour.length - 1; i++) {
+                            len += distance.distance(tour[i], tour[i + 1]);
+                        }
+                        Bench.sink = len;
+                    }
+                });
+                Bench.run(names[p] + " 整行扫描", iterations / 10, iterations / 10, new Runnable() {
+                    private int row;
+
+                    @Override
+                    public void run() {
+                        long len = 0;
+                        int n = distance.size();
+                        for (int j = 0; j < n; j++) {
+                            len += distance.distance(row, j);
+                        }
+                        row = (row + 7919) % n;
+                        Bench.sink = len;
+                    }
+                });
+            }
+            System.out.println();
+            file.delete();
+        }
+    }
+
+    /**
+     * @param n 城市数量
+     * @param seed 随机种子
+     * @return 随机排列得到的闭合路径，长度为n + 1
+     */
+    static int[] randomTour(int n, long seed) {
+        Random random = new Random(seed);
+        int[] tour = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            tour[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = tour[i];
+            tour[i] = tour[j];
+            tour[j] = t;
+        }
+        tour[n] = tour[0];
+        return tour;
+    }
+
+}
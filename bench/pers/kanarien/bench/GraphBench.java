@@ -0,0 +1,109 @@
+package pers.kanarien.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import pers.kanarien.aco.GraphAntSystem;
+import pers.kanarien.aco.SparseGraph;
+import pers.kanarien.aco.TimeSlotCost;
+import pers.kanarien.metrics.IterationMetrics;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 稀疏图模式的规模测试：随机生成w * w的网格道路网，相邻路口双向连通、两个方向的通行时间不同，
+ * 另有约30%的路口有一条斜向的单行道，通行时间按一天24个时段变化（早晚高峰为1.8倍）
+ * 输出最优路线经过的边数、每经过一条边的构造耗时（按最优路线的边数估算）、每次迭代的耗时，
+ * 以及按边保存的数组占用的内存与完全图模式下n * n矩阵所需内存的比较
+ * 参数：[网格边长...，默认50 100 200] [-i 迭代数，默认20]
+ * @author Kanarien
+ * @version 1.0
+ */
+public class GraphBench {
+
+    public static void main(String[] args) {
+        int iterations = 20;
+        int[] widths = {50, 100, 200};
+        int count = 0;
+        int[] parsed = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-i")) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                parsed[count++] = Integer.parseInt(args[i]);
+            }
+        }
+        if (count > 0) {
+            widths = Arrays.copyOf(parsed, count);
+        }
+        float[] factors = new float[24];
+        for (int h = 0; h < 24; h++) {
+            factors[h] = h == 7 || h == 8 || h == 17 || h == 18 ? 1.8f : h < 6 ? 0.8f : 1.0f;
+        }
+        for (int w : widths) {
+            SparseGraph graph = roadGrid(w, 1).withEdgeCost(new TimeSlotCost(3600, factors));
+            int n = graph.getNodeNum();
+            long m = graph.getEdgeNum();
+            final long[] nanos = new long[2]; // 构造路线和更新信息素的累计耗时
+            GraphAntSystem system = new GraphAntSystem(10, iterations, 1.0f, 2.0f, 0.1f);
+            system.setSeed(1);
+            system.setStartTime(7 * 3600); // 早上7点出发
+            system.setListener(new MetricsListener() {
+                @Override
+                public void onIteration(IterationMetrics metrics) {
+                    nanos[0] += metrics.getConstructionNanos();
+                    nanos[1] += metrics.getPheromoneNanos();
+                }
+            });
+            long begin = System.nanoTime();
+            system.init(graph);
+            double initMs = (System.nanoTime() - begin) / 1e6;
+            int greedy = system.getBestLength();
+            system.run();
+            int walkEdges = system.getBestWalk().length - 1;
+            // 按边保存：CSR的rowStart、target、cost和信息素、启发信息、选择权值；完全图：三个float矩阵和int距离矩阵
+            double sparseMb = (4.0 * (n + 1) + m * (4 + 4 + 4 * 3)) / (1 << 20);
+            double denseMb = 16.0 * n * n / (1 << 20);
+            System.out.format("节点 %d，边 %d：初始化 %.1f ms，每次迭代 %.1f ms（更新信息素 %.2f ms），"
+                    + "每经过一条边 %.0f ns%n", n, m, initMs, (nanos[0] + nanos[1]) / 1e6 / iterations,
+                    nanos[1] / 1e6 / iterations, (double) nanos[0] / iterations / 10 / walkEdges);
+            System.out.format("    最优路线 %d 条边，长度 %d（贪心 %d）；按边保存的数组 %.1f MB，完全图的矩阵 %.1f MB%n",
+                    walkEdges, system.getBestLength(), greedy, sparseMb, denseMb);
+        }
+    }
+
+    /**
+     * 生成w * w的网格道路网，节点编号为行 * w + 列
+     */
+    static SparseGraph roadGrid(int w, long seed) {
+        Random random = new Random(seed);
+        int n = w * w;
+        int[][] edges = new int[3][5 * n]; // 起点、终点和通行时间
+        int m = 0;
+        for (int r = 0; r < w; r++) {
+            for (int c = 0; c < w; c++) {
+                int i = r * w + c;
+                int base = 60 + random.nextInt(120); // 路段的基础通行时间，单位秒
+                if (c + 1 < w) {
+                    m = addEdge(edges, m, i, i + 1, (int) (base * (0.8 + 0.4 * random.nextDouble())));
+                    m = addEdge(edges, m, i + 1, i, (int) (base * (0.8 + 0.4 * random.nextDouble())));
+                }
+                if (r + 1 < w) {
+                    m = addEdge(edges, m, i, i + w, (int) (base * (0.8 + 0.4 * random.nextDouble())));
+                    m = addEdge(edges, m, i + w, i, (int) (base * (0.8 + 0.4 * random.nextDouble())));
+                }
+                if (r + 1 < w && c + 1 < w && random.nextDouble() < 0.3) {
+                    m = addEdge(edges, m, i, i + w + 1, (int) (base * 1.4));
+                }
+            }
+        }
+        return SparseGraph.of(n, Arrays.copyOf(edges[0], m), Arrays.copyOf(edges[1], m), Arrays.copyOf(edges[2], m));
+    }
+
+    private static int addEdge(int[][] edges, int m, int from, int to, int cost) {
+        edges[0][m] = from;
+        edges[1][m] = to;
+        edges[2][m] = cost;
+        return m + 1;
+    }
+
+}
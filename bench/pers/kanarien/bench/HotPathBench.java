@@ -0,0 +1,218 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import pers.kanarien.aco.Ant;
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.FloatMatrix;
+import pers.kanarien.aco.MatrixDistance;
+import pers.kanarien.bpnet.BPModel;
+import pers.kanarien.bpnet.BPNet;
+
+/**
+ * 热点路径的基准测试，覆盖多个问题规模，实例随机生成：
+ * 1. Ant.selectNextCity：每次选择城市的耗时
+ * 2. Ant.buildTour：一只蚂蚁构造一条完整路径
+ * 3. AntSystemStrategy.updatePheromone：一次信息素挥发和所有蚂蚁的释放，以及其中挥发和释放各自的耗时
+ * 4. AntSystem.iterate：一次完整迭代，分别使用n * n的启发信息和选择权值矩阵以及只存储候选边
+ * 5. BPNet.forwardProcess、BPNet.backProcess和BPNet.calculate
+ * 6. BPModel.calculate和BPModel.calculateBatch（按行计算每次的耗时）
+ * 每项分多轮计时给出误差，并统计每次操作申请的内存（应为0的项出现内存申请即说明热点路径退化）
+ * 参数：[-o 结果文件] [-b 基线文件] [-t 允许的耗时增加比例，默认0.1]
+ * 给出基线文件时与基线比较，有退化的项则以状态码1退出，可用于持续集成
+ * @author Kanarien
+ * @version 1.0
+ */
+public class HotPathBench {
+
+    private static final int[] CITY_NUMS = {100, 1000, 4000}; // 蚁群算法的问题规模
+    private static final int[][] NET_SIZES = {{1, 10, 1}, {16, 64, 4}, {64, 256, 16}}; // BP网络的输入、隐层、输出神经元数目
+
+    public static void main(String[] args) throws IOException {
+        File output = null;
+        File baseline = null;
+        double tolerance = 0.1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o")) {
+                output = new File(args[++i]);
+            } else if (args[i].equals("-b")) {
+                baseline = new File(args[++i]);
+            } else if (args[i].equals("-t")) {
+                tolerance = Double.parseDouble(args[++i]);
+            }
+        }
+        List<Bench.Result> results = new ArrayList<Bench.Result>();
+        for (int n : CITY_NUMS) {
+            benchAnt(n, results);
+        }
+        for (int[] size : NET_SIZES) {
+            benchNet(size[0], size[1], size[2], results);
+        }
+        if (output != null) {
+            Bench.writeResults(output, results);
+            System.out.println("结果已写入 " + output);
+        }
+        if (baseline != null) {
+            int regressions = Bench.compare(Bench.readResults(baseline), results, tolerance);
+            if (regressions > 0) {
+                System.out.println(regressions + " 项退化");
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void benchAnt(final int n, List<Bench.Result> results) {
+        final DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(n, 1), false);
+        final FloatMatrix choiceInfo = FloatMatrix.dense(n);
+        Random random = new Random(2);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    double eta = 1.0 / Math.max(distance.distance(i, j), 1);
+                    choiceInfo.set(i, j, (float) ((0.05 + 0.1 * random.nextFloat()) * eta * eta));
+                }
+            }
+        }
+        final Ant ant = new Ant(n, 3);
+        int runs = Math.max(20, 2000000 / (n * n));
+        System.out.println("cityNum = " + n);
+        // 每次运行走完一条路径，按n - 1次选择计算每次的耗时
+        results.add(Bench.measure("Ant.selectNextCity n=" + n, runs, 5, runs, n - 1, new Runnable() {
+            @Override
+            public void run() {
+                ant.init(distance);
+                for (int j = 1; j < n; j++) {
+                    ant.selectNextCity(choiceInfo);
+                }
+                Bench.sink = ant.getTabu()[n - 1];
+            }
+        }));
+        results.add(Bench.measure("Ant.buildTour n=" + n, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                ant.init(distance);
+                ant.buildTour(choiceInfo);
+                Bench.sink = ant.getTourLength();
+            }
+        }));
+        // 蚂蚁数取10，先迭代一次让每只蚂蚁都有路径；策略需设置给蚁群，由init初始化其缓冲区
+        final AntSystemStrategy strategy = new AntSystemStrategy();
+        final AntSystem system = new AntSystem(10, 1, 1.0f, 2.0f, 0.5f);
+        system.setStrategy(strategy);
+        system.setCandidateNum(20);
+        system.setSeed(4);
+        system.init(distance);
+        system.iterate();
+        results.add(Bench.measure("AntSystem.updatePheromone n=" + n, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                strategy.updatePheromone(system);
+                Bench.sink = Float.floatToIntBits(system.getPheromone().get(0, 1));
+            }
+        }));
+        // 释放只有antNum * n条边，挥发有n^2个元素；两者的比例说明释放不值得并行
+        results.add(Bench.measure("AntSystem.evaporate n=" + n, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                system.evaporate(1.0f); // 系数为1使反复运行时信息素不会衰减到非规格化数
+                Bench.sink = Float.floatToIntBits(system.getPheromone().get(0, 1));
+            }
+        }));
+        final Ant[] ants = system.getAnts();
+        final int[][] tours = new int[ants.length][];
+        final float[] amounts = new float[ants.length];
+        for (int i = 0; i < ants.length; i++) {
+            tours[i] = ants[i].getTabu();
+            amounts[i] = (float) (1.0 / ants[i].getTourLength());
+        }
+        results.add(Bench.measure("AntSystem.deposit n=" + n, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                system.deposit(tours, amounts, tours.length);
+                Bench.sink = Float.floatToIntBits(system.getPheromone().get(0, 1));
+            }
+        }));
+        // 只存储候选边时两个矩阵的刷新从n^2降为n * k，代价是候选城市都已访问时要实时计算选择权值
+        for (boolean candidateStorage : new boolean[] {false, true}) {
+            final AntSystem colony = new AntSystem(10, 1, 1.0f, 2.0f, 0.5f);
+            colony.setCandidateNum(20);
+            colony.setCandidateStorage(candidateStorage);
+            colony.setSeed(4);
+            colony.init(distance);
+            String name = candidateStorage ? "AntSystem.iterate candidateStorage n=" : "AntSystem.iterate n=";
+            results.add(Bench.measure(name + n, runs, 5, runs, 1, new Runnable() {
+                @Override
+                public void run() {
+                    colony.iterate();
+                    Bench.sink = colony.getIterationBest().getTourLength();
+                }
+            }));
+        }
+    }
+
+    private static void benchNet(int in, int hidden, int out, List<Bench.Result> results) {
+        final BPNet net = new BPNet(in, hidden, out);
+        final double[] input = new double[in];
+        final double[] output = new double[out];
+        Random random = new Random(5);
+        for (int i = 0; i < in; i++) {
+            input[i] = random.nextDouble();
+        }
+        for (int k = 0; k < out; k++) {
+            output[k] = random.nextDouble();
+        }
+        String size = in + "-" + hidden + "-" + out;
+        int runs = Math.max(2000, 20000000 / (in * hidden + hidden * out));
+        System.out.println("BPNet " + size);
+        results.add(Bench.measure("BPNet.forwardProcess " + size, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                net.forwardProcess(input, output);
+            }
+        }));
+        results.add(Bench.measure("BPNet.forward+backProcess " + size, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                net.forwardProcess(input, output);
+                net.backProcess();
+            }
+        }));
+        results.add(Bench.measure("BPNet.calculate " + size, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                Bench.sink += Double.doubleToLongBits(net.calculate(input)[0]);
+            }
+        }));
+        final BPModel model = net.freeze();
+        final double[] result = new double[out];
+        results.add(Bench.measure("BPModel.calculate " + size, runs, 5, runs, 1, new Runnable() {
+            @Override
+            public void run() {
+                model.calculate(input, result);
+                Bench.sink += Double.doubleToLongBits(result[0]);
+            }
+        }));
+        // 每次运行计算256行，按行计算每次的耗时
+        final int rows = 256;
+        final double[] inputs = new double[rows * in];
+        final double[] outputs = new double[rows * out];
+        for (int x = 0; x < inputs.length; x++) {
+            inputs[x] = random.nextDouble();
+        }
+        results.add(Bench.measure("BPModel.calculateBatch " + size, Math.max(20, runs / rows), 5,
+                Math.max(20, runs / rows), rows, new Runnable() {
+            @Override
+            public void run() {
+                model.calculateBatch(inputs, outputs, rows);
+                Bench.sink += Double.doubleToLongBits(outputs[0]);
+            }
+        }));
+    }
+
+}
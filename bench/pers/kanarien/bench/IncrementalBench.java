@@ -0,0 +1,108 @@
+package pers.kanarien.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.EdgeWeightType;
+import pers.kanarien.aco.LocalSearch;
+import pers.kanarien.aco.MaxMinStrategy;
+import pers.kanarien.aco.TspInstance;
+
+/**
+ * 增量更新与重新求解的比较：先求解n个随机城市，再删除、增加和移动共约1%的城市，
+ * 比较update热启动得到初始路径的耗时，与init冷启动达到同样长度所需的时间
+ * 参数：城市数量 冷启动迭代数，默认为1000个城市、300次迭代
+ * @author Kanarien
+ * @version 1.0
+ */
+public class IncrementalBench {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int maxIteration = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        Random random = new Random(42);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 10000;
+            y[i] = random.nextDouble() * 10000;
+        }
+        TspInstance instance = new TspInstance("random" + n, x, y, EdgeWeightType.EUC_2D);
+
+        // 变化：删除n / 300个城市，移动n / 300个城市，在末尾增加n / 300个城市
+        int changes = Math.max(1, n / 300);
+        int[] previous = new int[n - changes + changes];
+        double[] newX = new double[previous.length];
+        double[] newY = new double[previous.length];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (i % (n / changes) == 0 && i / (n / changes) < changes) {
+                continue; // 删除
+            }
+            previous[size] = i;
+            newX[size] = x[i];
+            newY[size] = y[i];
+            if (i % (n / changes) == 1 && i / (n / changes) < changes) {
+                newX[size] += 100; // 移动
+            }
+            size++;
+        }
+        for (; size < previous.length; size++) {
+            previous[size] = -1;
+            newX[size] = random.nextDouble() * 10000;
+            newY[size] = random.nextDouble() * 10000;
+        }
+        TspInstance changed = new TspInstance("changed" + n, newX, newY, EdgeWeightType.EUC_2D);
+        System.out.println(n + "个城市，删除、移动、增加各" + changes + "个城市");
+
+        // 前几轮用于预热JIT，只看最后一轮
+        for (int round = 1; round <= 3; round++) {
+            System.out.println("第" + round + "轮");
+            run(instance, changed, previous, maxIteration);
+        }
+    }
+
+    private static void run(TspInstance instance, TspInstance changed, int[] previous, int maxIteration) {
+        AntSystem warm = create(maxIteration);
+        warm.init(instance);
+        warm.run();
+        System.out.println("原实例求解完成，最优长度 " + warm.getBestLength());
+
+        // 冷启动：重新初始化并迭代maxIteration次
+        AntSystem cold = create(maxIteration);
+        long begin = System.nanoTime();
+        cold.init(changed);
+        long initNanos = System.nanoTime() - begin;
+        cold.run();
+        long coldNanos = System.nanoTime() - begin;
+        System.out.format("冷启动: init %6.1f ms，迭代 %d 次共 %7.1f ms，最优长度 %d%n", initNanos / 1e6,
+                cold.getIteration(), coldNanos / 1e6, cold.getBestLength());
+
+        // 热启动：增量更新得到的初始路径即可使用，再与冷启动比较达到该长度所需的时间
+        begin = System.nanoTime();
+        warm.update(changed, previous);
+        long updateNanos = System.nanoTime() - begin;
+        int target = warm.getBestLength();
+        cold = create(maxIteration);
+        begin = System.nanoTime();
+        cold.init(changed);
+        while (cold.getBestLength() > target && cold.getIteration() < maxIteration) {
+            cold.iterate();
+        }
+        long targetNanos = System.nanoTime() - begin;
+        System.out.format("热启动: update %6.1f ms，初始长度 %d；冷启动达到该长度需 %7.1f ms（迭代 %d 次）%n",
+                updateNanos / 1e6, target, targetNanos / 1e6, cold.getIteration());
+        Bench.sink += Arrays.hashCode(warm.getBestTour());
+    }
+
+    private static AntSystem create(int maxIteration) {
+        AntSystem aco = new AntSystem(25, maxIteration, 1.0f, 2.0f, 0.2f);
+        aco.setStrategy(new MaxMinStrategy());
+        aco.setCandidateNum(20);
+        aco.setLocalSearch(LocalSearch.TWO_OPT | LocalSearch.OR_OPT);
+        aco.setSeed(1);
+        return aco;
+    }
+
+}
@@ -0,0 +1,59 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.LocalSearch;
+import pers.kanarien.aco.MaxMinStrategy;
+import pers.kanarien.aco.TspInstance;
+import pers.kanarien.aco.TspReader;
+
+/**
+ * 局部搜索节省的时间：MMAS分别不做局部搜索、只做2-opt、做2-opt和Or-opt，
+ * 达到目标路径长度所需的时间和迭代次数
+ * 参数：数据文件 目标长度 时间上限（毫秒），默认为berlin52，目标为最优解7542的101%，上限10秒
+ * @author Kanarien
+ * @version 1.0
+ */
+public class LocalSearchBench {
+
+    public static void main(String[] args) throws IOException {
+        String filename = args.length > 0 ? args[0] : "data/berlin52.txt";
+        int target = args.length > 1 ? Integer.parseInt(args[1]) : (int) (7542 * 1.01);
+        long limitMillis = args.length > 2 ? Long.parseLong(args[2]) : 10000;
+        int runs = 5;
+        TspInstance instance = TspReader.read(new File(filename));
+
+        String[] names = {"无局部搜索", "2-opt", "2-opt + Or-opt"};
+        int[] moves = {0, LocalSearch.TWO_OPT, LocalSearch.TWO_OPT | LocalSearch.OR_OPT};
+        System.out.println(instance.getName() + " 目标长度: " + target + " 时间上限: " + limitMillis + "ms");
+        for (int v = 0; v < names.length; v++) {
+            long totalMillis = 0;
+            long totalIterations = 0;
+            long totalLength = 0;
+            int hits = 0;
+            for (int seed = 0; seed < runs; seed++) {
+                AntSystem aco = new AntSystem(25, Integer.MAX_VALUE, 1.0f, 2.0f, 0.2f);
+                aco.setStrategy(new MaxMinStrategy());
+                aco.setCandidateNum(20);
+                aco.setLocalSearch(moves[v]);
+                aco.setSeed(seed);
+                long begin = System.currentTimeMillis();
+                aco.init(instance);
+                while (aco.getBestLength() > target && System.currentTimeMillis() - begin < limitMillis) {
+                    aco.iterate();
+                }
+                totalMillis += System.currentTimeMillis() - begin;
+                totalIterations += aco.getIteration();
+                totalLength += aco.getBestLength();
+                if (aco.getBestLength() <= target) {
+                    hits++;
+                }
+            }
+            System.out.format("%-16s 达到目标 %d/%d 次，平均耗时 %6d ms，平均迭代 %5d 次，平均最优长度 %d%n", names[v], hits,
+                    runs, totalMillis / runs, totalIterations / runs, totalLength / runs);
+        }
+    }
+
+}
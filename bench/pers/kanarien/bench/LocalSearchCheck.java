@@ -0,0 +1,95 @@
+package pers.kanarien.bench;
+
+import java.util.Random;
+
+import pers.kanarien.aco.CandidateList;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.LocalSearch;
+import pers.kanarien.aco.MatrixDistance;
+
+/**
+ * 局部搜索的自检：对随机实例上的随机路径分别做2-opt、Or-opt和两者组合，检查
+ * 1. 结果仍是首尾相同的排列，返回的长度与重新计算的长度相同
+ * 2. 路径长度不会变长，从随机路径出发时明显缩短
+ * 3. 对已改进的路径再次改进不会变长，返回的长度仍然正确
+ * 4. 城市数量小于5时原样返回
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class LocalSearchCheck {
+
+    public static void main(String[] args) {
+        int[] moves = {LocalSearch.TWO_OPT, LocalSearch.OR_OPT, LocalSearch.TWO_OPT | LocalSearch.OR_OPT};
+        String[] names = {"2-opt", "Or-opt", "2-opt + Or-opt"};
+        for (int n : new int[] {5, 8, 50, 300}) {
+            DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(n, n), true);
+            int[][] neighbours = CandidateList.build(distance, Math.min(n - 1, 15));
+            Random random = new Random(n);
+            for (int v = 0; v < moves.length; v++) {
+                LocalSearch search = new LocalSearch(distance, neighbours, moves[v]);
+                for (int trial = 0; trial < 20; trial++) {
+                    int[] tour = randomTour(n, random);
+                    int before = length(distance, tour);
+                    int after = search.improve(tour, before);
+                    String name = names[v] + " n=" + n + " 第" + trial + "次";
+                    checkTour(distance, tour, after, name);
+                    Check.isTrue(after <= before, name + "：路径变长 " + before + " -> " + after);
+                    if (n >= 50) {
+                        Check.isTrue(after < before / 2, name + "：随机路径没有明显缩短 " + before + " -> " + after);
+                    }
+                    int again = search.improve(tour, after);
+                    checkTour(distance, tour, again, name + " 再次改进");
+                    Check.isTrue(again <= after, name + "：再次改进后变长 " + after + " -> " + again);
+                }
+            }
+        }
+        // 城市数量小于5时不做改进
+        DistanceProvider small = MatrixDistance.of(ChoiceInfoBench.randomCities(4, 4), true);
+        int[] tour = {0, 2, 1, 3, 0};
+        LocalSearch search = new LocalSearch(small, CandidateList.build(small, 3),
+                LocalSearch.TWO_OPT | LocalSearch.OR_OPT);
+        Check.equal(length(small, tour), search.improve(tour, length(small, tour)), "4个城市");
+        Check.equal(new int[] {0, 2, 1, 3, 0}, tour, "4个城市的路径");
+        Check.done("局部搜索");
+    }
+
+    /**
+     * 检查路径是首尾相同的排列，且长度与length相同
+     */
+    static void checkTour(DistanceProvider distance, int[] tour, int length, String name) {
+        int n = distance.size();
+        Check.equal(n + 1, tour.length, name + "：路径长度");
+        Check.equal(tour[0], tour[n], name + "：首尾城市");
+        boolean[] seen = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Check.isTrue(tour[i] >= 0 && tour[i] < n && !seen[tour[i]], name + "：城市重复或越界 " + tour[i]);
+            seen[tour[i]] = true;
+        }
+        Check.equal(length(distance, tour), length, name + "：返回的长度与重新计算的不同");
+    }
+
+    static int length(DistanceProvider distance, int[] tour) {
+        int length = 0;
+        for (int i = 0; i < tour.length - 1; i++) {
+            length += distance.distance(tour[i], tour[i + 1]);
+        }
+        return length;
+    }
+
+    private static int[] randomTour(int n, Random random) {
+        int[] tour = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            tour[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = tour[i];
+            tour[i] = tour[j];
+            tour[j] = t;
+        }
+        tour[n] = tour[0];
+        return tour;
+    }
+
+}
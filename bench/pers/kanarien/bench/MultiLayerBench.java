@@ -0,0 +1,116 @@
+package pers.kanarien.bench;
+
+import java.util.Random;
+
+import pers.kanarien.bpnet.Activation;
+import pers.kanarien.bpnet.AdamOptimizer;
+import pers.kanarien.bpnet.ArraySamples;
+import pers.kanarien.bpnet.BPNet;
+import pers.kanarien.bpnet.MultiLayerNet;
+import pers.kanarien.bpnet.SampleSource;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 单隐层BPNet与多层网络达到目标误差所需的轮数和时间，每轮把全部样本训练一遍，误差为样本集上平均的平方和误差的一半
+ * 1. y = x^2 - x，x取1到100，与BPNet.train相同，输入和输出都除以10000
+ * 2. 8维回归：y = (sin(x0 + x1) + x2 * x3 - x4^2 + cos(x5 - x6 * x7)) / 4，x在[0, 1]内均匀分布，2048个样本
+ * 多层网络用Adam，第1项输入很小，学习速率取0.01，第2项取默认的0.001
+ * 参数：[最大轮数，默认5000]
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MultiLayerBench {
+
+    public static void main(String[] args) {
+        long maxEpoch = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+
+        double[] xs = new double[100];
+        double[] ys = new double[100];
+        for (int s = 0; s < 100; s++) {
+            double x = s + 1;
+            xs[s] = x / 10000.0;
+            ys[s] = (x * x - x) / 10000.0;
+        }
+        SampleSource square = new ArraySamples(1, 1, xs, ys);
+        compare("y = x^2 - x", square, 10, 5e-5, maxEpoch, new int[] {16, 16}, 0.01);
+
+        Random random = new Random(1);
+        int n = 2048;
+        double[] inputs = new double[n * 8];
+        double[] outputs = new double[n];
+        for (int s = 0; s < n; s++) {
+            double[] x = new double[8];
+            for (int i = 0; i < 8; i++) {
+                x[i] = random.nextDouble();
+                inputs[s * 8 + i] = x[i];
+            }
+            outputs[s] = (Math.sin(x[0] + x[1]) + x[2] * x[3] - x[4] * x[4] + Math.cos(x[5] - x[6] * x[7])) / 4;
+        }
+        compare("8维回归", new ArraySamples(8, 1, inputs, outputs), 10, 2e-5, Math.min(maxEpoch, 500),
+                new int[] {64, 64}, 0.001);
+    }
+
+    /**
+     * 分别训练BPNet（单隐层，逐个样本修正）和多层网络（Adam，小批量，隐层分别用TANH和FAST_TANH），
+     * 直到平均误差不超过target
+     */
+    private static void compare(String name, SampleSource source, int batchSize, double target, long maxEpoch,
+            int[] hidden, double rate) {
+        int in = source.getInputNum();
+        int out = source.getOutputNum();
+        System.out.println(name + "，" + source.size() + "个样本，目标误差 " + target);
+
+        BPNet bp = new BPNet(in, hidden[0], out, 1);
+        bp.setListener(MetricsListener.NONE);
+        long begin = System.nanoTime();
+        long epoch = 0;
+        double loss = Double.MAX_VALUE;
+        while (epoch < maxEpoch && loss > target) {
+            bp.train(source, 1, 1, false);
+            epoch++;
+            loss = evaluate(bp, source);
+        }
+        report("BPNet " + in + "-" + hidden[0] + "-" + out, epoch, loss, begin);
+
+        for (Activation activation : new Activation[] {Activation.TANH, Activation.FAST_TANH}) {
+            MultiLayerNet net = new MultiLayerNet(in, 1);
+            net.setListener(MetricsListener.NONE);
+            net.setOptimizer(new AdamOptimizer(rate));
+            StringBuilder shape = new StringBuilder().append(in);
+            for (int size : hidden) {
+                net.addLayer(size, activation);
+                shape.append('-').append(size);
+            }
+            net.addLayer(out, Activation.IDENTITY);
+            shape.append('-').append(out).append(' ').append(activation);
+            begin = System.nanoTime();
+            epoch = 0;
+            loss = Double.MAX_VALUE;
+            while (epoch < maxEpoch && loss > target) {
+                net.train(source, batchSize, 1, false);
+                epoch++;
+                loss = net.evaluate(source, 256);
+            }
+            report("MultiLayerNet " + shape, epoch, loss, begin);
+        }
+    }
+
+    private static double evaluate(BPNet net, SampleSource source) {
+        double[] input = new double[source.getInputNum()];
+        double[] output = new double[source.getOutputNum()];
+        double loss = 0;
+        for (int s = 0; s < source.size(); s++) {
+            source.read(s, input, 0, output, 0);
+            double[] result = net.calculate(input);
+            for (int k = 0; k < output.length; k++) {
+                loss += (result[k] - output[k]) * (result[k] - output[k]) / 2.0;
+            }
+        }
+        return loss / source.size();
+    }
+
+    private static void report(String name, long epoch, double loss, long begin) {
+        System.out.format("%-36s %6d 轮，误差 %.3g，耗时 %6d ms%n", name, epoch, loss, (System.nanoTime() - begin) / 1000000);
+    }
+
+}
@@ -0,0 +1,91 @@
+package pers.kanarien.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import pers.kanarien.aco.AcoStrategy;
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.ColonySystemStrategy;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.MatrixDistance;
+import pers.kanarien.aco.MaxMinStrategy;
+import pers.kanarien.aco.RankBasedStrategy;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 并行与串行结果相同的自检：同一种子分别不设线程池、使用不同并行度的ForkJoinPool和固定大小的线程池运行，
+ * 每次迭代后的信息素矩阵按位相同，最优长度相同
+ * 城市数量足够大，使挥发、限制上下限和刷新选择权值都超过并行的阈值而按条并行，释放总是串行；
+ * 稠密存储和对称存储都检查，线程池的并行度在两次运行之间变化时需重新分条；
+ * 启发信息和选择权值只存储候选边时，串行和并行的结果也与n * n矩阵按位相同
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class PheromoneParallelCheck {
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(400, 1), false);
+        ExecutorService[] pools = {new ForkJoinPool(3), Executors.newFixedThreadPool(4), new ForkJoinPool(2)};
+        String[] poolNames = {"ForkJoinPool(3)", "FixedThreadPool(4)", "ForkJoinPool(2)"};
+        String[] names = {"AS", "MMAS", "Rank", "ACS"};
+        try {
+            for (boolean symmetric : new boolean[] {false, true}) {
+                for (int v = 0; v < names.length; v++) {
+                    String name = names[v] + (symmetric ? " 对称存储" : " 稠密存储");
+                    float[][] expected = run(distance, v, symmetric, false, null);
+                    for (int p = -1; p < pools.length; p++) {
+                        // p为-1时不设线程池，只检查只存储候选边的运行
+                        for (boolean candidateStorage : new boolean[] {false, true}) {
+                            if (p < 0 && !candidateStorage) {
+                                continue;
+                            }
+                            String runName = name + " " + (p < 0 ? "串行" : poolNames[p])
+                                    + (candidateStorage ? " 只存储候选边" : "");
+                            float[][] actual = run(distance, v, symmetric, candidateStorage, p < 0 ? null : pools[p]);
+                            for (int k = 0; k < ITERATIONS; k++) {
+                                Check.equal(expected[k], actual[k], runName + "：第" + (k + 1) + "次迭代后的信息素");
+                            }
+                            Check.equal(expected[ITERATIONS], actual[ITERATIONS], runName + "：最优长度");
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (ExecutorService pool : pools) {
+                pool.shutdown();
+            }
+        }
+        Check.done("信息素并行更新");
+    }
+
+    /**
+     * @return 每次迭代后信息素矩阵的副本，最后一行为最优长度
+     */
+    private static float[][] run(DistanceProvider distance, int variant, boolean symmetric, boolean candidateStorage,
+            ExecutorService executor) {
+        AcoStrategy[] strategies = {new AntSystemStrategy(), new MaxMinStrategy(), new RankBasedStrategy(),
+                new ColonySystemStrategy()};
+        AntSystem system = new AntSystem(200, ITERATIONS, 1.0f, 2.0f, 0.1f);
+        system.setStrategy(strategies[variant]);
+        system.setSymmetricStorage(symmetric);
+        system.setCandidateStorage(candidateStorage);
+        system.setCandidateNum(15);
+        system.setSeed(1);
+        system.setListener(MetricsListener.NONE);
+        system.setExecutor(executor);
+        system.init(distance);
+        float[][] result = new float[ITERATIONS + 1][];
+        for (int k = 0; k < ITERATIONS; k++) {
+            system.iterate();
+            result[k] = system.getPheromone().data().clone();
+        }
+        result[ITERATIONS] = new float[] {system.getBestLength()};
+        return result;
+    }
+
+}
@@ -0,0 +1,76 @@
+package pers.kanarien.bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.MatrixDistance;
+import pers.kanarien.metrics.IterationMetrics;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 原始蚂蚁系统（所有蚂蚁都释放信息素）一次迭代中构造路径与更新信息素的耗时，
+ * 更新信息素包括挥发、所有蚂蚁按路径释放和刷新选择权值矩阵，分别在单线程和线程池中运行
+ * 矩阵使用对称存储，蚂蚁使用长度为20的候选列表
+ * 参数：[蚂蚁数量，默认100] [城市数量...，默认1000 2000 5000]
+ * @author Kanarien
+ * @version 1.0
+ */
+public class PheromoneUpdateBench {
+
+    public static void main(String[] args) {
+        int antNum = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int[] cityNums = {1000, 2000, 5000};
+        if (args.length > 1) {
+            cityNums = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                cityNums[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("蚂蚁数量" + antNum + "，CPU核数" + cores);
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        try {
+            for (int n : cityNums) {
+                DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(n, 1), true);
+                for (boolean parallel : new boolean[] {false, true}) {
+                    run(distance, antNum, parallel ? pool : null, parallel ? cores + "个线程" : "单线程");
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void run(DistanceProvider distance, int antNum, ForkJoinPool pool, String name) {
+        int n = distance.size();
+        final long[] nanos = new long[2]; // 构造路径和更新信息素的累计耗时
+        final int warmup = 2;
+        AntSystem system = new AntSystem(antNum, Integer.MAX_VALUE, 1.0f, 2.0f, 0.5f);
+        system.setStrategy(new AntSystemStrategy());
+        system.setSymmetricStorage(true);
+        system.setCandidateNum(20);
+        system.setSeed(1);
+        system.setExecutor(pool);
+        system.setListener(new MetricsListener() {
+            @Override
+            public void onIteration(IterationMetrics metrics) {
+                if (metrics.getIteration() > warmup) {
+                    nanos[0] += metrics.getConstructionNanos();
+                    nanos[1] += metrics.getPheromoneNanos();
+                }
+            }
+        });
+        system.init(distance);
+        int iterations = Math.max(3, 20000000 / (n * antNum));
+        for (int i = 0; i < warmup + iterations; i++) {
+            system.iterate();
+        }
+        double construction = nanos[0] / 1e6 / iterations;
+        double update = nanos[1] / 1e6 / iterations;
+        System.out.format("n=%-5d %-8s 构造路径 %9.2f ms，更新信息素 %8.2f ms，更新占迭代的 %5.1f%%%n", n, name,
+                construction, update, 100 * update / (construction + update));
+    }
+
+}
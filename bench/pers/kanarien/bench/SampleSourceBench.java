@@ -0,0 +1,73 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import pers.kanarien.bpnet.ArraySamples;
+import pers.kanarien.bpnet.BPNet;
+import pers.kanarien.bpnet.GeneratedSamples;
+import pers.kanarien.bpnet.MappedSamples;
+import pers.kanarien.bpnet.SampleSource;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 三种样本来源的训练吞吐量，单位为每秒样本数，分别在预读和不预读时测量：
+ * 1. ArraySamples：内存中的一维数组
+ * 2. MappedSamples：内存映射的样本文件，由ArraySamples写出
+ * 3. GeneratedSamples：即时生成
+ * 参数：[样本数量，默认65536] [批大小，默认64]，网络为16-256-4
+ * @author Kanarien
+ * @version 1.0
+ */
+public class SampleSourceBench {
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 65536;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final int in = 16;
+        final int out = 4;
+        Random random = new Random(1);
+        double[] inputs = new double[n * in];
+        double[] outputs = new double[n * out];
+        for (int x = 0; x < inputs.length; x++) {
+            inputs[x] = random.nextDouble();
+        }
+        for (int x = 0; x < outputs.length; x++) {
+            outputs[x] = random.nextDouble();
+        }
+        File file = File.createTempFile("samples", ".bin");
+        file.deleteOnExit();
+        SampleSource[] sources = {
+            new ArraySamples(in, out, inputs, outputs),
+            MappedSamples.build(file, new ArraySamples(in, out, inputs, outputs)),
+            new GeneratedSamples(in, out, n, 2, new GeneratedSamples.Generator() {
+                @Override
+                public void generate(Random random, double[] inputs, int inOffset, double[] outputs, int outOffset) {
+                    for (int i = 0; i < in; i++) {
+                        inputs[inOffset + i] = random.nextDouble();
+                    }
+                    for (int k = 0; k < out; k++) {
+                        outputs[outOffset + k] = random.nextDouble();
+                    }
+                }
+            })
+        };
+        String[] names = {"ArraySamples", "MappedSamples", "GeneratedSamples"};
+        System.out.println(in + "-256-" + out + "，" + n + "个样本，批大小" + batchSize);
+        for (int v = 0; v < sources.length; v++) {
+            for (boolean prefetch : new boolean[] {false, true}) {
+                BPNet net = new BPNet(in, 256, out, 3);
+                net.setListener(MetricsListener.NONE);
+                net.train(sources[v], batchSize, 1, prefetch); // 预热
+                long begin = System.nanoTime();
+                int epochs = 3;
+                net.train(sources[v], batchSize, epochs, prefetch);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                System.out.format("%-18s %-6s 每秒样本数 %.0f%n", names[v], prefetch ? "预读" : "不预读",
+                        (double) n * epochs / seconds);
+            }
+        }
+    }
+
+}
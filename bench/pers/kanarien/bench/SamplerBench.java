@@ -0,0 +1,64 @@
+package pers.kanarien.bench;
+
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.MatrixDistance;
+import pers.kanarien.aco.Sampler;
+import pers.kanarien.metrics.IterationMetrics;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 各采样方法按城市数量的比较：构造路径时每选择一个城市的平均耗时，以及固定迭代数后的最优长度
+ * 分别在全部未访问城市中选择和只在20近邻候选列表中选择，别名表只在使用候选列表时与累积权值不同
+ * 原始蚂蚁系统，10只蚂蚁，单线程，矩阵使用对称存储
+ * 参数：[城市数量...，默认100 1000 5000]
+ * @author Kanarien
+ * @version 1.0
+ */
+public class SamplerBench {
+
+    public static void main(String[] args) {
+        int[] cityNums = {100, 1000, 5000};
+        if (args.length > 0) {
+            cityNums = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                cityNums[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int n : cityNums) {
+            DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(n, 1), true);
+            System.out.println("cityNum = " + n);
+            for (int candidateNum : new int[] {0, 20}) {
+                for (Sampler sampler : new Sampler[] {Sampler.cumulative(), Sampler.exponentialRace(), Sampler.alias()}) {
+                    run(distance, candidateNum, sampler);
+                }
+            }
+        }
+    }
+
+    private static void run(DistanceProvider distance, int candidateNum, Sampler sampler) {
+        int n = distance.size();
+        int antNum = 10;
+        final int warmup = 3;
+        final long[] nanos = new long[1]; // 预热之后构造路径的累计耗时
+        int iterations = Math.max(5, 5000000 / (n * antNum) / (candidateNum > 0 ? 1 : Math.max(1, n / 100)));
+        AntSystem system = new AntSystem(antNum, warmup + iterations, 1.0f, 2.0f, 0.5f);
+        system.setSymmetricStorage(true);
+        system.setCandidateNum(candidateNum);
+        system.setSampler(sampler);
+        system.setSeed(1);
+        system.setListener(new MetricsListener() {
+            @Override
+            public void onIteration(IterationMetrics metrics) {
+                if (metrics.getIteration() > warmup) {
+                    nanos[0] += metrics.getConstructionNanos();
+                }
+            }
+        });
+        system.init(distance);
+        system.run();
+        System.out.format("  %-8s %-6s 每次选择 %8.1f ns，最优长度 %d%n", candidateNum > 0 ? "候选列表" : "全部城市",
+                sampler.getName(), (double) nanos[0] / iterations / antNum / (n - 1), system.getBestLength());
+    }
+
+}
@@ -0,0 +1,175 @@
+package pers.kanarien.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import pers.kanarien.aco.Ant;
+import pers.kanarien.aco.CoordinateDistance;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.FloatMatrix;
+import pers.kanarien.aco.Sampler;
+
+/**
+ * 采样方法的自检，只通过Ant.selectNextCity抽取：
+ * 1. 蚂蚁从随机的起始城市走两步，按(当前城市, 选中城市)统计频数；每次抽取的期望为选中城市的权值
+ *    占当前城市可选城市权值之和的比例，频数与期望之和相差不超过5个标准差，权值为0或已访问的城市不会被选中
+ * 2. 使用候选列表时第二步的候选列表中包含已访问的起始城市，且已访问城市的权值较大，
+ *    别名表重抽后的分布仍与未访问候选城市的权值成比例，与累积权值和指数竞赛相同
+ * 3. 修改一行的权值并调用Sampler.update后分布随之改变
+ * 4. 权值全为0时蚂蚁仍能走完一条合法的路径
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class SamplerCheck {
+
+    private static final int N = 12; // 城市数量
+    private static final int CANDIDATE_NUM = 6; // 候选列表长度
+    private static final int DRAWS = 100000; // 每项检查中蚂蚁的出发次数，每次抽取两步
+    private static final int[] ALL = new int[N]; // 不使用候选列表时的可选城市
+
+    static {
+        for (int i = 0; i < N; i++) {
+            ALL[i] = i;
+        }
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        double[] x = new double[N];
+        double[] y = new double[N];
+        for (int i = 0; i < N; i++) {
+            x[i] = random.nextInt(1000);
+            y[i] = random.nextInt(1000);
+        }
+        DistanceProvider distance = new CoordinateDistance(x, y);
+        FloatMatrix choiceInfo = FloatMatrix.dense(N);
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                // 约五分之一的权值为0，其余的数量级相差较大
+                float w = i == j || random.nextInt(5) == 0 ? 0.f : (float) Math.exp(4 * random.nextGaussian());
+                choiceInfo.set(i, j, w);
+            }
+        }
+        // 每个城市的候选列表为随机的CANDIDATE_NUM个其他城市，其中的城市权值都加大，
+        // 使第二步时已访问的起始城市经常占候选列表权值的大部分，别名表经常抽到已访问城市而重抽
+        int[][] candidates = new int[N][CANDIDATE_NUM];
+        for (int i = 0; i < N; i++) {
+            int m = 0;
+            while (m < CANDIDATE_NUM) {
+                int j = random.nextInt(N);
+                if (j != i && indexOf(candidates[i], m, j) < 0) {
+                    candidates[i][m++] = j;
+                    choiceInfo.set(i, j, choiceInfo.get(i, j) * 50.f);
+                }
+            }
+        }
+        Sampler[] samplers = {Sampler.cumulative(), Sampler.exponentialRace(), Sampler.alias()};
+
+        for (Sampler sampler : samplers) {
+            sampler.prepare(choiceInfo, null);
+            check(sampler, choiceInfo, null, distance, sampler.getName() + " 所有城市");
+        }
+        for (Sampler sampler : samplers) {
+            sampler.prepare(choiceInfo, candidates);
+            check(sampler, choiceInfo, candidates, distance, sampler.getName() + " 候选列表");
+        }
+        // 按原权值建表后修改一行的权值，update只重建这一行的表
+        int row = 5;
+        choiceInfo.set(row, candidates[row][0], 0.f);
+        choiceInfo.set(row, candidates[row][1], 1000.f);
+        choiceInfo.set(row, candidates[row][2], 1e-3f);
+        for (Sampler sampler : samplers) {
+            sampler.prepare(choiceInfo, candidates);
+            choiceInfo.set(row, candidates[row][3], choiceInfo.get(row, candidates[row][3]) + 300.f);
+            sampler.update(choiceInfo, row);
+            check(sampler, choiceInfo, candidates, distance, sampler.getName() + " 候选列表（update后）");
+            choiceInfo.set(row, candidates[row][3], choiceInfo.get(row, candidates[row][3]) - 300.f);
+        }
+
+        // 权值全为0时采样方法返回-1，蚂蚁退回到未访问城市中权值最大的城市，仍应走完合法的路径
+        FloatMatrix zero = FloatMatrix.dense(N);
+        for (Sampler sampler : samplers) {
+            for (int[][] list : new int[][][] {null, candidates}) {
+                sampler.prepare(zero, list);
+                Ant ant = new Ant(N, 3);
+                ant.setSampler(sampler);
+                ant.setCandidates(list);
+                ant.init(distance);
+                ant.buildTour(zero);
+                boolean[] seen = new boolean[N];
+                int[] tabu = ant.getTabu();
+                for (int k = 0; k < N; k++) {
+                    Check.isTrue(!seen[tabu[k]], sampler.getName() + "：权值全为0时重复访问城市" + tabu[k]);
+                    seen[tabu[k]] = true;
+                }
+            }
+        }
+        Check.done("采样方法");
+    }
+
+    /**
+     * 蚂蚁出发DRAWS次，每次走两步，检查每个(当前城市, 选中城市)的频数与期望之和相差不超过5个标准差
+     * @param candidates 为null时在所有未访问城市中选择
+     */
+    private static void check(Sampler sampler, FloatMatrix choiceInfo, int[][] candidates,
+            DistanceProvider distance, String name) {
+        int[][] counts = new int[N][N];
+        double[][] expected = new double[N][N];
+        double[][] variance = new double[N][N];
+        boolean[] visited = new boolean[N];
+        Ant ant = new Ant(N, 7);
+        ant.setSampler(sampler);
+        ant.setCandidates(candidates);
+        for (int t = 0; t < DRAWS; t++) {
+            ant.init(distance);
+            Arrays.fill(visited, false);
+            visited[ant.getFirstCity()] = true;
+            for (int step = 0; step < 2; step++) {
+                int from = ant.getCurrentCity();
+                int[] cities = candidates != null ? candidates[from] : ALL;
+                double sum = 0.0;
+                for (int city : cities) {
+                    if (!visited[city]) {
+                        sum += choiceInfo.get(from, city);
+                    }
+                }
+                ant.selectNextCity(choiceInfo);
+                int city = ant.getCurrentCity();
+                Check.isTrue(!visited[city], name + "：选中了已访问的城市" + city);
+                visited[city] = true;
+                if (!(sum > 0.0)) {
+                    // 可选城市的权值全为0时不是按权值抽取，不计入统计
+                    continue;
+                }
+                counts[from][city]++;
+                for (int c : cities) {
+                    double p = visited[c] && c != city ? 0.0 : choiceInfo.get(from, c) / sum;
+                    expected[from][c] += p;
+                    variance[from][c] += p * (1 - p);
+                }
+            }
+        }
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (expected[i][j] == 0.0) {
+                    Check.equal(0, counts[i][j], name + "：权值为0或已访问的城市" + j + "从" + i + "被选中");
+                    continue;
+                }
+                Check.isTrue(Math.abs(counts[i][j] - expected[i][j]) <= 5 * Math.sqrt(variance[i][j]) + 1,
+                        name + "：从" + i + "到" + j + "的频数 " + counts[i][j] + " 与期望 " + expected[i][j]
+                        + " 相差过大");
+            }
+        }
+    }
+
+    private static int indexOf(int[] row, int length, int city) {
+        for (int k = 0; k < length; k++) {
+            if (row[k] == city) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+}
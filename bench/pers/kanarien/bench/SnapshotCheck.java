@@ -0,0 +1,183 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import pers.kanarien.aco.AcoStrategy;
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemSnapshot;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.ColonySystemStrategy;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.LocalSearch;
+import pers.kanarien.aco.MatrixDistance;
+import pers.kanarien.aco.MaxMinStrategy;
+import pers.kanarien.aco.RankBasedStrategy;
+import pers.kanarien.aco.Sampler;
+import pers.kanarien.bpnet.BPModel;
+import pers.kanarien.bpnet.BPNet;
+import pers.kanarien.bpnet.BPNetSnapshot;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 中断恢复的自检：不中断地运行2k步，与运行k步、写入快照文件、读取后在新建的对象上恢复、再运行k步相比，
+ * 最终快照文件的每个字节都相同，即信息素、最优路径、计数器、随机数状态或者权值和动量历史完全一致
+ * 1. AntSystem：四种变种，以及候选列表、别名表和局部搜索的组合
+ * 2. BPNet：单线程和多个工作者，BPModel.load读取的模型与freeze的输出相同
+ * 3. 规模不一致的快照被拒绝
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class SnapshotCheck {
+
+    private static final int STEPS = 30; // 中断前后各运行的迭代数或者批数
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("snapshot").toFile();
+        try {
+            checkAntSystem(dir);
+            checkBPNet(dir);
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+        Check.done("中断恢复");
+    }
+
+    private static void checkAntSystem(File dir) throws IOException {
+        final DistanceProvider distance = MatrixDistance.of(ChoiceInfoBench.randomCities(60, 1), false);
+        String[] names = {"AS", "MMAS", "ACS", "Rank", "MMAS + 候选列表 + 别名表 + 局部搜索"};
+        for (int v = 0; v < names.length; v++) {
+            File reference = new File(dir, "aco-reference.bin");
+            File resumed = new File(dir, "aco-resumed.bin");
+            File middle = new File(dir, "aco-middle.bin");
+            AntSystem uninterrupted = createAntSystem(v, 1);
+            uninterrupted.init(distance);
+            for (int k = 0; k < 2 * STEPS; k++) {
+                uninterrupted.iterate();
+            }
+            uninterrupted.snapshot().write(reference);
+
+            AntSystem first = createAntSystem(v, 1);
+            first.init(distance);
+            for (int k = 0; k < STEPS; k++) {
+                first.iterate();
+            }
+            first.snapshot().write(middle);
+            // 新建的系统用不同的种子，恢复后随机数状态应来自快照
+            AntSystem second = createAntSystem(v, 2);
+            second.init(distance);
+            AntSystemSnapshot snapshot = AntSystemSnapshot.read(middle);
+            Check.equal(STEPS, snapshot.getIteration(), names[v] + "：快照中的迭代数");
+            second.restore(snapshot);
+            for (int k = 0; k < STEPS; k++) {
+                second.iterate();
+            }
+            second.snapshot().write(resumed);
+            Check.equal(uninterrupted.getBestLength(), second.getBestLength(), names[v] + "：最优长度");
+            Check.equal(uninterrupted.getBestTour(), second.getBestTour(), names[v] + "：最优路径");
+            Check.isTrue(Arrays.equals(Files.readAllBytes(reference.toPath()), Files.readAllBytes(resumed.toPath())),
+                    names[v] + "：恢复后的快照与不中断运行的不同");
+        }
+        final AntSystem other = createAntSystem(0, 1);
+        other.init(MatrixDistance.of(ChoiceInfoBench.randomCities(61, 1), false));
+        final AntSystemSnapshot snapshot = AntSystemSnapshot.read(new File(dir, "aco-middle.bin"));
+        Check.fails(IllegalArgumentException.class, new Check.Action() {
+            @Override
+            public void run() {
+                other.restore(snapshot);
+            }
+        }, "城市数量不同的快照");
+    }
+
+    private static AntSystem createAntSystem(int variant, long seed) {
+        AcoStrategy[] strategies = {new AntSystemStrategy(), new MaxMinStrategy(), new ColonySystemStrategy(),
+                new RankBasedStrategy(), new MaxMinStrategy()};
+        AntSystem system = new AntSystem(variant == 2 ? 10 : 20, Integer.MAX_VALUE, 1.0f, 2.0f,
+                variant == 1 || variant == 4 ? 0.02f : 0.1f);
+        system.setStrategy(strategies[variant]);
+        system.setSeed(seed);
+        system.setListener(MetricsListener.NONE);
+        if (variant == 4) {
+            system.setCandidateNum(10);
+            system.setSampler(Sampler.alias());
+            system.setLocalSearch(LocalSearch.TWO_OPT | LocalSearch.OR_OPT);
+        }
+        return system;
+    }
+
+    private static void checkBPNet(File dir) throws IOException {
+        int in = 6;
+        int hidden = 24;
+        int out = 2;
+        int batchSize = 32;
+        // 每批的样本只由批号决定，中断前后使用同样的样本序列
+        double[][] inputs = new double[2 * STEPS][batchSize * in];
+        double[][] outputs = new double[2 * STEPS][batchSize * out];
+        Random random = new Random(3);
+        for (int b = 0; b < 2 * STEPS; b++) {
+            for (int i = 0; i < inputs[b].length; i++) {
+                inputs[b][i] = random.nextDouble();
+            }
+            for (int i = 0; i < outputs[b].length; i++) {
+                outputs[b][i] = random.nextDouble();
+            }
+        }
+        for (int workerNum : new int[] {1, 3}) {
+            String name = "BPNet " + workerNum + "个工作者";
+            File reference = new File(dir, "net-reference.bin");
+            File resumed = new File(dir, "net-resumed.bin");
+            File middle = new File(dir, "net-middle.bin");
+            BPNet uninterrupted = new BPNet(in, hidden, out, 1);
+            uninterrupted.setExecutor(null, workerNum);
+            double lastError = 0;
+            for (int b = 0; b < 2 * STEPS; b++) {
+                lastError = uninterrupted.trainBatch(inputs[b], outputs[b], batchSize);
+            }
+            uninterrupted.snapshot().write(reference);
+
+            BPNet first = new BPNet(in, hidden, out, 1);
+            first.setExecutor(null, workerNum);
+            for (int b = 0; b < STEPS; b++) {
+                first.trainBatch(inputs[b], outputs[b], batchSize);
+            }
+            first.snapshot().write(middle);
+            BPNet second = new BPNet(in, hidden, out, 2);
+            second.setExecutor(null, workerNum);
+            second.restore(BPNetSnapshot.read(middle));
+            double resumedError = 0;
+            for (int b = STEPS; b < 2 * STEPS; b++) {
+                resumedError = second.trainBatch(inputs[b], outputs[b], batchSize);
+            }
+            second.snapshot().write(resumed);
+            Check.equal(lastError, resumedError, name + "：最后一批的误差");
+            Check.isTrue(Arrays.equals(Files.readAllBytes(reference.toPath()), Files.readAllBytes(resumed.toPath())),
+                    name + "：恢复后的快照与不中断训练的不同");
+
+            // 直接映射快照文件得到的模型与freeze的输出相同
+            double[] expected = new double[batchSize * out];
+            double[] actual = new double[batchSize * out];
+            uninterrupted.freeze().calculateBatch(inputs[0], expected, batchSize);
+            BPModel.load(reference).calculateBatch(inputs[0], actual, batchSize);
+            Check.equal(expected, actual, name + "：BPModel.load的输出");
+        }
+        final BPNet other = new BPNet(in, hidden + 1, out, 1);
+        final BPNetSnapshot snapshot = BPNetSnapshot.read(new File(dir, "net-middle.bin"));
+        Check.fails(IllegalArgumentException.class, new Check.Action() {
+            @Override
+            public void run() {
+                other.restore(snapshot);
+            }
+        }, "隐层规模不同的快照");
+    }
+
+}
@@ -0,0 +1,94 @@
+package pers.kanarien.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import pers.kanarien.aco.EdgeWeightType;
+import pers.kanarien.aco.ParameterSweep;
+import pers.kanarien.aco.TspInstance;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 逐次减半与所有配置都跑满迭代数的比较：同样的随机配置和实例，输出总耗时、排名第一的配置及其平均相对差距
+ * 差距以两种方式中各实例的最短平均长度为准，使两者可以直接比较
+ * 参数：[-n 随机配置数，默认27] [-i 最大迭代数，默认180] [-p 并行度] [城市数量...，默认100 200]
+ * @author Kanarien
+ * @version 1.0
+ */
+public class SweepBench {
+
+    public static void main(String[] args) {
+        int count = 27;
+        int maxIteration = 180;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int[] cityNums = {100, 200};
+        int num = 0;
+        int[] parsed = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-n")) {
+                count = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-i")) {
+                maxIteration = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-p")) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else {
+                parsed[num++] = Integer.parseInt(args[i]);
+            }
+        }
+        if (num > 0) {
+            cityNums = Arrays.copyOf(parsed, num);
+        }
+        List<TspInstance> instances = new ArrayList<TspInstance>();
+        for (int n : cityNums) {
+            instances.add(randomInstance(n, n));
+        }
+        List<ParameterSweep.Config> configs = ParameterSweep.random(count, 1, new float[] {0.5f, 2},
+                new float[] {1, 6}, new float[] {0.02f, 0.8f}, new int[] {5, 50});
+        String[] names = {"逐次减半", "全部跑满"};
+        List<List<ParameterSweep.Result>> results = new ArrayList<List<ParameterSweep.Result>>();
+        double[] seconds = new double[2];
+        for (int k = 0; k < 2; k++) {
+            ParameterSweep sweep = new ParameterSweep(parallelism);
+            sweep.setListener(MetricsListener.NONE);
+            sweep.setHalving(k == 0 ? Math.max(1, maxIteration / 9) : maxIteration, maxIteration, 3);
+            sweep.setSeed(1);
+            long begin = System.nanoTime();
+            results.add(sweep.run(instances, configs));
+            seconds[k] = (System.nanoTime() - begin) / 1e9;
+        }
+        // 两种方式中各实例的最短平均长度
+        double[] best = new double[instances.size()];
+        Arrays.fill(best, Double.MAX_VALUE);
+        for (List<ParameterSweep.Result> list : results) {
+            for (ParameterSweep.Result result : list) {
+                for (int i = 0; i < best.length; i++) {
+                    best[i] = Math.min(best[i], result.getMeanLength(i));
+                }
+            }
+        }
+        System.out.println("配置数 " + count + "，实例 " + Arrays.toString(cityNums) + "，最大迭代数 " + maxIteration);
+        for (int k = 0; k < 2; k++) {
+            ParameterSweep.Result top = results.get(k).get(0);
+            double gap = 0;
+            for (int i = 0; i < best.length; i++) {
+                gap += (top.getMeanLength(i) - best[i]) / best[i] / best.length;
+            }
+            System.out.format("%s：总耗时 %.2f s，第一名 %s，平均差距 %.2f%%%n", names[k], seconds[k], top.getConfig(),
+                    gap * 100);
+        }
+    }
+
+    private static TspInstance randomInstance(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextInt(10000);
+            y[i] = random.nextInt(10000);
+        }
+        return new TspInstance("random" + n, x, y, EdgeWeightType.EUC_2D);
+    }
+
+}
@@ -0,0 +1,275 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.TspInstance;
+import pers.kanarien.aco.TspReader;
+
+/**
+ * TspReader的自检，在临时目录中生成文件后读取：
+ * 1. 随机生成各种写法的数（符号、前导零、小数点位置、指数、超过15位有效数字），
+ *    作为坐标读取后与Double.parseDouble的结果按位相同
+ * 2. EXPLICIT的各种EDGE_WEIGHT_FORMAT按TSPLIB的定义写出同一个矩阵，读取后的距离与原矩阵相同，
+ *    不对称的FULL_MATRIX实例不能用于初始化蚁群
+ * 3. NODE_COORD_SECTION读取的坐标与写入的相同
+ * 4. 格式错误的文件都抛出IOException，包括DIMENSION不是数、DIMENSION过大和数字格式错误
+ * 失败时抛出AssertionError
+ * @author Kanarien
+ * @version 1.0
+ */
+public class TspReaderCheck {
+
+    private static final String[] FORMATS = {"FULL_MATRIX", "UPPER_ROW", "LOWER_ROW", "UPPER_DIAG_ROW",
+            "LOWER_DIAG_ROW", "UPPER_COL", "LOWER_COL", "UPPER_DIAG_COL", "LOWER_DIAG_COL"};
+
+    private static File dir;
+
+    public static void main(String[] args) throws IOException {
+        dir = File.createTempFile("tsp", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("无法创建临时目录: " + dir);
+        }
+        try {
+            checkNumbers();
+            checkExplicit();
+            checkNodeCoords();
+            checkErrors();
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+        Check.done("TspReader");
+    }
+
+    /**
+     * 随机写法的数作为坐标读取，与Double.parseDouble按位比较
+     */
+    private static void checkNumbers() throws IOException {
+        Random random = new Random(1);
+        String[] special = {"0", "-0", "+0.0", "1.", ".5", "-.25", "007", "0.1", "1e22", "1e23", "9007199254740993",
+                "123456789012345678901234567890", "0.000000000000000000000001", "1E-5", "2.5e+3", "4.9e-324",
+                "1.7976931348623157e308", "1e400", "3.14159265358979323846"};
+        int n = 2000;
+        String[] values = new String[2 * n];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < special.length ? special[i] : randomNumber(random);
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            text.append(i + 1).append(random.nextBoolean() ? " " : "\t").append(values[2 * i]).append(' ')
+                    .append(values[2 * i + 1]).append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        TspInstance instance = TspReader.read(write("numbers.txt", text.toString()));
+        Check.equal(n, instance.getDimension(), "坐标数量");
+        for (int i = 0; i < n; i++) {
+            checkNumber(values[2 * i], instance.getX()[i]);
+            checkNumber(values[2 * i + 1], instance.getY()[i]);
+        }
+    }
+
+    private static void checkNumber(String text, double actual) {
+        double expected = Double.parseDouble(text);
+        Check.isTrue(Double.doubleToLongBits(expected) == Double.doubleToLongBits(actual),
+                "解析 " + text + "：期望 " + expected + "，实际 " + actual);
+    }
+
+    private static String randomNumber(Random random) {
+        StringBuilder s = new StringBuilder();
+        int sign = random.nextInt(4);
+        if (sign == 1) {
+            s.append('-');
+        } else if (sign == 2) {
+            s.append('+');
+        }
+        for (int k = random.nextInt(4) == 0 ? random.nextInt(3) : 0; k > 0; k--) {
+            s.append('0');
+        }
+        int digits = 1 + random.nextInt(random.nextInt(5) == 0 ? 25 : 16);
+        int point = random.nextInt(digits + 2) - 1; // -1表示没有小数点
+        for (int k = 0; k < digits; k++) {
+            if (k == point) {
+                s.append('.');
+            }
+            s.append((char) ('0' + random.nextInt(10)));
+        }
+        if (point == digits) {
+            s.append('.');
+        }
+        if (random.nextInt(3) == 0) {
+            s.append(random.nextBoolean() ? 'e' : 'E');
+            int exponentSign = random.nextInt(3);
+            if (exponentSign == 1) {
+                s.append('-');
+            } else if (exponentSign == 2) {
+                s.append('+');
+            }
+            s.append(random.nextInt(10) == 0 ? random.nextInt(400) : random.nextInt(30));
+        }
+        return s.toString();
+    }
+
+    /**
+     * 各种EXPLICIT格式写出同一个矩阵后读取，FULL_MATRIX另外再写一个不对称的矩阵
+     */
+    private static void checkExplicit() throws IOException {
+        Random random = new Random(2);
+        int n = 7;
+        int[][] w = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                w[i][j] = random.nextInt(1000);
+                w[j][i] = w[i][j];
+            }
+        }
+        for (String format : FORMATS) {
+            checkExplicit(format, w, true);
+            if (format.equals("FULL_MATRIX")) {
+                int[][] matrix = new int[n][n];
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        matrix[i][j] = i == j ? 0 : random.nextInt(1000);
+                    }
+                }
+                checkExplicit(format, matrix, false);
+            }
+        }
+    }
+
+    /**
+     * 按format写出matrix后读取，检查对称性和所有距离
+     */
+    private static void checkExplicit(String format, int[][] matrix, boolean symmetric) throws IOException {
+        int n = matrix.length;
+        StringBuilder text = new StringBuilder();
+        text.append("NAME: explicit\nTYPE: TSP\nCOMMENT: ").append(format).append("\nDIMENSION: ").append(n)
+                .append("\nEDGE_WEIGHT_TYPE: EXPLICIT\nEDGE_WEIGHT_FORMAT: ").append(format)
+                .append("\nEDGE_WEIGHT_SECTION\n");
+        int count = 0;
+        for (int[] entry : entries(format, n)) {
+            int value = matrix[entry[0]][entry[1]];
+            // 整数也可以写成小数或指数形式
+            text.append(count % 5 == 3 ? value + ".0" : count % 7 == 4 ? value * 10 + "e-1" : String.valueOf(value));
+            text.append(++count % 6 == 0 ? "\n" : " ");
+        }
+        text.append("\nEOF\n");
+        final TspInstance instance = TspReader.read(write(format + ".tsp", text.toString()));
+        Check.equal(n, instance.getDimension(), format + "：城市数量");
+        Check.isTrue(instance.isSymmetric() == symmetric, format + "：对称性");
+        if (symmetric) {
+            // 值对称的FULL_MATRIX也能初始化蚁群
+            new AntSystem(10, 10, 1.0f, 2.0f, 0.5f).init(instance);
+        } else {
+            Check.fails(IllegalArgumentException.class, new Check.Action() {
+                @Override
+                public void run() {
+                    new AntSystem(10, 10, 1.0f, 2.0f, 0.5f).init(instance);
+                }
+            }, format + "：不对称的实例初始化蚁群");
+        }
+        DistanceProvider distance = instance.distance();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j) {
+                    Check.equal(matrix[i][j], distance.distance(i, j), format + "：距离(" + i + ", " + j + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * 按TSPLIB的定义列出各格式中数的顺序，每项为(行, 列)
+     */
+    private static int[][] entries(String format, int n) {
+        boolean diag = format.contains("DIAG");
+        boolean upper = format.startsWith("UPPER");
+        boolean column = format.endsWith("COL");
+        int[][] entries = new int[n * n][];
+        int count = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                // ROW格式a为行、b为列，COL格式a为列、b为行
+                int i = column ? b : a;
+                int j = column ? a : b;
+                boolean take = format.equals("FULL_MATRIX") || (upper ? j > i : j < i) || (diag && i == j);
+                if (take) {
+                    entries[count++] = new int[] {i, j};
+                }
+            }
+        }
+        int[][] result = new int[count][];
+        System.arraycopy(entries, 0, result, 0, count);
+        return result;
+    }
+
+    private static void checkNodeCoords() throws IOException {
+        String text = "NAME : coords\nCOMMENT : 坐标\nTYPE : TSP\nDIMENSION : 4\nEDGE_WEIGHT_TYPE : CEIL_2D\n"
+                + "NODE_COORD_SECTION\n1 0 0\n2 3.5 0\n3 3.5 4.2\n4 -1e1 2\nEOF\n";
+        TspInstance instance = TspReader.read(write("coords.tsp", text));
+        Check.isTrue(instance.getName().equals("coords"), "NAME：" + instance.getName());
+        Check.equal(4, instance.getDimension(), "NODE_COORD_SECTION：城市数量");
+        Check.equal(new double[] {0, 3.5, 3.5, -10}, instance.getX(), "NODE_COORD_SECTION：x坐标");
+        Check.equal(new double[] {0, 0, 4.2, 2}, instance.getY(), "NODE_COORD_SECTION：y坐标");
+        Check.equal(4, instance.distance().distance(0, 1), "CEIL_2D距离");
+    }
+
+    private static void checkErrors() throws IOException {
+        String header = "NAME: bad\nTYPE: TSP\n";
+        String[][] cases = {
+            {"空文件", ""},
+            {"DIMENSION不是数", header + "DIMENSION: abc\nNODE_COORD_SECTION\n1 0 0\n2 1 1\nEOF\n"},
+            {"DIMENSION超出int", header + "DIMENSION: 99999999999\nNODE_COORD_SECTION\n1 0 0\n2 1 1\nEOF\n"},
+            {"DIMENSION过小", header + "DIMENSION: 1\nNODE_COORD_SECTION\n1 0 0\nEOF\n"},
+            {"DIMENSION过大的矩阵", header + "DIMENSION: 2000000000\nEDGE_WEIGHT_TYPE: EXPLICIT\n"
+                    + "EDGE_WEIGHT_FORMAT: FULL_MATRIX\nEDGE_WEIGHT_SECTION\n0 1\n1 0\nEOF\n"},
+            {"DIMENSION过大的坐标", header + "DIMENSION: 2000000000\nNODE_COORD_SECTION\n1 0 0\n2 1 1\nEOF\n"},
+            {"坐标数量不足", header + "DIMENSION: 3\nNODE_COORD_SECTION\n1 0 0\n2 1 1\nEOF\n"},
+            {"不支持的EDGE_WEIGHT_TYPE", header + "DIMENSION: 2\nEDGE_WEIGHT_TYPE: MAN_3D\nNODE_COORD_SECTION\n"
+                    + "1 0 0\n2 1 1\nEOF\n"},
+            {"不支持的EDGE_WEIGHT_FORMAT", header + "DIMENSION: 2\nEDGE_WEIGHT_TYPE: EXPLICIT\n"
+                    + "EDGE_WEIGHT_FORMAT: FUNCTION\nEDGE_WEIGHT_SECTION\n0 1 1 0\nEOF\n"},
+            {"EDGE_WEIGHT_SECTION缺少DIMENSION", header + "EDGE_WEIGHT_TYPE: EXPLICIT\nEDGE_WEIGHT_SECTION\n0 1 1 0\n"},
+            {"EXPLICIT使用坐标", header + "DIMENSION: 2\nEDGE_WEIGHT_TYPE: EXPLICIT\nNODE_COORD_SECTION\n"
+                    + "1 0 0\n2 1 1\nEOF\n"},
+            {"距离不是整数", header + "DIMENSION: 2\nEDGE_WEIGHT_TYPE: EXPLICIT\nEDGE_WEIGHT_FORMAT: FULL_MATRIX\n"
+                    + "EDGE_WEIGHT_SECTION\n0 1.5 1.5 0\nEOF\n"},
+            {"数字格式错误", header + "DIMENSION: 2\nNODE_COORD_SECTION\n1 0 0\n2 x 1\nEOF\n"},
+            {"没有数据段", header + "DIMENSION: 2\nEOF\n"},
+            {"无法识别的内容", header + "DIMENSION: 2\n#\n"},
+        };
+        for (int k = 0; k < cases.length; k++) {
+            // 每个文件单独命名，映射过的文件在某些系统上不能立即覆盖
+            final File file = write("bad" + k + ".tsp", cases[k][1]);
+            Check.fails(IOException.class, new Check.Action() {
+                @Override
+                public void run() throws IOException {
+                    TspReader.read(file);
+                }
+            }, cases[k][0]);
+        }
+    }
+
+    private static File write(String name, String text) throws IOException {
+        File file = new File(dir, name);
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        try {
+            out.print(text);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,63 @@
+package pers.kanarien.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import pers.kanarien.aco.AcoStrategy;
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.ColonySystemStrategy;
+import pers.kanarien.aco.MaxMinStrategy;
+import pers.kanarien.aco.RankBasedStrategy;
+import pers.kanarien.aco.TspInstance;
+import pers.kanarien.aco.TspReader;
+
+/**
+ * 各算法变种达到目标路径长度所需的时间（time-to-target）
+ * 每个变种用多个随机种子运行，达到目标长度或者用完迭代次数即停止
+ * 参数：数据文件 目标长度，默认为berlin52，目标为最优解7542的101%
+ * @author Kanarien
+ * @version 1.0
+ */
+public class VariantBench {
+
+    public static void main(String[] args) throws IOException {
+        String filename = args.length > 0 ? args[0] : "data/berlin52.txt";
+        int target = args.length > 1 ? Integer.parseInt(args[1]) : (int) (7542 * 1.01);
+        int maxIteration = 2000;
+        int runs = 5;
+        TspInstance instance = TspReader.read(new File(filename));
+        int n = instance.getDimension();
+
+        // 各变种的常用参数：蚂蚁数、α、β、ρ
+        String[] names = {"AS", "MMAS", "ACS", "Rank-based AS"};
+        int[] antNums = {n, n, 10, n};
+        float[] rhos = {0.5f, 0.02f, 0.1f, 0.1f};
+        System.out.println(instance.getName() + " 目标长度: " + target);
+        for (int v = 0; v < names.length; v++) {
+            long totalMillis = 0;
+            long totalIterations = 0;
+            int hits = 0;
+            for (int seed = 0; seed < runs; seed++) {
+                AcoStrategy strategy = v == 0 ? new AntSystemStrategy() : v == 1 ? new MaxMinStrategy()
+                        : v == 2 ? new ColonySystemStrategy() : new RankBasedStrategy();
+                AntSystem aco = new AntSystem(antNums[v], maxIteration, 1.0f, 3.0f, rhos[v]);
+                aco.setStrategy(strategy);
+                aco.setSeed(seed);
+                long begin = System.nanoTime();
+                aco.init(instance);
+                while (aco.getIteration() < maxIteration && aco.getBestLength() > target) {
+                    aco.iterate();
+                }
+                totalMillis += (System.nanoTime() - begin) / 1000000;
+                totalIterations += aco.getIteration();
+                if (aco.getBestLength() <= target) {
+                    hits++;
+                }
+            }
+            System.out.format("%-16s 达到目标 %d/%d 次，平均耗时 %6d ms，平均迭代 %5d 次%n", names[v], hits, runs,
+                    totalMillis / runs, totalIterations / runs);
+        }
+    }
+
+}
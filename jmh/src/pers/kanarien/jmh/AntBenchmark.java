@@ -0,0 +1,112 @@
+package pers.kanarien.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pers.kanarien.aco.Ant;
+import pers.kanarien.aco.AntSystem;
+import pers.kanarien.aco.AntSystemStrategy;
+import pers.kanarien.aco.CoordinateDistance;
+import pers.kanarien.aco.DistanceProvider;
+import pers.kanarien.aco.FloatMatrix;
+import pers.kanarien.aco.MatrixDistance;
+
+/**
+ * 蚁群算法热点路径的JMH基准测试，实例为随机生成的cityNum个城市，与HotPathBench相同：
+ * 1. Ant.selectNextCity：每次选择一个城市，走完一条路径后重新init，init的开销分摊到n - 1次选择上
+ * 2. Ant.buildTour：一只蚂蚁init后构造一条完整路径
+ * 3. AntSystemStrategy.updatePheromone：10只蚂蚁、候选列表长度20时一次挥发和所有蚂蚁的释放
+ * 运行时加上-prof gc给出每次操作申请的内存，三项都应为0
+ * @author Kanarien
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int cityNum;
+
+    private DistanceProvider distance;
+    private FloatMatrix choiceInfo;
+    private Ant ant;
+    private int steps; // ant已走过的城市数
+    private AntSystem system;
+    private AntSystemStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        double[] x = new double[cityNum];
+        double[] y = new double[cityNum];
+        for (int i = 0; i < cityNum; i++) {
+            x[i] = random.nextInt(10000);
+            y[i] = random.nextInt(10000);
+        }
+        distance = MatrixDistance.of(new CoordinateDistance(x, y), false);
+        choiceInfo = FloatMatrix.dense(cityNum);
+        random = new Random(2);
+        for (int i = 0; i < cityNum; i++) {
+            for (int j = 0; j < cityNum; j++) {
+                if (i != j) {
+                    double eta = 1.0 / Math.max(distance.distance(i, j), 1);
+                    choiceInfo.set(i, j, (float) ((0.05 + 0.1 * random.nextFloat()) * eta * eta));
+                }
+            }
+        }
+        ant = new Ant(cityNum, 3);
+        ant.init(distance);
+        steps = 1;
+        // 先迭代一次让每只蚂蚁都有路径；策略需设置给蚁群，由init初始化其缓冲区
+        strategy = new AntSystemStrategy();
+        system = new AntSystem(10, 1, 1.0f, 2.0f, 0.5f);
+        system.setStrategy(strategy);
+        system.setCandidateNum(20);
+        system.setSeed(4);
+        system.init(distance);
+        system.iterate();
+    }
+
+    @Benchmark
+    public int selectNextCity() {
+        if (steps == cityNum) {
+            ant.init(distance);
+            steps = 1;
+        }
+        ant.selectNextCity(choiceInfo);
+        steps++;
+        return ant.getCurrentCity();
+    }
+
+    @Benchmark
+    public int buildTour() {
+        ant.init(distance);
+        ant.buildTour(choiceInfo);
+        steps = cityNum;
+        return ant.getTourLength();
+    }
+
+    @Benchmark
+    public float updatePheromone() {
+        strategy.updatePheromone(system);
+        return system.getPheromone().get(0, 1);
+    }
+
+}
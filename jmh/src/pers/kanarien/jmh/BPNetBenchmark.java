@@ -0,0 +1,82 @@
+package pers.kanarien.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pers.kanarien.bpnet.BPNet;
+
+/**
+ * BP网络热点路径的JMH基准测试，网络规模与HotPathBench相同，输入和理想输出随机生成：
+ * 1. BPNet.forwardProcess：一个样本的前向处理
+ * 2. BPNet.forwardProcess + backProcess：一个样本的训练
+ * 3. BPNet.calculate：一个样本的推理，每次返回新的输出数组
+ * 运行时加上-prof gc给出每次操作申请的内存，只有calculate应申请内存
+ * @author Kanarien
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BPNetBenchmark {
+
+    /** 输入层、隐层、输出层神经元数目 */
+    @Param({"1-10-1", "16-64-4", "64-256-16"})
+    public String size;
+
+    private BPNet net;
+    private double[] input;
+    private double[] output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] layers = size.split("-");
+        int in = Integer.parseInt(layers[0]);
+        int hidden = Integer.parseInt(layers[1]);
+        int out = Integer.parseInt(layers[2]);
+        net = new BPNet(in, hidden, out, 1);
+        input = new double[in];
+        output = new double[out];
+        Random random = new Random(5);
+        for (int i = 0; i < in; i++) {
+            input[i] = random.nextDouble();
+        }
+        for (int k = 0; k < out; k++) {
+            output[k] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public BPNet forwardProcess() {
+        net.forwardProcess(input, output);
+        return net;
+    }
+
+    @Benchmark
+    public BPNet forwardBackProcess() {
+        net.forwardProcess(input, output);
+        net.backProcess();
+        return net;
+    }
+
+    @Benchmark
+    public double[] calculate() {
+        return net.calculate(input);
+    }
+
+}
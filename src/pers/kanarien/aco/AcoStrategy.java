@@ -0,0 +1,106 @@
+package pers.kanarien.aco;
+
+/**
+ * 蚁群算法变种的策略，AntSystem负责构造路径、记录最优路径等共同流程，
+ * 变种之间不同的部分（初始信息素、选择规则、局部和全局信息素更新）由策略实现
+ * 每次迭代的流程为：
+ * 1. 所有蚂蚁构造路径（可并行），构造时以getQ0()的概率直接选择权值最大的城市；
+ *    hasLocalUpdate()为true时所有蚂蚁在调用线程中按编号顺序同步逐步前进，每走一步调用一次localUpdate
+ * 2. 按蚂蚁编号顺序对每只蚂蚁调用afterTour，并更新最优路径
+ * 3. 调用updatePheromone进行全局信息素更新，之后AntSystem刷新选择权值矩阵
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class AcoStrategy {
+
+    /**
+     * @return 变种名称
+     */
+    public abstract String getName();
+
+    /**
+     * 初始化信息素矩阵，在AntSystem.init中调用
+     * @param system 蚂蚁系统
+     */
+    public abstract void initPheromone(AntSystem system);
+
+    /**
+     * 伪随机比例规则的q0：以q0的概率直接选择权值最大的城市，否则按轮盘赌选择
+     * @return q0，默认为0，即总是轮盘赌
+     */
+    public float getQ0() {
+        return 0.f;
+    }
+
+    /**
+     * 一只蚂蚁走完路径后调用，默认什么也不做
+     * 构造路径可能是并行的，该方法在所有蚂蚁走完后按蚂蚁编号顺序调用，保证结果与线程数无关
+     * @param system 蚂蚁系统
+     * @param ant 走完路径的蚂蚁
+     */
+    public void afterTour(AntSystem system, Ant ant) {
+    }
+
+    /**
+     * 是否在构造路径的过程中进行局部信息素更新
+     * 为true时每一步所有蚂蚁按编号顺序各走一步，每只蚂蚁走完这一步立即调用localUpdate，
+     * 之后的蚂蚁（包括同一步中编号较大的蚂蚁）都能看到更新，结果与线程数无关，但构造路径不再并行
+     * @return 默认为false，各蚂蚁独立构造路径
+     */
+    public boolean hasLocalUpdate() {
+        return false;
+    }
+
+    /**
+     * 局部信息素更新，只在hasLocalUpdate()为true时调用：蚂蚁刚经过边(from, to)，包括最后回到起始城市的一步
+     * 修改信息素后需调用AntSystem.refreshEdge，使后面的蚂蚁按新的选择权值选择
+     * @param system 蚂蚁系统
+     * @param from 边的起点
+     * @param to 边的终点
+     */
+    public void localUpdate(AntSystem system, int from, int to) {
+    }
+
+    /**
+     * 接受了比全局最优路径更短的外来路径后调用（见AntSystem.acceptTour），此时该路径已成为全局最优路径
+     * 默认在路径经过的每条边上释放1/L的信息素；信息素有约束的变种应覆盖该方法
+     * 修改信息素后需调用AntSystem.refreshEdge，使下一次迭代按新的选择权值选择
+     * @param system 蚂蚁系统
+     * @param tour 路径，长度为cityNum + 1，首尾相同
+     */
+    public void acceptTour(AntSystem system, int[] tour) {
+        deposit(system.getPheromone(), tour, (float) (1.0 / system.getBestLength()));
+        refreshEdges(system, tour);
+    }
+
+    /**
+     * 全局信息素更新，每次迭代调用一次
+     * @param system 蚂蚁系统
+     */
+    public abstract void updatePheromone(AntSystem system);
+
+    /**
+     * 在路径经过的每条边上释放amount的信息素，在调用线程中运行，只释放少数几条路径时使用
+     * 释放所有蚂蚁的路径时用AntSystem.deposit，边数较多时并行
+     * @param pheromone 信息素矩阵
+     * @param tour 路径，长度为cityNum + 1，首尾相同
+     * @param amount 每条边释放的信息素
+     */
+    protected static void deposit(FloatMatrix pheromone, int[] tour, float amount) {
+        for (int j = 0; j < tour.length - 1; j++) {
+            pheromone.addSymmetric(tour[j], tour[j + 1], amount);
+        }
+    }
+
+    /**
+     * 刷新路径经过的每条边的选择权值
+     * @param system 蚂蚁系统
+     * @param tour 路径，长度为cityNum + 1，首尾相同
+     */
+    protected static void refreshEdges(AntSystem system, int[] tour) {
+        for (int j = 0; j < tour.length - 1; j++) {
+            system.refreshEdge(tour[j], tour[j + 1]);
+        }
+    }
+
+}
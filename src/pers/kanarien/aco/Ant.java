@@ -1,127 +1,229 @@
 package pers.kanarien.aco;
 
-import java.util.Random;
-import java.util.ArrayList;
-
 /**
  * 蚂蚁类，主要包含两个操作：初始化和选择下一个城市
- * @author Kanarien 
+ * 所有状态都保存在原始类型数组中，数组在第一次初始化时申请，之后每次迭代重复使用，
+ * 构造路径的过程中不再申请任何内存
+ * @author Kanarien
  * @version 1.0
  * @date 2019年4月2日 下午8:52:54
  */
 public class Ant {
 
-    private ArrayList<Integer> tabu; // 禁忌表，记录走过的城市
-    private ArrayList<Integer> allowedCities; // 允许搜索的城市
-    private float[][] delta; // 信息素变化矩阵 
-    private int[][] distance; // 距离矩阵
-    private float alpha; // α参数
-    private float beta; // β参数
- 
+    private int[] tabu; // 禁忌表，记录走过的城市
+    private int step; // 禁忌表中已记录的城市数
+    private int[] allowedCities; // 允许搜索的城市，前allowedNum个有效
+    private int allowedNum; // 允许搜索的城市数量
+    private int[] allowedIndex; // 城市在allowedCities中的下标，用于O(1)移除
+    private double[] p; // 选择城市时采样方法使用的缓冲区，重复使用
+    private int[] candidateBuffer; // 选择城市时未访问的候选城市，重复使用
+    private Sampler sampler = Sampler.cumulative(); // 按选择权值随机选择城市的采样方法
+    private DistanceProvider distance; // 城市间距离
+    private int[][] candidates; // 候选列表，为null时搜索全部允许城市
+    private float q0; // 伪随机比例规则中直接选择权值最大的城市的概率，为0时总是轮盘赌
+    private LocalSearch localSearch; // 走完路径后的局部搜索，为null时不做局部搜索
+
     private int tourLength; // 路径长度
     private int cityNum; // 城市数量
     private int firstCity; // 起始城市
     private int currentCity; // 当前城市
- 
+    private ResumableRandom random; // 随机数发生器，每只蚂蚁独立一份，保证并行时互不干扰且结果可复现
+    private long initState; // 最近一次init开始时随机数发生器的状态，用于保存和恢复运行状态
+
     /**
      * @param num 城市数量
+     * @param seed 随机种子
      */
-    public Ant(int num) {
+    public Ant(int num, long seed) {
         cityNum = num;
+        random = new ResumableRandom(seed);
+        tabu = new int[cityNum + 1];
+        allowedCities = new int[cityNum];
+        allowedIndex = new int[cityNum];
+        p = new double[cityNum];
+        candidateBuffer = new int[cityNum];
     }
- 
+
+    /**
+     * 重新设置随机种子，与用该种子新建蚂蚁得到的随机序列相同，用于重复使用蚂蚁
+     * @param seed 随机种子
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * @return 最近一次init开始时随机数发生器的状态
+     */
+    long getInitState() {
+        return initState;
+    }
+
+    /**
+     * 恢复随机数发生器的状态后重新init，起始城市以及之后的随机序列与保存状态时相同
+     * @param state getInitState返回的状态
+     * @param distance 城市间距离
+     */
+    void restore(long state, DistanceProvider distance) {
+        random.setState(state);
+        init(distance);
+    }
+
     /**
      * 初始化蚂蚁，随机选择起始位置
-     * @param distance 距离矩阵
-     * @param a alpha
-     * @param b beta
+     * @param distance 城市间距离
      */
-    public void init(int[][] distance, float a, float b) {
-        alpha = a;
-        beta = b;
-        // 初始允许搜索的城市集合
-        allowedCities = new ArrayList<Integer>();
-        // 初始禁忌表
-        tabu = new ArrayList<Integer>();
+    public void init(DistanceProvider distance) {
         // 初始距离矩阵
         this.distance = distance;
-        // 初始信息素变化矩阵为0，同时添加允许城市
-        delta = new float[cityNum][cityNum];
+        // 初始允许搜索的城市集合
         for (int i = 0; i < cityNum; i++) {
-            Integer integer = new Integer(i);
-            allowedCities.add(integer);
-            for (int j = 0; j < cityNum; j++) {
-                delta[i][j] = 0.f;
-            }
+            allowedCities[i] = i;
+            allowedIndex[i] = i;
         }
+        allowedNum = cityNum;
         // 随机挑选一个城市作为起始城市
-        Random random = new Random(System.currentTimeMillis());
+        initState = random.getState();
         firstCity = random.nextInt(cityNum);
         // 允许搜索的城市集合中移除起始城市
-        for (Integer i : allowedCities) {
-            if (i.intValue() == firstCity) {
-                allowedCities.remove(i);
-                break;
-            }
-        }
+        removeAllowed(allowedIndex[firstCity]);
         // 将起始城市添加至禁忌表
-        tabu.add(Integer.valueOf(firstCity));
+        tabu[0] = firstCity;
+        step = 1;
         // 当前城市为起始城市
         currentCity = firstCity;
     }
- 
+
     /**
      * 选择下一个城市
-     * @param pheromone 信息素矩阵
-     */
-    public void selectNextCity(float[][] pheromone) {
-        float[] p = new float[cityNum];
-        float sum = 0.0f;
-        // 计算共同的分母
-        for (Integer i : allowedCities) {
-            sum += Math.pow(pheromone[currentCity][i.intValue()], alpha)
-                    * Math.pow(1.0 / distance[currentCity][i.intValue()], beta);
+     * @param choiceInfo 选择权值矩阵，即τ^α * (1/d)^β，由AntSystem每次迭代预先计算
+     */
+    public void selectNextCity(FloatMatrix choiceInfo) {
+        if (q0 > 0.f && random.nextDouble() < q0) {
+            moveTo(selectBest(choiceInfo));
+            return;
         }
-        // 计算概率矩阵，即分子
-        for (int i = 0; i < cityNum; i++) {
-            boolean flag = false;
-            for (Integer j : allowedCities) {
-                if (i == j.intValue()) {
-                    p[i] = (float) (Math.pow(pheromone[currentCity][i], alpha) * Math
-                            .pow(1.0 / distance[currentCity][i], beta)) / sum;
-                    flag = true;
-                    break;
+        if (candidates != null) {
+            moveTo(selectCandidate(choiceInfo));
+            return;
+        }
+        // 直接在未归一化的权值上采样，权值全为0时选择第一个允许城市
+        int selectIndex = sampler.select(choiceInfo, currentCity, allowedCities, allowedNum, p, random);
+        moveTo(selectIndex >= 0 ? allowedCities[selectIndex] : bestAllowed(choiceInfo));
+    }
+
+    /**
+     * 只在当前城市的候选列表中选择下一个城市
+     * 候选城市都已访问时，选择剩余城市中选择权值最大的城市
+     * @param choiceInfo 选择权值矩阵
+     * @return 选中的城市
+     */
+    private int selectCandidate(FloatMatrix choiceInfo) {
+        int selectCity = sampler.selectCandidate(choiceInfo, currentCity, candidates[currentCity], this, p, random);
+        // 候选城市都已访问，选择剩余城市中权值最大的城市
+        return selectCity >= 0 ? selectCity : bestAllowed(choiceInfo);
+    }
+
+    /**
+     * 选择权值最大的未访问城市，有候选列表时优先在候选城市中选择
+     * @param choiceInfo 选择权值矩阵
+     * @return 选中的城市
+     */
+    private int selectBest(FloatMatrix choiceInfo) {
+        if (candidates != null) {
+            int selectCity = -1;
+            float best = -1.f;
+            for (int i : candidates[currentCity]) {
+                if (isAllowed(i) && choiceInfo.get(currentCity, i) > best) {
+                    selectCity = i;
+                    best = choiceInfo.get(currentCity, i);
                 }
             }
-            if (flag == false) {
-                p[i] = 0.f;
+            if (selectCity >= 0) {
+                return selectCity;
             }
         }
-        // 轮盘赌选择下一个城市
-        Random random = new Random(System.currentTimeMillis());
-        float selectP = random.nextFloat();
-        int selectCity = 0;
-        float sum1 = 0.f;
-        for (int i = 0; i < cityNum; i++) {
-            sum1 += p[i];
-            if (sum1 >= selectP) {
-                selectCity = i;
-                break;
+        return bestAllowed(choiceInfo);
+    }
+
+    /**
+     * @param choiceInfo 选择权值矩阵
+     * @return 所有未访问城市中权值最大的城市
+     */
+    private int bestAllowed(FloatMatrix choiceInfo) {
+        int selectCity = allowedCities[0];
+        float best = choiceInfo.get(currentCity, selectCity);
+        for (int k = 1; k < allowedNum; k++) {
+            float choice = choiceInfo.get(currentCity, allowedCities[k]);
+            if (choice > best) {
+                selectCity = allowedCities[k];
+                best = choice;
             }
         }
+        return selectCity;
+    }
+
+    /**
+     * 移动到选中的城市
+     * @param selectCity 选中的城市
+     */
+    private void moveTo(int selectCity) {
         // 从允许选择的城市中去除select city
-        for (Integer i : allowedCities) {
-            if (i.intValue() == selectCity) {
-                allowedCities.remove(i);
-                break;
-            }
-        }
+        removeAllowed(allowedIndex[selectCity]);
         // 在禁忌表中添加select city
-        tabu.add(Integer.valueOf(selectCity));
+        tabu[step++] = selectCity;
         // 将当前城市改为选择的城市
         currentCity = selectCity;
     }
- 
+
+    /**
+     * 城市是否尚未访问
+     * @param city 城市
+     * @return 是否在允许城市集合中
+     */
+    boolean isAllowed(int city) {
+        int index = allowedIndex[city];
+        return index < allowedNum && allowedCities[index] == city;
+    }
+
+    /**
+     * 走完一条完整的TSP路径，并计算路径长度，设置了局部搜索时随后对路径进行改进
+     * 只读写蚂蚁自身的状态（choiceInfo只读），因此不同蚂蚁可以在不同线程中同时调用
+     * @param choiceInfo 选择权值矩阵
+     */
+    public void buildTour(FloatMatrix choiceInfo) {
+        // 走cityNum - 1步，完整一个TSP
+        for (int j = 1; j < cityNum; j++) {
+            selectNextCity(choiceInfo);
+        }
+        finishTour();
+    }
+
+    /**
+     * 回到起始城市，计算路径长度，设置了局部搜索时随后对路径进行改进
+     * 逐步构造时在走完cityNum - 1步之后调用
+     */
+    void finishTour() {
+        // 把起始城市加入禁忌表中
+        // 禁忌表最终形式：起始城市,城市1,城市2...城市n,起始城市
+        tabu[step++] = firstCity;
+        tourLength = calculateTourLength();
+        if (localSearch != null) {
+            tourLength = localSearch.improve(tabu, tourLength);
+            firstCity = tabu[0];
+        }
+    }
+
+    /**
+     * 从允许城市集合中移除下标为index的城市，用最后一个城市填补空位
+     * @param index 城市在allowedCities中的下标
+     */
+    private void removeAllowed(int index) {
+        int last = allowedCities[--allowedNum];
+        allowedCities[index] = last;
+        allowedIndex[last] = index;
+    }
+
     /**
      * 计算路径长度
      * @return 路径长度
@@ -130,58 +232,71 @@ public class Ant {
         int len = 0;
         //禁忌表tabu最终形式：起始城市,城市1,城市2...城市n,起始城市
         for (int i = 0; i < cityNum; i++) {
-            len += distance[this.tabu.get(i).intValue()][this.tabu.get(i + 1).intValue()];
+            len += distance.distance(tabu[i], tabu[i + 1]);
         }
         return len;
     }
- 
-    public ArrayList<Integer> getAllowedCities() {
-        return allowedCities;
-    }
- 
-    public void setAllowedCities(ArrayList<Integer> allowedCities) {
-        this.allowedCities = allowedCities;
-    }
- 
+
     public int getTourLength() {
-        tourLength = calculateTourLength();
         return tourLength;
     }
- 
-    public void setTourLength(int tourLength) {
-        this.tourLength = tourLength;
-    }
- 
+
     public int getCityNum() {
         return cityNum;
     }
- 
-    public void setCityNum(int cityNum) {
-        this.cityNum = cityNum;
-    }
- 
-    public ArrayList<Integer> getTabu() {
+
+    /**
+     * @return 禁忌表，路径完成后长度为cityNum + 1，首尾均为起始城市
+     */
+    public int[] getTabu() {
         return tabu;
     }
- 
-    public void setTabu(ArrayList<Integer> tabu) {
-        this.tabu = tabu;
+
+    public int getFirstCity() {
+        return firstCity;
     }
- 
-    public float[][] getDelta() {
-        return delta;
+
+    public int getCurrentCity() {
+        return currentCity;
     }
- 
-    public void setDelta(float[][] delta) {
-        this.delta = delta;
+
+    /**
+     * 设置候选列表，之后每一步只在候选城市中选择
+     * @param candidates 候选列表，为null时搜索全部允许城市
+     */
+    public void setCandidates(int[][] candidates) {
+        this.candidates = candidates;
     }
- 
-    public int getFirstCity() {
-        return firstCity;
+
+    /**
+     * 设置按选择权值随机选择城市的采样方法
+     * @param sampler 采样方法，默认为Sampler.cumulative()
+     */
+    public void setSampler(Sampler sampler) {
+        this.sampler = sampler;
+    }
+
+    /**
+     * @return 采样方法取出未访问候选城市所用的缓冲区，长度为cityNum
+     */
+    int[] getCandidateBuffer() {
+        return candidateBuffer;
+    }
+
+    /**
+     * 设置伪随机比例规则的q0
+     * @param q0 直接选择权值最大的城市的概率，为0时总是轮盘赌
+     */
+    public void setQ0(float q0) {
+        this.q0 = q0;
     }
- 
-    public void setFirstCity(int firstCity) {
-        this.firstCity = firstCity;
+
+    /**
+     * 设置走完路径后的局部搜索
+     * @param localSearch 局部搜索，只能由这只蚂蚁使用，为null时不做局部搜索
+     */
+    public void setLocalSearch(LocalSearch localSearch) {
+        this.localSearch = localSearch;
     }
 
 }
@@ -1,20 +1,67 @@
 package pers.kanarien.aco;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import pers.kanarien.checkpoint.CheckpointWriter;
+import pers.kanarien.metrics.ConsoleListener;
+import pers.kanarien.metrics.IterationMetrics;
+import pers.kanarien.metrics.MetricsListener;
 
 public class AntSystem {
 
+    private static final float BRANCHING_LAMBDA = 0.05f; // 停止条件中λ分支因子所用的λ
+    private static final int BRANCHING_INTERVAL = 10; // 检测λ分支因子的迭代间隔
+    private static final int LOCAL_SEARCH_NEIGHBOURS = 10; // 不使用候选列表时局部搜索的近邻数量
+
     private Ant[] ants; // 蚂蚁
     private int antNum; // 蚂蚁数量
     private int cityNum; // 城市数量
     private int maxIteration; // 迭代数
-    private float[][] pheromone; // 信息素矩阵
-    private int[][] distance; // 距离矩阵
+    private FloatMatrix pheromone; // 信息素矩阵
+    private FloatMatrix heuristic; // 启发信息矩阵，即(1/d)^β，初始化时计算一次
+    private boolean sharedHeuristic; // 启发信息矩阵是否由调用方提供、与其他蚁群共用，是则只读不写
+    private FloatMatrix choiceInfo; // 选择权值矩阵，即τ^α * (1/d)^β，每次迭代更新信息素后刷新
+    private PheromoneUpdater updater; // 信息素的挥发、释放和选择权值的刷新，设置了线程池时挥发和刷新分条并行
+    private int candidateNum; // 候选列表长度，0表示不使用候选列表
+    private int[][] candidates; // 每个城市的最近邻候选列表
+    private int[][] neighbours; // 局部搜索的近邻列表，使用候选列表时与candidates相同
+    private int localSearchMoves; // 局部搜索使用的邻域，LocalSearch.TWO_OPT和LocalSearch.OR_OPT的组合，0表示不做局部搜索
+    private DistanceProvider distance; // 距离
+    private TspInstance instance; // 通过init(TspInstance)初始化时的实例，用于增量更新
+    private boolean ownsDistance; // 距离矩阵是否由init(TspInstance)创建，是则下次初始化同样规模的实例时重复使用
+    private boolean symmetricStorage; // 矩阵是否只存储上三角，内存减半但读取稍慢
+    private boolean candidateStorage; // 启发信息和选择权值矩阵是否只存储候选边，其余边实时计算
     private int bestLength; // 最佳长度
     private int[] bestTour; // 最佳路径
+    private int iteration; // 已完成的迭代数
+    private int stagnation; // 最优长度连续未改进的迭代数
+    private volatile Tour bestSoFar; // 最优路径的快照，最优路径改进时替换，可在其他线程中随时读取
+    private long timeLimit; // 运行时间上限，单位毫秒，0表示不限制
+    private int stagnationLimit; // 最优长度连续未改进的迭代数上限，0表示不限制
+    private float branchingLimit; // λ分支因子低于该值时认为已收敛，0表示不检测
+    private Ant iterationBest; // 本次迭代中路径最短的蚂蚁
+    private int nearestNeighbourLength; // 最近邻路径长度，用于估计初始信息素，0表示尚未计算
+    private AcoStrategy strategy = new AntSystemStrategy(); // 算法变种
+    private Sampler sampler = Sampler.cumulative(); // 蚂蚁按选择权值随机选择城市的采样方法
+    private long seed = System.currentTimeMillis(); // 随机种子，相同种子在任意线程数下结果一致
+    private ExecutorService executor; // 并行构造路径和更新信息素所用的线程池，为null时单线程运行
+    private List<Callable<Void>> tourTasks; // 每只蚂蚁一个构造路径任务，在线程池中并行执行
+    private MetricsListener listener = new ConsoleListener(0); // 指标和日志的监听器，默认只在控制台输出日志
+    private int metricsInterval = 1; // 每隔多少次迭代向监听器报告一次指标
+    private final IterationMetrics metrics = new IterationMetrics(); // 重复使用的指标对象
+    private CheckpointWriter checkpointWriter; // 后台保存快照，为null时不保存
+    private int checkpointInterval; // 每隔多少次迭代保存一次快照
+    private final AntSystemSnapshot checkpoint = new AntSystemSnapshot(); // 重复使用的快照，写入期间不会修改
  
     // 三个参数
     private float alpha;
@@ -22,7 +69,7 @@ public class AntSystem {
     private float rho;
  
     /**
-     * @param n 城市数量
+     * 城市数量由init时读取的实例决定
      * @param m 蚂蚁数量
      * @param g 运行代数
      * @param a alpha
@@ -30,8 +77,7 @@ public class AntSystem {
      * @param r rho
      * 
      **/
-    public AntSystem(int n, int m, int g, float a, float b, float r) {
-        cityNum = n;
+    public AntSystem(int m, int g, float a, float b, float r) {
         antNum = m;
         ants = new Ant[antNum];
         maxIteration = g;
@@ -42,132 +88,994 @@ public class AntSystem {
  
     /**
      * 初始化蚂蚁系统
-     * @param filename 数据文件名，该文件存储所有城市节点坐标数据
+     * @param filename 数据文件名，TSPLIB的.tsp文件或者每行一个城市坐标的文件
      * @throws IOException
      */
-    @SuppressWarnings("resource")
-    private void init(String filename) throws IOException {
-        // 读取数据
-        int[] x;
-        int[] y;
-        String strbuff;
-        BufferedReader data = new BufferedReader(new InputStreamReader(new FileInputStream(filename)));
-        distance = new int[cityNum][cityNum];
-        x = new int[cityNum];
-        y = new int[cityNum];
-        for (int i = 0; i < cityNum; i++) {
-            // 读取一行数据，数据格式为:城市序号 x轴坐标 y轴坐标，如1 6734 1453
-            strbuff = data.readLine();
-            String[] strcol = strbuff.split(" ");
-            x[i] = Integer.valueOf(strcol[1]);// x坐标
-            y[i] = Integer.valueOf(strcol[2]);// y坐标
-        }
-        // 计算距离矩阵
-        // 距离取欧氏距离
-        for (int i = 0; i < cityNum - 1; i++) {
-            distance[i][i] = 0; // 对角线为0
-            for (int j = i + 1; j < cityNum; j++) {
-                double rij = Math.sqrt(((x[i] - x[j]) * (x[i] - x[j]) + (y[i] - y[j]) * (y[i] - y[j])));
-                // 四舍五入，取整
-                int tij = (int) Math.round(rij);
-                distance[i][j] = tij;
-                distance[j][i] = distance[i][j];
-            }
-        }
-        distance[cityNum - 1][cityNum - 1] = 0;
-        // 初始化信息素矩阵
-        pheromone = new float[cityNum][cityNum];
-        for (int i = 0; i < cityNum; i++) {
-            for (int j = 0; j < cityNum; j++) {
-                pheromone[i][j] = 0.1f; // 初始化为0.1
+    public void init(String filename) throws IOException {
+        init(TspReader.read(new File(filename)));
+    }
+ 
+    /**
+     * 根据TSP实例初始化蚂蚁系统，预先计算全部城市间距离存入堆内距离矩阵
+     * 上一个实例的城市数量相同时，重复使用其距离矩阵
+     * 启发信息和信息素都按对称处理（边(i, j)与(j, i)取同一个值），因此不支持不对称的实例
+     * @param instance TSP实例
+     * @throws IllegalArgumentException 实例的距离不对称
+     */
+    public void init(TspInstance instance) {
+        checkSymmetric(instance);
+        DistanceProvider source = instance.distance();
+        DistanceProvider distance = source;
+        boolean owned = !(source instanceof MatrixDistance);
+        if (owned) {
+            if (ownsDistance && this.distance.size() == source.size()
+                    && ((MatrixDistance) this.distance).getMatrix().isSymmetric() == symmetricStorage) {
+                ((MatrixDistance) this.distance).fill(source);
+                distance = this.distance;
+            } else {
+                distance = MatrixDistance.of(source, symmetricStorage);
             }
         }
+        init(distance);
+        this.instance = instance;
+        ownsDistance = owned;
+    }
+ 
+    /**
+     * @param instance TSP实例
+     * @throws IllegalArgumentException 实例的距离不对称
+     */
+    static void checkSymmetric(TspInstance instance) {
+        if (!instance.isSymmetric()) {
+            throw new IllegalArgumentException("不支持距离不对称的实例: " + instance.getName());
+        }
+    }
+ 
+    /**
+     * 根据城市间距离初始化蚂蚁系统
+     * 信息素、启发信息和选择权值矩阵仍在堆内，distance可以是堆内矩阵、内存映射文件或实时计算
+     * 这三个n * n的float矩阵决定了能求解的规模：稠密存储共12 * n^2字节，对称存储约6 * n^2字节，
+     * 例如10000个城市分别约1.2GB和0.6GB；setCandidateStorage(true)时启发信息和选择权值只存储候选边，
+     * 只剩信息素矩阵是n * n的，分别降为4 * n^2和2 * n^2字节
+     * 单个矩阵的元素数不能超过Integer.MAX_VALUE - 8，因此信息素矩阵稠密存储最多46340个城市，
+     * 对称存储最多65535个城市，更大的实例无法初始化
+     * 可以反复调用以求解多个实例，城市数量与上一个实例相同时重复使用已有的矩阵和蚂蚁，
+     * 因此上一个实例的getBestTour等结果会被覆盖
+     * @param distance 城市间距离
+     */
+    public void init(DistanceProvider distance) {
+        init(distance, null);
+    }
+ 
+    /**
+     * 与init(DistanceProvider)相同，但可以使用调用方预先计算好的启发信息矩阵，多个蚁群共用同一个矩阵时只读不写
+     * @param distance 城市间距离
+     * @param sharedMatrix 由heuristicMatrix计算的启发信息矩阵，β和存储方式需与本蚁群相同，为null时自行计算
+     */
+    void init(DistanceProvider distance, FloatMatrix sharedMatrix) {
+        if (sharedMatrix != null && (sharedMatrix.size() != distance.size()
+                || sharedMatrix.isSymmetric() != symmetricStorage || candidateStorage)) {
+            throw new IllegalArgumentException("启发信息矩阵的规模或存储方式与蚁群不一致");
+        }
+        if (candidateStorage && candidateNum <= 0) {
+            throw new IllegalStateException("只存储候选边时需要候选列表，先调用setCandidateNum");
+        }
+        this.distance = distance;
+        instance = null;
+        ownsDistance = false;
+        cityNum = distance.size();
+        nearestNeighbourLength = 0;
+        iteration = 0;
+        stagnation = 0;
+        bestSoFar = null;
+        // 初始化信息素矩阵，初始值由算法变种决定
+        pheromone = reuse(pheromone);
+        strategy.initPheromone(this);
+        // 构建候选列表
+        candidates = candidateNum > 0 ? CandidateList.build(distance, candidateNum) : null;
+        // 启发信息矩阵和选择权值矩阵，对角线为0，蚂蚁不会选择当前城市；共用的矩阵不能重复使用，以免覆盖其他蚁群的数据
+        if (candidateStorage) {
+            heuristic = CandidateMatrix.heuristic(distance, candidates, beta);
+        } else if (sharedMatrix != null) {
+            heuristic = sharedMatrix;
+        } else {
+            heuristic = fillHeuristic(sharedHeuristic ? FloatMatrix.create(cityNum, symmetricStorage) : reuse(heuristic),
+                    distance, beta);
+        }
+        sharedHeuristic = sharedMatrix != null;
+        choiceInfo = candidateStorage ? CandidateMatrix.choiceInfo(pheromone, (CandidateMatrix) heuristic)
+                : reuse(choiceInfo);
+        updater = new PheromoneUpdater(pheromone, heuristic, choiceInfo);
+        updateChoiceInfo();
+        // 局部搜索的近邻列表，没有候选列表时单独构建
+        neighbours = null;
+        if (localSearchMoves != 0) {
+            neighbours = candidates != null ? candidates : CandidateList.build(distance, LOCAL_SEARCH_NEIGHBOURS);
+        }
         bestLength = Integer.MAX_VALUE;
-        bestTour = new int[cityNum + 1];
-        // 随机放置蚂蚁
+        if (bestTour == null || bestTour.length != cityNum + 1) {
+            bestTour = new int[cityNum + 1];
+        }
+        initAnts();
+    }
+ 
+    /**
+     * 规模和存储方式都相同时重复使用原矩阵，否则新建，内容由调用方重新填充
+     * 启发信息矩阵只写非对角线元素，对角线保持新建时的0；只存储候选边的矩阵不重复使用
+     */
+    private FloatMatrix reuse(FloatMatrix matrix) {
+        if (matrix != null && !(matrix instanceof CandidateMatrix) && matrix.size() == cityNum
+                && matrix.isSymmetric() == symmetricStorage) {
+            return matrix;
+        }
+        return FloatMatrix.create(cityNum, symmetricStorage);
+    }
+ 
+    /**
+     * 计算启发信息矩阵(1/d)^β，只读，可以被多个β相同的蚁群通过init(DistanceProvider, FloatMatrix)共用
+     * @param distance 城市间距离
+     * @param beta β
+     * @param symmetric 是否只存储上三角，需与蚁群的setSymmetricStorage一致
+     * @return 启发信息矩阵
+     */
+    static FloatMatrix heuristicMatrix(DistanceProvider distance, float beta, boolean symmetric) {
+        return fillHeuristic(FloatMatrix.create(distance.size(), symmetric), distance, beta);
+    }
+ 
+    /**
+     * 填充启发信息矩阵的非对角线元素，对角线保持新建时的0
+     */
+    private static FloatMatrix fillHeuristic(FloatMatrix matrix, DistanceProvider distance, float beta) {
+        int n = distance.size();
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                // 坐标重合的城市按距离1处理，避免除0
+                float eta = (float) power(1.0 / Math.max(distance.distance(i, j), 1), beta);
+                matrix.set(i, j, eta);
+                matrix.set(j, i, eta);
+            }
+        }
+        return matrix;
+    }
+ 
+    /**
+     * 创建蚂蚁及其构造路径的任务，城市数量不变时重复使用原有的蚂蚁
+     */
+    private void initAnts() {
+        sampler.prepare(choiceInfo, candidates);
+        if (ants[0] != null && ants[0].getCityNum() == cityNum) {
+            Random seedRandom = new Random(seed);
+            for (int i = 0; i < antNum; i++) {
+                Ant ant = ants[i];
+                ant.setSeed(seedRandom.nextLong());
+                ant.setCandidates(candidates);
+                ant.setSampler(sampler);
+                ant.setQ0(strategy.getQ0());
+                ant.setLocalSearch(neighbours != null ? new LocalSearch(distance, neighbours, localSearchMoves) : null);
+                ant.init(distance);
+            }
+            return;
+        }
+        // 随机放置蚂蚁，每只蚂蚁的随机种子由总种子依次派生
+        Random seedRandom = new Random(seed);
+        tourTasks = new ArrayList<Callable<Void>>(antNum);
         for (int i = 0; i < antNum; i++) {
-            ants[i] = new Ant(cityNum);
-            ants[i].init(distance, alpha, beta);
+            final Ant ant = new Ant(cityNum, seedRandom.nextLong());
+            ant.setCandidates(candidates);
+            ant.setSampler(sampler);
+            ant.setQ0(strategy.getQ0());
+            if (neighbours != null) {
+                // 每只蚂蚁一个局部搜索实例，在蚂蚁自己的任务中并行执行
+                ant.setLocalSearch(new LocalSearch(distance, neighbours, localSearchMoves));
+            }
+            ant.init(distance);
+            ants[i] = ant;
+            tourTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ant.buildTour(choiceInfo);
+                    return null;
+                }
+            });
         }
     }
  
+    /**
+     * 城市集合发生少量变化（增加、删除或移动城市）后增量更新，保留原有的信息素和最优路径继续求解
+     * 1. 距离和启发信息矩阵中只重新计算变化城市所在的行和列，其余元素从原矩阵复制；
+     *    启发信息只存储候选边时在更新候选列表之后重新计算，只有n * k个元素
+     * 2. 未变化城市之间的信息素保留，与变化城市相连的边取算法变种的初始值
+     * 3. 候选列表只重建包含被删除或移动城市的行，其余行只插入变化的城市
+     * 4. 原最优路径去掉被删除和移动的城市，再按最小插入代价插入新增和移动的城市，
+     *    设置了局部搜索时再做一次局部搜索，作为新的最优路径
+     * 迭代次数和停止条件重新开始计算
+     * @param instance 新的TSP实例，边权类型和存储方式应与原实例相同
+     * @param previous previous[i]为新实例中城市i在原实例中的编号，新增城市为-1，未出现的原城市视为被删除
+     * @throws IllegalStateException 没有通过init(TspInstance)初始化
+     * @throws IllegalArgumentException 新实例的距离不对称
+     */
+    public void update(TspInstance instance, int[] previous) {
+        if (this.instance == null) {
+            throw new IllegalStateException("增量更新要求先通过init(TspInstance)初始化");
+        }
+        checkSymmetric(instance);
+        int n = instance.getDimension();
+        if (previous.length != n) {
+            throw new IllegalArgumentException("previous的长度应为新实例的城市数量: " + previous.length + " != " + n);
+        }
+        int oldNum = cityNum;
+        DistanceProvider oldDistance = distance;
+        // current[k]为原城市k在新实例中的编号，被删除时为-1
+        int[] current = new int[oldNum];
+        Arrays.fill(current, -1);
+        for (int i = 0; i < n; i++) {
+            if (previous[i] >= 0) {
+                current[previous[i]] = i;
+            }
+        }
+        // 找出变化的城市：新增的，以及坐标（EXPLICIT时为到其他城市的距离）改变的
+        DistanceProvider source = instance.distance();
+        boolean[] changed = new boolean[n];
+        int[] changedCities = new int[n];
+        int changedNum = 0;
+        for (int i = 0; i < n; i++) {
+            if (previous[i] < 0) {
+                changed[i] = true;
+            } else if (instance.getX() != null && this.instance.getX() != null) {
+                changed[i] = instance.getX()[i] != this.instance.getX()[previous[i]]
+                        || instance.getY()[i] != this.instance.getY()[previous[i]];
+            } else {
+                for (int j = 0; j < n && !changed[i]; j++) {
+                    changed[i] = previous[j] >= 0
+                            && source.distance(i, j) != oldDistance.distance(previous[i], previous[j]);
+                }
+            }
+            if (changed[i]) {
+                changedCities[changedNum++] = i;
+            }
+        }
+        // 距离矩阵：EXPLICIT实例已经是矩阵，直接使用；坐标实例只计算变化的行和列
+        DistanceProvider newDistance;
+        if (source instanceof MatrixDistance) {
+            newDistance = source;
+        } else {
+            IntMatrix matrix = IntMatrix.create(n, symmetricStorage);
+            for (int i = 0; i < n; i++) {
+                for (int j = symmetricStorage ? i + 1 : 0; j < n; j++) {
+                    if (i != j) {
+                        matrix.set(i, j, changed[i] || changed[j] ? source.distance(i, j)
+                                : oldDistance.distance(previous[i], previous[j]));
+                    }
+                }
+            }
+            newDistance = new MatrixDistance(matrix);
+        }
+        // 启发信息矩阵同样只计算变化的行和列
+        FloatMatrix oldHeuristic = heuristic;
+        sharedHeuristic = false;
+        if (!candidateStorage) {
+            heuristic = FloatMatrix.create(n, symmetricStorage);
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    float eta = changed[i] || changed[j]
+                            ? (float) power(1.0 / Math.max(newDistance.distance(i, j), 1), beta)
+                            : oldHeuristic.get(previous[i], previous[j]);
+                    heuristic.set(i, j, eta);
+                    heuristic.set(j, i, eta);
+                }
+            }
+        }
+        // 信息素：先取初始值，再复制未变化城市之间的边
+        FloatMatrix oldPheromone = pheromone;
+        distance = newDistance;
+        cityNum = n;
+        nearestNeighbourLength = 0;
+        pheromone = FloatMatrix.create(n, symmetricStorage);
+        strategy.initPheromone(this);
+        for (int i = 0; i < n; i++) {
+            if (changed[i]) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                if (i != j && !changed[j]) {
+                    pheromone.set(i, j, oldPheromone.get(previous[i], previous[j]));
+                }
+            }
+        }
+        // 候选列表和局部搜索的近邻列表
+        if (candidates != null) {
+            candidates = CandidateList.update(candidates, distance, candidateNum, previous, current, changed,
+                    changedCities, changedNum);
+        }
+        if (localSearchMoves != 0) {
+            neighbours = candidates != null ? candidates : CandidateList.update(neighbours, distance,
+                    LOCAL_SEARCH_NEIGHBOURS, previous, current, changed, changedCities, changedNum);
+        }
+        if (candidateStorage) {
+            heuristic = CandidateMatrix.heuristic(distance, candidates, beta);
+            choiceInfo = CandidateMatrix.choiceInfo(pheromone, (CandidateMatrix) heuristic);
+        } else {
+            choiceInfo = FloatMatrix.create(n, symmetricStorage);
+        }
+        updater = new PheromoneUpdater(pheromone, heuristic, choiceInfo);
+        updateChoiceInfo();
+        // 由原最优路径得到新的最优路径，尚未迭代过时所有城市都按最小插入代价插入
+        int[] tour = new int[n + 1];
+        int size = 0;
+        if (bestSoFar != null) {
+            for (int k = 0; k < oldNum; k++) {
+                int city = current[bestTour[k]];
+                if (city >= 0 && !changed[city]) {
+                    tour[size++] = city;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (changed[i] || bestSoFar == null) {
+                size = insertCheapest(tour, size, i);
+            }
+        }
+        tour[n] = tour[0];
+        int length = 0;
+        for (int k = 0; k < n; k++) {
+            length += distance.distance(tour[k], tour[k + 1]);
+        }
+        if (neighbours != null) {
+            length = new LocalSearch(distance, neighbours, localSearchMoves).improve(tour, length);
+        }
+        bestTour = tour;
+        bestLength = length;
+        bestSoFar = new Tour(tour, length);
+        iteration = 0;
+        stagnation = 0;
+        iterationBest = null;
+        this.instance = instance;
+        ownsDistance = newDistance != source;
+        initAnts();
+    }
+ 
+    /**
+     * 把城市插入路径中使路径长度增加最少的位置
+     * @param tour 路径，只使用前size个元素，视为环
+     * @param size 路径中的城市数量
+     * @param city 要插入的城市
+     * @return 插入后的城市数量
+     */
+    private int insertCheapest(int[] tour, int size, int city) {
+        if (size < 2) {
+            tour[size] = city;
+            return size + 1;
+        }
+        int bestPos = 0;
+        long bestCost = Long.MAX_VALUE;
+        for (int k = 0; k < size; k++) {
+            int from = tour[k];
+            int to = tour[k + 1 == size ? 0 : k + 1];
+            long cost = (long) distance.distance(from, city) + distance.distance(city, to) - distance.distance(from, to);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestPos = k + 1;
+            }
+        }
+        System.arraycopy(tour, bestPos, tour, bestPos + 1, size - bestPos);
+        tour[bestPos] = city;
+        return size + 1;
+    }
+ 
     /**
      * 运行蚂蚁系统算法
      */
     public void solve() {
-        System.out.println("开始运行蚂蚁系统算法（Ant System）...");
-        System.out.println("蚂蚁数：" + antNum + " 迭代数：" + maxIteration + " α：" + alpha 
+        listener.log("开始运行" + strategy.getName() + "...");
+        listener.log("蚂蚁数：" + antNum + " 迭代数：" + maxIteration + " α：" + alpha 
                 + " β：" + beta + " ρ：" + rho);
         long beginTime = System.currentTimeMillis();
-        // 迭代maxIteration次
-        for (int g = 0; g < maxIteration; g++) {
-            // antNum只蚂蚁
-            for (int i = 0; i < antNum; i++) {
-                // i这只蚂蚁走cityNum步，完整一个TSP
-                for (int j = 1; j < cityNum; j++) {
-                    ants[i].selectNextCity(pheromone);
+        run();
+        long endTime = System.currentTimeMillis();
+        listener.log("算法结束，迭代 " + iteration + " 次，耗时 " + (endTime - beginTime) + "ms");
+        // 迭代完后，打印最佳结果
+        printOptimal();
+    }
+ 
+    /**
+     * 迭代直到满足任一停止条件：达到迭代数、超过时间上限、连续未改进的迭代数达到上限或者λ分支因子低于下限
+     * 时间上限从调用时开始计算
+     * @return 最优路径
+     */
+    public Tour run() {
+        return run(deadline());
+    }
+ 
+    /**
+     * @return 从现在开始计算时间上限的截止时刻，不限制时为Long.MAX_VALUE
+     */
+    long deadline() {
+        return timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000 : Long.MAX_VALUE;
+    }
+ 
+    /**
+     * 迭代直到满足任一停止条件，时间以System.nanoTime()给出的截止时刻为准
+     * 只在两次迭代之间检查时间，因此最多超出一次迭代的时间
+     * @param deadline 截止时刻，Long.MAX_VALUE表示不限制
+     * @return 最优路径
+     */
+    public Tour run(long deadline) {
+        while (step(deadline)) {
+            // 停止条件都在step中检查
+        }
+        return finishRun();
+    }
+ 
+    /**
+     * 在停止条件下运行一次迭代，run和岛屿模型的各蚁群共用同一套停止条件
+     * @param deadline 截止时刻，Long.MAX_VALUE表示不限制
+     * @return 是否应继续迭代；已达到迭代数或者超过截止时刻时不迭代，直接返回false
+     */
+    boolean step(long deadline) {
+        if (iteration >= maxIteration) {
+            return false;
+        }
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+            return false;
+        }
+        iterate();
+        if (stagnationLimit > 0 && stagnation >= stagnationLimit) {
+            return false;
+        }
+        // λ分支因子的计算量较大，每隔BRANCHING_INTERVAL次迭代检测一次
+        return branchingLimit <= 0 || iteration % BRANCHING_INTERVAL != 0
+                || branchingFactor(BRANCHING_LAMBDA) >= branchingLimit;
+    }
+ 
+    /**
+     * 运行结束：设置了快照文件时保存最终状态
+     * @return 最优路径
+     */
+    Tour finishRun() {
+        if (checkpointWriter != null) {
+            saveCheckpoint();
+        }
+        return bestSoFar;
+    }
+ 
+    /**
+     * 运行一次迭代：所有蚂蚁构造路径、更新最优路径、更新信息素
+     */
+    public void iterate() {
+        long beginNanos = System.nanoTime();
+        // antNum只蚂蚁各自走完一个TSP
+        buildTours();
+        long builtNanos = System.nanoTime();
+        // 按蚂蚁编号顺序合并结果，保证结果与线程数无关
+        iterationBest = ants[0];
+        long totalLength = 0;
+        for (int i = 0; i < antNum; i++) {
+            strategy.afterTour(this, ants[i]);
+            // 查看这只蚂蚁行走路径距离是否比当前距离优秀
+            int tourLength = ants[i].getTourLength();
+            totalLength += tourLength;
+            if (tourLength < iterationBest.getTourLength()) {
+                iterationBest = ants[i];
+            }
+            if (tourLength < bestLength) {
+                // 比当前优秀则拷贝优秀TSP路径
+                bestLength = tourLength;
+                System.arraycopy(ants[i].getTabu(), 0, bestTour, 0, cityNum + 1);
+            }
+        }
+        if (bestSoFar == null || bestLength < bestSoFar.getLength()) {
+            bestSoFar = new Tour(bestTour, bestLength);
+            stagnation = 0;
+        } else {
+            stagnation++;
+        }
+        // 更新信息素，并刷新选择权值矩阵
+        long updateNanos = System.nanoTime();
+        strategy.updatePheromone(this);
+        updateChoiceInfo();
+        sampler.prepare(choiceInfo, candidates);
+        long updatedNanos = System.nanoTime();
+        // 重新初始化蚂蚁
+        for (int i = 0; i < antNum; i++) {
+            ants[i].init(distance);
+        }
+        iteration++;
+        if (iteration % metricsInterval == 0 && listener.acceptsMetrics()) {
+            metrics.set(iteration, builtNanos - beginNanos, updatedNanos - updateNanos, bestLength,
+                    iterationBest.getTourLength(), (double) totalLength / antNum, entropy());
+            listener.onIteration(metrics);
+        }
+        // 上一个快照还没写完时跳过，下次迭代再保存，迭代从不等待磁盘
+        if (checkpointWriter != null && iteration % checkpointInterval == 0 && !checkpointWriter.isBusy()) {
+            checkpointWriter.submit(snapshot(checkpoint));
+        }
+    }
+ 
+    /**
+     * 复制当前的运行状态，在两次迭代之间调用
+     * @return 新的快照
+     */
+    public AntSystemSnapshot snapshot() {
+        return snapshot(new AntSystemSnapshot());
+    }
+ 
+    /**
+     * 把当前的运行状态复制到snapshot中，规模不变时重复使用其数组
+     */
+    private AntSystemSnapshot snapshot(AntSystemSnapshot snapshot) {
+        float[] tau = pheromone.data();
+        snapshot.ensure(cityNum, antNum, tau.length);
+        snapshot.symmetric = pheromone.isSymmetric();
+        snapshot.iteration = iteration;
+        snapshot.stagnation = stagnation;
+        snapshot.bestLength = bestLength;
+        System.arraycopy(bestTour, 0, snapshot.bestTour, 0, cityNum + 1);
+        System.arraycopy(tau, 0, snapshot.pheromone, 0, tau.length);
+        for (int i = 0; i < antNum; i++) {
+            snapshot.antStates[i] = ants[i].getInitState();
+        }
+        return snapshot;
+    }
+ 
+    /**
+     * 从快照恢复运行状态，之后继续迭代的结果与不中断地运行完全相同
+     * 需先用与保存快照时相同的参数、算法变种和实例调用init，快照只覆盖信息素、最优路径、迭代计数和随机数状态
+     * @param snapshot 快照
+     * @throws IllegalArgumentException 城市数量、蚂蚁数量或者信息素的存储方式与快照不一致
+     */
+    public void restore(AntSystemSnapshot snapshot) {
+        if (snapshot.cityNum != cityNum || snapshot.antNum != antNum
+                || snapshot.symmetric != pheromone.isSymmetric()) {
+            throw new IllegalArgumentException("快照与蚂蚁系统的规模或存储方式不一致");
+        }
+        float[] tau = pheromone.data();
+        System.arraycopy(snapshot.pheromone, 0, tau, 0, tau.length);
+        System.arraycopy(snapshot.bestTour, 0, bestTour, 0, cityNum + 1);
+        bestLength = snapshot.bestLength;
+        bestSoFar = bestLength < Integer.MAX_VALUE ? new Tour(bestTour, bestLength) : null;
+        iteration = snapshot.iteration;
+        stagnation = snapshot.stagnation;
+        for (int i = 0; i < antNum; i++) {
+            ants[i].restore(snapshot.antStates[i], distance);
+        }
+        updateChoiceInfo();
+        sampler.prepare(choiceInfo, candidates);
+    }
+ 
+    /**
+     * 设置定期保存快照：每隔interval次迭代在后台线程中写入file，run结束时再保存一次
+     * 恢复时用AntSystemSnapshot.read读取后调用restore
+     * @param file 快照文件，为null时停止保存
+     * @param interval 保存间隔的迭代数
+     * @throws IOException 停止之前的保存时发现写入失败
+     */
+    public void setCheckpoint(File file, int interval) throws IOException {
+        if (checkpointWriter != null) {
+            CheckpointWriter old = checkpointWriter;
+            checkpointWriter = null;
+            old.close();
+        }
+        if (file != null) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("保存间隔必须为正数: " + interval);
+            }
+            checkpointInterval = interval;
+            checkpointWriter = new CheckpointWriter(file);
+        }
+    }
+ 
+    /**
+     * 等待正在写入的快照写完后保存当前状态，并等待写完
+     */
+    private void saveCheckpoint() {
+        try {
+            checkpointWriter.await();
+            checkpointWriter.submit(snapshot(checkpoint));
+            checkpointWriter.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (checkpointWriter.getFailure() != null) {
+            listener.log("保存快照失败: " + checkpointWriter.getFailure());
+        }
+    }
+ 
+    /**
+     * 信息素熵：每个城市出边信息素分布的归一化香农熵的平均值
+     * 1表示信息素均匀分布，趋近于0表示信息素集中到少数几条边上；使用候选列表时只统计候选列表中的边
+     * @return 信息素熵
+     */
+    public double entropy() {
+        double total = 0;
+        for (int i = 0; i < cityNum; i++) {
+            int num = candidates != null ? candidates[i].length : cityNum;
+            double sum = 0;
+            for (int k = 0; k < num; k++) {
+                int j = candidates != null ? candidates[i][k] : k;
+                if (j != i) {
+                    sum += pheromone.get(i, j);
                 }
-                // 把这只蚂蚁起始城市加入其禁忌表中
-                // 禁忌表最终形式：起始城市,城市1,城市2...城市n,起始城市
-                ants[i].getTabu().add(ants[i].getFirstCity());
-                // 查看这只蚂蚁行走路径距离是否比当前距离优秀
-                int tourLength = ants[i].getTourLength();
-                if (tourLength < bestLength) {
-                    // 比当前优秀则拷贝优秀TSP路径
-                    bestLength = tourLength;
-                    for (int k = 0; k < cityNum + 1; k++) {
-                        bestTour[k] = ants[i].getTabu().get(k).intValue();
-                    }
+            }
+            double h = 0;
+            for (int k = 0; k < num && sum > 0; k++) {
+                int j = candidates != null ? candidates[i][k] : k;
+                double p = j != i ? pheromone.get(i, j) / sum : 0;
+                if (p > 0) {
+                    h -= p * Math.log(p);
                 }
-                // 更新这只蚂蚁的信息数变化矩阵，对称矩阵
-                for (int j = 0; j < cityNum; j++) {
-                    ants[i].getDelta()[ants[i].getTabu().get(j).intValue()][ants[i]
-                            .getTabu().get(j + 1).intValue()] = (float) (1.0 / tourLength);
-                    ants[i].getDelta()[ants[i].getTabu().get(j + 1).intValue()][ants[i]
-                            .getTabu().get(j).intValue()] = (float) (1.0 / tourLength);
+            }
+            int edges = candidates != null ? num : cityNum - 1;
+            total += edges > 1 ? h / Math.log(edges) : 0;
+        }
+        return total / cityNum;
+    }
+ 
+    /**
+     * 接受从其他地方得到的路径，如岛屿模型中其他蚁群迁移过来的最优路径
+     * 比当前最优路径短时替换当前最优路径，并由策略的acceptTour在路径上释放信息素，
+     * 使原始蚂蚁系统之外只使用全局最优路径的变种也能受到影响，同时遵守各变种对信息素的约束
+     * 需在两次iterate之间调用
+     * @param tour 路径
+     * @return 是否比当前最优路径短
+     */
+    public boolean acceptTour(Tour tour) {
+        if (tour.getLength() >= bestLength) {
+            return false;
+        }
+        bestLength = tour.getLength();
+        int[] cities = tour.getCities();
+        System.arraycopy(cities, 0, bestTour, 0, cityNum + 1);
+        bestSoFar = tour;
+        stagnation = 0;
+        strategy.acceptTour(this, bestTour);
+        return true;
+    }
+ 
+    /**
+     * 只刷新边(i, j)两个方向的选择权值和采样方法中这两行的数据，在两次全局刷新之间修改了少数几条边的信息素后调用
+     * @param i 边的一个端点
+     * @param j 边的另一个端点
+     */
+    public void refreshEdge(int i, int j) {
+        choiceInfo.set(i, j, (float) power(pheromone.get(i, j), alpha) * heuristic.get(i, j));
+        choiceInfo.set(j, i, (float) power(pheromone.get(j, i), alpha) * heuristic.get(j, i));
+        sampler.update(choiceInfo, i);
+        sampler.update(choiceInfo, j);
+    }
+ 
+    /**
+     * 所有蚂蚁构造路径，设置了线程池时并行执行
+     * 策略有局部信息素更新时所有蚂蚁在调用线程中同步逐步前进，见AcoStrategy.hasLocalUpdate
+     */
+    private void buildTours() {
+        if (strategy.hasLocalUpdate()) {
+            for (int step = 1; step < cityNum; step++) {
+                for (int i = 0; i < antNum; i++) {
+                    Ant ant = ants[i];
+                    int from = ant.getCurrentCity();
+                    ant.selectNextCity(choiceInfo);
+                    strategy.localUpdate(this, from, ant.getCurrentCity());
                 }
             }
-            // 更新信息素
-            updatePheromone();
-            // 重新初始化蚂蚁
             for (int i = 0; i < antNum; i++) {
-                ants[i].init(distance, alpha, beta);
+                strategy.localUpdate(this, ants[i].getCurrentCity(), ants[i].getFirstCity());
+                ants[i].finishTour();
             }
+            return;
+        }
+        if (executor == null) {
+            for (int i = 0; i < antNum; i++) {
+                ants[i].buildTour(choiceInfo);
+            }
+            return;
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tourTasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("构造路径被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("构造路径失败", e.getCause());
         }
-        long endTime = System.currentTimeMillis();
-        System.out.println("算法结束，耗时 " + (endTime - beginTime) + "ms");
-        // 迭代完后，打印最佳结果
-        printOptimal();
     }
  
     /**
-     * 更新信息素
+     * 平均λ分支因子：对每个城市i，设其出边信息素的最小值、最大值为τmin、τmax，
+     * 统计τ(i, j) >= τmin + λ(τmax - τmin)的边数，再对所有城市取平均
+     * 信息素集中到少数几条边上时该值趋近于1（对称问题中趋近于2），说明搜索已收敛
+     * 使用候选列表时只统计候选列表中的边
+     * @param lambda λ，一般取0.05
+     * @return 平均λ分支因子
      */
-    private void updatePheromone() {
-        // 信息素挥发
-        for (int i = 0; i < cityNum; i++)
-            for (int j = 0; j < cityNum; j++)
-                pheromone[i][j] = pheromone[i][j] * (1 - rho);
-        // 信息素更新
+    public float branchingFactor(float lambda) {
+        long count = 0;
         for (int i = 0; i < cityNum; i++) {
-            for (int j = 0; j < cityNum; j++) {
-                for (int k = 0; k < antNum; k++) {
-                    pheromone[i][j] += ants[k].getDelta()[i][j];
+            int num = candidates != null ? candidates[i].length : cityNum;
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (int k = 0; k < num; k++) {
+                int j = candidates != null ? candidates[i][k] : k;
+                if (j != i) {
+                    float tau = pheromone.get(i, j);
+                    min = Math.min(min, tau);
+                    max = Math.max(max, tau);
+                }
+            }
+            float threshold = min + lambda * (max - min);
+            for (int k = 0; k < num; k++) {
+                int j = candidates != null ? candidates[i][k] : k;
+                if (j != i && pheromone.get(i, j) >= threshold) {
+                    count++;
                 }
             }
         }
+        return (float) count / cityNum;
+    }
+ 
+    /**
+     * 从城市0出发，每次走到最近的未访问城市，得到的路径长度用于估计初始信息素
+     * @return 最近邻路径长度
+     */
+    public int getNearestNeighbourLength() {
+        if (nearestNeighbourLength == 0) {
+            boolean[] visited = new boolean[cityNum];
+            int current = 0;
+            visited[current] = true;
+            int length = 0;
+            for (int step = 1; step < cityNum; step++) {
+                int next = -1;
+                for (int j = 0; j < cityNum; j++) {
+                    if (!visited[j] && (next < 0 || distance.distance(current, j) < distance.distance(current, next))) {
+                        next = j;
+                    }
+                }
+                length += distance.distance(current, next);
+                visited[next] = true;
+                current = next;
+            }
+            nearestNeighbourLength = Math.max(1, length + distance.distance(current, 0));
+        }
+        return nearestNeighbourLength;
+    }
+ 
+    /**
+     * 设置随机种子，需在init之前调用
+     * @param seed 随机种子
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+ 
+    /**
+     * 设置并行构造路径和更新信息素所用的线程池，可以是ForkJoinPool或者其他ExecutorService
+     * 线程池由调用方负责关闭
+     * 策略有局部信息素更新时（如蚁群系统ColonySystemStrategy），每只蚂蚁走一步都要修改其他蚂蚁下一步读取的信息素，
+     * 构造路径总是在调用线程中串行进行，线程池只用于全局的信息素挥发、限制上下限和选择权值的刷新
+     * @param executor 线程池，为null时单线程运行
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+ 
+    /**
+     * 刷新选择权值矩阵，蚂蚁选择城市时只读取该矩阵，不再调用Math.pow
+     * 三个矩阵存储方式相同，直接按一维数组逐元素计算，设置了线程池时分条并行；
+     * 只存储候选边时只刷新候选边，其余边由蚂蚁读取时实时计算
+     */
+    private void updateChoiceInfo() {
+        updater.refresh(executor, alpha);
+    }
+ 
+    /**
+     * 信息素挥发：所有信息素乘以factor，设置了线程池时分条并行
+     * 供算法变种的updatePheromone调用
+     * @param factor 挥发后保留的比例，一般为1 - ρ
+     */
+    public void evaporate(float factor) {
+        updater.scale(executor, factor);
+    }
+ 
+    /**
+     * 在多条路径上释放信息素，第r条路径经过的每条边释放amounts[r]，每条路径O(n)
+     * 总是在调用线程中串行进行，每条路径只有n条边，远少于挥发和刷新选择权值的n^2个元素，
+     * 结果与逐条路径调用AcoStrategy.deposit完全相同
+     * @param tours 路径，每条长度为cityNum + 1，首尾相同
+     * @param amounts 每条路径在每条边上释放的信息素
+     * @param count 路径数量，只使用前count条
+     */
+    public void deposit(int[][] tours, float[] amounts, int count) {
+        updater.deposit(tours, amounts, count);
+    }
+ 
+    /**
+     * 把信息素限制在[min, max]之间，设置了线程池时分条并行
+     * @param min 下限
+     * @param max 上限
+     */
+    public void clampPheromone(float min, float max) {
+        updater.clamp(executor, min, max);
+    }
+ 
+    /**
+     * 求x的e次幂，e为较小的整数时用连乘代替Math.pow
+     * @param x 底数
+     * @param e 指数
+     * @return x^e
+     */
+    static double power(double x, float e) {
+        int n = (int) e;
+        if (n != e || n < 0 || n > 16) {
+            return Math.pow(x, e);
+        }
+        double result = 1.0;
+        for (int i = 0; i < n; i++) {
+            result *= x;
+        }
+        return result;
+    }
+ 
+    /**
+     * 设置运行时间上限，run和solve在超过该时间后的第一次迭代之间停止
+     * @param timeLimit 时间上限，单位毫秒，0表示不限制
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+ 
+    /**
+     * 设置最优长度连续未改进的迭代数上限，达到后run和solve停止
+     * @param stagnationLimit 迭代数上限，0表示不限制
+     */
+    public void setStagnationLimit(int stagnationLimit) {
+        this.stagnationLimit = stagnationLimit;
+    }
+ 
+    /**
+     * 设置λ分支因子（λ = 0.05）的下限，低于该值时认为已收敛，run和solve停止
+     * 对称问题中收敛时该值接近2，一般取2.0到2.2
+     * @param branchingLimit 下限，0表示不检测
+     */
+    public void setBranchingLimit(float branchingLimit) {
+        this.branchingLimit = branchingLimit;
+    }
+ 
+    /**
+     * 设置候选列表长度，需在init之前调用
+     * 城市数量很大时，蚂蚁每一步只在最近的k个未访问城市中选择，k一般取10到30
+     * @param candidateNum 候选列表长度，0表示不使用候选列表
+     */
+    public void setCandidateNum(int candidateNum) {
+        this.candidateNum = candidateNum;
+    }
+ 
+    /**
+     * 设置矩阵是否只存储上三角，需在init之前调用
+     * 对称存储时距离、信息素等矩阵的内存减半，但每次读取多一次下标判断，见init(DistanceProvider)中的规模限制
+     * @param symmetricStorage 是否使用对称存储
+     */
+    public void setSymmetricStorage(boolean symmetricStorage) {
+        this.symmetricStorage = symmetricStorage;
+    }
+ 
+    /**
+     * 设置启发信息和选择权值矩阵是否只存储候选边，需在init之前调用，要求设置了候选列表
+     * 两个矩阵的内存从n * n降为n * k，蚂蚁在候选城市都已访问、需要在剩余城市中选择时
+     * 由距离和信息素实时计算选择权值；同一种子下的路径与不只存储候选边时完全相同
+     * 不能与共用的启发信息矩阵（init(DistanceProvider, FloatMatrix)）同时使用
+     * @param candidateStorage 是否只存储候选边
+     */
+    public void setCandidateStorage(boolean candidateStorage) {
+        this.candidateStorage = candidateStorage;
+    }
+ 
+    /**
+     * 设置算法变种，需在init之前调用，默认为原始的蚂蚁系统
+     * @param strategy 算法变种
+     */
+    public void setStrategy(AcoStrategy strategy) {
+        this.strategy = strategy;
+    }
+ 
+    /**
+     * 设置蚂蚁按选择权值随机选择城市的采样方法，需在init之前调用，默认为Sampler.cumulative()
+     * Sampler.alias()保存每行的别名表，不能在多个AntSystem之间共用
+     * @param sampler 采样方法
+     */
+    public void setSampler(Sampler sampler) {
+        this.sampler = sampler;
+    }
+ 
+    /**
+     * 设置蚂蚁走完路径后的局部搜索，需在init之前调用
+     * 局部搜索在每只蚂蚁构造路径的任务中执行，设置了线程池时同样是并行的
+     * @param moves LocalSearch.TWO_OPT、LocalSearch.OR_OPT或者两者的组合，0表示不做局部搜索
+     */
+    public void setLocalSearch(int moves) {
+        this.localSearchMoves = moves;
+    }
+ 
+    /**
+     * 设置指标和日志的监听器，默认为只输出日志的ConsoleListener
+     * 设为MetricsListener.NONE时不计算信息素熵，也不输出任何日志
+     * @param listener 监听器
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+ 
+    /**
+     * 设置向监听器报告指标的迭代间隔，信息素熵的计算量为O(n^2)（使用候选列表时为O(nk)），城市较多时可适当增大
+     * @param metricsInterval 迭代间隔，默认为1
+     */
+    public void setMetricsInterval(int metricsInterval) {
+        this.metricsInterval = metricsInterval;
+    }
+ 
+    public MetricsListener getListener() {
+        return listener;
+    }
+ 
+    public FloatMatrix getPheromone() {
+        return pheromone;
+    }
+ 
+    public Ant[] getAnts() {
+        return ants;
+    }
+ 
+    public int getAntNum() {
+        return antNum;
+    }
+ 
+    public int getCityNum() {
+        return cityNum;
+    }
+ 
+    public float getRho() {
+        return rho;
+    }
+ 
+    public int getIteration() {
+        return iteration;
+    }
+ 
+    public Ant getIterationBest() {
+        return iterationBest;
+    }
+ 
+    public int getBestLength() {
+        return bestLength;
+    }
+ 
+    public int[] getBestTour() {
+        return bestTour;
+    }
+ 
+    /**
+     * 最优路径的快照，可在run运行期间从其他线程读取
+     * @return 目前为止的最优路径，尚未完成任何迭代时为null
+     */
+    public Tour getBestSoFar() {
+        return bestSoFar;
+    }
+ 
+    public int getStagnation() {
+        return stagnation;
     }
  
     private void printOptimal() {
-        System.out.println("最优长度为: " + bestLength);
-        System.out.println("最优路径为: ");
+        listener.log("最优长度为: " + bestLength);
+        listener.log("最优路径为: ");
+        StringBuilder line = new StringBuilder();
         for (int i = 0; i < cityNum + 1; i++) {
-            System.out.format("%3d", bestTour[i]);
-            if ((i + 1) % 20 == 0) {
-                System.out.println();
+            line.append(String.format("%3d", bestTour[i]));
+            if ((i + 1) % 20 == 0 || i == cityNum) {
+                listener.log(line.toString());
+                line.setLength(0);
             }
         }
-        System.out.println();
     }
  
  
@@ -176,16 +1084,18 @@ public class AntSystem {
      * @throws IOException
      */
     public static void main(String[] args) throws IOException {
-        int cityNum = 52; // 城市数量
         int antNum = 50; // 蚂蚁数量
         int maxIteration = 200; // 迭代次数
         float alpha = 1.0f; // α参数
         float beta = 3.0f; // β参数
         float rho = 0.5f; // ρ参数
-        String filename = "data/berlin52.txt";
-        AntSystem aco = new AntSystem(cityNum, antNum, maxIteration, alpha, beta, rho);
+        String filename = args.length > 0 ? args[0] : "data/berlin52.txt"; // 可以是TSPLIB的.tsp文件
+        ForkJoinPool pool = new ForkJoinPool(); // 并行度默认为CPU核数
+        AntSystem aco = new AntSystem(antNum, maxIteration, alpha, beta, rho);
+        aco.setExecutor(pool);
         aco.init(filename);
         aco.solve();
+        pool.shutdown();
     }
 
 }
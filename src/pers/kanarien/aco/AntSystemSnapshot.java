@@ -0,0 +1,131 @@
+package pers.kanarien.aco;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import pers.kanarien.checkpoint.Snapshot;
+import pers.kanarien.checkpoint.SnapshotFile;
+
+/**
+ * 蚂蚁系统的运行状态快照：信息素矩阵、最优路径、迭代计数以及每只蚂蚁随机数发生器的状态
+ * 距离、启发信息和候选列表由init重新计算，选择权值矩阵由信息素重新计算，都不保存
+ * 文件格式（小端序）：4字节魔数"ACOS"、4字节版本号，之后6个4字节整数：城市数量、蚂蚁数量、
+ * 信息素是否按对称方式存储、已完成的迭代数、最优长度连续未改进的迭代数、最优长度，
+ * 之后依次为最优路径（城市数量 + 1个int）、蚂蚁随机数状态（蚂蚁数量个long）、信息素矩阵的一维数据（float）
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class AntSystemSnapshot implements Snapshot {
+
+    private static final int MAGIC = 0x534F4341; // "ACOS"
+    private static final int VERSION = 1;
+
+    int cityNum;        // 城市数量
+    int antNum;         // 蚂蚁数量
+    boolean symmetric;  // 信息素是否按对称方式存储
+    int iteration;      // 已完成的迭代数
+    int stagnation;     // 最优长度连续未改进的迭代数
+    int bestLength;     // 最优长度
+    int[] bestTour;     // 最优路径
+    long[] antStates;   // 每只蚂蚁最近一次init开始时随机数发生器的状态
+    float[] pheromone;  // 信息素矩阵的一维数据
+
+    AntSystemSnapshot() {
+    }
+
+    /**
+     * 按规模申请数组，规模不变时重复使用
+     */
+    void ensure(int cityNum, int antNum, int pheromoneLength) {
+        if (bestTour == null || bestTour.length != cityNum + 1) {
+            bestTour = new int[cityNum + 1];
+        }
+        if (antStates == null || antStates.length != antNum) {
+            antStates = new long[antNum];
+        }
+        if (pheromone == null || pheromone.length != pheromoneLength) {
+            pheromone = new float[pheromoneLength];
+        }
+        this.cityNum = cityNum;
+        this.antNum = antNum;
+    }
+
+    @Override
+    public void writeTo(FileChannel channel) throws IOException {
+        SnapshotFile out = new SnapshotFile(channel);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putInt(cityNum).putInt(antNum).putInt(symmetric ? 1 : 0);
+        out.putInt(iteration).putInt(stagnation).putInt(bestLength);
+        out.putInts(bestTour, cityNum + 1);
+        out.putLongs(antStates, antNum);
+        out.putFloats(pheromone, pheromone.length);
+        out.flush();
+    }
+
+    /**
+     * 写入快照文件
+     * @param file 快照文件
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        SnapshotFile.write(file, this);
+    }
+
+    /**
+     * 映射快照文件读取快照，各数组直接从映射的内存批量复制
+     * @param file 快照文件
+     * @return 快照
+     * @throws IOException 文件不存在或者格式不对
+     */
+    public static AntSystemSnapshot read(File file) throws IOException {
+        ByteBuffer in = SnapshotFile.map(file, MAGIC, VERSION);
+        if (in.remaining() < 24) {
+            throw new IOException("快照文件不完整: " + file);
+        }
+        AntSystemSnapshot snapshot = new AntSystemSnapshot();
+        int cityNum = in.getInt();
+        int antNum = in.getInt();
+        snapshot.symmetric = in.getInt() != 0;
+        snapshot.iteration = in.getInt();
+        snapshot.stagnation = in.getInt();
+        snapshot.bestLength = in.getInt();
+        if (cityNum < 2 || antNum < 1) {
+            throw new IOException("快照文件头错误: " + file);
+        }
+        long length = snapshot.symmetric ? (long) cityNum * (cityNum + 1) / 2 : (long) cityNum * cityNum;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("快照文件头错误: " + file);
+        }
+        snapshot.ensure(cityNum, antNum, (int) length);
+        SnapshotFile.getInts(in, snapshot.bestTour, cityNum + 1);
+        SnapshotFile.getLongs(in, snapshot.antStates, antNum);
+        SnapshotFile.getFloats(in, snapshot.pheromone, (int) length);
+        return snapshot;
+    }
+
+    public int getCityNum() {
+        return cityNum;
+    }
+
+    public int getAntNum() {
+        return antNum;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public int getBestLength() {
+        return bestLength;
+    }
+
+    /**
+     * @return 最优路径的副本
+     */
+    public int[] getBestTour() {
+        return bestTour.clone();
+    }
+
+}
@@ -0,0 +1,39 @@
+package pers.kanarien.aco;
+
+/**
+ * 原始的蚂蚁系统（Ant System）：
+ * 信息素初始化为0.1，所有边挥发后，每只蚂蚁在自己的路径上释放1/L
+ * @author Kanarien
+ * @version 1.0
+ */
+public class AntSystemStrategy extends AcoStrategy {
+
+    private int[][] tours; // 每只蚂蚁的路径
+    private float[] amounts; // 每只蚂蚁在每条边上释放的信息素
+
+    @Override
+    public String getName() {
+        return "蚂蚁系统（Ant System）";
+    }
+
+    @Override
+    public void initPheromone(AntSystem system) {
+        system.getPheromone().fill(0.1f); // 初始化为0.1
+        tours = new int[system.getAntNum()][];
+        amounts = new float[system.getAntNum()];
+    }
+
+    @Override
+    public void updatePheromone(AntSystem system) {
+        // 信息素挥发
+        system.evaporate(1 - system.getRho());
+        // 信息素更新，每只蚂蚁直接按路径在经过的边上释放1/L，每只蚂蚁O(n)
+        Ant[] ants = system.getAnts();
+        for (int i = 0; i < ants.length; i++) {
+            tours[i] = ants[i].getTabu();
+            amounts[i] = (float) (1.0 / ants[i].getTourLength());
+        }
+        system.deposit(tours, amounts, ants.length);
+    }
+
+}
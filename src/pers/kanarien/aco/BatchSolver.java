@@ -0,0 +1,384 @@
+package pers.kanarien.aco;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量求解：在一个JVM中用一个共享的ForkJoinPool同时求解大量实例，每个实例单线程运行一个MMAS
+ * 1. 求解器按城市数量放入池中重复使用，同样规模的实例不再重新申请矩阵和蚂蚁
+ * 2. 每个实例的结果求解完即以一行JSON写出，行的顺序为完成的顺序，用index对应输入顺序
+ * 3. 第i个实例的随机种子为seed + i，结果与线程数和完成顺序无关
+ * 4. 正在处理的实例数量有上限，从标准输入读取文件列表时不会把所有实例一次读入内存
+ * @author Kanarien
+ * @version 1.0
+ */
+public class BatchSolver {
+
+    private final int parallelism; // 同时求解的实例数量
+    private int antNum = 25; // 蚂蚁数量
+    private int maxIteration = 500; // 每个实例的最大迭代数
+    private long timeLimit; // 每个实例的时间上限，单位毫秒，0表示不限制
+    private int stagnationLimit = 100; // 最优长度连续未改进的迭代数上限，0表示不限制
+    private int candidateNum = 20; // 候选列表长度
+    private int localSearchMoves = LocalSearch.TWO_OPT | LocalSearch.OR_OPT; // 局部搜索
+    private long seed; // 随机种子
+
+    private final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<AntSystem>> engines
+            = new ConcurrentHashMap<Integer, ConcurrentLinkedQueue<AntSystem>>(); // 按城市数量缓存的求解器
+
+    /**
+     * @param parallelism 同时求解的实例数量，一般为CPU核数
+     */
+    public BatchSolver(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 依次读取并求解所有实例，每个实例的结果写成一行JSON
+     * 读取或求解失败的实例写出一行带error字段的JSON，不影响其他实例
+     * 遍历files时抛出的异常在已提交的实例全部写出之后才向上抛出
+     * @param files 实例文件
+     * @param out 结果输出，由调用方关闭
+     * @return 求解的实例数量
+     * @throws IOException 写出结果失败
+     */
+    public int solve(Iterable<File> files, OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        final Semaphore inFlight = new Semaphore(parallelism * 2);
+        final AtomicInteger done = new AtomicInteger();
+        final IOException[] writeError = new IOException[1];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int count = 0;
+        try {
+            for (final File file : files) {
+                inFlight.acquire();
+                final int index = count++;
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            String line = solve(index, file);
+                            synchronized (writer) {
+                                writer.write(line);
+                                writer.write('\n');
+                                writer.flush();
+                            }
+                        } catch (IOException e) {
+                            synchronized (writer) {
+                                writeError[0] = e;
+                            }
+                        } finally {
+                            done.incrementAndGet();
+                            inFlight.release();
+                        }
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            throw new IOException("批量求解被中断", e);
+        } finally {
+            // 读取实例列表失败时也要等已提交的实例写完再关闭线程池，不丢失已经得到的结果
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pool.shutdownNow();
+            }
+            synchronized (writer) {
+                writer.flush();
+            }
+        }
+        synchronized (writer) {
+            if (writeError[0] != null) {
+                throw writeError[0];
+            }
+        }
+        return done.get();
+    }
+
+    /**
+     * 求解一个实例
+     * @return 一行JSON，不含换行
+     */
+    private String solve(int index, File file) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"index\":").append(index).append(",\"file\":");
+        appendString(json, file.getPath());
+        TspInstance instance;
+        try {
+            instance = TspReader.read(file);
+        } catch (IOException e) {
+            json.append(",\"error\":");
+            appendString(json, String.valueOf(e.getMessage()));
+            return json.append('}').toString();
+        } catch (RuntimeException e) {
+            json.append(",\"error\":");
+            appendString(json, e.toString());
+            return json.append('}').toString();
+        }
+        long begin = System.nanoTime();
+        AntSystem engine = borrow(instance.getDimension());
+        boolean initialized = false;
+        try {
+            engine.setSeed(seed + index);
+            engine.init(instance);
+            initialized = true;
+            engine.run();
+            long millis = (System.nanoTime() - begin) / 1000000;
+            json.append(",\"name\":");
+            appendString(json, instance.getName());
+            json.append(",\"cities\":").append(instance.getDimension());
+            json.append(",\"length\":").append(engine.getBestLength());
+            json.append(",\"iterations\":").append(engine.getIteration());
+            json.append(",\"millis\":").append(millis);
+            json.append(",\"tour\":[");
+            int[] tour = engine.getBestTour();
+            for (int i = 0; i < instance.getDimension(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(tour[i]);
+            }
+            json.append("]}");
+        } catch (RuntimeException e) {
+            json.append(",\"error\":");
+            appendString(json, e.toString());
+            json.append('}');
+        } finally {
+            // 初始化失败的求解器城市数量不可信，直接丢弃
+            if (initialized) {
+                giveBack(engine);
+            }
+        }
+        return json.toString();
+    }
+
+    /**
+     * 取出一个城市数量为n的求解器，池中没有时新建
+     */
+    private AntSystem borrow(int n) {
+        ConcurrentLinkedQueue<AntSystem> queue = engines.get(n);
+        AntSystem engine = queue != null ? queue.poll() : null;
+        if (engine == null) {
+            engine = new AntSystem(antNum, maxIteration, 1.0f, 2.0f, 0.2f);
+            engine.setStrategy(new MaxMinStrategy());
+            engine.setCandidateNum(candidateNum);
+            engine.setLocalSearch(localSearchMoves);
+            engine.setTimeLimit(timeLimit);
+            engine.setStagnationLimit(stagnationLimit);
+        }
+        return engine;
+    }
+
+    /**
+     * 把求解器放回池中，每种规模最多保留parallelism个，只能放回成功初始化过的求解器
+     */
+    private void giveBack(AntSystem engine) {
+        int n = engine.getCityNum();
+        ConcurrentLinkedQueue<AntSystem> queue = engines.get(n);
+        if (queue == null) {
+            engines.putIfAbsent(n, new ConcurrentLinkedQueue<AntSystem>());
+            queue = engines.get(n);
+        }
+        if (queue.size() < parallelism) {
+            queue.offer(engine);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * 设置每个实例的参数，需在solve之前调用
+     * @param antNum 蚂蚁数量
+     * @param maxIteration 最大迭代数
+     */
+    public void setAntNum(int antNum, int maxIteration) {
+        this.antNum = antNum;
+        this.maxIteration = maxIteration;
+    }
+
+    /**
+     * @param timeLimit 每个实例的时间上限，单位毫秒，0表示不限制
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * @param stagnationLimit 最优长度连续未改进的迭代数上限，0表示不限制
+     */
+    public void setStagnationLimit(int stagnationLimit) {
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    /**
+     * @param candidateNum 候选列表长度，0表示不使用候选列表
+     */
+    public void setCandidateNum(int candidateNum) {
+        this.candidateNum = candidateNum;
+    }
+
+    /**
+     * @param localSearchMoves LocalSearch.TWO_OPT、LocalSearch.OR_OPT或者两者的组合，0表示不做局部搜索
+     */
+    public void setLocalSearch(int localSearchMoves) {
+        this.localSearchMoves = localSearchMoves;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 批量求解入口
+     * 参数：[-p 并行度] [-i 最大迭代数] [-t 每个实例的毫秒数] [-s 停滞迭代数] [-o 输出文件] 文件或目录...
+     * 文件为"-"时从标准输入逐行读取文件路径，此时不能再给出其他文件或目录；目录中的文件按文件名排序；结果默认写到标准输出，统计信息写到标准错误
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int maxIteration = 500;
+        long timeLimit = 0;
+        int stagnationLimit = 100;
+        String output = null;
+        List<File> files = new ArrayList<File>();
+        boolean stdin = false;
+        boolean named = false; // 是否给出了文件或目录参数
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-p")) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-i")) {
+                maxIteration = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-t")) {
+                timeLimit = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-s")) {
+                stagnationLimit = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o")) {
+                output = args[++i];
+            } else if (args[i].equals("-")) {
+                stdin = true;
+            } else {
+                named = true;
+                File file = new File(args[i]);
+                File[] children = file.listFiles();
+                if (children != null) {
+                    Arrays.sort(children);
+                    for (File child : children) {
+                        if (child.isFile()) {
+                            files.add(child);
+                        }
+                    }
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+        if (stdin && named) {
+            throw new IllegalArgumentException("\"-\"不能与文件或目录参数同时使用");
+        }
+        if (files.isEmpty() && !stdin) {
+            files.add(new File("data/berlin52.txt"));
+        }
+        BatchSolver solver = new BatchSolver(parallelism);
+        solver.setAntNum(25, maxIteration);
+        solver.setTimeLimit(timeLimit);
+        solver.setStagnationLimit(stagnationLimit);
+        OutputStream out = output != null ? new FileOutputStream(output) : System.out;
+        long begin = System.nanoTime();
+        int count;
+        try {
+            if (stdin) {
+                count = solver.solve(lines(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))), out);
+            } else {
+                count = solver.solve(files, out);
+            }
+        } finally {
+            if (output != null) {
+                out.close();
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.err.format("共求解 %d 个实例，耗时 %.2f s，每秒 %.1f 个实例%n", count, seconds, count / seconds);
+    }
+
+    /**
+     * 把逐行读取的文件路径包装成Iterable，跳过空行，读到结尾才停止
+     */
+    private static Iterable<File> lines(final BufferedReader reader) {
+        return new Iterable<File>() {
+            @Override
+            public Iterator<File> iterator() {
+                return new Iterator<File>() {
+                    private String next = read();
+
+                    private String read() {
+                        try {
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                line = line.trim();
+                                if (!line.isEmpty()) {
+                                    return line;
+                                }
+                            }
+                            return null;
+                        } catch (IOException e) {
+                            throw new IllegalStateException("读取文件列表失败", e);
+                        }
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public File next() {
+                        File file = new File(next);
+                        next = read();
+                        return file;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,114 @@
+package pers.kanarien.aco;
+
+/**
+ * 候选列表（最近邻列表）：为每个城市记录距离最近的k个城市，按距离从近到远排列
+ * 蚂蚁选择下一个城市时只考虑候选列表中未访问的城市，每一步的代价从O(n)降为O(k)
+ * @author Kanarien
+ * @version 1.0
+ */
+public class CandidateList {
+
+    private CandidateList() {
+    }
+
+    /**
+     * 根据城市间距离构建每个城市的k近邻列表
+     * 每行只维护一个长度为k的有序数组，复杂度O(n * n * k)，实际上绝大多数城市不会进入前k，接近O(n * n)
+     * @param distance 城市间距离
+     * @param k 每个城市的候选城市数量，超过cityNum - 1时取cityNum - 1
+     * @return 候选列表，candidates[i]为城市i的k个最近邻城市
+     */
+    public static int[][] build(DistanceProvider distance, int k) {
+        int cityNum = distance.size();
+        k = Math.min(k, cityNum - 1);
+        int[][] candidates = new int[cityNum][];
+        int[] nearestDistance = new int[k];
+        for (int i = 0; i < cityNum; i++) {
+            candidates[i] = buildRow(distance, i, k, nearestDistance);
+        }
+        return candidates;
+    }
+
+    /**
+     * 城市集合少量变化后更新候选列表
+     * 未变化的城市如果原列表中没有被删除或移动的城市，原列表仍是未变化城市中最近的k个，
+     * 只需把变化的城市按距离插入；其余城市重建整行
+     * @param old 原候选列表
+     * @param distance 新的城市间距离
+     * @param k 每个城市的候选城市数量
+     * @param previous previous[i]为城市i在原编号中的编号，新增城市为-1
+     * @param current current[k]为原城市k的新编号，被删除时为-1
+     * @param changed 城市是否为新增或移动的城市
+     * @param changedCities 所有变化的城市
+     * @param changedNum 变化的城市数量
+     * @return 新的候选列表
+     */
+    static int[][] update(int[][] old, DistanceProvider distance, int k, int[] previous, int[] current,
+            boolean[] changed, int[] changedCities, int changedNum) {
+        int cityNum = distance.size();
+        k = Math.min(k, cityNum - 1);
+        int[][] candidates = new int[cityNum][];
+        int[] nearestDistance = new int[k];
+        for (int i = 0; i < cityNum; i++) {
+            int[] oldRow = changed[i] ? null : old[previous[i]];
+            boolean reusable = oldRow != null && oldRow.length == k;
+            for (int c = 0; reusable && c < k; c++) {
+                int city = current[oldRow[c]];
+                reusable = city >= 0 && !changed[city];
+            }
+            if (!reusable) {
+                candidates[i] = buildRow(distance, i, k, nearestDistance);
+                continue;
+            }
+            int[] nearest = new int[k];
+            for (int c = 0; c < k; c++) {
+                nearest[c] = current[oldRow[c]];
+                nearestDistance[c] = distance.distance(i, nearest[c]);
+            }
+            for (int c = 0; c < changedNum; c++) {
+                int j = changedCities[c];
+                int d = distance.distance(i, j);
+                if (j == i || d >= nearestDistance[k - 1]) {
+                    continue;
+                }
+                int pos = k - 1;
+                while (pos > 0 && nearestDistance[pos - 1] > d) {
+                    nearest[pos] = nearest[pos - 1];
+                    nearestDistance[pos] = nearestDistance[pos - 1];
+                    pos--;
+                }
+                nearest[pos] = j;
+                nearestDistance[pos] = d;
+            }
+            candidates[i] = nearest;
+        }
+        return candidates;
+    }
+
+    /**
+     * 构建城市i的k近邻列表
+     * @param nearestDistance 临时数组，长度至少为k
+     */
+    private static int[] buildRow(DistanceProvider distance, int i, int k, int[] nearestDistance) {
+        int cityNum = distance.size();
+        int[] nearest = new int[k];
+        int size = 0;
+        for (int j = 0; j < cityNum; j++) {
+            int d = distance.distance(i, j);
+            if (j == i || (size == k && d >= nearestDistance[k - 1])) {
+                continue;
+            }
+            // 插入排序，保持nearest按距离从小到大排列
+            int pos = size < k ? size++ : k - 1;
+            while (pos > 0 && nearestDistance[pos - 1] > d) {
+                nearest[pos] = nearest[pos - 1];
+                nearestDistance[pos] = nearestDistance[pos - 1];
+                pos--;
+            }
+            nearest[pos] = j;
+            nearestDistance[pos] = d;
+        }
+        return nearest;
+    }
+
+}
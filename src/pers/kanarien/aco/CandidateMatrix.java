@@ -0,0 +1,191 @@
+package pers.kanarien.aco;
+
+/**
+ * 只存储候选边的n阶矩阵，用于城市很多、n * n的启发信息和选择权值矩阵放不进堆内时
+ * 1. 第i行只保存(i, candidates[i][k])，按候选列表的顺序连续存放，共n * k个元素
+ * 2. 不在候选列表中的元素不存储，读取时实时计算：启发信息由距离计算，选择权值由当前的信息素和启发信息计算
+ * 3. 写入不在候选列表中的元素时忽略，这些元素每次读取都是最新的值
+ * 4. 读取存储的元素时在该行的候选列表中顺序查找，候选列表一般只有10到30个城市
+ * 实时计算的值与稠密矩阵中的值按位相同，因此同一种子下蚂蚁的选择与使用n * n矩阵时完全一致
+ * @author Kanarien
+ * @version 1.0
+ */
+abstract class CandidateMatrix extends FloatMatrix {
+
+    protected final int[][] candidates; // 候选列表
+    protected final int[] rowOffset; // 第i行从rowOffset[i]开始，rowOffset[n]为元素总数
+
+    private CandidateMatrix(int[][] candidates, int[] rowOffset) {
+        super(candidates.length, rowOffset[candidates.length]);
+        this.candidates = candidates;
+        this.rowOffset = rowOffset;
+    }
+
+    /**
+     * 计算启发信息(1/d)^β，候选边在创建时计算一次，其余边每次读取时由distance计算
+     * @param distance 城市间距离
+     * @param candidates 候选列表
+     * @param beta β
+     * @return 启发信息矩阵
+     */
+    static CandidateMatrix heuristic(DistanceProvider distance, int[][] candidates, float beta) {
+        Heuristic matrix = new Heuristic(candidates, rowOffset(candidates), distance, beta);
+        for (int i = 0; i < candidates.length; i++) {
+            int[] row = candidates[i];
+            for (int k = 0; k < row.length; k++) {
+                matrix.data[matrix.rowOffset[i] + k] = matrix.compute(i, row[k]);
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * 选择权值τ^α * (1/d)^β，候选边由refresh刷新，其余边每次读取时由当前的信息素计算
+     * @param pheromone 信息素矩阵
+     * @param heuristic 由heuristic创建的启发信息矩阵，候选列表与选择权值矩阵相同
+     * @return 选择权值矩阵，刷新之前全为0
+     */
+    static ChoiceInfo choiceInfo(FloatMatrix pheromone, CandidateMatrix heuristic) {
+        return new ChoiceInfo(heuristic.candidates, heuristic.rowOffset, pheromone, heuristic);
+    }
+
+    private static int[] rowOffset(int[][] candidates) {
+        int[] offset = new int[candidates.length + 1];
+        for (int i = 0; i < candidates.length; i++) {
+            offset[i + 1] = offset[i] + candidates[i].length;
+        }
+        return offset;
+    }
+
+    /**
+     * @return 不在候选列表中的元素(i, j)的值
+     */
+    abstract float compute(int i, int j);
+
+    @Override
+    public float get(int i, int j) {
+        int k = index(i, j);
+        return k >= 0 ? data[k] : compute(i, j);
+    }
+
+    @Override
+    public void set(int i, int j, float value) {
+        int k = index(i, j);
+        if (k >= 0) {
+            data[k] = value;
+        }
+    }
+
+    @Override
+    public void add(int i, int j, float value) {
+        int k = index(i, j);
+        if (k >= 0) {
+            data[k] += value;
+        }
+    }
+
+    @Override
+    public void addSymmetric(int i, int j, float value) {
+        add(i, j, value);
+        if (i != j) {
+            add(j, i, value);
+        }
+    }
+
+    /**
+     * 候选关系不对称，(i, j)和(j, i)分别存储
+     */
+    @Override
+    public boolean isSymmetric() {
+        return false;
+    }
+
+    @Override
+    int rowStart(int i) {
+        return rowOffset[i];
+    }
+
+    /**
+     * @return (i, j)在data()中的下标，j不在i的候选列表中时为-1
+     */
+    @Override
+    int index(int i, int j) {
+        int[] row = candidates[i];
+        for (int k = 0; k < row.length; k++) {
+            if (row[k] == j) {
+                return rowOffset[i] + k;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Heuristic extends CandidateMatrix {
+
+        private final DistanceProvider distance; // 城市间距离
+        private final float beta; // β
+
+        Heuristic(int[][] candidates, int[] rowOffset, DistanceProvider distance, float beta) {
+            super(candidates, rowOffset);
+            this.distance = distance;
+            this.beta = beta;
+        }
+
+        /**
+         * 与AntSystem中的稠密矩阵相同，坐标重合的城市按距离1处理，对角线为0
+         */
+        @Override
+        float compute(int i, int j) {
+            return i == j ? 0.f : (float) AntSystem.power(1.0 / Math.max(distance.distance(i, j), 1), beta);
+        }
+    }
+
+    static final class ChoiceInfo extends CandidateMatrix {
+
+        private final FloatMatrix pheromone; // 信息素矩阵
+        private final CandidateMatrix heuristic; // 启发信息矩阵
+        private float alpha; // α，由setAlpha在刷新之前设置
+
+        ChoiceInfo(int[][] candidates, int[] rowOffset, FloatMatrix pheromone, CandidateMatrix heuristic) {
+            super(candidates, rowOffset);
+            this.pheromone = pheromone;
+            this.heuristic = heuristic;
+        }
+
+        /**
+         * 与PheromoneUpdater刷新稠密矩阵时的计算相同
+         */
+        @Override
+        float compute(int i, int j) {
+            return (float) AntSystem.power(pheromone.get(i, j), alpha) * heuristic.compute(i, j);
+        }
+
+        /**
+         * @param alpha α，之后刷新和实时计算的元素都使用该值
+         */
+        void setAlpha(float alpha) {
+            this.alpha = alpha;
+        }
+
+        /**
+         * 刷新[from, to)行的候选边，不同的行可以在不同线程中同时刷新
+         */
+        void refresh(int from, int to) {
+            float[] eta = heuristic.data;
+            for (int i = from; i < to; i++) {
+                int[] row = candidates[i];
+                int start = rowOffset[i];
+                if (alpha == 1.0f) {
+                    // α为1时τ^α即τ本身
+                    for (int k = 0; k < row.length; k++) {
+                        data[start + k] = pheromone.get(i, row[k]) * eta[start + k];
+                    }
+                } else {
+                    for (int k = 0; k < row.length; k++) {
+                        data[start + k] = (float) AntSystem.power(pheromone.get(i, row[k]), alpha) * eta[start + k];
+                    }
+                }
+            }
+        }
+    }
+
+}
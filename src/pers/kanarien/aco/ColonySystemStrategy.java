@@ -0,0 +1,88 @@
+package pers.kanarien.aco;
+
+/**
+ * 蚁群系统（Ant Colony System，ACS）：
+ * 1. 伪随机比例规则：以q0的概率直接选择权值最大的城市，否则按轮盘赌选择
+ * 2. 局部信息素更新：蚂蚁每走过一条边立即令τ = (1 - ξ) * τ + ξ * τ0，并刷新这条边的选择权值，
+ *    降低同一次迭代中其他蚂蚁选择同一条边的概率
+ * 3. 全局信息素更新：只在全局最优路径的边上进行，τ = (1 - ρ) * τ + ρ / L
+ * 所有蚂蚁按编号顺序同步逐步前进，局部更新的顺序固定，结果与线程数无关；代价是构造路径不再并行
+ * α取1，ρ一般取0.1，蚂蚁数一般取10
+ * @author Kanarien
+ * @version 1.0
+ */
+public class ColonySystemStrategy extends AcoStrategy {
+
+    private float q0 = 0.9f; // 直接选择权值最大的城市的概率
+    private float xi = 0.1f; // 局部信息素挥发系数ξ
+    private float tau0; // 初始信息素
+
+    public ColonySystemStrategy() {
+    }
+
+    /**
+     * @param q0 直接选择权值最大的城市的概率
+     * @param xi 局部信息素挥发系数ξ
+     */
+    public ColonySystemStrategy(float q0, float xi) {
+        this.q0 = q0;
+        this.xi = xi;
+    }
+
+    @Override
+    public String getName() {
+        return "蚁群系统（Ant Colony System）";
+    }
+
+    @Override
+    public void initPheromone(AntSystem system) {
+        // τ0 = 1 / (n * Lnn)
+        tau0 = (float) (1.0 / ((double) system.getCityNum() * system.getNearestNeighbourLength()));
+        system.getPheromone().fill(tau0);
+    }
+
+    @Override
+    public float getQ0() {
+        return q0;
+    }
+
+    @Override
+    public boolean hasLocalUpdate() {
+        return true;
+    }
+
+    @Override
+    public void localUpdate(AntSystem system, int from, int to) {
+        FloatMatrix pheromone = system.getPheromone();
+        float tau = (1 - xi) * pheromone.get(from, to) + xi * tau0;
+        pheromone.set(from, to, tau);
+        pheromone.set(to, from, tau);
+        system.refreshEdge(from, to);
+    }
+
+    /**
+     * 与全局信息素更新相同，在外来路径的边上进行τ = (1 - ρ) * τ + ρ / L，信息素不会超过1 / L
+     */
+    @Override
+    public void acceptTour(AntSystem system, int[] tour) {
+        globalUpdate(system, tour);
+        refreshEdges(system, tour);
+    }
+
+    @Override
+    public void updatePheromone(AntSystem system) {
+        globalUpdate(system, system.getBestTour());
+    }
+
+    private static void globalUpdate(AntSystem system, int[] tour) {
+        FloatMatrix pheromone = system.getPheromone();
+        float rho = system.getRho();
+        float amount = rho / system.getBestLength();
+        for (int j = 0; j < tour.length - 1; j++) {
+            float tau = (1 - rho) * pheromone.get(tour[j], tour[j + 1]) + amount;
+            pheromone.set(tour[j], tour[j + 1], tau);
+            pheromone.set(tour[j + 1], tour[j], tau);
+        }
+    }
+
+}
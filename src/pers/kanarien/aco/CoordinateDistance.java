@@ -0,0 +1,89 @@
+package pers.kanarien.aco;
+
+/**
+ * 根据坐标实时计算的距离，计算方式由TSPLIB的边权类型决定
+ * 只保存坐标，内存为O(n)，适合距离矩阵放不进内存的超大规模实例
+ * @author Kanarien
+ * @version 1.0
+ */
+public class CoordinateDistance implements DistanceProvider {
+
+    private static final double PI = 3.141592; // TSPLIB规定的π取值
+    private static final double RRR = 6378.388; // 地球半径，单位千米
+
+    private final double[] x; // 所有城市的x坐标，GEO时为纬度的弧度
+    private final double[] y; // 所有城市的y坐标，GEO时为经度的弧度
+    private final EdgeWeightType type; // 边权类型
+
+    /**
+     * 欧氏距离
+     * @param x 所有城市的x坐标
+     * @param y 所有城市的y坐标
+     */
+    public CoordinateDistance(double[] x, double[] y) {
+        this(x, y, EdgeWeightType.EUC_2D);
+    }
+
+    /**
+     * @param x 所有城市的x坐标
+     * @param y 所有城市的y坐标
+     * @param type 边权类型，不能是EXPLICIT
+     */
+    public CoordinateDistance(double[] x, double[] y, EdgeWeightType type) {
+        if (type == EdgeWeightType.EXPLICIT) {
+            throw new IllegalArgumentException("EXPLICIT类型没有坐标");
+        }
+        if (type == EdgeWeightType.GEO) {
+            // GEO坐标预先转换为弧度，避免每次计算距离时重复转换
+            x = toRadians(x);
+            y = toRadians(y);
+        }
+        this.x = x;
+        this.y = y;
+        this.type = type;
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public int distance(int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        switch (type) {
+        case CEIL_2D:
+            return (int) Math.ceil(Math.sqrt(dx * dx + dy * dy));
+        case ATT:
+            double rij = Math.sqrt((dx * dx + dy * dy) / 10.0);
+            int tij = (int) (rij + 0.5);
+            return tij < rij ? tij + 1 : tij;
+        case GEO:
+            if (i == j) {
+                return 0;
+            }
+            double q1 = Math.cos(y[i] - y[j]);
+            double q2 = Math.cos(x[i] - x[j]);
+            double q3 = Math.cos(x[i] + x[j]);
+            return (int) (RRR * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+        default:
+            // 四舍五入，取整
+            return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+        }
+    }
+
+    /**
+     * 把DDD.MM格式的度分坐标转换为弧度
+     */
+    private static double[] toRadians(double[] degrees) {
+        double[] radians = new double[degrees.length];
+        for (int i = 0; i < degrees.length; i++) {
+            int deg = (int) degrees[i];
+            double min = degrees[i] - deg;
+            radians[i] = PI * (deg + 5.0 * min / 3.0) / 180.0;
+        }
+        return radians;
+    }
+
+}
@@ -0,0 +1,29 @@
+package pers.kanarien.aco;
+
+/**
+ * 距离接口，蚂蚁计算路径长度、构建候选列表和启发信息时都通过该接口读取城市间距离
+ * 实现有三种：
+ * 1. MatrixDistance：堆内的距离矩阵，读取最快
+ * 2. MappedDistance：预先计算好写入文件、通过内存映射读取的距离，不占用堆内存，可在多次运行间复用
+ * 3. CoordinateDistance：根据坐标实时计算，只占用O(n)内存
+ * 实现必须是只读的，可以被多个线程同时读取
+ * 距离不在堆内时，蚂蚁系统的信息素、启发信息和选择权值矩阵仍各占n * n个float，
+ * AntSystem.setCandidateStorage(true)时只有信息素矩阵是n * n的，见AntSystem.init(DistanceProvider)
+ * @author Kanarien
+ * @version 1.0
+ */
+public interface DistanceProvider {
+
+    /**
+     * @return 城市数量
+     */
+    int size();
+
+    /**
+     * @param i 城市i
+     * @param j 城市j
+     * @return 城市i到城市j的距离
+     */
+    int distance(int i, int j);
+
+}
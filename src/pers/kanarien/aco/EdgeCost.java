@@ -0,0 +1,19 @@
+package pers.kanarien.aco;
+
+/**
+ * 随时间变化的边权，如一天中不同时段的路段通行时间
+ * 实现必须是只读的，可以被多个线程同时读取
+ * @author Kanarien
+ * @version 1.0
+ */
+public interface EdgeCost {
+
+    /**
+     * @param edge 边在SparseGraph中的编号
+     * @param baseCost 边的基础权值，即SparseGraph.cost(edge)
+     * @param time 进入这条边的时刻，单位与权值相同
+     * @return 在time时刻经过这条边的权值，不小于0
+     */
+    int cost(int edge, int baseCost, long time);
+
+}
@@ -0,0 +1,21 @@
+package pers.kanarien.aco;
+
+/**
+ * TSPLIB中的边权类型，决定如何由坐标计算城市间距离
+ * @author Kanarien
+ * @version 1.0
+ */
+public enum EdgeWeightType {
+
+    /** 欧氏距离，四舍五入取整 */
+    EUC_2D,
+    /** 欧氏距离，向上取整 */
+    CEIL_2D,
+    /** 伪欧氏距离，用于att48、att532 */
+    ATT,
+    /** 地理距离，坐标为DDD.MM格式的纬度和经度，单位千米 */
+    GEO,
+    /** 直接给出距离矩阵，不使用坐标 */
+    EXPLICIT
+
+}
@@ -0,0 +1,197 @@
+package pers.kanarien.aco;
+
+/**
+ * n * n的float方阵，数据保存在一维数组中
+ * 提供两种存储方式：
+ * 1. 稠密存储：按行优先顺序保存全部n * n个元素，读取最快
+ * 2. 对称存储：只保存包含对角线的上三角部分，共n * (n + 1) / 2个元素，内存减半，(i, j)和(j, i)是同一个元素
+ * 另有只存储候选边的CandidateMatrix，用于启发信息和选择权值矩阵
+ * 同一种存储方式、同样大小的两个矩阵，data()中相同下标对应相同位置，因此可以直接按一维数组做逐元素运算
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class FloatMatrix {
+
+    protected final int size; // 矩阵阶数
+    protected final float[] data; // 一维存储的矩阵数据
+
+    FloatMatrix(int size, long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("矩阵过大: " + size + " * " + size);
+        }
+        this.size = size;
+        this.data = new float[(int) length];
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @return 稠密存储的n阶矩阵
+     */
+    public static FloatMatrix dense(int n) {
+        return new Dense(n);
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @return 对称存储的n阶矩阵
+     */
+    public static FloatMatrix symmetric(int n) {
+        return new Symmetric(n);
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @param symmetric 是否使用对称存储
+     * @return n阶矩阵
+     */
+    public static FloatMatrix create(int n, boolean symmetric) {
+        return symmetric ? symmetric(n) : dense(n);
+    }
+
+    public abstract float get(int i, int j);
+
+    public abstract void set(int i, int j, float value);
+
+    public abstract void add(int i, int j, float value);
+
+    /**
+     * 同时给(i, j)和(j, i)加上value，对称存储时两者是同一个元素，只加一次
+     */
+    public abstract void addSymmetric(int i, int j, float value);
+
+    /**
+     * @return 是否为对称存储
+     */
+    public abstract boolean isSymmetric();
+
+    /**
+     * @param i 行号，可以为size
+     * @return 第i行第一个存储的元素在data()中的下标，i为size时为data().length；对称存储时第i行从(i, i)开始
+     */
+    abstract int rowStart(int i);
+
+    /**
+     * @return (i, j)在data()中的下标，对称存储时与(j, i)相同，位于第min(i, j)行
+     */
+    abstract int index(int i, int j);
+
+    /**
+     * 所有元素赋值为value
+     */
+    public void fill(float value) {
+        for (int k = 0; k < data.length; k++) {
+            data[k] = value;
+        }
+    }
+
+    /**
+     * 所有元素乘以factor
+     */
+    public void scale(float factor) {
+        for (int k = 0; k < data.length; k++) {
+            data[k] *= factor;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 底层一维数组，用于逐元素运算的紧凑循环
+     */
+    public float[] data() {
+        return data;
+    }
+
+    private static final class Dense extends FloatMatrix {
+
+        Dense(int n) {
+            super(n, (long) n * n);
+        }
+
+        @Override
+        public float get(int i, int j) {
+            return data[i * size + j];
+        }
+
+        @Override
+        public void set(int i, int j, float value) {
+            data[i * size + j] = value;
+        }
+
+        @Override
+        public void add(int i, int j, float value) {
+            data[i * size + j] += value;
+        }
+
+        @Override
+        public void addSymmetric(int i, int j, float value) {
+            data[i * size + j] += value;
+            if (i != j) {
+                data[j * size + i] += value;
+            }
+        }
+
+        @Override
+        public boolean isSymmetric() {
+            return false;
+        }
+
+        @Override
+        int rowStart(int i) {
+            return i * size;
+        }
+
+        @Override
+        int index(int i, int j) {
+            return i * size + j;
+        }
+    }
+
+    private static final class Symmetric extends FloatMatrix {
+
+        private final int[] rowOffset; // rowOffset[i] + j即为(i, j)的下标，要求i <= j
+
+        Symmetric(int n) {
+            super(n, (long) n * (n + 1) / 2);
+            rowOffset = TriangularIndex.rowOffset(n);
+        }
+
+        @Override
+        int index(int i, int j) {
+            return i <= j ? rowOffset[i] + j : rowOffset[j] + i;
+        }
+
+        @Override
+        public float get(int i, int j) {
+            return data[index(i, j)];
+        }
+
+        @Override
+        public void set(int i, int j, float value) {
+            data[index(i, j)] = value;
+        }
+
+        @Override
+        public void add(int i, int j, float value) {
+            data[index(i, j)] += value;
+        }
+
+        @Override
+        public void addSymmetric(int i, int j, float value) {
+            data[index(i, j)] += value;
+        }
+
+        @Override
+        public boolean isSymmetric() {
+            return true;
+        }
+
+        @Override
+        int rowStart(int i) {
+            return i < size ? rowOffset[i] + i : data.length;
+        }
+    }
+
+}
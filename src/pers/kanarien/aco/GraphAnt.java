@@ -0,0 +1,240 @@
+package pers.kanarien.aco;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 在稀疏有向图上构造路线的蚂蚁，只沿图中存在的边移动：
+ * 1. 每一步在当前节点通往未访问节点的出边中按选择权值轮盘赌，每一步的开销与出度成正比
+ * 2. 没有这样的出边时，按广度优先搜索沿已有的边走到最近（边数最少）的未访问节点，途经的节点都已访问
+ * 3. 访问完所有节点后沿边回到起点，没有直接的边时同样搜索最短的回程
+ * 路线的长度为从出发时刻开始、按每条边进入时刻的权值累加的总时间，路线可能重复经过节点
+ * 所有数组在创建时按节点数量申请，路线变长时才扩容，构造路线时一般不再申请内存
+ * @author Kanarien
+ * @version 1.0
+ */
+final class GraphAnt {
+
+    private final SparseGraph graph; // 图
+    private final int nodeNum; // 节点数量
+    private final Random random; // 随机数发生器，每只蚂蚁独立一份
+    private int[] walk; // 经过的节点，walk[0]为起点，walk[edgeNum]为终点
+    private int[] edges; // 经过的边，edges[k]从walk[k]到walk[k + 1]
+    private int edgeNum; // 经过的边数
+    private final int[] visited; // visited[i] == tourStamp表示节点i在本条路线中已访问
+    private int tourStamp; // 本条路线的标记，每条路线加1，避免每次清空visited
+    private int remaining; // 未访问的节点数量
+    private final int[] seen; // seen[i] == searchStamp表示节点i在本次搜索中已入队
+    private int searchStamp; // 本次搜索的标记
+    private final int[] queue; // 广度优先搜索的队列
+    private final int[] parentEdge; // 搜索中到达节点i的边
+    private final int[] parentNode; // 搜索中到达节点i的上一个节点
+    private final int[] path; // 搜索到的路径，逆序保存
+    private final int[] candidateEdges; // 当前节点通往未访问节点的出边
+    private final double[] prefix; // 候选边选择权值的前缀和
+    private long time; // 当前时刻
+    private int tourLength; // 路线长度
+    private int searches; // 本条路线中搜索最近未访问节点的次数
+
+    /**
+     * @param graph 图
+     * @param seed 随机种子
+     */
+    GraphAnt(SparseGraph graph, long seed) {
+        this.graph = graph;
+        this.nodeNum = graph.getNodeNum();
+        this.random = new Random(seed);
+        walk = new int[2 * nodeNum + 1];
+        edges = new int[2 * nodeNum];
+        visited = new int[nodeNum];
+        seen = new int[nodeNum];
+        queue = new int[nodeNum];
+        parentEdge = new int[nodeNum];
+        parentNode = new int[nodeNum];
+        path = new int[nodeNum];
+        int maxDegree = 0;
+        for (int i = 0; i < nodeNum; i++) {
+            maxDegree = Math.max(maxDegree, graph.outEnd(i) - graph.outStart(i));
+        }
+        candidateEdges = new int[maxDegree];
+        prefix = new double[maxDegree];
+    }
+
+    /**
+     * 构造一条经过所有节点并回到起点的路线
+     * @param choiceInfo 每条边的选择权值，greedy为true时不使用
+     * @param startTime 出发时刻
+     * @param greedy 为true时从节点0出发，每一步选择基础权值最小的边，用于估计初始信息素
+     * @return 是否成功，图不是强连通时可能到不了某些节点或者回不到起点
+     */
+    boolean buildTour(float[] choiceInfo, long startTime, boolean greedy) {
+        if (++tourStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            tourStamp = 1;
+        }
+        int start = greedy ? 0 : random.nextInt(nodeNum);
+        walk[0] = start;
+        edgeNum = 0;
+        visited[start] = tourStamp;
+        remaining = nodeNum - 1;
+        time = startTime;
+        searches = 0;
+        int current = start;
+        while (remaining > 0) {
+            int edge = selectEdge(current, choiceInfo, greedy);
+            if (edge >= 0) {
+                traverse(edge);
+            } else if (!moveToNearest(current, -1)) {
+                return false;
+            }
+            current = walk[edgeNum];
+        }
+        // 回到起点
+        int edge = graph.findEdge(current, start);
+        if (edge >= 0) {
+            traverse(edge);
+        } else if (current != start && !moveToNearest(current, start)) {
+            return false;
+        }
+        tourLength = (int) Math.min(time - startTime, Integer.MAX_VALUE - 1);
+        return true;
+    }
+
+    /**
+     * 在当前节点通往未访问节点的出边中选择一条
+     * @return 选中的边，没有这样的出边时返回-1
+     */
+    private int selectEdge(int current, float[] choiceInfo, boolean greedy) {
+        int count = 0;
+        for (int e = graph.outStart(current); e < graph.outEnd(current); e++) {
+            if (visited[graph.target(e)] != tourStamp) {
+                candidateEdges[count++] = e;
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+        if (greedy) {
+            int best = candidateEdges[0];
+            for (int k = 1; k < count; k++) {
+                if (graph.cost(candidateEdges[k]) < graph.cost(best)) {
+                    best = candidateEdges[k];
+                }
+            }
+            return best;
+        }
+        // 累积权值采样，与Sampler.cumulative()相同
+        double sum = 0.0;
+        for (int k = 0; k < count; k++) {
+            sum += choiceInfo[candidateEdges[k]];
+            prefix[k] = sum;
+        }
+        if (!(sum > 0.0)) {
+            return candidateEdges[0];
+        }
+        double target = random.nextDouble() * sum;
+        if (target >= sum) {
+            target = Math.nextDown(sum);
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prefix[mid] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return candidateEdges[low];
+    }
+
+    /**
+     * 广度优先搜索边数最少的路径，走到最近的未访问节点（goal为-1时）或者goal
+     * @return 是否找到
+     */
+    private boolean moveToNearest(int from, int goal) {
+        searches++;
+        if (++searchStamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            searchStamp = 1;
+        }
+        queue[0] = from;
+        seen[from] = searchStamp;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int e = graph.outStart(u); e < graph.outEnd(u); e++) {
+                int v = graph.target(e);
+                if (seen[v] == searchStamp) {
+                    continue;
+                }
+                seen[v] = searchStamp;
+                parentEdge[v] = e;
+                parentNode[v] = u;
+                if (goal < 0 ? visited[v] != tourStamp : v == goal) {
+                    // 由终点逆推到起点，再按顺序走过去
+                    int length = 0;
+                    for (int w = v; w != from; w = parentNode[w]) {
+                        path[length++] = parentEdge[w];
+                    }
+                    for (int k = length - 1; k >= 0; k--) {
+                        traverse(path[k]);
+                    }
+                    return true;
+                }
+                queue[tail++] = v;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 经过一条边，按进入时刻累加权值，并标记终点为已访问
+     */
+    private void traverse(int edge) {
+        if (edgeNum == edges.length) {
+            edges = Arrays.copyOf(edges, edgeNum * 2);
+            walk = Arrays.copyOf(walk, edgeNum * 2 + 1);
+        }
+        edges[edgeNum] = edge;
+        time += graph.cost(edge, time);
+        int node = graph.target(edge);
+        walk[++edgeNum] = node;
+        if (visited[node] != tourStamp) {
+            visited[node] = tourStamp;
+            remaining--;
+        }
+    }
+
+    int getTourLength() {
+        return tourLength;
+    }
+
+    /**
+     * @return 经过的边，前getEdgeNum()个有效
+     */
+    int[] getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return 经过的节点，前getEdgeNum() + 1个有效，首尾均为起点
+     */
+    int[] getWalk() {
+        return walk;
+    }
+
+    int getEdgeNum() {
+        return edgeNum;
+    }
+
+    /**
+     * @return 本条路线中无路可走、搜索最近未访问节点的次数
+     */
+    int getSearches() {
+        return searches;
+    }
+
+}
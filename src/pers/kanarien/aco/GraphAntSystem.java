@@ -0,0 +1,301 @@
+package pers.kanarien.aco;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import pers.kanarien.metrics.ConsoleListener;
+import pers.kanarien.metrics.IterationMetrics;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 稀疏有向图上的蚂蚁系统，用于道路网络等非完全、非对称、边权随时间变化的实例：
+ * 1. 信息素、启发信息和选择权值都按边保存在长度为m的一维数组中，与图的边编号一致，内存为O(n + m)而不是O(n^2)
+ * 2. 蚂蚁只沿存在的边移动，每一步的开销与当前节点的出度成正比，见GraphAnt
+ * 3. (i, j)与(j, i)是两条独立的边，信息素只释放在实际经过的方向上
+ * 4. 图设置了EdgeCost时，路线长度为从出发时刻开始按每条边的进入时刻累加的总时间；
+ *    启发信息只在初始化时按基础权值计算一次
+ * 信息素更新使用原始蚂蚁系统的规则：所有边挥发后，每只蚂蚁在经过的边上释放1/L，初始信息素为antNum / Lnn
+ * 与AntSystem相同，每只蚂蚁的随机种子由总种子依次派生，设置线程池时并行构造路线，结果与线程数无关
+ * @author Kanarien
+ * @version 1.0
+ */
+public class GraphAntSystem {
+
+    private final int antNum; // 蚂蚁数量
+    private final int maxIteration; // 迭代数
+    private final float alpha;
+    private final float beta;
+    private final float rho;
+    private SparseGraph graph; // 图
+    private GraphAnt[] ants; // 蚂蚁
+    private float[] pheromone; // 每条边的信息素
+    private float[] heuristic; // 每条边的启发信息，即(1/基础权值)^β
+    private float[] choiceInfo; // 每条边的选择权值，即τ^α * (1/d)^β
+    private List<Callable<Void>> tourTasks; // 每只蚂蚁一个构造路线的任务
+    private int bestLength; // 最优路线长度
+    private int[] bestWalk; // 最优路线经过的节点，首尾均为起点
+    private int iteration; // 已完成的迭代数
+    private int nearestNeighbourLength; // 贪心路线的长度，用于估计初始信息素
+    private long startTime; // 出发时刻
+    private long seed = System.currentTimeMillis(); // 随机种子
+    private ExecutorService executor; // 并行构造路线所用的线程池，为null时单线程运行
+    private MetricsListener listener = new ConsoleListener(0); // 指标和日志的监听器，默认只在控制台输出日志
+    private final IterationMetrics metrics = new IterationMetrics(); // 重复使用的指标对象
+
+    /**
+     * @param m 蚂蚁数量
+     * @param g 运行代数
+     * @param a alpha
+     * @param b beta
+     * @param r rho
+     */
+    public GraphAntSystem(int m, int g, float a, float b, float r) {
+        antNum = m;
+        maxIteration = g;
+        alpha = a;
+        beta = b;
+        rho = r;
+    }
+
+    /**
+     * 根据稀疏图初始化，计算启发信息、贪心路线和初始信息素，并创建蚂蚁
+     * @param graph 图，需为强连通图
+     * @throws IllegalArgumentException 图不是强连通的，不存在经过所有节点并回到起点的路线
+     */
+    public void init(SparseGraph graph) {
+        this.graph = graph;
+        int m = graph.getEdgeNum();
+        heuristic = new float[m];
+        for (int e = 0; e < m; e++) {
+            // 权值为0的边按1处理，避免除0
+            heuristic[e] = (float) AntSystem.power(1.0 / Math.max(graph.cost(e), 1), beta);
+        }
+        // 从节点0出发的贪心路线，同时检查图是否强连通
+        GraphAnt greedy = new GraphAnt(graph, seed);
+        if (!greedy.buildTour(null, startTime, true)) {
+            throw new IllegalArgumentException("图不是强连通的，不存在经过所有节点并回到起点的路线");
+        }
+        nearestNeighbourLength = Math.max(1, greedy.getTourLength());
+        pheromone = new float[m];
+        Arrays.fill(pheromone, (float) antNum / nearestNeighbourLength);
+        choiceInfo = new float[m];
+        updateChoiceInfo();
+        bestLength = greedy.getTourLength();
+        bestWalk = Arrays.copyOf(greedy.getWalk(), greedy.getEdgeNum() + 1);
+        iteration = 0;
+        // 每只蚂蚁的随机种子由总种子依次派生
+        Random seedRandom = new Random(seed);
+        ants = new GraphAnt[antNum];
+        tourTasks = new ArrayList<Callable<Void>>(antNum);
+        for (int i = 0; i < antNum; i++) {
+            final GraphAnt ant = new GraphAnt(graph, seedRandom.nextLong());
+            ants[i] = ant;
+            tourTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ant.buildTour(choiceInfo, startTime, false);
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * 迭代maxIteration次
+     * @return 最优路线的长度
+     */
+    public int run() {
+        listener.log("开始运行稀疏图上的蚂蚁系统，节点数：" + graph.getNodeNum() + " 边数：" + graph.getEdgeNum()
+                + " 蚂蚁数：" + antNum + " 迭代数：" + maxIteration);
+        long beginTime = System.currentTimeMillis();
+        while (iteration < maxIteration) {
+            iterate();
+        }
+        listener.log("算法结束，迭代 " + iteration + " 次，耗时 " + (System.currentTimeMillis() - beginTime)
+                + "ms，最优长度 " + bestLength);
+        return bestLength;
+    }
+
+    /**
+     * 运行一次迭代：所有蚂蚁构造路线、更新最优路线、更新信息素
+     */
+    public void iterate() {
+        long beginNanos = System.nanoTime();
+        buildTours();
+        long builtNanos = System.nanoTime();
+        // 按蚂蚁编号顺序合并结果，保证结果与线程数无关
+        int iterationBestLength = Integer.MAX_VALUE;
+        long totalLength = 0;
+        for (int i = 0; i < antNum; i++) {
+            GraphAnt ant = ants[i];
+            int tourLength = ant.getTourLength();
+            totalLength += tourLength;
+            iterationBestLength = Math.min(iterationBestLength, tourLength);
+            if (tourLength < bestLength) {
+                bestLength = tourLength;
+                bestWalk = Arrays.copyOf(ant.getWalk(), ant.getEdgeNum() + 1);
+            }
+        }
+        // 信息素挥发，再由每只蚂蚁在经过的边上释放1/L，每只蚂蚁的开销与路线的边数成正比
+        float factor = 1 - rho;
+        for (int e = 0; e < pheromone.length; e++) {
+            pheromone[e] *= factor;
+        }
+        for (int i = 0; i < antNum; i++) {
+            GraphAnt ant = ants[i];
+            float amount = (float) (1.0 / Math.max(ant.getTourLength(), 1));
+            int[] edges = ant.getEdges();
+            for (int k = 0; k < ant.getEdgeNum(); k++) {
+                pheromone[edges[k]] += amount;
+            }
+        }
+        updateChoiceInfo();
+        long updatedNanos = System.nanoTime();
+        iteration++;
+        if (listener.acceptsMetrics()) {
+            metrics.set(iteration, builtNanos - beginNanos, updatedNanos - builtNanos, bestLength,
+                    iterationBestLength, (double) totalLength / antNum, entropy());
+            listener.onIteration(metrics);
+        }
+    }
+
+    /**
+     * 所有蚂蚁构造路线，设置了线程池时并行执行
+     */
+    private void buildTours() {
+        if (executor == null) {
+            for (int i = 0; i < antNum; i++) {
+                ants[i].buildTour(choiceInfo, startTime, false);
+            }
+            return;
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tourTasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("构造路线被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("构造路线失败", e.getCause());
+        }
+    }
+
+    /**
+     * 刷新选择权值，逐边计算
+     */
+    private void updateChoiceInfo() {
+        if (alpha == 1.0f) {
+            for (int e = 0; e < choiceInfo.length; e++) {
+                choiceInfo[e] = pheromone[e] * heuristic[e];
+            }
+        } else {
+            for (int e = 0; e < choiceInfo.length; e++) {
+                choiceInfo[e] = (float) AntSystem.power(pheromone[e], alpha) * heuristic[e];
+            }
+        }
+    }
+
+    /**
+     * 信息素熵：出度大于1的每个节点出边信息素分布的归一化香农熵的平均值
+     * 1表示信息素均匀分布，趋近于0表示信息素集中到少数几条边上
+     * @return 信息素熵
+     */
+    public double entropy() {
+        double total = 0;
+        int count = 0;
+        for (int i = 0; i < graph.getNodeNum(); i++) {
+            int from = graph.outStart(i);
+            int to = graph.outEnd(i);
+            if (to - from < 2) {
+                continue;
+            }
+            double sum = 0;
+            for (int e = from; e < to; e++) {
+                sum += pheromone[e];
+            }
+            double h = 0;
+            for (int e = from; e < to && sum > 0; e++) {
+                double p = pheromone[e] / sum;
+                if (p > 0) {
+                    h -= p * Math.log(p);
+                }
+            }
+            total += h / Math.log(to - from);
+            count++;
+        }
+        return count > 0 ? total / count : 0;
+    }
+
+    /**
+     * 设置随机种子，需在init之前调用
+     * @param seed 随机种子
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * 设置出发时刻，边权随时间变化时决定路线长度，需在init之前调用
+     * @param startTime 出发时刻，单位与边权相同
+     */
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * 设置并行构造路线所用的线程池，线程池由调用方负责关闭
+     * @param executor 线程池，为null时单线程运行
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 设置指标和日志的监听器，默认只在控制台输出日志
+     * @param listener 监听器
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    public int getBestLength() {
+        return bestLength;
+    }
+
+    /**
+     * @return 最优路线依次经过的节点的副本，首尾均为起点，节点可能重复出现
+     */
+    public int[] getBestWalk() {
+        return bestWalk.clone();
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * @return 贪心路线的长度
+     */
+    public int getNearestNeighbourLength() {
+        return nearestNeighbourLength;
+    }
+
+    /**
+     * @return 每条边的信息素，下标为SparseGraph中的边编号
+     */
+    public float[] getPheromone() {
+        return pheromone;
+    }
+
+    public SparseGraph getGraph() {
+        return graph;
+    }
+
+}
@@ -0,0 +1,114 @@
+package pers.kanarien.aco;
+
+/**
+ * n * n的int方阵，数据保存在一维数组中，用于距离矩阵
+ * 与FloatMatrix一样提供稠密存储和对称存储（只保存上三角）两种方式
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class IntMatrix {
+
+    protected final int size; // 矩阵阶数
+    protected final int[] data; // 一维存储的矩阵数据
+
+    private IntMatrix(int size, long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("矩阵过大: " + size + " * " + size);
+        }
+        this.size = size;
+        this.data = new int[(int) length];
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @return 稠密存储的n阶矩阵
+     */
+    public static IntMatrix dense(int n) {
+        return new Dense(n);
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @return 对称存储的n阶矩阵
+     */
+    public static IntMatrix symmetric(int n) {
+        return new Symmetric(n);
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @param symmetric 是否使用对称存储
+     * @return n阶矩阵
+     */
+    public static IntMatrix create(int n, boolean symmetric) {
+        return symmetric ? symmetric(n) : dense(n);
+    }
+
+    public abstract int get(int i, int j);
+
+    public abstract void set(int i, int j, int value);
+
+    /**
+     * @return 是否为对称存储
+     */
+    public abstract boolean isSymmetric();
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 底层一维数组
+     */
+    public int[] data() {
+        return data;
+    }
+
+    private static final class Dense extends IntMatrix {
+
+        Dense(int n) {
+            super(n, (long) n * n);
+        }
+
+        @Override
+        public int get(int i, int j) {
+            return data[i * size + j];
+        }
+
+        @Override
+        public void set(int i, int j, int value) {
+            data[i * size + j] = value;
+        }
+
+        @Override
+        public boolean isSymmetric() {
+            return false;
+        }
+    }
+
+    private static final class Symmetric extends IntMatrix {
+
+        private final int[] rowOffset; // rowOffset[i] + j即为(i, j)的下标，要求i <= j
+
+        Symmetric(int n) {
+            super(n, (long) n * (n + 1) / 2);
+            rowOffset = TriangularIndex.rowOffset(n);
+        }
+
+        @Override
+        public int get(int i, int j) {
+            return data[i <= j ? rowOffset[i] + j : rowOffset[j] + i];
+        }
+
+        @Override
+        public void set(int i, int j, int value) {
+            data[i <= j ? rowOffset[i] + j : rowOffset[j] + i] = value;
+        }
+
+        @Override
+        public boolean isSymmetric() {
+            return true;
+        }
+    }
+
+}
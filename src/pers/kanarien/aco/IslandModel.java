@@ -0,0 +1,254 @@
+package pers.kanarien.aco;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 岛屿模型：多个相互独立的蚁群各占一个线程运行，每隔若干次迭代把各自的最优路径迁移给相邻的蚁群
+ * 每个蚁群有一个信箱，发送方用CAS只留下较短的路径，接收方一次取走，两边都不加锁
+ * 各蚁群异步运行，迁移到达的时刻取决于线程调度，因此结果不保证可复现
+ * @author Kanarien
+ * @version 1.0
+ */
+public class IslandModel {
+
+    /**
+     * 迁移拓扑
+     */
+    public enum Topology {
+        /** 环形，第i个蚁群只发给第i + 1个 */
+        RING,
+        /** 全连接，每个蚁群发给其余所有蚁群 */
+        FULLY_CONNECTED
+    }
+
+    private final AntSystem[] colonies; // 蚁群，均已初始化
+    private final int migrationInterval; // 迁移间隔的迭代数
+    private final Topology topology; // 迁移拓扑
+    private final List<AtomicReference<Tour>> mailboxes; // 每个蚁群的信箱，保存收到的最短路径
+
+    /**
+     * @param colonies 蚁群，均需已调用init，且使用同一个实例、不同的随机种子
+     * @param migrationInterval 迁移间隔的迭代数
+     * @param topology 迁移拓扑
+     */
+    public IslandModel(AntSystem[] colonies, int migrationInterval, Topology topology) {
+        if (migrationInterval < 1) {
+            throw new IllegalArgumentException("迁移间隔必须为正数: " + migrationInterval);
+        }
+        this.colonies = colonies;
+        this.migrationInterval = migrationInterval;
+        this.topology = topology;
+        mailboxes = new ArrayList<AtomicReference<Tour>>(colonies.length);
+        for (int i = 0; i < colonies.length; i++) {
+            mailboxes.add(new AtomicReference<Tour>());
+        }
+    }
+
+    /**
+     * 所有蚁群各自在一个线程中运行，结束后返回运行报告
+     * 每个蚁群按自己的停止条件停止：迭代数、时间上限、连续未改进的迭代数和λ分支因子，与AntSystem.run相同，
+     * 时间上限从调用时开始计算；一个蚁群停止后不再发送路径，其余蚁群继续运行
+     * @return 运行报告
+     */
+    public Report run() {
+        final int num = colonies.length;
+        final long[] millis = new long[num];
+        final int[] migrants = new int[num];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(num);
+        for (int i = 0; i < num; i++) {
+            final int index = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    long begin = System.nanoTime();
+                    migrants[index] = runColony(index);
+                    millis[index] = (System.nanoTime() - begin) / 1000000;
+                    return null;
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(num);
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("岛屿模型运行被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("岛屿模型运行失败", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        long totalMillis = (System.nanoTime() - begin) / 1000000;
+        int[] lengths = new int[num];
+        int[] iterations = new int[num];
+        for (int i = 0; i < num; i++) {
+            lengths[i] = colonies[i].getBestLength();
+            iterations[i] = colonies[i].getIteration();
+        }
+        return new Report(totalMillis, millis, lengths, iterations, migrants);
+    }
+
+    /**
+     * 运行一个蚁群直到满足其停止条件，每migrationInterval次迭代发送一次最优路径并接收信箱中的路径
+     * @return 接受的迁移路径数量
+     */
+    private int runColony(int index) {
+        AntSystem colony = colonies[index];
+        long deadline = colony.deadline();
+        int accepted = 0;
+        while (colony.step(deadline)) {
+            if (colony.getIteration() % migrationInterval == 0 && colonies.length > 1) {
+                Tour best = new Tour(colony.getBestTour(), colony.getBestLength());
+                if (topology == Topology.RING) {
+                    send((index + 1) % colonies.length, best);
+                } else {
+                    for (int i = 0; i < colonies.length; i++) {
+                        if (i != index) {
+                            send(i, best);
+                        }
+                    }
+                }
+                Tour received = mailboxes.get(index).getAndSet(null);
+                if (received != null && colony.acceptTour(received)) {
+                    accepted++;
+                }
+            }
+        }
+        colony.finishRun();
+        return accepted;
+    }
+
+    /**
+     * 把路径放入目标蚁群的信箱，信箱中已有更短的路径时放弃
+     */
+    private void send(int target, Tour tour) {
+        AtomicReference<Tour> mailbox = mailboxes.get(target);
+        while (true) {
+            Tour current = mailbox.get();
+            if (!tour.isShorterThan(current) || mailbox.compareAndSet(current, tour)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 所有蚁群中最短的路径
+     */
+    public Tour getBestTour() {
+        AntSystem best = colonies[0];
+        for (AntSystem colony : colonies) {
+            if (colony.getBestLength() < best.getBestLength()) {
+                best = colony;
+            }
+        }
+        return new Tour(best.getBestTour(), best.getBestLength());
+    }
+
+    /**
+     * 岛屿模型的运行报告：总耗时以及每个蚁群的耗时、最优长度、迭代数和接受的迁移路径数
+     */
+    public static class Report {
+
+        private final long totalMillis;
+        private final long[] millis;
+        private final int[] bestLengths;
+        private final int[] iterations;
+        private final int[] acceptedMigrants;
+
+        Report(long totalMillis, long[] millis, int[] bestLengths, int[] iterations, int[] acceptedMigrants) {
+            this.totalMillis = totalMillis;
+            this.millis = millis;
+            this.bestLengths = bestLengths;
+            this.iterations = iterations;
+            this.acceptedMigrants = acceptedMigrants;
+        }
+
+        /**
+         * @return 所有蚁群中的最优长度
+         */
+        public int getBestLength() {
+            int best = Integer.MAX_VALUE;
+            for (int length : bestLengths) {
+                best = Math.min(best, length);
+            }
+            return best;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long[] getMillis() {
+            return millis;
+        }
+
+        public int[] getBestLengths() {
+            return bestLengths;
+        }
+
+        public int[] getIterations() {
+            return iterations;
+        }
+
+        public int[] getAcceptedMigrants() {
+            return acceptedMigrants;
+        }
+
+        /**
+         * 把报告逐行输出到监听器的日志
+         * @param listener 监听器，一般为蚁群的getListener()
+         */
+        public void print(MetricsListener listener) {
+            listener.log("蚁群   耗时(ms)   迭代数   最优长度   接受迁移");
+            for (int i = 0; i < bestLengths.length; i++) {
+                listener.log(String.format("%4d %10d %8d %10d %10d", i, millis[i], iterations[i], bestLengths[i],
+                        acceptedMigrants[i]));
+            }
+            listener.log("总耗时 " + totalMillis + "ms，最优长度为: " + getBestLength());
+        }
+
+    }
+
+    /**
+     * 岛屿模型入口：4个MMAS蚁群，每20次迭代按环形拓扑迁移一次，各蚁群最多迭代500次或者连续200次未改进即停止
+     * 参数：数据文件 拓扑（RING或FULLY_CONNECTED）
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String filename = args.length > 0 ? args[0] : "data/berlin52.txt";
+        Topology topology = args.length > 1 ? Topology.valueOf(args[1]) : Topology.RING;
+        int colonyNum = 4; // 蚁群数量
+        int maxIteration = 500; // 每个蚁群的迭代数
+        int migrationInterval = 20; // 迁移间隔
+        int stagnationLimit = 200; // 连续未改进的迭代数上限
+        TspInstance instance = TspReader.read(new File(filename));
+        AntSystem[] colonies = new AntSystem[colonyNum];
+        for (int i = 0; i < colonyNum; i++) {
+            colonies[i] = new AntSystem(25, maxIteration, 1.0f, 3.0f, 0.02f);
+            colonies[i].setStrategy(new MaxMinStrategy());
+            colonies[i].setSeed(i);
+            colonies[i].setStagnationLimit(stagnationLimit);
+            colonies[i].init(instance);
+        }
+        MetricsListener listener = colonies[0].getListener();
+        listener.log("开始运行岛屿模型，蚁群数：" + colonyNum + " 拓扑：" + topology + " 迁移间隔："
+                + migrationInterval);
+        IslandModel model = new IslandModel(colonies, migrationInterval, topology);
+        model.run().print(listener);
+    }
+
+}
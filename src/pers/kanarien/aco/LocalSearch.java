@@ -0,0 +1,245 @@
+package pers.kanarien.aco;
+
+/**
+ * 局部搜索：在蚂蚁走完路径、与最优路径比较之前对路径做2-opt和Or-opt改进
+ * 1. 2-opt：去掉两条边(a, succ(a))、(c, succ(c))，换成(a, c)、(succ(a), succ(c))，即翻转中间一段路径
+ * 2. Or-opt：把连续1到3个城市组成的一段移到别处，可以正向或反向插入
+ * 每次尝试只计算变化的几条边，O(1)求出路径长度的变化；只在近邻列表中寻找候选城市，
+ * 并利用近邻列表按距离排序的性质提前结束；用don't-look bits跳过周围没有变化的城市
+ * 每个实例包含自己的临时数组，只能由一只蚂蚁使用；距离和近邻列表只读，可被多个实例共享
+ * @author Kanarien
+ * @version 1.0
+ */
+public class LocalSearch {
+
+    /** 2-opt */
+    public static final int TWO_OPT = 1;
+    /** Or-opt */
+    public static final int OR_OPT = 2;
+
+    private static final int MAX_SEGMENT = 3; // Or-opt移动的最大段长
+
+    private final DistanceProvider distance; // 城市间距离
+    private final int[][] neighbours; // 近邻列表，按距离从近到远排列
+    private final int moves; // 使用的邻域，TWO_OPT和OR_OPT的组合
+    private final int n; // 城市数量
+
+    private int[] tour; // 正在改进的路径，只使用前n个元素
+    private final int[] pos; // 城市在路径中的位置
+    private final int[] queue; // 待检查的城市，循环队列
+    private final boolean[] queued; // 城市是否在队列中，即don't-look bit为0
+    private int head; // 队首
+    private int queueSize; // 队列长度
+
+    /**
+     * @param distance 城市间距离，必须是对称的
+     * @param neighbours 近邻列表，按距离从近到远排列
+     * @param moves 使用的邻域，TWO_OPT、OR_OPT或者TWO_OPT | OR_OPT
+     */
+    public LocalSearch(DistanceProvider distance, int[][] neighbours, int moves) {
+        this.distance = distance;
+        this.neighbours = neighbours;
+        this.moves = moves;
+        this.n = distance.size();
+        pos = new int[n];
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /**
+     * 改进路径，直到没有可改进的移动
+     * @param tour 路径，长度为n + 1，首尾相同，改进后原地修改
+     * @param length 路径长度
+     * @return 改进后的路径长度
+     */
+    public int improve(int[] tour, int length) {
+        if (n < 5) {
+            return length;
+        }
+        this.tour = tour;
+        for (int i = 0; i < n; i++) {
+            pos[tour[i]] = i;
+            queue[i] = tour[i];
+            queued[tour[i]] = true;
+        }
+        head = 0;
+        queueSize = n;
+        while (queueSize > 0) {
+            int a = queue[head];
+            head = head == n - 1 ? 0 : head + 1;
+            queueSize--;
+            queued[a] = false;
+            int gain = 0;
+            if ((moves & TWO_OPT) != 0) {
+                gain = twoOpt(a);
+            }
+            if (gain == 0 && (moves & OR_OPT) != 0) {
+                gain = orOpt(a);
+            }
+            length -= gain;
+        }
+        tour[n] = tour[0];
+        this.tour = null;
+        return length;
+    }
+
+    /**
+     * 以城市a为一端尝试2-opt，找到第一个改进的移动即执行
+     * @return 路径长度减少量，没有改进时为0
+     */
+    private int twoOpt(int a) {
+        for (int direction = 0; direction < 2; direction++) {
+            // direction为0时考虑边(a, succ(a))，为1时考虑边(pred(a), a)
+            int b = direction == 0 ? succ(a) : pred(a);
+            int dab = distance.distance(a, b);
+            for (int c : neighbours[a]) {
+                int dac = distance.distance(a, c);
+                if (dac >= dab) {
+                    break; // 近邻列表按距离排序，之后不可能再有改进
+                }
+                int d = direction == 0 ? succ(c) : pred(c);
+                if (c == b || d == a) {
+                    continue;
+                }
+                int gain = dab + distance.distance(c, d) - dac - distance.distance(b, d);
+                if (gain > 0) {
+                    // 去掉(a, b)、(c, d)，加上(a, c)、(b, d)
+                    move(a, b, c, d);
+                    activate(a, b, c, d);
+                    return gain;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 尝试把以城市s1开头、长度1到3的一段移动到别处，找到第一个改进的移动即执行
+     * @return 路径长度减少量，没有改进时为0
+     */
+    private int orOpt(int s1) {
+        int s2 = s1;
+        for (int len = 1; len <= MAX_SEGMENT && len < n - 3; len++, s2 = succ(s2)) {
+            int p = pred(s1);
+            int next = succ(s2);
+            // 移走这一段，p与next直接相连，路径长度减少removeGain
+            int removeGain = distance.distance(p, s1) + distance.distance(s2, next) - distance.distance(p, next);
+            if (removeGain <= 0) {
+                continue;
+            }
+            for (int end = 0; end < 2; end++) {
+                // 插入后与近邻c相连的一端
+                int s = end == 0 ? s1 : s2;
+                for (int c : neighbours[s]) {
+                    int dsc = distance.distance(s, c);
+                    if (dsc >= removeGain) {
+                        break;
+                    }
+                    if (inSegment(c, s1, len)) {
+                        continue;
+                    }
+                    // 插入边(c, succ(c))或者(pred(c), c)之间
+                    for (int side = 0; side < 2; side++) {
+                        int from = side == 0 ? c : pred(c);
+                        int to = side == 0 ? succ(c) : c;
+                        if (inSegment(from, s1, len) || inSegment(to, s1, len)) {
+                            continue;
+                        }
+                        // reversed为true时插入后为from, s2 .. s1, to，否则为from, s1 .. s2, to
+                        boolean reversed = (side == 0) == (s == s2);
+                        int insertCost = (reversed
+                                ? distance.distance(from, s2) + distance.distance(s1, to)
+                                : distance.distance(from, s1) + distance.distance(s2, to))
+                                - distance.distance(from, to);
+                        int gain = removeGain - insertCost;
+                        if (gain > 0) {
+                            // 分解为2到3次2-opt移动
+                            move(p, s1, from, to);
+                            move(p, from, next, s2);
+                            if (!reversed) {
+                                move(from, s2, s1, to);
+                            }
+                            activate(p, next, s1, s2);
+                            activate(from, to, from, to);
+                            return gain;
+                        }
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 去掉边{x, y}和{u, v}，加上边{x, u}和{y, v}
+     * 要求在当前方向上要么y = succ(x)且v = succ(u)，要么x = succ(y)且u = succ(v)
+     */
+    private void move(int x, int y, int u, int v) {
+        if (succ(x) == y) {
+            reverse(pos[y], pos[u]);
+        } else {
+            reverse(pos[x], pos[v]);
+        }
+    }
+
+    /**
+     * 翻转路径中从位置i到位置j（沿路径方向，可跨越末尾）的一段
+     * 翻转一段与翻转其余部分得到的是同一个环，因此总是翻转较短的一段
+     */
+    private void reverse(int i, int j) {
+        int len = (j - i + n) % n + 1;
+        if (len * 2 > n) {
+            int t = i;
+            i = j + 1 == n ? 0 : j + 1;
+            j = t == 0 ? n - 1 : t - 1;
+            len = n - len;
+        }
+        for (int k = 0; k < len / 2; k++) {
+            int ci = tour[i];
+            int cj = tour[j];
+            tour[i] = cj;
+            pos[cj] = i;
+            tour[j] = ci;
+            pos[ci] = j;
+            i = i == n - 1 ? 0 : i + 1;
+            j = j == 0 ? n - 1 : j - 1;
+        }
+    }
+
+    /**
+     * 城市c是否在以s1开头、长度为len的一段中
+     */
+    private boolean inSegment(int c, int s1, int len) {
+        return (pos[c] - pos[s1] + n) % n < len;
+    }
+
+    /**
+     * 把移动涉及的城市重新加入待检查队列
+     */
+    private void activate(int a, int b, int c, int d) {
+        push(a);
+        push(b);
+        push(c);
+        push(d);
+    }
+
+    private void push(int city) {
+        if (!queued[city]) {
+            queued[city] = true;
+            int tail = head + queueSize;
+            queue[tail >= n ? tail - n : tail] = city;
+            queueSize++;
+        }
+    }
+
+    private int succ(int city) {
+        int i = pos[city] + 1;
+        return tour[i == n ? 0 : i];
+    }
+
+    private int pred(int city) {
+        int i = pos[city] - 1;
+        return tour[i < 0 ? n - 1 : i];
+    }
+
+}
@@ -0,0 +1,131 @@
+package pers.kanarien.aco;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 通过内存映射文件读取的距离，数据在堆外，由操作系统按需换入换出
+ * 文件只保存对称距离矩阵的上三角（不含对角线），格式为：
+ * 4字节魔数、4字节城市数量、8字节保留，之后按行依次保存(i, j)，i < j，每个距离4字节，小端序
+ * 文件只需用build生成一次，之后每次运行用open直接映射即可
+ * 单个MappedByteBuffer最大2GB，因此按1GB分段映射
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MappedDistance implements DistanceProvider {
+
+    private static final int MAGIC = 0x54535044; // "TSPD"
+    private static final int HEADER_SIZE = 16; // 文件头字节数
+    private static final int SEGMENT_BITS = 30; // 每段1GB
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final int size; // 城市数量
+    private final MappedByteBuffer[] segments; // 分段映射的距离数据
+
+    private MappedDistance(int size, MappedByteBuffer[] segments) {
+        this.size = size;
+        this.segments = segments;
+    }
+
+    /**
+     * 计算source的全部距离写入文件，然后映射该文件
+     * @param file 距离文件
+     * @param source 距离来源，必须是对称的
+     * @return 内存映射距离
+     * @throws IOException
+     */
+    public static MappedDistance build(File file, DistanceProvider source) throws IOException {
+        int n = source.size();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(n).putLong(0L);
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putInt(source.distance(i, j));
+                }
+            }
+            flush(channel, buffer);
+        } finally {
+            raf.close();
+        }
+        return open(file);
+    }
+
+    /**
+     * 映射已有的距离文件
+     * @param file 距离文件
+     * @return 内存映射距离
+     * @throws IOException 文件不存在或格式不对
+     */
+    public static MappedDistance open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("不是距离文件: " + file);
+            }
+            int n = header.getInt();
+            long length = (long) n * (n - 1) / 2 * 4;
+            if (channel.size() < HEADER_SIZE + length) {
+                throw new IOException("距离文件不完整: " + file);
+            }
+            int segmentNum = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentNum];
+            for (int s = 0; s < segmentNum; s++) {
+                long position = (long) s << SEGMENT_BITS;
+                long segmentLength = Math.min(SEGMENT_MASK + 1, length - position);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + position, segmentLength);
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // 映射建立后关闭文件不影响读取
+            return new MappedDistance(n, segments);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int distance(int i, int j) {
+        if (i == j) {
+            return 0;
+        }
+        if (i > j) {
+            int t = i;
+            i = j;
+            j = t;
+        }
+        // 第i行之前共有i * n - i * (i + 1) / 2个元素
+        long position = ((long) i * size - (long) i * (i + 1) / 2 + (j - i - 1)) << 2;
+        return segments[(int) (position >>> SEGMENT_BITS)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+}
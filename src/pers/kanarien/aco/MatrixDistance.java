@@ -0,0 +1,61 @@
+package pers.kanarien.aco;
+
+/**
+ * 保存在堆内距离矩阵中的距离
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MatrixDistance implements DistanceProvider {
+
+    private final IntMatrix matrix; // 距离矩阵
+
+    /**
+     * @param matrix 距离矩阵
+     */
+    public MatrixDistance(IntMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    /**
+     * 预先计算全部城市间的距离，存入距离矩阵
+     * @param source 距离来源，如CoordinateDistance
+     * @param symmetric 距离矩阵是否使用对称存储，要求source是对称的
+     * @return 堆内距离
+     */
+    public static MatrixDistance of(DistanceProvider source, boolean symmetric) {
+        MatrixDistance distance = new MatrixDistance(IntMatrix.create(source.size(), symmetric));
+        distance.fill(source);
+        return distance;
+    }
+
+    /**
+     * 用source的距离覆盖距离矩阵，用于同样规模的实例重复使用矩阵
+     * @param source 距离来源，城市数量必须与矩阵相同
+     */
+    void fill(DistanceProvider source) {
+        int n = matrix.size();
+        boolean symmetric = matrix.isSymmetric();
+        for (int i = 0; i < n; i++) {
+            for (int j = symmetric ? i + 1 : 0; j < n; j++) {
+                if (i != j) {
+                    matrix.set(i, j, source.distance(i, j));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return matrix.size();
+    }
+
+    @Override
+    public int distance(int i, int j) {
+        return matrix.get(i, j);
+    }
+
+    public IntMatrix getMatrix() {
+        return matrix;
+    }
+
+}
@@ -0,0 +1,95 @@
+package pers.kanarien.aco;
+
+/**
+ * 最大最小蚂蚁系统（MAX-MIN Ant System，MMAS）：
+ * 1. 每次迭代只有一只蚂蚁释放信息素，通常是本次迭代最优，每隔若干次迭代改为全局最优
+ * 2. 信息素限制在[τmin, τmax]之间，避免过早收敛
+ * 3. 信息素初始化为τmax，鼓励初期的探索
+ * ρ一般取0.02左右
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MaxMinStrategy extends AcoStrategy {
+
+    private float pBest = 0.05f; // 收敛时构造出最优路径的概率，用于计算τmin
+    private int bestSoFarInterval = 10; // 每隔多少次迭代由全局最优路径释放信息素
+    private float tauMax; // 信息素上限
+    private float tauMin; // 信息素下限
+
+    public MaxMinStrategy() {
+    }
+
+    /**
+     * @param pBest 收敛时构造出最优路径的概率，用于计算τmin
+     * @param bestSoFarInterval 每隔多少次迭代由全局最优路径释放信息素，其余迭代由本次迭代最优释放
+     */
+    public MaxMinStrategy(float pBest, int bestSoFarInterval) {
+        this.pBest = pBest;
+        this.bestSoFarInterval = bestSoFarInterval;
+    }
+
+    @Override
+    public String getName() {
+        return "最大最小蚂蚁系统（MAX-MIN Ant System）";
+    }
+
+    @Override
+    public void initPheromone(AntSystem system) {
+        // 用最近邻路径长度估计τmax
+        updateBounds(system, system.getNearestNeighbourLength());
+        system.getPheromone().fill(tauMax);
+    }
+
+    @Override
+    public void updatePheromone(AntSystem system) {
+        FloatMatrix pheromone = system.getPheromone();
+        system.evaporate(1 - system.getRho());
+        if (system.getIteration() % bestSoFarInterval == bestSoFarInterval - 1) {
+            deposit(pheromone, system.getBestTour(), (float) (1.0 / system.getBestLength()));
+        } else {
+            Ant ant = system.getIterationBest();
+            deposit(pheromone, ant.getTabu(), (float) (1.0 / ant.getTourLength()));
+        }
+        // 根据全局最优路径更新上下限，并把信息素限制在上下限之间
+        updateBounds(system, system.getBestLength());
+        system.clampPheromone(tauMin, tauMax);
+    }
+
+    /**
+     * 按新的全局最优路径更新上下限，释放信息素后把路径上的信息素限制在上下限之间，
+     * 其余边在下一次全局更新时限制
+     */
+    @Override
+    public void acceptTour(AntSystem system, int[] tour) {
+        FloatMatrix pheromone = system.getPheromone();
+        deposit(pheromone, tour, (float) (1.0 / system.getBestLength()));
+        updateBounds(system, system.getBestLength());
+        for (int j = 0; j < tour.length - 1; j++) {
+            int from = tour[j];
+            int to = tour[j + 1];
+            float tau = Math.max(tauMin, Math.min(tauMax, pheromone.get(from, to)));
+            pheromone.set(from, to, tau);
+            pheromone.set(to, from, tau);
+        }
+        refreshEdges(system, tour);
+    }
+
+    /**
+     * τmax = 1 / (ρ * L)，τmin = τmax * (1 - pBest^(1/n)) / ((n / 2 - 1) * pBest^(1/n))
+     */
+    private void updateBounds(AntSystem system, int length) {
+        int n = system.getCityNum();
+        tauMax = (float) (1.0 / (system.getRho() * length));
+        double root = Math.pow(pBest, 1.0 / n);
+        tauMin = (float) (tauMax * (1 - root) / (Math.max(n / 2.0 - 1, 1) * root));
+    }
+
+    public float getTauMax() {
+        return tauMax;
+    }
+
+    public float getTauMin() {
+        return tauMin;
+    }
+
+}
@@ -0,0 +1,644 @@
+package pers.kanarien.aco;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import pers.kanarien.metrics.ConsoleListener;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 超参数扫描：在一组实例上比较α、β、ρ和蚂蚁数量的多组取值，用逐次减半（successive halving）尽早淘汰明显较差的配置
+ * 1. 每个实例的距离矩阵只计算一次，启发信息矩阵按β的每种取值各计算一次，所有配置只读共用
+ * 2. 每一轮中所有存活的配置在每个实例上各运行runs次，所有运行在一个有界的ForkJoinPool中并行，每次运行单线程，
+ *    蚁群在任务中创建，同时存在的蚁群不超过并行度
+ * 3. 一轮结束后按平均相对差距排序，只保留前1/η，下一轮的迭代数乘以η，直到达到最大迭代数
+ * 4. 每一轮从头运行而不是接着上一轮继续，内存只与并行度有关；种子不变，因此前一轮的迭代会原样重复一遍，
+ *    总计算量最多增加1/(η - 1)
+ * 5. 相对差距为(平均长度 - 最短平均长度) / 最短平均长度，在实例之间取平均，各实例权重相同；
+ *    最短平均长度取同一轮次中各配置在该实例上runs次运行的平均长度的最小值，淘汰和报告使用同一个参照，
+ *    都只在迭代数相同的结果之间比较，
+ *    报告中的Pareto前沿同样只在同一轮次内计算，不同轮次的差距和耗时不能直接比较
+ * 6. 同一实例的第r次运行在所有配置中使用相同的种子，结果与线程数和完成顺序无关
+ * @author Kanarien
+ * @version 1.0
+ */
+public class ParameterSweep {
+
+    /**
+     * 算法变种
+     */
+    public enum Variant {
+        /** 原始蚂蚁系统 */
+        AS {
+            @Override
+            AcoStrategy create() {
+                return new AntSystemStrategy();
+            }
+        },
+        /** MAX-MIN蚂蚁系统 */
+        MMAS {
+            @Override
+            AcoStrategy create() {
+                return new MaxMinStrategy();
+            }
+        },
+        /** 蚁群系统 */
+        ACS {
+            @Override
+            AcoStrategy create() {
+                return new ColonySystemStrategy();
+            }
+        },
+        /** 基于排序的蚂蚁系统 */
+        RANK {
+            @Override
+            AcoStrategy create() {
+                return new RankBasedStrategy();
+            }
+        };
+
+        /**
+         * @return 新的策略实例，策略有状态，每个蚁群一个
+         */
+        abstract AcoStrategy create();
+    }
+
+    /**
+     * 一组参数取值，不可变
+     */
+    public static final class Config {
+
+        private final float alpha;
+        private final float beta;
+        private final float rho;
+        private final int antNum;
+
+        public Config(float alpha, float beta, float rho, int antNum) {
+            this.alpha = alpha;
+            this.beta = beta;
+            this.rho = rho;
+            this.antNum = antNum;
+        }
+
+        public float getAlpha() {
+            return alpha;
+        }
+
+        public float getBeta() {
+            return beta;
+        }
+
+        public float getRho() {
+            return rho;
+        }
+
+        public int getAntNum() {
+            return antNum;
+        }
+
+        @Override
+        public String toString() {
+            return "α=" + alpha + " β=" + beta + " ρ=" + rho + " 蚂蚁数=" + antNum;
+        }
+    }
+
+    /**
+     * 一个配置在最后参加的一轮中的结果，差距和Pareto前沿都相对同一轮次的所有结果
+     */
+    public static final class Result {
+
+        private final Config config;
+        private final int rung; // 最后参加的轮次，从0开始
+        private final int iteration; // 该轮每次运行的迭代数
+        private final double[] meanLength; // 每个实例在各次运行中的平均长度
+        private final double millis; // 该轮每次运行的平均耗时，单位毫秒
+        private final double totalMillis; // 所有轮次的运行耗时之和，单位毫秒
+        private double gap; // 相对同一轮次中各实例最短平均长度的平均相对差距
+        private double worstGap; // 各实例中最大的相对差距
+        private boolean pareto; // 是否不被同一轮次的其他结果在差距和耗时上同时超过
+
+        Result(Config config, int rung, int iteration, double[] meanLength, double millis, double totalMillis) {
+            this.config = config;
+            this.rung = rung;
+            this.iteration = iteration;
+            this.meanLength = meanLength;
+            this.millis = millis;
+            this.totalMillis = totalMillis;
+        }
+
+        public Config getConfig() {
+            return config;
+        }
+
+        public int getRung() {
+            return rung;
+        }
+
+        public int getIteration() {
+            return iteration;
+        }
+
+        /**
+         * @return 第i个实例在各次运行中的平均长度
+         */
+        public double getMeanLength(int i) {
+            return meanLength[i];
+        }
+
+        /**
+         * @return 该轮每次运行的平均墙钟耗时，单位毫秒，并行度超过CPU核数时偏大
+         */
+        public double getMillis() {
+            return millis;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        /**
+         * @return 相对同一轮次中各实例最短平均长度的平均相对差距，0.01表示1%
+         */
+        public double getGap() {
+            return gap;
+        }
+
+        public double getWorstGap() {
+            return worstGap;
+        }
+
+        /**
+         * @return 是否位于同一轮次的差距-耗时Pareto前沿上，
+         *         即同一轮次中没有其他结果差距和每次运行的耗时都不大于它且至少一项更小
+         */
+        public boolean isPareto() {
+            return pareto;
+        }
+    }
+
+    private final int parallelism; // 同时运行的蚁群数量
+    private Variant variant = Variant.AS; // 算法变种
+    private int minIteration = 25; // 第一轮的迭代数
+    private int maxIteration = 400; // 最后一轮的迭代数
+    private int eta = 3; // 每轮保留1/η的配置，迭代数乘以η
+    private int runs = 1; // 每个配置在每个实例上每轮的运行次数
+    private int candidateNum = 20; // 候选列表长度
+    private int localSearchMoves; // 局部搜索，默认不做，避免掩盖参数之间的差别
+    private long seed; // 随机种子
+    private MetricsListener listener = new ConsoleListener(0); // 输出每轮进度的监听器
+
+    /**
+     * @param parallelism 同时运行的蚁群数量，一般为CPU核数
+     */
+    public ParameterSweep(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 网格搜索：各参数取值的所有组合
+     * @return 配置，按alphas、betas、rhos、antNums的顺序嵌套，antNums变化最快
+     */
+    public static List<Config> grid(float[] alphas, float[] betas, float[] rhos, int[] antNums) {
+        List<Config> configs = new ArrayList<Config>(alphas.length * betas.length * rhos.length * antNums.length);
+        for (float alpha : alphas) {
+            for (float beta : betas) {
+                for (float rho : rhos) {
+                    for (int antNum : antNums) {
+                        configs.add(new Config(alpha, beta, rho, antNum));
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * 随机搜索：每个参数在[最小值, 最大值]中独立均匀取值，ρ按对数均匀取值
+     * β取0.5的整数倍，使启发信息矩阵的数量有上限；α取0.05的整数倍，ρ保留3位小数
+     * @param count 配置数量
+     * @param seed 随机种子
+     * @param alphaRange α的最小值和最大值
+     * @param betaRange β的最小值和最大值
+     * @param rhoRange ρ的最小值和最大值，需大于0
+     * @param antNumRange 蚂蚁数量的最小值和最大值
+     * @return 配置
+     */
+    public static List<Config> random(int count, long seed, float[] alphaRange, float[] betaRange, float[] rhoRange,
+            int[] antNumRange) {
+        if (rhoRange[0] <= 0) {
+            throw new IllegalArgumentException("ρ的最小值必须为正数: " + rhoRange[0]);
+        }
+        Random random = new Random(seed);
+        List<Config> configs = new ArrayList<Config>(count);
+        for (int k = 0; k < count; k++) {
+            float alpha = Math.round(uniform(random, alphaRange) * 20) / 20.0f;
+            float beta = Math.round(uniform(random, betaRange) * 2) / 2.0f;
+            double logRho = Math.log(rhoRange[0]) + random.nextDouble() * (Math.log(rhoRange[1]) - Math.log(rhoRange[0]));
+            float rho = Math.max(0.001f, Math.round(Math.exp(logRho) * 1000) / 1000.0f);
+            int antNum = antNumRange[0] + random.nextInt(antNumRange[1] - antNumRange[0] + 1);
+            configs.add(new Config(alpha, beta, rho, antNum));
+        }
+        return configs;
+    }
+
+    private static double uniform(Random random, float[] range) {
+        return range[0] + random.nextDouble() * (range[1] - range[0]);
+    }
+
+    /**
+     * 在所有实例上扫描所有配置
+     * @param instances 实例
+     * @param configs 配置
+     * @return 每个配置一个结果，按最后参加的轮次从后到前、同一轮次内按平均相对差距从小到大排序
+     * @throws IllegalArgumentException 实例或者配置为空，或者有距离不对称的实例
+     * @throws IllegalStateException 运行失败或者被中断
+     */
+    public List<Result> run(List<TspInstance> instances, List<Config> configs) {
+        if (instances.isEmpty() || configs.isEmpty()) {
+            throw new IllegalArgumentException("实例和配置都不能为空");
+        }
+        // 与AntSystem.init(TspInstance)相同的检查，预计算绕过了它
+        for (TspInstance instance : instances) {
+            AntSystem.checkSymmetric(instance);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long begin = System.nanoTime();
+            DistanceProvider[] distances = new DistanceProvider[instances.size()];
+            List<Map<Float, FloatMatrix>> heuristics = precompute(pool, instances, configs, distances);
+            int heuristicNum = 0;
+            for (Map<Float, FloatMatrix> map : heuristics) {
+                heuristicNum += map.size();
+            }
+            listener.log("共用矩阵计算完成，实例数：" + instances.size() + " 启发信息矩阵数：" + heuristicNum + " 耗时 "
+                    + (System.nanoTime() - begin) / 1000000 + "ms");
+            List<Result> results = new ArrayList<Result>(configs.size());
+            List<Integer> survivors = new ArrayList<Integer>(configs.size());
+            for (int c = 0; c < configs.size(); c++) {
+                survivors.add(c);
+            }
+            double[] spentMillis = new double[configs.size()];
+            int budget = Math.min(minIteration, maxIteration);
+            for (int rung = 0; ; rung++) {
+                final double[][][] lengths = new double[configs.size()][][];
+                final long[][][] nanos = new long[configs.size()][][];
+                runRung(pool, instances, configs, survivors, budget, distances, heuristics, lengths, nanos);
+                // 本轮每个实例的最短平均长度，与report()计算Result.gap时的参照相同
+                Map<Integer, double[]> rungMean = new HashMap<Integer, double[]>();
+                double[] best = new double[instances.size()];
+                Arrays.fill(best, Double.MAX_VALUE);
+                for (int c : survivors) {
+                    double[] meanLength = new double[instances.size()];
+                    long rungNanos = 0;
+                    for (int i = 0; i < meanLength.length; i++) {
+                        for (int r = 0; r < runs; r++) {
+                            meanLength[i] += lengths[c][i][r] / runs;
+                            rungNanos += nanos[c][i][r];
+                        }
+                        best[i] = Math.min(best[i], meanLength[i]);
+                    }
+                    rungMean.put(c, meanLength);
+                    spentMillis[c] += rungNanos / 1e6;
+                    results.add(new Result(configs.get(c), rung, budget, meanLength,
+                            rungNanos / 1e6 / (instances.size() * runs), spentMillis[c]));
+                }
+                final Map<Integer, Double> rungGap = new HashMap<Integer, Double>();
+                for (int c : survivors) {
+                    rungGap.put(c, meanGap(rungMean.get(c), best));
+                }
+                // 稳定排序，差距相同时保持配置的原始顺序
+                Collections.sort(survivors, new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer a, Integer b) {
+                        return Double.compare(rungGap.get(a), rungGap.get(b));
+                    }
+                });
+                listener.log(String.format("第%d轮完成，配置数：%d 迭代数：%d 最优配置：%s 平均差距 %.2f%%",
+                        rung, survivors.size(), budget, configs.get(survivors.get(0)), rungGap.get(survivors.get(0)) * 100));
+                if (budget >= maxIteration) {
+                    break;
+                }
+                survivors = new ArrayList<Integer>(survivors.subList(0, (survivors.size() + eta - 1) / eta));
+                // 只剩一个配置时不必再比较，直接运行到最大迭代数
+                budget = survivors.size() == 1 ? maxIteration : (int) Math.min((long) budget * eta, maxIteration);
+            }
+            return report(results, configs.size(), instances.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 计算每个实例的距离矩阵，再按β的每种取值计算启发信息矩阵
+     * @param distances 输出每个实例的距离矩阵
+     * @return 每个实例一个从β到启发信息矩阵的映射
+     */
+    private List<Map<Float, FloatMatrix>> precompute(ForkJoinPool pool, List<TspInstance> instances,
+            List<Config> configs, final DistanceProvider[] distances) {
+        final List<Map<Float, FloatMatrix>> heuristics = new ArrayList<Map<Float, FloatMatrix>>(instances.size());
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < instances.size(); i++) {
+            final int index = i;
+            final TspInstance instance = instances.get(i);
+            heuristics.add(new HashMap<Float, FloatMatrix>());
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    distances[index] = MatrixDistance.of(instance.distance(), instance.isSymmetric());
+                    return null;
+                }
+            });
+        }
+        invokeAll(pool, tasks);
+        tasks.clear();
+        for (int i = 0; i < instances.size(); i++) {
+            final DistanceProvider distance = distances[i];
+            final boolean symmetric = instances.get(i).isSymmetric();
+            final Map<Float, FloatMatrix> map = heuristics.get(i);
+            for (Config config : configs) {
+                final float beta = config.getBeta();
+                if (map.containsKey(beta)) {
+                    continue;
+                }
+                map.put(beta, null);
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        FloatMatrix heuristic = AntSystem.heuristicMatrix(distance, beta, symmetric);
+                        synchronized (map) {
+                            map.put(beta, heuristic);
+                        }
+                        return null;
+                    }
+                });
+            }
+        }
+        invokeAll(pool, tasks);
+        return heuristics;
+    }
+
+    /**
+     * 存活的配置在每个实例上各运行runs次，每次运行一个任务，任务只写自己的数组元素
+     */
+    private void runRung(ForkJoinPool pool, List<TspInstance> instances, List<Config> configs, List<Integer> survivors,
+            final int budget, final DistanceProvider[] distances, final List<Map<Float, FloatMatrix>> heuristics,
+            double[][][] lengths, long[][][] nanos) {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final int c : survivors) {
+            final double[][] configLengths = lengths[c] = new double[instances.size()][runs];
+            final long[][] configNanos = nanos[c] = new long[instances.size()][runs];
+            final Config config = configs.get(c);
+            for (int i = 0; i < instances.size(); i++) {
+                final int index = i;
+                final boolean symmetric = instances.get(i).isSymmetric();
+                for (int r = 0; r < runs; r++) {
+                    final int repeat = r;
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            long begin = System.nanoTime();
+                            AntSystem engine = new AntSystem(config.getAntNum(), budget, config.getAlpha(),
+                                    config.getBeta(), config.getRho());
+                            engine.setStrategy(variant.create());
+                            engine.setSymmetricStorage(symmetric);
+                            engine.setCandidateNum(candidateNum);
+                            engine.setLocalSearch(localSearchMoves);
+                            engine.setSeed(seed + (long) index * runs + repeat);
+                            engine.init(distances[index], heuristics.get(index).get(config.getBeta()));
+                            engine.run();
+                            configLengths[index][repeat] = engine.getBestLength();
+                            configNanos[index][repeat] = System.nanoTime() - begin;
+                            return null;
+                        }
+                    });
+                }
+            }
+        }
+        invokeAll(pool, tasks);
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("参数扫描被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("参数扫描失败", e.getCause());
+        }
+    }
+
+    private static double meanGap(double[] meanLength, double[] best) {
+        double total = 0;
+        for (int i = 0; i < best.length; i++) {
+            total += (meanLength[i] - best[i]) / Math.max(best[i], 1);
+        }
+        return total / best.length;
+    }
+
+    /**
+     * 只保留每个配置最后一轮的结果，按同一轮次中各实例的最短平均长度计算差距，在每一轮次内标出Pareto前沿并排序
+     * 同一轮次的最短平均长度取该轮所有配置的结果，包括进入下一轮的配置，与淘汰时的参照相同
+     */
+    private List<Result> report(List<Result> history, int configNum, int instanceNum) {
+        // 后加入的结果属于更晚的轮次，逆序遍历时每个配置第一次出现的即为最后一轮
+        Map<Config, Result> last = new HashMap<Config, Result>();
+        List<Result> results = new ArrayList<Result>(configNum);
+        for (int k = history.size() - 1; k >= 0; k--) {
+            Result result = history.get(k);
+            if (!last.containsKey(result.config)) {
+                last.put(result.config, result);
+                results.add(result);
+            }
+        }
+        int rungNum = history.get(history.size() - 1).rung + 1;
+        double[][] best = new double[rungNum][instanceNum];
+        for (double[] row : best) {
+            Arrays.fill(row, Double.MAX_VALUE);
+        }
+        for (Result result : history) {
+            for (int i = 0; i < instanceNum; i++) {
+                best[result.rung][i] = Math.min(best[result.rung][i], result.meanLength[i]);
+            }
+        }
+        for (Result result : results) {
+            double[] rungBest = best[result.rung];
+            result.gap = meanGap(result.meanLength, rungBest);
+            for (int i = 0; i < instanceNum; i++) {
+                result.worstGap = Math.max(result.worstGap,
+                        (result.meanLength[i] - rungBest[i]) / Math.max(rungBest[i], 1));
+            }
+        }
+        for (Result result : results) {
+            result.pareto = true;
+            for (Result other : results) {
+                if (other.rung == result.rung && other.gap <= result.gap && other.millis <= result.millis
+                        && (other.gap < result.gap || other.millis < result.millis)) {
+                    result.pareto = false;
+                    break;
+                }
+            }
+        }
+        Collections.sort(results, new Comparator<Result>() {
+            @Override
+            public int compare(Result a, Result b) {
+                if (a.rung != b.rung) {
+                    return b.rung - a.rung;
+                }
+                return Double.compare(a.gap, b.gap);
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 输出排名表，每行一个配置，按轮次分组，差距和Pareto前沿只在组内比较
+     * @param results run返回的结果
+     * @param out 输出
+     */
+    public static void printReport(List<Result> results, PrintStream out) {
+        out.println("排名      α      β      ρ  蚂蚁数  迭代数  平均差距  最大差距  每次运行ms    累计ms  Pareto");
+        for (int k = 0; k < results.size(); k++) {
+            Result result = results.get(k);
+            Config config = result.getConfig();
+            if (k == 0 || results.get(k - 1).getRung() != result.getRung()) {
+                out.format("-- 第%d轮淘汰（迭代数%d），差距相对本轮各实例的最短平均长度%n", result.getRung(), result.getIteration());
+            }
+            out.format("%4d %6.2f %6.2f %6.3f %7d %7d %8.2f%% %8.2f%% %11.1f %9.0f  %s%n", k + 1, config.getAlpha(),
+                    config.getBeta(), config.getRho(), config.getAntNum(), result.getIteration(),
+                    result.getGap() * 100, result.getWorstGap() * 100, result.getMillis(), result.getTotalMillis(),
+                    result.isPareto() ? "*" : "");
+        }
+    }
+
+    /**
+     * @param variant 算法变种，默认为原始蚂蚁系统
+     */
+    public void setVariant(Variant variant) {
+        this.variant = variant;
+    }
+
+    /**
+     * 设置逐次减半的迭代数，需在run之前调用
+     * @param minIteration 第一轮的迭代数
+     * @param maxIteration 最后一轮的迭代数
+     * @param eta 每轮保留1/η的配置，迭代数乘以η，不小于2
+     */
+    public void setHalving(int minIteration, int maxIteration, int eta) {
+        if (minIteration < 1 || maxIteration < 1 || eta < 2) {
+            throw new IllegalArgumentException("迭代数必须为正数且η不小于2");
+        }
+        this.minIteration = minIteration;
+        this.maxIteration = maxIteration;
+        this.eta = eta;
+    }
+
+    /**
+     * @param runs 每个配置在每个实例上每轮的运行次数，多次运行取平均以减小随机性的影响
+     */
+    public void setRuns(int runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * @param candidateNum 候选列表长度，0表示不使用候选列表
+     */
+    public void setCandidateNum(int candidateNum) {
+        this.candidateNum = candidateNum;
+    }
+
+    /**
+     * @param localSearchMoves LocalSearch.TWO_OPT、LocalSearch.OR_OPT或者两者的组合，0表示不做局部搜索
+     */
+    public void setLocalSearch(int localSearchMoves) {
+        this.localSearchMoves = localSearchMoves;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param listener 输出每轮进度的监听器，默认在控制台输出
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 参数扫描入口
+     * 参数：[-p 并行度] [-n 随机配置数，不指定时使用网格] [-m 第一轮迭代数] [-i 最后一轮迭代数] [-e η]
+     * [-r 每个实例的运行次数] [-v AS|MMAS|ACS|RANK] [-s 随机种子] 实例文件...，默认为data/berlin52.txt
+     * 网格为α∈{0.5, 1, 2}、β∈{2, 3, 5}、ρ∈{0.1, 0.3, 0.5}、蚂蚁数∈{10, 25, 50}；
+     * 随机搜索的范围为α∈[0.5, 2]、β∈[1, 6]、ρ∈[0.02, 0.8]、蚂蚁数∈[5, 100]
+     * @throws IOException 读取实例失败
+     */
+    public static void main(String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int count = 0;
+        int minIteration = 25;
+        int maxIteration = 400;
+        int eta = 3;
+        int runs = 1;
+        long seed = 0;
+        Variant variant = Variant.AS;
+        List<TspInstance> instances = new ArrayList<TspInstance>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-p")) {
+                parallelism = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-n")) {
+                count = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-m")) {
+                minIteration = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-i")) {
+                maxIteration = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-e")) {
+                eta = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-r")) {
+                runs = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-v")) {
+                variant = Variant.valueOf(args[++i]);
+            } else if (args[i].equals("-s")) {
+                seed = Long.parseLong(args[++i]);
+            } else {
+                instances.add(TspReader.read(new File(args[i])));
+            }
+        }
+        if (instances.isEmpty()) {
+            instances.add(TspReader.read(new File("data/berlin52.txt")));
+        }
+        List<Config> configs;
+        if (count > 0) {
+            configs = random(count, seed, new float[] {0.5f, 2}, new float[] {1, 6}, new float[] {0.02f, 0.8f},
+                    new int[] {5, 100});
+        } else {
+            configs = grid(new float[] {0.5f, 1, 2}, new float[] {2, 3, 5}, new float[] {0.1f, 0.3f, 0.5f},
+                    new int[] {10, 25, 50});
+        }
+        ParameterSweep sweep = new ParameterSweep(parallelism);
+        sweep.setVariant(variant);
+        sweep.setHalving(minIteration, maxIteration, eta);
+        sweep.setRuns(runs);
+        sweep.setSeed(seed);
+        long begin = System.nanoTime();
+        List<Result> results = sweep.run(instances, configs);
+        printReport(results, System.out);
+        System.err.format("共扫描 %d 个配置，耗时 %.2f s%n", configs.size(), (System.nanoTime() - begin) / 1e9);
+    }
+
+}
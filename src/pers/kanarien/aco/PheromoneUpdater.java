@@ -0,0 +1,232 @@
+package pers.kanarien.aco;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 信息素矩阵的全局更新，设置了线程池时把矩阵按行分条，每条一个任务并行：
+ * 1. 挥发、限制上下限和刷新选择权值都是对一维数组的逐元素运算，每条对应数组中连续的一段，
+ *    循环体只有乘法和比较，没有下标计算，便于JIT自动向量化
+ * 2. 释放信息素总是在调用线程中按路径和边的顺序串行进行：每条路径只有n条边，
+ *    按行过滤时每个任务都要读一遍所有路径，总工作量是串行的并行度倍（见HotPathBench中的AntSystem.deposit）
+ * 3. 对称存储时第i行有n - i个元素，分条时按元素数量均分
+ * 4. 条数为线程池并行度的若干倍，线程池的并行度变化时重新分条
+ * 5. 元素数量较少时在调用线程中运行，避免任务调度的开销
+ * 6. 选择权值矩阵只存储候选边时（CandidateMatrix），刷新时按同样的分条逐行计算候选边
+ * @author Kanarien
+ * @version 1.0
+ */
+final class PheromoneUpdater {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16; // 元素数量低于该值时不并行
+    private static final int STRIPES_PER_THREAD = 4; // 每个线程的条数，多分几条使各线程的负载更均衡
+
+    private static final int SCALE = 0;
+    private static final int CLAMP = 1;
+    private static final int REFRESH = 2;
+
+    private final FloatMatrix pheromone; // 信息素矩阵
+    private final FloatMatrix heuristic; // 启发信息矩阵
+    private final FloatMatrix choiceInfo; // 选择权值矩阵
+    private int parallelism; // 当前分条所对应的线程池并行度，0表示尚未分条
+    private int[] rowBounds; // 第s条为[rowBounds[s], rowBounds[s + 1])行
+    private List<Callable<Void>> tasks; // 每条一个任务
+
+    // 当前运算及其参数，在提交任务之前设置
+    private int operation;
+    private float factor;
+    private float min;
+    private float max;
+    private float alpha;
+
+    /**
+     * 三个矩阵的阶数和存储方式需相同，或者启发信息和选择权值矩阵都是同一候选列表上的CandidateMatrix
+     */
+    PheromoneUpdater(FloatMatrix pheromone, FloatMatrix heuristic, FloatMatrix choiceInfo) {
+        this.pheromone = pheromone;
+        this.heuristic = heuristic;
+        this.choiceInfo = choiceInfo;
+    }
+
+    /**
+     * 按并行度重新分条，每条的元素数量大致相同
+     */
+    private void split(int parallelism) {
+        int n = pheromone.size();
+        int stripeNum = Math.max(1, Math.min(n, STRIPES_PER_THREAD * parallelism));
+        rowBounds = new int[stripeNum + 1];
+        long total = pheromone.data().length;
+        int row = 0;
+        for (int s = 1; s < stripeNum; s++) {
+            long target = total * s / stripeNum;
+            while (row < n && pheromone.rowStart(row) < target) {
+                row++;
+            }
+            rowBounds[s] = row;
+        }
+        rowBounds[stripeNum] = n;
+        tasks = new ArrayList<Callable<Void>>(stripeNum);
+        for (int s = 0; s < stripeNum; s++) {
+            final int stripe = s;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    apply(stripe);
+                    return null;
+                }
+            });
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 所有信息素乘以factor
+     */
+    void scale(ExecutorService executor, float factor) {
+        operation = SCALE;
+        this.factor = factor;
+        run(executor, pheromone.data().length);
+    }
+
+    /**
+     * 把信息素限制在[min, max]之间
+     */
+    void clamp(ExecutorService executor, float min, float max) {
+        operation = CLAMP;
+        this.min = min;
+        this.max = max;
+        run(executor, pheromone.data().length);
+    }
+
+    /**
+     * 在前count条路径上释放信息素，第r条路径经过的每条边释放amounts[r]，总是在调用线程中串行进行
+     */
+    void deposit(int[][] tours, float[] amounts, int count) {
+        for (int r = 0; r < count; r++) {
+            int[] tour = tours[r];
+            float amount = amounts[r];
+            for (int j = 0; j < tour.length - 1; j++) {
+                pheromone.addSymmetric(tour[j], tour[j + 1], amount);
+            }
+        }
+    }
+
+    /**
+     * 刷新选择权值矩阵，即τ^α * (1/d)^β
+     */
+    void refresh(ExecutorService executor, float alpha) {
+        operation = REFRESH;
+        this.alpha = alpha;
+        if (choiceInfo instanceof CandidateMatrix.ChoiceInfo) {
+            ((CandidateMatrix.ChoiceInfo) choiceInfo).setAlpha(alpha);
+        }
+        run(executor, choiceInfo.data().length);
+    }
+
+    private void run(ExecutorService executor, long work) {
+        if (!parallel(executor, work)) {
+            apply(0, pheromone.size());
+            return;
+        }
+        invoke(executor, tasks);
+    }
+
+    /**
+     * 判断是否并行运行，需要时按线程池的并行度重新分条
+     */
+    private boolean parallel(ExecutorService executor, long work) {
+        if (executor == null || work < PARALLEL_THRESHOLD) {
+            return false;
+        }
+        int threads = parallelism(executor);
+        if (threads != parallelism) {
+            split(threads);
+        }
+        return tasks.size() > 1;
+    }
+
+    /**
+     * @return 线程池的并行度，无法得知时为CPU核数
+     */
+    private static int parallelism(ExecutorService executor) {
+        if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        if (executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).getCorePoolSize() > 0) {
+            return ((ThreadPoolExecutor) executor).getCorePoolSize();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private void invoke(ExecutorService executor, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("更新信息素被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("更新信息素失败", e.getCause());
+        }
+    }
+
+    /**
+     * 对第stripe条进行当前运算
+     */
+    private void apply(int stripe) {
+        apply(rowBounds[stripe], rowBounds[stripe + 1]);
+    }
+
+    /**
+     * 对[from, to)行进行逐元素的运算
+     */
+    private void apply(int from, int to) {
+        int begin = pheromone.rowStart(from);
+        int end = pheromone.rowStart(to);
+        float[] tau = pheromone.data();
+        switch (operation) {
+            case SCALE:
+                for (int k = begin; k < end; k++) {
+                    tau[k] *= factor;
+                }
+                break;
+            case CLAMP:
+                for (int k = begin; k < end; k++) {
+                    if (tau[k] > max) {
+                        tau[k] = max;
+                    } else if (tau[k] < min) {
+                        tau[k] = min;
+                    }
+                }
+                break;
+            case REFRESH:
+                if (choiceInfo instanceof CandidateMatrix.ChoiceInfo) {
+                    ((CandidateMatrix.ChoiceInfo) choiceInfo).refresh(from, to);
+                    break;
+                }
+                float[] eta = heuristic.data();
+                float[] choice = choiceInfo.data();
+                if (alpha == 1.0f) {
+                    // α为1时τ^α即τ本身
+                    for (int k = begin; k < end; k++) {
+                        choice[k] = tau[k] * eta[k];
+                    }
+                } else {
+                    for (int k = begin; k < end; k++) {
+                        choice[k] = (float) AntSystem.power(tau[k], alpha) * eta[k];
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("未知的运算: " + operation);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package pers.kanarien.aco;
+
+/**
+ * 基于排序的蚂蚁系统（Rank-based Ant System）：
+ * 所有边挥发后，本次迭代中排名前w - 1的蚂蚁按排名释放信息素，第r名释放(w - r) / L，
+ * 全局最优路径释放w / L
+ * @author Kanarien
+ * @version 1.0
+ */
+public class RankBasedStrategy extends AcoStrategy {
+
+    private int w = 6; // 参与释放信息素的排名数
+    private int[] order; // 按路径长度排序后的蚂蚁编号
+
+    public RankBasedStrategy() {
+    }
+
+    /**
+     * @param w 参与释放信息素的排名数，本次迭代前w - 1名和全局最优路径释放信息素
+     */
+    public RankBasedStrategy(int w) {
+        this.w = w;
+    }
+
+    @Override
+    public String getName() {
+        return "基于排序的蚂蚁系统（Rank-based Ant System）";
+    }
+
+    @Override
+    public void initPheromone(AntSystem system) {
+        // τ0 = 0.5 * w * (w - 1) / (ρ * Lnn)
+        system.getPheromone().fill((float) (0.5 * w * (w - 1) / (system.getRho() * system.getNearestNeighbourLength())));
+        order = new int[system.getAntNum()];
+    }
+
+    @Override
+    public void updatePheromone(AntSystem system) {
+        FloatMatrix pheromone = system.getPheromone();
+        system.evaporate(1 - system.getRho());
+        // 按路径长度插入排序，插入排序是稳定的，长度相同时按蚂蚁编号，保证结果确定
+        Ant[] ants = system.getAnts();
+        for (int i = 0; i < order.length; i++) {
+            int k = i;
+            while (k > 0 && ants[order[k - 1]].getTourLength() > ants[i].getTourLength()) {
+                order[k] = order[k - 1];
+                k--;
+            }
+            order[k] = i;
+        }
+        for (int r = 1; r < w && r <= order.length; r++) {
+            Ant ant = ants[order[r - 1]];
+            deposit(pheromone, ant.getTabu(), (float) ((w - r) / (double) ant.getTourLength()));
+        }
+        deposit(pheromone, system.getBestTour(), (float) (w / (double) system.getBestLength()));
+    }
+
+}
@@ -0,0 +1,48 @@
+package pers.kanarien.aco;
+
+import java.util.Random;
+
+/**
+ * 可以读取和恢复内部状态的随机数发生器，用于保存和恢复运行状态
+ * 使用与java.util.Random相同的48位线性同余算法，相同种子得到的序列与java.util.Random完全相同
+ * 每只蚂蚁独占一份，不需要java.util.Random中原子变量的同步开销
+ * @author Kanarien
+ * @version 1.0
+ */
+final class ResumableRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state; // 48位内部状态，不能有初始值，父类构造函数会先调用setSeed
+
+    ResumableRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+        super.setSeed(seed); // 清除nextGaussian缓存的值
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * @return 内部状态，用setState恢复后得到的后续序列相同
+     */
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+
+}
@@ -0,0 +1,307 @@
+package pers.kanarien.aco;
+
+import java.util.Random;
+
+/**
+ * 蚂蚁按选择权值随机选择下一个城市的采样方法，权值即选择权值矩阵中当前城市所在行的元素，不需要归一化
+ * 提供三种实现：
+ * 1. 累积权值：一次遍历计算前缀和，再二分查找第一个大于随机目标的前缀和，权值为0的城市不会被选中，
+ *    舍入使目标等于总和时取最后一个权值不为0的城市，不存在偏向某个城市的缺口
+ * 2. 指数竞赛：每个城市抽取一个指数分布的随机数除以权值，取最小者，只需一次遍历，不计算总和，
+ *    但每个城市都要生成一个随机数并求一次对数
+ * 3. 别名表：每次迭代为每个城市的候选列表建立Walker别名表，选择时O(1)抽取，抽到已访问城市则重抽，
+ *    重抽若干次仍未成功时退回到累积权值；选择权值矩阵个别元素改变时只重建所在行的表
+ *    只在使用候选列表时生效，不使用候选列表时与累积权值相同
+ * 三种方法都精确地按权值比例选择，结果分布相同，但消耗的随机数不同，因此同一种子下的路径不同
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class Sampler {
+
+    private static final Sampler CUMULATIVE = new Cumulative();
+    private static final Sampler EXPONENTIAL_RACE = new ExponentialRace();
+
+    private Sampler() {
+    }
+
+    /**
+     * @return 累积权值采样，AntSystem的默认值
+     */
+    public static Sampler cumulative() {
+        return CUMULATIVE;
+    }
+
+    /**
+     * @return 指数竞赛采样
+     */
+    public static Sampler exponentialRace() {
+        return EXPONENTIAL_RACE;
+    }
+
+    /**
+     * @return 候选列表上的别名表采样，保存每行的别名表，每个AntSystem需单独创建一个
+     */
+    public static Sampler alias() {
+        return new Alias();
+    }
+
+    /**
+     * @return 采样方法名称
+     */
+    public abstract String getName();
+
+    /**
+     * 刷新选择权值矩阵后由AntSystem调用，默认什么也不做；不通过AntSystem直接使用Ant时需自行调用
+     * @param choiceInfo 选择权值矩阵
+     * @param candidates 候选列表，为null时不使用候选列表
+     */
+    public void prepare(FloatMatrix choiceInfo, int[][] candidates) {
+    }
+
+    /**
+     * 选择权值矩阵第row行的个别元素改变后由AntSystem调用，默认什么也不做；不通过AntSystem直接使用Ant时需自行调用
+     * @param choiceInfo 选择权值矩阵
+     * @param row 改变的行
+     */
+    public void update(FloatMatrix choiceInfo, int row) {
+    }
+
+    /**
+     * 在cities的前count个城市中按权值choiceInfo(from, city)随机选择一个
+     * 不同蚂蚁在不同线程中同时调用，实现不能修改共享状态，只使用蚂蚁自己的缓冲区和随机数
+     * @param choiceInfo 选择权值矩阵
+     * @param from 当前城市
+     * @param cities 可选的城市
+     * @param count 可选的城市数量
+     * @param scratch 蚂蚁自己的缓冲区，长度至少为count
+     * @param random 蚂蚁自己的随机数
+     * @return 选中的城市在cities中的下标，权值全为0时返回-1
+     */
+    abstract int select(FloatMatrix choiceInfo, int from, int[] cities, int count, double[] scratch, Random random);
+
+    /**
+     * 在当前城市的候选列表中未访问的城市里按权值随机选择一个
+     * 默认先取出未访问的候选城市，再调用select
+     * @param choiceInfo 选择权值矩阵
+     * @param from 当前城市
+     * @param row 当前城市的候选列表
+     * @param ant 蚂蚁，用于判断城市是否已访问
+     * @param scratch 蚂蚁自己的缓冲区，长度至少为row.length
+     * @param random 蚂蚁自己的随机数
+     * @return 选中的城市，候选城市都已访问或者权值全为0时返回-1
+     */
+    int selectCandidate(FloatMatrix choiceInfo, int from, int[] row, Ant ant, double[] scratch, Random random) {
+        int[] allowed = ant.getCandidateBuffer();
+        int count = 0;
+        for (int city : row) {
+            if (ant.isAllowed(city)) {
+                allowed[count++] = city;
+            }
+        }
+        int k = count > 0 ? select(choiceInfo, from, allowed, count, scratch, random) : -1;
+        return k >= 0 ? allowed[k] : -1;
+    }
+
+    private static final class Cumulative extends Sampler {
+
+        @Override
+        public String getName() {
+            return "累积权值";
+        }
+
+        @Override
+        int select(FloatMatrix choiceInfo, int from, int[] cities, int count, double[] scratch, Random random) {
+            double sum = 0.0;
+            for (int k = 0; k < count; k++) {
+                sum += choiceInfo.get(from, cities[k]);
+                scratch[k] = sum;
+            }
+            if (!(sum > 0.0)) {
+                return -1;
+            }
+            double target = random.nextDouble() * sum;
+            if (target >= sum) {
+                // 舍入使目标等于总和时，取前缀和等于总和的第一个，即最后一个权值不为0的城市
+                target = Math.nextDown(sum);
+            }
+            // 第一个大于目标的前缀和，权值为0的城市前缀和不增加，不会被选中
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (scratch[mid] > target) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class ExponentialRace extends Sampler {
+
+        @Override
+        public String getName() {
+            return "指数竞赛";
+        }
+
+        /**
+         * 每个权值w > 0的城市取E / w，E服从参数为1的指数分布，最小者被选中的概率恰为w / Σw
+         * 比较E1 / w1 < E2 / w2时改为E1 * w2 < E2 * w1，避免除法
+         */
+        @Override
+        int select(FloatMatrix choiceInfo, int from, int[] cities, int count, double[] scratch, Random random) {
+            int selected = -1;
+            double bestE = 0.0;
+            double bestW = 0.0;
+            for (int k = 0; k < count; k++) {
+                double w = choiceInfo.get(from, cities[k]);
+                if (w > 0.0) {
+                    double e = -Math.log(1.0 - random.nextDouble());
+                    if (selected < 0 || e * bestW < bestE * w) {
+                        selected = k;
+                        bestE = e;
+                        bestW = w;
+                    }
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static final class Alias extends Sampler {
+
+        private static final int MAX_TRIES = 4; // 抽到已访问城市时的最多重抽次数，之后退回到累积权值
+
+        private int[][] candidates; // 建表时的候选列表
+        private float[] prob; // 别名表的概率，第i行从rowStart[i]开始，长度为candidates[i].length
+        private int[] alias; // 别名表的别名，下标为行内位置
+        private int[] rowStart; // 每行在prob和alias中的起点
+        private boolean[] empty; // 该行权值全为0
+        private int[] small; // 建表时的工作栈
+        private int[] large; // 建表时的工作栈
+        private double[] scaled; // 建表时按平均值缩放的权值
+
+        @Override
+        public String getName() {
+            return "别名表";
+        }
+
+        @Override
+        public void prepare(FloatMatrix choiceInfo, int[][] candidates) {
+            this.candidates = candidates;
+            if (candidates == null) {
+                return;
+            }
+            int n = candidates.length;
+            if (rowStart == null || rowStart.length != n + 1) {
+                rowStart = new int[n + 1];
+                empty = new boolean[n];
+            }
+            int maxLength = 0;
+            for (int i = 0; i < n; i++) {
+                rowStart[i + 1] = rowStart[i] + candidates[i].length;
+                maxLength = Math.max(maxLength, candidates[i].length);
+            }
+            if (prob == null || prob.length != rowStart[n]) {
+                prob = new float[rowStart[n]];
+                alias = new int[rowStart[n]];
+            }
+            if (scaled == null || scaled.length < maxLength) {
+                small = new int[maxLength];
+                large = new int[maxLength];
+                scaled = new double[maxLength];
+            }
+            for (int i = 0; i < n; i++) {
+                build(choiceInfo, i);
+            }
+        }
+
+        @Override
+        public void update(FloatMatrix choiceInfo, int row) {
+            if (candidates != null) {
+                build(choiceInfo, row);
+            }
+        }
+
+        /**
+         * Vose方法建立第i行的别名表：权值按平均值缩放后分为小于1和不小于1两组，
+         * 每次用一个大的补足一个小的，O(m)
+         */
+        private void build(FloatMatrix choiceInfo, int i) {
+            int[] row = candidates[i];
+            int m = row.length;
+            int start = rowStart[i];
+            double sum = 0.0;
+            for (int k = 0; k < m; k++) {
+                scaled[k] = choiceInfo.get(i, row[k]);
+                sum += scaled[k];
+            }
+            empty[i] = !(sum > 0.0);
+            if (empty[i]) {
+                return;
+            }
+            int smallNum = 0;
+            int largeNum = 0;
+            for (int k = 0; k < m; k++) {
+                scaled[k] = scaled[k] * m / sum;
+                if (scaled[k] < 1.0) {
+                    small[smallNum++] = k;
+                } else {
+                    large[largeNum++] = k;
+                }
+            }
+            while (smallNum > 0 && largeNum > 0) {
+                int s = small[--smallNum];
+                int l = large[largeNum - 1];
+                prob[start + s] = (float) scaled[s];
+                alias[start + s] = l;
+                scaled[l] = scaled[l] + scaled[s] - 1.0;
+                if (scaled[l] < 1.0) {
+                    largeNum--;
+                    small[smallNum++] = l;
+                }
+            }
+            // 剩余的概率都应为1，舍入误差留下的也按1处理
+            while (largeNum > 0) {
+                int l = large[--largeNum];
+                prob[start + l] = 1.f;
+                alias[start + l] = l;
+            }
+            while (smallNum > 0) {
+                int s = small[--smallNum];
+                prob[start + s] = 1.f;
+                alias[start + s] = s;
+            }
+        }
+
+        @Override
+        int select(FloatMatrix choiceInfo, int from, int[] cities, int count, double[] scratch, Random random) {
+            return CUMULATIVE.select(choiceInfo, from, cities, count, scratch, random);
+        }
+
+        /**
+         * 在整行的别名表上抽取，抽到已访问城市则重抽；接受的城市服从未访问候选城市上的权值比例，
+         * 重抽MAX_TRIES次仍未成功时退回到累积权值，两种情况下的分布相同，因此整体仍是精确的
+         */
+        @Override
+        int selectCandidate(FloatMatrix choiceInfo, int from, int[] row, Ant ant, double[] scratch, Random random) {
+            if (candidates == null || candidates[from] != row || empty[from]) {
+                return super.selectCandidate(choiceInfo, from, row, ant, scratch, random);
+            }
+            int m = row.length;
+            int start = rowStart[from];
+            for (int t = 0; t < MAX_TRIES; t++) {
+                double u = random.nextDouble() * m;
+                int k = Math.min((int) u, m - 1);
+                int pick = u - k < prob[start + k] ? k : alias[start + k];
+                if (ant.isAllowed(row[pick])) {
+                    return row[pick];
+                }
+            }
+            return super.selectCandidate(choiceInfo, from, row, ant, scratch, random);
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+package pers.kanarien.aco;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 稀疏有向图，按CSR（压缩行）方式存储，用于道路网络等非完全、非对称的实例
+ * 1. 节点i的出边编号为[outStart(i), outEnd(i))，边按起点连续存储，内存为O(n + m)
+ * 2. 每条边有自己的权值，(i, j)与(j, i)是两条独立的边，可以只有其中一条
+ * 3. 设置了EdgeCost时权值随进入边的时刻变化，否则总是基础权值
+ * 4. 边按起点重新编号，inputEdge(edge)为编号为edge的边在建图时边列表中的位置
+ * 不可变，可以被多个线程同时读取
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class SparseGraph {
+
+    private final int nodeNum; // 节点数量
+    private final int[] rowStart; // 节点i的出边为[rowStart[i], rowStart[i + 1])
+    private final int[] target; // 边的终点
+    private final int[] cost; // 边的基础权值
+    private final int[] inputEdge; // 边在输入边列表中的位置
+    private final EdgeCost edgeCost; // 随时间变化的边权，为null时总是基础权值
+
+    private SparseGraph(int nodeNum, int[] rowStart, int[] target, int[] cost, int[] inputEdge, EdgeCost edgeCost) {
+        this.nodeNum = nodeNum;
+        this.rowStart = rowStart;
+        this.target = target;
+        this.cost = cost;
+        this.inputEdge = inputEdge;
+        this.edgeCost = edgeCost;
+    }
+
+    /**
+     * 由边列表建图，边按起点稳定排序，同一起点的边保持输入顺序
+     * 排序后边的编号与输入顺序不同，输入中的第e条边可以用inputEdge反查
+     * @param nodeNum 节点数量
+     * @param from 每条边的起点
+     * @param to 每条边的终点
+     * @param cost 每条边的基础权值，不小于0
+     * @return 稀疏图
+     * @throws IllegalArgumentException 数组长度不一致、节点编号越界、自环或者权值为负
+     */
+    public static SparseGraph of(int nodeNum, int[] from, int[] to, int[] cost) {
+        int m = from.length;
+        if (to.length != m || cost.length != m) {
+            throw new IllegalArgumentException("起点、终点和权值的数量不一致");
+        }
+        int[] rowStart = new int[nodeNum + 1];
+        for (int e = 0; e < m; e++) {
+            if (from[e] < 0 || from[e] >= nodeNum || to[e] < 0 || to[e] >= nodeNum) {
+                throw new IllegalArgumentException("第" + e + "条边的节点编号越界: " + from[e] + " -> " + to[e]);
+            }
+            if (from[e] == to[e] || cost[e] < 0) {
+                throw new IllegalArgumentException("第" + e + "条边是自环或者权值为负");
+            }
+            rowStart[from[e] + 1]++;
+        }
+        for (int i = 0; i < nodeNum; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        // 计数排序，next[i]为节点i下一条出边的位置
+        int[] next = Arrays.copyOf(rowStart, nodeNum);
+        int[] target = new int[m];
+        int[] edgeCost = new int[m];
+        int[] inputEdge = new int[m];
+        for (int e = 0; e < m; e++) {
+            int k = next[from[e]]++;
+            target[k] = to[e];
+            edgeCost[k] = cost[e];
+            inputEdge[k] = e;
+        }
+        return new SparseGraph(nodeNum, rowStart, target, edgeCost, inputEdge, null);
+    }
+
+    /**
+     * 读取边列表文件，每行为"起点 终点 权值"，节点从0开始编号，以#开头的行和空行被忽略
+     * 节点数量为出现过的最大编号加1
+     * @param file 边列表文件
+     * @return 稀疏图
+     * @throws IOException 读取失败或者格式错误
+     */
+    public static SparseGraph read(File file) throws IOException {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] cost = new int[1024];
+        int m = 0;
+        int nodeNum = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 3) {
+                    throw new IOException(file + "第" + lineNum + "行格式错误: " + line);
+                }
+                if (m == from.length) {
+                    from = Arrays.copyOf(from, m * 2);
+                    to = Arrays.copyOf(to, m * 2);
+                    cost = Arrays.copyOf(cost, m * 2);
+                }
+                try {
+                    from[m] = Integer.parseInt(fields[0]);
+                    to[m] = Integer.parseInt(fields[1]);
+                    cost[m] = Integer.parseInt(fields[2]);
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + "第" + lineNum + "行格式错误: " + line, e);
+                }
+                nodeNum = Math.max(nodeNum, Math.max(from[m], to[m]) + 1);
+                m++;
+            }
+        } finally {
+            reader.close();
+        }
+        try {
+            return of(nodeNum, Arrays.copyOf(from, m), Arrays.copyOf(to, m), Arrays.copyOf(cost, m));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 每条边一组系数的TimeSlotCost按建图时的边列表顺序给出系数，需恰好覆盖每条边，这里按排序后的编号重排；
+     * 其他EdgeCost收到的是排序后的编号，需要输入顺序时用inputEdge换算
+     * @param edgeCost 随时间变化的边权，为null时总是基础权值
+     * @return 共用同样的边、权值随时间变化的图
+     */
+    public SparseGraph withEdgeCost(EdgeCost edgeCost) {
+        if (edgeCost instanceof TimeSlotCost) {
+            TimeSlotCost slotCost = (TimeSlotCost) edgeCost;
+            int edgeNum = slotCost.getEdgeNum();
+            if (edgeNum >= 0 && edgeNum != getEdgeNum()) {
+                throw new IllegalArgumentException("系数的个数应为边数 * 时段数量: " + getEdgeNum() + " * "
+                        + slotCost.getSlotNum());
+            }
+            if (edgeNum >= 0) {
+                edgeCost = slotCost.reorder(inputEdge);
+            }
+        }
+        return new SparseGraph(nodeNum, rowStart, target, cost, inputEdge, edgeCost);
+    }
+
+    /**
+     * @param edge 边
+     * @param time 进入这条边的时刻
+     * @return 在time时刻经过这条边的权值
+     */
+    public int cost(int edge, long time) {
+        return edgeCost != null ? edgeCost.cost(edge, cost[edge], time) : cost[edge];
+    }
+
+    /**
+     * @param edge 边
+     * @return 边的基础权值
+     */
+    public int cost(int edge) {
+        return cost[edge];
+    }
+
+    /**
+     * @param from 起点
+     * @param to 终点
+     * @return from到to的第一条边，没有时返回-1
+     */
+    public int findEdge(int from, int to) {
+        for (int e = rowStart[from]; e < rowStart[from + 1]; e++) {
+            if (target[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    public int getNodeNum() {
+        return nodeNum;
+    }
+
+    public int getEdgeNum() {
+        return target.length;
+    }
+
+    /**
+     * @return 节点i第一条出边的编号
+     */
+    public int outStart(int i) {
+        return rowStart[i];
+    }
+
+    /**
+     * @return 节点i最后一条出边的编号加1
+     */
+    public int outEnd(int i) {
+        return rowStart[i + 1];
+    }
+
+    /**
+     * @return 边的终点
+     */
+    public int target(int edge) {
+        return target[edge];
+    }
+
+    /**
+     * @param edge 边
+     * @return 这条边在建图时边列表中的位置
+     */
+    public int inputEdge(int edge) {
+        return inputEdge[edge];
+    }
+
+    /**
+     * @return 是否设置了随时间变化的边权
+     */
+    public boolean isTimeDependent() {
+        return edgeCost != null;
+    }
+
+}
@@ -0,0 +1,88 @@
+package pers.kanarien.aco;
+
+/**
+ * 分时段的边权：时间按slotLength分为若干时段并循环（如一天24小时），
+ * 每个时段的权值为基础权值乘以该时段的系数，系数可以所有边共用，也可以每条边一组
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class TimeSlotCost implements EdgeCost {
+
+    private final long slotLength; // 每个时段的长度
+    private final int slotNum; // 时段数量，时间超出slotLength * slotNum后从第一个时段重新开始
+    private final float[] factors; // 系数，所有边共用时长度为slotNum，否则为factors[edge * slotNum + slot]
+    private final boolean perEdge; // 是否每条边一组系数
+
+    /**
+     * 所有边共用一组系数
+     * @param slotLength 每个时段的长度，单位与权值相同
+     * @param factors 每个时段的系数
+     */
+    public TimeSlotCost(long slotLength, float[] factors) {
+        this(slotLength, factors.length, factors, false);
+    }
+
+    /**
+     * 每条边一组系数
+     * @param slotLength 每个时段的长度，单位与权值相同
+     * @param slotNum 时段数量
+     * @param edgeFactors 建图时边列表中第e条边在第slot个时段的系数为edgeFactors[e * slotNum + slot]，
+     *        SparseGraph.withEdgeCost会按图中的边编号重排
+     */
+    public TimeSlotCost(long slotLength, int slotNum, float[] edgeFactors) {
+        this(slotLength, slotNum, edgeFactors, true);
+    }
+
+    private TimeSlotCost(long slotLength, int slotNum, float[] factors, boolean perEdge) {
+        if (slotLength < 1 || slotNum < 1 || (perEdge && factors.length % slotNum != 0)) {
+            throw new IllegalArgumentException("时段长度、时段数量或者系数的个数不正确");
+        }
+        for (float factor : factors) {
+            if (!(factor >= 0)) {
+                throw new IllegalArgumentException("系数不能为负数: " + factor);
+            }
+        }
+        this.slotLength = slotLength;
+        this.slotNum = slotNum;
+        this.factors = factors.clone();
+        this.perEdge = perEdge;
+    }
+
+    @Override
+    public int cost(int edge, int baseCost, long time) {
+        int slot = (int) (Math.floorDiv(time, slotLength) % slotNum);
+        if (slot < 0) {
+            slot += slotNum;
+        }
+        float factor = perEdge ? factors[edge * slotNum + slot] : factors[slot];
+        return Math.round(baseCost * factor);
+    }
+
+    public long getSlotLength() {
+        return slotLength;
+    }
+
+    public int getSlotNum() {
+        return slotNum;
+    }
+
+    /**
+     * @param inputEdge 图中第k条边对应系数中的第inputEdge[k]组
+     * @return 系数按图中边编号排列的副本
+     */
+    TimeSlotCost reorder(int[] inputEdge) {
+        float[] reordered = new float[factors.length];
+        for (int k = 0; k < inputEdge.length; k++) {
+            System.arraycopy(factors, inputEdge[k] * slotNum, reordered, k * slotNum, slotNum);
+        }
+        return new TimeSlotCost(slotLength, slotNum, reordered, true);
+    }
+
+    /**
+     * @return 每条边一组系数时为系数所对应的边数，所有边共用时为-1
+     */
+    int getEdgeNum() {
+        return perEdge ? factors.length / slotNum : -1;
+    }
+
+}
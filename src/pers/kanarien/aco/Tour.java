@@ -0,0 +1,41 @@
+package pers.kanarien.aco;
+
+/**
+ * 不可变的路径及其长度，用于在线程之间传递路径
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class Tour {
+
+    private final int[] cities; // 路径，长度为cityNum + 1，首尾相同
+    private final int length; // 路径长度
+
+    /**
+     * @param cities 路径，会复制一份
+     * @param length 路径长度
+     */
+    public Tour(int[] cities, int length) {
+        this.cities = cities.clone();
+        this.length = length;
+    }
+
+    /**
+     * @return 路径的副本
+     */
+    public int[] getCities() {
+        return cities.clone();
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param other 另一条路径，可以为null
+     * @return 是否比other短，other为null时总是true
+     */
+    public boolean isShorterThan(Tour other) {
+        return other == null || length < other.length;
+    }
+
+}
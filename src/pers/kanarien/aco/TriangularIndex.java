@@ -0,0 +1,28 @@
+package pers.kanarien.aco;
+
+/**
+ * 上三角（含对角线）按行压缩存储的下标计算
+ * 第i行保存(i, i)到(i, n - 1)，共n - i个元素
+ * @author Kanarien
+ * @version 1.0
+ */
+final class TriangularIndex {
+
+    private TriangularIndex() {
+    }
+
+    /**
+     * @param n 矩阵阶数
+     * @return 每行的偏移量，rowOffset[i] + j即为(i, j)的下标，要求i <= j
+     */
+    static int[] rowOffset(int n) {
+        int[] rowOffset = new int[n];
+        long start = 0; // 第i行第一个元素(i, i)的下标
+        for (int i = 0; i < n; i++) {
+            rowOffset[i] = (int) (start - i);
+            start += n - i;
+        }
+        return rowOffset;
+    }
+
+}
@@ -0,0 +1,82 @@
+package pers.kanarien.aco;
+
+/**
+ * 一个TSP实例：城市坐标和边权类型，或者直接给出的距离矩阵
+ * @author Kanarien
+ * @version 1.0
+ */
+public class TspInstance {
+
+    private final String name; // 实例名称
+    private final EdgeWeightType edgeWeightType; // 边权类型
+    private final double[] x; // 所有城市的x坐标，EXPLICIT时为null
+    private final double[] y; // 所有城市的y坐标，EXPLICIT时为null
+    private final IntMatrix weights; // EXPLICIT时直接给出的距离矩阵，其余为null
+
+    /**
+     * 由坐标给出的实例
+     * @param name 实例名称
+     * @param x 所有城市的x坐标
+     * @param y 所有城市的y坐标
+     * @param edgeWeightType 边权类型
+     */
+    public TspInstance(String name, double[] x, double[] y, EdgeWeightType edgeWeightType) {
+        this.name = name;
+        this.x = x;
+        this.y = y;
+        this.edgeWeightType = edgeWeightType;
+        this.weights = null;
+    }
+
+    /**
+     * 直接给出距离矩阵的实例
+     * @param name 实例名称
+     * @param weights 距离矩阵
+     */
+    public TspInstance(String name, IntMatrix weights) {
+        this.name = name;
+        this.x = null;
+        this.y = null;
+        this.edgeWeightType = EdgeWeightType.EXPLICIT;
+        this.weights = weights;
+    }
+
+    /**
+     * @return 城市间距离，坐标实例为实时计算的距离，EXPLICIT实例为堆内距离矩阵
+     */
+    public DistanceProvider distance() {
+        if (weights != null) {
+            return new MatrixDistance(weights);
+        }
+        return new CoordinateDistance(x, y, edgeWeightType);
+    }
+
+    /**
+     * @return 距离是否对称，只有值不对称的EXPLICIT FULL_MATRIX返回false
+     * TspReader读取FULL_MATRIX时已比较过w(i, j)与w(j, i)，值对称的矩阵改用对称存储
+     */
+    public boolean isSymmetric() {
+        return weights == null || weights.isSymmetric();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDimension() {
+        return weights != null ? weights.size() : x.length;
+    }
+
+    public EdgeWeightType getEdgeWeightType() {
+        return edgeWeightType;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+}
@@ -0,0 +1,357 @@
+package pers.kanarien.aco;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * TSP实例读取器，支持两种格式：
+ * 1. TSPLIB的.tsp文件：NODE_COORD_SECTION（EUC_2D、CEIL_2D、ATT、GEO）以及EDGE_WEIGHT_SECTION给出的各种EXPLICIT矩阵
+ * 2. 每行一个城市的坐标文件，格式为:城市序号 x轴坐标 y轴坐标，如data/berlin52.txt
+ * 文件通过内存映射直接按字节扫描，数字直接从字节解析，不为每行创建String，城市数量由文件本身决定
+ * @author Kanarien
+ * @version 1.0
+ */
+public class TspReader {
+
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final MappedByteBuffer buffer; // 文件内容
+    private final int limit; // 文件长度
+    private int pos; // 当前读取位置
+
+    private String name = "";
+    private int dimension = -1;
+    private EdgeWeightType edgeWeightType = EdgeWeightType.EUC_2D;
+    private String edgeWeightFormat = "FULL_MATRIX";
+
+    private TspReader(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * 读取TSP实例
+     * @param file 数据文件
+     * @return TSP实例
+     * @throws IOException 读取失败或者格式不对
+     */
+    public static TspInstance read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("文件过大: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String name = file.getName();
+            int dot = name.indexOf('.');
+            TspReader reader = new TspReader(buffer);
+            reader.name = dot > 0 ? name.substring(0, dot) : name;
+            return reader.parse();
+        } catch (IllegalArgumentException e) {
+            // 矩阵过大、数字格式错误等，按格式错误处理
+            throw new IOException(file + ": " + e.getMessage(), e);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private TspInstance parse() throws IOException {
+        skipWhitespace();
+        if (pos < limit && isNumberStart(buffer.get(pos))) {
+            // 没有文件头，每行一个城市的坐标
+            return readNodeCoords();
+        }
+        while (pos < limit) {
+            String keyword = readKeyword();
+            if (keyword.isEmpty()) {
+                throw new IOException("无法识别的内容，位置 " + pos);
+            }
+            if (keyword.equals("NODE_COORD_SECTION")) {
+                return readNodeCoords();
+            } else if (keyword.equals("EDGE_WEIGHT_SECTION")) {
+                return readEdgeWeights();
+            } else if (keyword.equals("EOF")) {
+                break;
+            }
+            String value = readLineValue();
+            if (keyword.equals("NAME")) {
+                name = value;
+            } else if (keyword.equals("DIMENSION")) {
+                try {
+                    dimension = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new IOException("DIMENSION格式错误: " + value, e);
+                }
+                if (dimension < 2) {
+                    throw new IOException("DIMENSION过小: " + dimension);
+                }
+            } else if (keyword.equals("EDGE_WEIGHT_TYPE")) {
+                try {
+                    edgeWeightType = EdgeWeightType.valueOf(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("不支持的EDGE_WEIGHT_TYPE: " + value);
+                }
+            } else if (keyword.equals("EDGE_WEIGHT_FORMAT")) {
+                edgeWeightFormat = value;
+            }
+            // TYPE、COMMENT等其他字段忽略
+            skipWhitespace();
+        }
+        throw new IOException("文件中没有NODE_COORD_SECTION或EDGE_WEIGHT_SECTION");
+    }
+
+    /**
+     * 读取坐标，每个城市三个数：序号、x坐标、y坐标
+     * 知道DIMENSION时读取DIMENSION个城市，否则一直读到不是数字为止
+     */
+    private TspInstance readNodeCoords() throws IOException {
+        if (edgeWeightType == EdgeWeightType.EXPLICIT) {
+            throw new IOException("EXPLICIT类型不使用坐标");
+        }
+        // DIMENSION可能远大于文件中实际的坐标数量，初始容量有上限，不够时再扩大
+        int capacity = dimension > 0 ? Math.min(dimension, 1 << 16) : 1024;
+        double[] x = new double[capacity];
+        double[] y = new double[capacity];
+        int n = 0;
+        while (dimension < 0 || n < dimension) {
+            skipWhitespace();
+            if (pos >= limit || !isNumberStart(buffer.get(pos))) {
+                break;
+            }
+            if (n == capacity) {
+                capacity *= 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+            }
+            readNumber(); // 城市序号
+            x[n] = readNumber();
+            y[n] = readNumber();
+            n++;
+        }
+        if (dimension > 0 && n < dimension) {
+            throw new IOException("坐标数量不足: " + n + " < " + dimension);
+        }
+        if (n < 2) {
+            throw new IOException("城市数量过少: " + n);
+        }
+        if (n < capacity) {
+            x = Arrays.copyOf(x, n);
+            y = Arrays.copyOf(y, n);
+        }
+        return new TspInstance(name, x, y, edgeWeightType);
+    }
+
+    /**
+     * 按EDGE_WEIGHT_FORMAT读取距离矩阵
+     * 对称矩阵中UPPER_COL与LOWER_ROW的顺序相同，LOWER_COL与UPPER_ROW相同，带DIAG的同理
+     */
+    private TspInstance readEdgeWeights() throws IOException {
+        if (dimension < 2) {
+            throw new IOException("EDGE_WEIGHT_SECTION之前必须给出DIMENSION");
+        }
+        int n = dimension;
+        String format = edgeWeightFormat;
+        // 每个数至少占一个数字和一个分隔符，文件不够长时不必申请矩阵
+        long count = format.equals("FULL_MATRIX") ? (long) n * n
+                : (long) n * (n + 1) / 2 - (format.contains("DIAG") ? 0 : n);
+        if (count > (limit - pos + 1) / 2) {
+            throw new IOException("EDGE_WEIGHT_SECTION需要" + count + "个数，文件长度不足");
+        }
+        IntMatrix weights;
+        if (format.equals("FULL_MATRIX")) {
+            weights = IntMatrix.dense(n);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    weights.set(i, j, readInt());
+                }
+            }
+            return new TspInstance(name, symmetrize(weights));
+        }
+        weights = IntMatrix.symmetric(n);
+        boolean diag = format.contains("DIAG");
+        boolean upper = format.equals("UPPER_ROW") || format.equals("UPPER_DIAG_ROW")
+                || format.equals("LOWER_COL") || format.equals("LOWER_DIAG_COL");
+        boolean lower = format.equals("LOWER_ROW") || format.equals("LOWER_DIAG_ROW")
+                || format.equals("UPPER_COL") || format.equals("UPPER_DIAG_COL");
+        if (upper) {
+            for (int i = 0; i < n; i++) {
+                for (int j = diag ? i : i + 1; j < n; j++) {
+                    weights.set(i, j, readInt());
+                }
+            }
+        } else if (lower) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < (diag ? i + 1 : i); j++) {
+                    weights.set(i, j, readInt());
+                }
+            }
+        } else {
+            throw new IOException("不支持的EDGE_WEIGHT_FORMAT: " + format);
+        }
+        return new TspInstance(name, weights);
+    }
+
+    /**
+     * FULL_MATRIX的值对称时改为对称存储，只有值不对称的矩阵才保留稠密存储
+     * @param weights 稠密存储的距离矩阵
+     * @return 值对称时为对称存储的同一矩阵，否则为weights本身
+     */
+    private static IntMatrix symmetrize(IntMatrix weights) {
+        int n = weights.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (weights.get(i, j) != weights.get(j, i)) {
+                    return weights;
+                }
+            }
+        }
+        IntMatrix symmetric = IntMatrix.symmetric(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                symmetric.set(i, j, weights.get(i, j));
+            }
+        }
+        return symmetric;
+    }
+
+    /**
+     * 读取关键字，由字母、数字和下划线组成，之后跳过空格和冒号
+     */
+    private String readKeyword() {
+        int begin = pos;
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (!(b >= 'A' && b <= 'Z' || b >= 'a' && b <= 'z' || b >= '0' && b <= '9' || b == '_')) {
+                break;
+            }
+            pos++;
+        }
+        String keyword = ascii(begin, pos);
+        while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t' || buffer.get(pos) == ':')) {
+            pos++;
+        }
+        return keyword;
+    }
+
+    /**
+     * 读取到行尾的值，去掉首尾空白
+     */
+    private String readLineValue() {
+        int begin = pos;
+        while (pos < limit && buffer.get(pos) != '\n' && buffer.get(pos) != '\r') {
+            pos++;
+        }
+        int end = pos;
+        while (end > begin && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        return ascii(begin, end);
+    }
+
+    private String ascii(int begin, int end) {
+        byte[] bytes = new byte[end - begin];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(begin + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private int readInt() throws IOException {
+        double value = readNumber();
+        if (value != (int) value) {
+            throw new IOException("距离不是整数: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 从字节直接解析一个数，支持符号、小数点和指数
+     * 有效数字不超过15位时结果与Double.parseDouble一致，否则退回Double.parseDouble
+     */
+    private double readNumber() throws IOException {
+        skipWhitespace();
+        int begin = pos;
+        boolean negative = false;
+        if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+            negative = buffer.get(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0; // 有效数字位数
+        int scale = 0; // 小数位数
+        boolean point = false;
+        boolean any = false;
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (digits > 0 || b != '0') {
+                    digits++;
+                }
+                if (digits <= 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (point) {
+                        scale++;
+                    }
+                } else if (!point) {
+                    scale--;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (!any) {
+            throw new IOException("此处应为数字，位置 " + begin);
+        }
+        int exponent = 0;
+        if (pos < limit && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+            int save = pos++;
+            boolean negativeExponent = false;
+            if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+                negativeExponent = buffer.get(pos) == '-';
+                pos++;
+            }
+            int expBegin = pos;
+            while (pos < limit && buffer.get(pos) >= '0' && buffer.get(pos) <= '9') {
+                exponent = Math.min(exponent * 10 + (buffer.get(pos) - '0'), 10000);
+                pos++;
+            }
+            if (pos == expBegin) {
+                pos = save; // 不是指数
+            } else if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        int power = exponent - scale;
+        double value;
+        if (digits <= 15 && power >= -22 && power <= 22) {
+            // 尾数和10的幂都能精确表示，一次乘除即为正确舍入的结果
+            value = power >= 0 ? mantissa * POW10[power] : mantissa / POW10[-power];
+        } else {
+            value = Double.parseDouble(ascii(begin, pos));
+            return value;
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit && buffer.get(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    private static boolean isNumberStart(byte b) {
+        return b >= '0' && b <= '9' || b == '-' || b == '+' || b == '.';
+    }
+
+}
@@ -0,0 +1,134 @@
+package pers.kanarien.bpnet;
+
+/**
+ * 激活函数，对一行神经元就地计算
+ * 导数都由激活后的输出计算，反向时不需要保存激活前的值
+ * 快速近似的版本用有理函数代替Math.exp和Math.tanh，导数沿用精确版本由输出计算的公式
+ * @author Kanarien
+ * @version 1.0
+ */
+public enum Activation {
+
+    /** S函数 1 / (1 + e^-x)，导数为a(1 - a) */
+    SIGMOID {
+        @Override
+        void forward(double[] x, int from, int to) {
+            for (int i = from; i < to; i++) {
+                x[i] = 1 / (1 + Math.exp(-x[i]));
+            }
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+            for (int i = from; i < to; i++) {
+                delta[i] *= a[i] * (1 - a[i]);
+            }
+        }
+    },
+    /** 双曲正切，导数为1 - a^2 */
+    TANH {
+        @Override
+        void forward(double[] x, int from, int to) {
+            for (int i = from; i < to; i++) {
+                x[i] = Math.tanh(x[i]);
+            }
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+            for (int i = from; i < to; i++) {
+                delta[i] *= 1 - a[i] * a[i];
+            }
+        }
+    },
+    /** max(0, x)，导数在a > 0时为1，否则为0 */
+    RELU {
+        @Override
+        void forward(double[] x, int from, int to) {
+            for (int i = from; i < to; i++) {
+                x[i] = x[i] > 0 ? x[i] : 0;
+            }
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+            for (int i = from; i < to; i++) {
+                delta[i] = a[i] > 0 ? delta[i] : 0;
+            }
+        }
+
+        @Override
+        double initRange(int fanIn, int fanOut) {
+            return Math.sqrt(6.0 / fanIn);
+        }
+    },
+    /** S函数的近似 0.5 + 0.5 * tanh(x / 2)，tanh用FAST_TANH的有理函数 */
+    FAST_SIGMOID {
+        @Override
+        void forward(double[] x, int from, int to) {
+            for (int i = from; i < to; i++) {
+                x[i] = 0.5 + 0.5 * fastTanh(0.5 * x[i]);
+            }
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+            SIGMOID.backward(a, delta, from, to);
+        }
+    },
+    /** 双曲正切的近似 x(27 + x^2) / (27 + 9x^2)，|x| >= 3时取±1，误差不超过0.025 */
+    FAST_TANH {
+        @Override
+        void forward(double[] x, int from, int to) {
+            for (int i = from; i < to; i++) {
+                x[i] = fastTanh(x[i]);
+            }
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+            TANH.backward(a, delta, from, to);
+        }
+    },
+    /** 恒等函数，一般用于回归的输出层 */
+    IDENTITY {
+        @Override
+        void forward(double[] x, int from, int to) {
+        }
+
+        @Override
+        void backward(double[] a, double[] delta, int from, int to) {
+        }
+    };
+
+    /**
+     * 就地激活x[from, to)
+     */
+    abstract void forward(double[] x, int from, int to);
+
+    /**
+     * 误差项delta[from, to)乘以激活函数的导数，导数由激活输出a[from, to)计算
+     */
+    abstract void backward(double[] a, double[] delta, int from, int to);
+
+    /**
+     * 初始权值在[-range, range]内均匀分布，默认按Glorot取sqrt(6 / (fanIn + fanOut))
+     * @param fanIn 输入神经元数目
+     * @param fanOut 输出神经元数目
+     */
+    double initRange(int fanIn, int fanOut) {
+        return Math.sqrt(6.0 / (fanIn + fanOut));
+    }
+
+    static double fastTanh(double x) {
+        if (x >= 3) {
+            return 1;
+        }
+        if (x <= -3) {
+            return -1;
+        }
+        double x2 = x * x;
+        return x * (27 + x2) / (27 + 9 * x2);
+    }
+
+}
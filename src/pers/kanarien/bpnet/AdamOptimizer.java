@@ -0,0 +1,70 @@
+package pers.kanarien.bpnet;
+
+/**
+ * Adam：分别对梯度和梯度的平方做指数滑动平均m、v，参数减去rate * m' / (sqrt(v') + epsilon)，
+ * 其中m'、v'为修正了初始偏差的m、v，两项偏差修正在每步开始时合并为一个系数
+ * @author Kanarien
+ * @version 1.0
+ */
+public class AdamOptimizer extends Optimizer {
+
+    private final double rate;    // 学习速率
+    private final double beta1;   // 梯度滑动平均的衰减率
+    private final double beta2;   // 梯度平方滑动平均的衰减率
+    private final double epsilon; // 防止除以0
+    private long steps;           // 已进行的步数
+    private double stepRate;      // 本步合并了偏差修正的学习速率
+    private double power1 = 1;    // beta1的steps次方
+    private double power2 = 1;    // beta2的steps次方
+
+    /**
+     * 使用常用的参数：rate = 0.001，beta1 = 0.9，beta2 = 0.999，epsilon = 1e-8
+     */
+    public AdamOptimizer() {
+        this(0.001);
+    }
+
+    /**
+     * @param rate 学习速率
+     */
+    public AdamOptimizer(double rate) {
+        this(rate, 0.9, 0.999, 1e-8);
+    }
+
+    public AdamOptimizer(double rate, double beta1, double beta2, double epsilon) {
+        this.rate = rate;
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int getStateNum() {
+        return 2;
+    }
+
+    @Override
+    public void step() {
+        steps++;
+        power1 *= beta1;
+        power2 *= beta2;
+        stepRate = rate * Math.sqrt(1 - power2) / (1 - power1);
+    }
+
+    @Override
+    public void update(double[] param, double[] grad, double[][] state) {
+        double[] m = state[0];
+        double[] v = state[1];
+        for (int x = 0; x < param.length; x++) {
+            double g = grad[x];
+            m[x] = beta1 * m[x] + (1 - beta1) * g;
+            v[x] = beta2 * v[x] + (1 - beta2) * g * g;
+            param[x] -= stepRate * m[x] / (Math.sqrt(v[x]) + epsilon);
+        }
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+}
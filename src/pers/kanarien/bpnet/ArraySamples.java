@@ -0,0 +1,54 @@
+package pers.kanarien.bpnet;
+
+/**
+ * 内存中的样本集，输入和理想输出各存放在一个按行连续存储的一维数组中，每个样本不再是单独的对象
+ * @author Kanarien
+ * @version 1.0
+ */
+public class ArraySamples implements SampleSource {
+
+    private final int inputNum;     // 输入维数
+    private final int outputNum;    // 输出维数
+    private final int size;         // 样本数量
+    private final double[] inputs;  // 输入，size行inputNum列
+    private final double[] outputs; // 理想输出，size行outputNum列
+
+    /**
+     * @param inputNum 输入维数
+     * @param outputNum 输出维数
+     * @param inputs 输入，按行连续存储，不复制
+     * @param outputs 理想输出，按行连续存储，不复制
+     */
+    public ArraySamples(int inputNum, int outputNum, double[] inputs, double[] outputs) {
+        if (inputs.length % inputNum != 0 || inputs.length / inputNum * outputNum != outputs.length) {
+            throw new IllegalArgumentException("输入和输出的样本数量不一致");
+        }
+        this.inputNum = inputNum;
+        this.outputNum = outputNum;
+        this.size = inputs.length / inputNum;
+        this.inputs = inputs;
+        this.outputs = outputs;
+    }
+
+    @Override
+    public int getInputNum() {
+        return inputNum;
+    }
+
+    @Override
+    public int getOutputNum() {
+        return outputNum;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void read(int index, double[] inputs, int inOffset, double[] outputs, int outOffset) {
+        System.arraycopy(this.inputs, index * inputNum, inputs, inOffset, inputNum);
+        System.arraycopy(this.outputs, index * outputNum, outputs, outOffset, outputNum);
+    }
+
+}
@@ -0,0 +1,142 @@
+package pers.kanarien.bpnet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 由训练好的BP网络导出的只读模型，只用于计算输出
+ * 1. 权值在导出时复制，之后不可修改，与原网络的后续训练无关
+ * 2. 计算时不使用共享的可变状态，隐层缓冲区每个线程一份，结果写入调用方提供的数组，
+ *    首次调用之后不再申请内存，可被多个线程同时调用而不需要加锁
+ * 3. 批量计算时每次取TILE行，输入层到隐层的每行权值读取一次即用于TILE行，最内层循环沿连续内存进行
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class BPModel {
+
+    private static final int TILE = 8; // 批量计算时同时计算的行数
+
+    private final int inputLayerNum;  // 输入层神经元数目
+    private final int hiddenLayerNum; // 隐层神经元数目
+    private final int outputLayerNum; // 输出层神经元数目
+    private final double[] inWeight;  // 输入层到隐层的权值，inWeight[i * hiddenLayerNum + j]
+    private final double[] outWeight; // 隐层到输出层的权值，outWeight[k * hiddenLayerNum + j]
+    private final ThreadLocal<double[]> hidden; // 每个线程的隐层缓冲区，TILE行hiddenLayerNum列
+
+    /**
+     * @param inWeight 输入层到隐层的权值
+     * @param outWeight 隐层到输出层的权值
+     * @param copy 是否复制权值，权值数组不再被其他对象使用时可以不复制
+     */
+    BPModel(int inputLayerNum, final int hiddenLayerNum, int outputLayerNum, double[] inWeight, double[] outWeight,
+            boolean copy) {
+        this.inputLayerNum = inputLayerNum;
+        this.hiddenLayerNum = hiddenLayerNum;
+        this.outputLayerNum = outputLayerNum;
+        this.inWeight = copy ? inWeight.clone() : inWeight;
+        this.outWeight = copy ? outWeight.clone() : outWeight;
+        this.hidden = new ThreadLocal<double[]>() {
+            @Override
+            protected double[] initialValue() {
+                return new double[TILE * hiddenLayerNum];
+            }
+        };
+    }
+
+    /**
+     * 由BPNet的快照文件加载推理模型：映射文件后两个权值数组各用一次批量复制取出，不做任何解析，
+     * 动量等训练状态不读取
+     * @param file BPNet.setCheckpoint或者BPNetSnapshot.write写出的快照文件
+     * @return 推理模型
+     * @throws IOException 文件不存在或者格式不对
+     */
+    public static BPModel load(File file) throws IOException {
+        return BPNetSnapshot.readModel(file);
+    }
+
+    /**
+     * 计算一个输入的输出
+     * @param input 输入，长度至少为inputLayerNum
+     * @param output 输出，长度至少为outputLayerNum，原有内容被覆盖
+     */
+    public void calculate(double[] input, double[] output) {
+        calculate(input, 0, output, 0, 1, hidden.get());
+    }
+
+    /**
+     * 批量计算，输入和输出都按行连续存储
+     * @param inputs 输入，rows行inputLayerNum列
+     * @param outputs 输出，rows行outputLayerNum列
+     * @param rows 行数
+     */
+    public void calculateBatch(double[] inputs, double[] outputs, int rows) {
+        calculateBatch(inputs, outputs, 0, rows);
+    }
+
+    /**
+     * 只计算[from, to)行，多个线程可以各自计算同一批中的不同行
+     * @param inputs 输入，按行连续存储，每行inputLayerNum列
+     * @param outputs 输出，按行连续存储，每行outputLayerNum列
+     * @param from 起始行
+     * @param to 结束行（不含）
+     */
+    public void calculateBatch(double[] inputs, double[] outputs, int from, int to) {
+        if (from < 0 || to < from || (long) to * inputLayerNum > inputs.length
+                || (long) to * outputLayerNum > outputs.length) {
+            throw new IndexOutOfBoundsException("行范围[" + from + ", " + to + ")超出输入或输出数组");
+        }
+        double[] buffer = hidden.get();
+        for (int r = from; r < to; r += TILE) {
+            calculate(inputs, r * inputLayerNum, outputs, r * outputLayerNum, Math.min(TILE, to - r), buffer);
+        }
+    }
+
+    /**
+     * 计算连续的rows行，rows不超过TILE
+     * 累加的顺序与BPNet.calculate相同，结果与导出时的网络完全一致
+     */
+    private void calculate(double[] input, int inOffset, double[] output, int outOffset, int rows, double[] buffer) {
+        int in = inputLayerNum;
+        int hid = hiddenLayerNum;
+        int out = outputLayerNum;
+        Arrays.fill(buffer, 0, rows * hid, 0);
+        for (int i = 0; i < in; i++) {
+            int wRow = i * hid;
+            for (int t = 0; t < rows; t++) {
+                double x = input[inOffset + t * in + i];
+                int hRow = t * hid;
+                for (int j = 0; j < hid; j++) {
+                    buffer[hRow + j] += x * inWeight[wRow + j];
+                }
+            }
+        }
+        for (int x = 0; x < rows * hid; x++) {
+            buffer[x] = 1 / (1 + Math.exp(-buffer[x]));
+        }
+        for (int t = 0; t < rows; t++) {
+            int hRow = t * hid;
+            for (int k = 0; k < out; k++) {
+                double sum = 0;
+                int wRow = k * hid;
+                for (int j = 0; j < hid; j++) {
+                    sum += buffer[hRow + j] * outWeight[wRow + j];
+                }
+                output[outOffset + t * out + k] = sum;
+            }
+        }
+    }
+
+    public int getInputLayerNum() {
+        return inputLayerNum;
+    }
+
+    public int getHiddenLayerNum() {
+        return hiddenLayerNum;
+    }
+
+    public int getOutputLayerNum() {
+        return outputLayerNum;
+    }
+
+}
@@ -1,10 +1,20 @@
 package pers.kanarien.bpnet;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import pers.kanarien.checkpoint.CheckpointWriter;
+import pers.kanarien.metrics.ConsoleListener;
+import pers.kanarien.metrics.EpochMetrics;
+import pers.kanarien.metrics.MetricsListener;
 
 /**
  * BP网络
@@ -13,43 +23,74 @@ import java.util.Set;
  *    通过修正权值来建立模型。隐层可以是多层，这里的实现只使用单层
  * 2. 反向传播时采用梯度下降法修正权值，同时采用动量法辅助修正，一定程度上防止陷入局部最优解
  * 3. 激活函数使用Sigmod函数，误差函数使用平方和误差函数
+ * 4. 权值按行连续存储在一维数组中；除逐个样本修正权值外，还支持小批量训练，一批样本只修正一次权值
+ * 5. 小批量训练可以在线程池中数据并行，种子和工作者数量相同时结果可重复
  * @author Kanarien 
  * @version 1.0
  * @date 2019年5月2日 下午12:07:20
  */
 public class BPNet {
-    private static final double RHO = 0.1;            // 学习速率
+    private static final double RHO = 0.1;            // 默认的学习速率
     private static final double ALFA = 0.67;          // 动量因子
+    private static final int BLOCK = 256;             // 小批量训练时隐层按列分块的宽度，使权值块留在缓存中
+    private static final int TILE = 4;                // 小批量训练时一次读写累加行所合并的权值行数或样本数
+    private static final double DEMO_RHO = 0.2;       // train()的学习速率
+    private static final double DEMO_ERROR = 1e-7;    // train()的误差指标，即一轮样本的平均误差
+    private static final long DEMO_EPOCHS = 20000;    // train()的最大轮数
+    private double rho = RHO;                         // 学习速率
     private double error;                             // 误差指标 
     
     private int inputLayerNum;    // 输入层神经元数目，对应输入维数
     private int hiddenLayerNum;   // 隐层神经元数目，自定义
     private int outputLayerNum;   // 输出层神经元数目，对应输出维数
     
-    private double[][] inWeight;       // 输入层到隐层的权值
-    private double[][] outWeight;      // 隐层到输出层的权值
+    private double[] inWeight;         // 输入层到隐层的权值，inWeight[i * hiddenLayerNum + j]
+    private double[] outWeight;        // 隐层到输出层的权值，按输出转置存储，outWeight[k * hiddenLayerNum + j]
     
     // 以下属性均为了减少重复申请内存而共用的变量
     // 实际上可改为局部变量
-    private double[][] dInWeight;      // 输入层到隐层权值的修正值
-    private double[][] dOutWeight;     // 隐层到输出层权值的修正值
-    private double[][] preInWeight;    // 上次输入层到隐层权值，用于动量计算
-    private double[][] prePreInWeight; // 上上次输入层到隐层权值，用于动量计算
-    private double[][] preOutWeight;   // 上次隐层到输出层权值，用于动量计算 
-    private double[][] prePreOutWeight;// 上上次隐层到输出层权值，用于动量计算
+    private double[] dInWeight;        // 输入层到隐层权值的修正值
+    private double[] dOutWeight;       // 隐层到输出层权值的修正值
+    private double[] preInWeight;      // 上次输入层到隐层权值，用于动量计算
+    private double[] prePreInWeight;   // 上上次输入层到隐层权值，用于动量计算
+    private double[] preOutWeight;     // 上次隐层到输出层权值，用于动量计算 
+    private double[] prePreOutWeight;  // 上上次隐层到输出层权值，用于动量计算
     
     private double[] xi;           // 输入层数据
     private double[] xj;           // 隐层权值和
     private double[] xjActive;     // 隐层权值和激活输出
     private double[] xk;           // 输出层权值和
     private double[] ek;           // 计算输出与教师信号差值
+    private double[] dj;           // 隐层的误差项
     private double curError = 0.1; // 当前误差，初始为非零值
     
+    // 小批量训练，每个工作者持有自己的缓冲区，设置了线程池时并行计算
+    private ExecutorService executor;           // 并行训练所用的线程池，为null时在调用线程中运行
+    private Worker[] workers;                   // 小批量训练的工作者
+    private List<Callable<Void>> gradientTasks; // 每个工作者一个计算梯度的任务
+    private List<Callable<Void>> reduceTasks;   // 每个工作者一个汇总梯度并修正权值的任务
+    private final Random random;                // 初始化权值和生成训练数据所用的随机数
+    
+    private MetricsListener listener = new ConsoleListener(1000); // 指标和日志的监听器，默认每1000轮输出一次误差
+    private final EpochMetrics metrics = new EpochMetrics();     // 重复使用的指标对象
+    private CheckpointWriter checkpointWriter;                   // 后台保存快照，为null时不保存
+    private long checkpointInterval;                             // 每隔多少轮保存一次快照
+    private final BPNetSnapshot checkpoint = new BPNetSnapshot(); // 重复使用的快照，写入期间不会修改
+    
     public BPNet(int inputLayerNum, int hiddenLayerNum, int outputLayerNum) {
+        this(inputLayerNum, hiddenLayerNum, outputLayerNum, System.nanoTime());
+    }
+    
+    /**
+     * @param seed 随机种子，种子相同时初始权值和训练结果相同
+     */
+    public BPNet(int inputLayerNum, int hiddenLayerNum, int outputLayerNum, long seed) {
         this.inputLayerNum = inputLayerNum;
         this.hiddenLayerNum = hiddenLayerNum;
         this.outputLayerNum = outputLayerNum;
+        this.random = new Random(seed);
         init();
+        setExecutor(null, 1);
     }
     
     /**
@@ -60,33 +101,29 @@ public class BPNet {
      */
     private void init() {
         // 初始化数组
-        inWeight = new double[inputLayerNum][hiddenLayerNum];
-        outWeight = new double[hiddenLayerNum][outputLayerNum];
-        dInWeight = new double[inputLayerNum][hiddenLayerNum];
-        dOutWeight = new double[hiddenLayerNum][outputLayerNum];
-        preInWeight = new double[inputLayerNum][hiddenLayerNum];
-        prePreInWeight = new double[inputLayerNum][hiddenLayerNum];
-        preOutWeight = new double[hiddenLayerNum][outputLayerNum];
-        prePreOutWeight = new double[hiddenLayerNum][outputLayerNum];
+        inWeight = new double[inputLayerNum * hiddenLayerNum];
+        outWeight = new double[hiddenLayerNum * outputLayerNum];
+        dInWeight = new double[inputLayerNum * hiddenLayerNum];
+        dOutWeight = new double[hiddenLayerNum * outputLayerNum];
         xi = new double[inputLayerNum];
         xj = new double[hiddenLayerNum];
         xjActive = new double[hiddenLayerNum];
         xk = new double[outputLayerNum];
         ek = new double[outputLayerNum];
+        dj = new double[hiddenLayerNum];
         
         // 初始化权重，赋值为-0.5到0.5的一个随机数
-        for (int i = 0; i < inputLayerNum; i++) {
-            for (int j = 0; j < hiddenLayerNum; j++) {
-                inWeight[i][j] = 0.5 - Math.random();
-                xj[j] = 0;
-            }
+        for (int x = 0; x < inWeight.length; x++) {
+            inWeight[x] = 0.5 - random.nextDouble();
         }
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            for (int k = 0; k < outputLayerNum; k++) {
-                outWeight[j][k] = 0.5 - Math.random();
-                xk[k] = 0;
-            }
+        for (int x = 0; x < outWeight.length; x++) {
+            outWeight[x] = 0.5 - random.nextDouble();
         }
+        // 历史权值都取初始权值，第一次修正没有动量项，第二次的动量项即为ALFA * 第一次的修正量
+        preInWeight = inWeight.clone();
+        prePreInWeight = inWeight.clone();
+        preOutWeight = outWeight.clone();
+        prePreOutWeight = outWeight.clone();
         
         // 初始化误差指标
         error = Math.pow(10, -15);
@@ -103,24 +140,9 @@ public class BPNet {
         for (int i = 0; i < inputLayerNum; i++) {
             xi[i] = input[i];
         }
-        // 输入层到隐层权值和计算
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            xj[j] = 0;
-            for (int i = 0; i < inputLayerNum; i++) {
-                xj[j] = xj[j] + xi[i] * inWeight[i][j];
-            }
-        }
-        // 隐层使用S函数进行激活
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            xjActive[j] = 1 / (1 + Math.exp(-xj[j]));
-        }
-        // 隐层到输出层权值和计算
-        for (int k = 0; k < outputLayerNum; k++) {
-            xk[k] = 0;
-            for (int j = 0; j < hiddenLayerNum; j++) {
-                xk[k] = xk[k] + xjActive[j] * outWeight[j][k];
-            }
-        }
+        // 输入层到隐层权值和计算、隐层激活、隐层到输出层权值和计算
+        hidden();
+        output();
         // 计算输出与教师信号的偏差
         for (int k = 0; k < outputLayerNum; k++) {
             ek[k] = output[k] - xk[k];
@@ -132,37 +154,441 @@ public class BPNet {
         }
     }
     
+    /**
+     * 输入层到隐层权值和计算，并用S函数激活
+     * 按输入逐行累加，最内层循环沿连续内存进行
+     */
+    private void hidden() {
+        Arrays.fill(xj, 0);
+        for (int i = 0; i < inputLayerNum; i++) {
+            double x = xi[i];
+            int row = i * hiddenLayerNum;
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                xj[j] += x * inWeight[row + j];
+            }
+        }
+        for (int j = 0; j < hiddenLayerNum; j++) {
+            xjActive[j] = 1 / (1 + Math.exp(-xj[j]));
+        }
+    }
+    
+    /**
+     * 隐层到输出层权值和计算
+     */
+    private void output() {
+        for (int k = 0; k < outputLayerNum; k++) {
+            double sum = 0;
+            int row = k * hiddenLayerNum;
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                sum += xjActive[j] * outWeight[row + j];
+            }
+            xk[k] = sum;
+        }
+    }
+    
     /**
      * BP网络反向传播，修正权重
+     * 隐层误差项δj = xjActive[j] * (1 - xjActive[j]) * Σ ek[k] * outWeight[k * hiddenLayerNum + j]只计算一次，
+     * 输入层到隐层的修正值为rho * δj * xi[i]，与隐层到输出层一样每个样本重新计算，不再累加之前样本的修正值
      */
     public void backProcess() {
+        // 隐层误差项，使用修正前的隐层到输出层权值
+        Arrays.fill(dj, 0);
+        for (int k = 0; k < outputLayerNum; k++) {
+            double e = ek[k];
+            int row = k * hiddenLayerNum;
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                dj[j] += e * outWeight[row + j];
+            }
+        }
+        for (int j = 0; j < hiddenLayerNum; j++) {
+            dj[j] *= xjActive[j] * (1 - xjActive[j]);
+        }
         // 输入层到隐层的权值修正
         for (int i = 0; i < inputLayerNum; i++) {
+            double x = rho * xi[i];
+            int row = i * hiddenLayerNum;
             for (int j = 0; j < hiddenLayerNum; j++) {
-                for (int k = 0; k < outputLayerNum; k++) {
-                    dInWeight[i][j] = dInWeight[i][j] + RHO * (ek[k] * xjActive[j] * outWeight[j][k] 
-                            * (1 - xjActive[j]) * xi[i]);  // 梯度下降
-                }
-                inWeight[i][j] = inWeight[i][j] + dInWeight[i][j] + ALFA 
-                        * (preInWeight[i][j] - prePreInWeight[i][j]); // 动量调整
-                prePreInWeight[i][j] = preInWeight[i][j];
-                preInWeight[i][j] = inWeight[i][j];
+                dInWeight[row + j] = x * dj[j]; // 梯度下降
             }
         }
+        momentum(inWeight, dInWeight, preInWeight, prePreInWeight);
         // 隐层到输出层的权值修正（梯度下降和动量调整）
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            for (int k = 0; k < outputLayerNum; k++) {
-                dOutWeight[j][k] = RHO * ek[k] * xjActive[j]; // 梯度下降
-                outWeight[j][k] = outWeight[j][k] + dOutWeight[j][k] + ALFA 
-                        * (preOutWeight[j][k] - prePreOutWeight[j][k]); // 动量调整
-                prePreOutWeight[j][k] = preOutWeight[j][k];
-                preOutWeight[j][k] = outWeight[j][k];
+        for (int k = 0; k < outputLayerNum; k++) {
+            double e = rho * ek[k];
+            int row = k * hiddenLayerNum;
+            for (int j = 0; j < hiddenLayerNum; j++) {
+                dOutWeight[row + j] = e * xjActive[j]; // 梯度下降
+            }
+        }
+        momentum(outWeight, dOutWeight, preOutWeight, prePreOutWeight);
+    }
+    
+    /**
+     * 权值加上修正值和动量项ALFA * (上次权值 - 上上次权值)，并记录本次权值
+     */
+    private static void momentum(double[] weight, double[] delta, double[] pre, double[] prePre) {
+        momentum(weight, delta, pre, prePre, 0, weight.length);
+    }
+    
+    /**
+     * 只对下标在[from, to)内的权值做动量修正
+     */
+    private static void momentum(double[] weight, double[] delta, double[] pre, double[] prePre, int from, int to) {
+        for (int x = from; x < to; x++) {
+            weight[x] = weight[x] + delta[x] + ALFA * (pre[x] - prePre[x]); // 动量调整
+            prePre[x] = pre[x];
+            pre[x] = weight[x];
+        }
+    }
+    
+    /**
+     * 小批量训练：对一批样本做前向和反向处理，修正值取这批样本梯度的平均，只修正一次权值
+     * 前向和反向都按矩阵乘法计算：隐层 = S(输入 * inWeight)，输出 = 隐层 * outWeight，
+     * outWeight的修正值 = 隐层^T * 误差，inWeight的修正值 = 输入^T * 隐层误差项，
+     * 最内层循环都沿连续内存进行，便于JIT自动向量化；每次合并TILE行权值或者TILE个样本，
+     * 累加行只读写一次，而不是每行权值、每个样本各读写一次
+     * 设置了线程池时数据并行：
+     * 1. 一批样本按顺序切成workerNum段，每个工作者用自己的缓冲区计算一段样本的梯度之和
+     * 2. 权值按下标切成workerNum段，每段按工作者的顺序把梯度相加后修正这一段权值
+     * 加法的顺序只由工作者数量决定，随机种子和工作者数量相同时结果完全相同，与线程调度无关
+     * @param inputs 输入，batchSize行inputLayerNum列，按行连续存储
+     * @param outputs 理想输出（教师信号），batchSize行outputLayerNum列，按行连续存储
+     * @param batchSize 样本数
+     * @return 这批样本的平均误差
+     */
+    public double trainBatch(double[] inputs, double[] outputs, int batchSize) {
+        int workerNum = workers.length;
+        for (int w = 0; w < workerNum; w++) {
+            workers[w].assign(inputs, outputs, (int) ((long) batchSize * w / workerNum),
+                    (int) ((long) batchSize * (w + 1) / workerNum), rho / batchSize);
+        }
+        if (executor == null) {
+            for (int w = 0; w < workerNum; w++) {
+                workers[w].gradient();
+            }
+            for (int w = 0; w < workerNum; w++) {
+                workers[w].reduce();
+            }
+        } else {
+            invokeAll(gradientTasks);
+            invokeAll(reduceTasks);
+        }
+        double loss = 0;
+        for (int w = 0; w < workerNum; w++) {
+            loss += workers[w].loss;
+        }
+        curError = loss / batchSize;
+        return curError;
+    }
+    
+    private void invokeAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("训练被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("训练失败", e.getCause());
+        }
+    }
+    
+    /**
+     * 设置并行训练所用的线程池，只对trainBatch生效
+     * 线程池由调用方负责关闭
+     * @param executor 线程池，为null时在调用线程中运行
+     * @param workerNum 工作者数量，即每批样本切成的段数，一般取线程数；结果只与该值有关，与线程池大小无关
+     */
+    public void setExecutor(ExecutorService executor, int workerNum) {
+        if (workerNum < 1) {
+            throw new IllegalArgumentException("workerNum必须为正数: " + workerNum);
+        }
+        this.executor = executor;
+        workers = new Worker[workerNum];
+        gradientTasks = new ArrayList<Callable<Void>>(workerNum);
+        reduceTasks = new ArrayList<Callable<Void>>(workerNum);
+        for (int w = 0; w < workerNum; w++) {
+            final Worker worker = new Worker(w, workerNum);
+            workers[w] = worker;
+            gradientTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    worker.gradient();
+                    return null;
+                }
+            });
+            reduceTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    worker.reduce();
+                    return null;
+                }
+            });
+        }
+    }
+    
+    /**
+     * 小批量训练的工作者，持有自己的激活输出、误差和梯度缓冲区，计算时只读取权值
+     * 计算梯度和修正权值分两个阶段，两个阶段之间所有工作者都已完成，修正时各工作者只写自己负责的那段权值
+     */
+    private class Worker {
+        private final int index;        // 工作者序号
+        private final int inFrom;       // 负责修正的输入层到隐层权值下标范围[inFrom, inTo)
+        private final int inTo;
+        private final int outFrom;      // 负责修正的隐层到输出层权值下标范围[outFrom, outTo)
+        private final int outTo;
+        private final double[] gradIn;  // 这段样本输入层到隐层的梯度之和
+        private final double[] gradOut; // 这段样本隐层到输出层的梯度之和
+        private int capacity;           // 缓冲区能容纳的样本数
+        private double[] hidden;        // 隐层激活输出，capacity行hiddenLayerNum列
+        private double[] error;         // 输出与教师信号的差值，capacity行outputLayerNum列
+        private double[] delta;         // 隐层的误差项，capacity行hiddenLayerNum列
+        private double[] inputs;        // 本批的输入和教师信号
+        private double[] outputs;
+        private int from;               // 负责的样本范围[from, to)
+        private int to;
+        private double scale;           // 梯度之和乘以该值即为修正值
+        private double loss;            // 这段样本的误差之和
+        
+        Worker(int index, int workerNum) {
+            this.index = index;
+            int inLength = inputLayerNum * hiddenLayerNum;
+            int outLength = hiddenLayerNum * outputLayerNum;
+            inFrom = (int) ((long) inLength * index / workerNum);
+            inTo = (int) ((long) inLength * (index + 1) / workerNum);
+            outFrom = (int) ((long) outLength * index / workerNum);
+            outTo = (int) ((long) outLength * (index + 1) / workerNum);
+            gradIn = new double[inLength];
+            gradOut = new double[outLength];
+        }
+        
+        void assign(double[] inputs, double[] outputs, int from, int to, double scale) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.from = from;
+            this.to = to;
+            this.scale = scale;
+            // 批大小小于工作者数量时这段样本可能为空，缓冲区仍需申请，gradient中对空范围的填充不能是null
+            if (hidden == null || to - from > capacity) {
+                capacity = to - from;
+                hidden = new double[capacity * hiddenLayerNum];
+                error = new double[capacity * outputLayerNum];
+                delta = new double[capacity * hiddenLayerNum];
+            }
+        }
+        
+        /**
+         * 计算负责的这段样本的误差和梯度之和
+         */
+        void gradient() {
+            int in = inputLayerNum;
+            int hid = hiddenLayerNum;
+            int out = outputLayerNum;
+            int n = to - from;
+            // 前向：隐层激活输出，隐层按列分块，每块权值在整段样本中重复使用
+            // 每次合并TILE行权值，累加行只读写一次，而不是每行权值读写一次
+            Arrays.fill(hidden, 0, n * hid, 0);
+            for (int begin = 0; begin < hid; begin += BLOCK) {
+                int end = Math.min(begin + BLOCK, hid);
+                for (int s = 0; s < n; s++) {
+                    int hRow = s * hid;
+                    int xRow = (from + s) * in;
+                    int i = 0;
+                    for (; i + TILE <= in; i += TILE) {
+                        double x0 = inputs[xRow + i];
+                        double x1 = inputs[xRow + i + 1];
+                        double x2 = inputs[xRow + i + 2];
+                        double x3 = inputs[xRow + i + 3];
+                        int w0 = i * hid;
+                        int w1 = w0 + hid;
+                        int w2 = w1 + hid;
+                        int w3 = w2 + hid;
+                        for (int j = begin; j < end; j++) {
+                            hidden[hRow + j] += x0 * inWeight[w0 + j] + x1 * inWeight[w1 + j]
+                                    + x2 * inWeight[w2 + j] + x3 * inWeight[w3 + j];
+                        }
+                    }
+                    for (; i < in; i++) {
+                        double x = inputs[xRow + i];
+                        int wRow = i * hid;
+                        for (int j = begin; j < end; j++) {
+                            hidden[hRow + j] += x * inWeight[wRow + j];
+                        }
+                    }
+                }
+            }
+            for (int x = 0; x < n * hid; x++) {
+                hidden[x] = 1 / (1 + Math.exp(-hidden[x]));
+            }
+            // 前向：输出及其与教师信号的差值，TILE个样本共用一次读取的权值行，各自的和互不依赖
+            int s = 0;
+            for (; s + TILE <= n; s += TILE) {
+                int h0 = s * hid;
+                int h1 = h0 + hid;
+                int h2 = h1 + hid;
+                int h3 = h2 + hid;
+                for (int k = 0; k < out; k++) {
+                    double sum0 = 0;
+                    double sum1 = 0;
+                    double sum2 = 0;
+                    double sum3 = 0;
+                    int wRow = k * hid;
+                    for (int j = 0; j < hid; j++) {
+                        double w = outWeight[wRow + j];
+                        sum0 += hidden[h0 + j] * w;
+                        sum1 += hidden[h1 + j] * w;
+                        sum2 += hidden[h2 + j] * w;
+                        sum3 += hidden[h3 + j] * w;
+                    }
+                    error[s * out + k] = outputs[(from + s) * out + k] - sum0;
+                    error[(s + 1) * out + k] = outputs[(from + s + 1) * out + k] - sum1;
+                    error[(s + 2) * out + k] = outputs[(from + s + 2) * out + k] - sum2;
+                    error[(s + 3) * out + k] = outputs[(from + s + 3) * out + k] - sum3;
+                }
+            }
+            for (; s < n; s++) {
+                int hRow = s * hid;
+                for (int k = 0; k < out; k++) {
+                    double sum = 0;
+                    int wRow = k * hid;
+                    for (int j = 0; j < hid; j++) {
+                        sum += hidden[hRow + j] * outWeight[wRow + j];
+                    }
+                    error[s * out + k] = outputs[(from + s) * out + k] - sum;
+                }
+            }
+            loss = 0;
+            for (int x = 0; x < n * out; x++) {
+                loss += error[x] * error[x] / 2.0;
+            }
+            // 反向：隐层误差项，使用修正前的隐层到输出层权值，每次合并TILE个输出
+            for (s = 0; s < n; s++) {
+                int hRow = s * hid;
+                int eRow = s * out;
+                Arrays.fill(delta, hRow, hRow + hid, 0);
+                int k = 0;
+                for (; k + TILE <= out; k += TILE) {
+                    double e0 = error[eRow + k];
+                    double e1 = error[eRow + k + 1];
+                    double e2 = error[eRow + k + 2];
+                    double e3 = error[eRow + k + 3];
+                    int w0 = k * hid;
+                    int w1 = w0 + hid;
+                    int w2 = w1 + hid;
+                    int w3 = w2 + hid;
+                    for (int j = 0; j < hid; j++) {
+                        delta[hRow + j] += e0 * outWeight[w0 + j] + e1 * outWeight[w1 + j]
+                                + e2 * outWeight[w2 + j] + e3 * outWeight[w3 + j];
+                    }
+                }
+                for (; k < out; k++) {
+                    double e = error[eRow + k];
+                    int wRow = k * hid;
+                    for (int j = 0; j < hid; j++) {
+                        delta[hRow + j] += e * outWeight[wRow + j];
+                    }
+                }
+                for (int j = 0; j < hid; j++) {
+                    double a = hidden[hRow + j];
+                    delta[hRow + j] *= a * (1 - a);
+                }
+            }
+            // 反向：两个权值矩阵的梯度之和
+            // 每次合并TILE个样本，梯度行只读写一次，而不是每个样本读写一次
+            Arrays.fill(gradOut, 0);
+            Arrays.fill(gradIn, 0);
+            for (s = 0; s + TILE <= n; s += TILE) {
+                int h0 = s * hid;
+                int h1 = h0 + hid;
+                int h2 = h1 + hid;
+                int h3 = h2 + hid;
+                for (int k = 0; k < out; k++) {
+                    double e0 = error[s * out + k];
+                    double e1 = error[(s + 1) * out + k];
+                    double e2 = error[(s + 2) * out + k];
+                    double e3 = error[(s + 3) * out + k];
+                    int wRow = k * hid;
+                    for (int j = 0; j < hid; j++) {
+                        gradOut[wRow + j] += e0 * hidden[h0 + j] + e1 * hidden[h1 + j]
+                                + e2 * hidden[h2 + j] + e3 * hidden[h3 + j];
+                    }
+                }
+                int x0 = (from + s) * in;
+                int x1 = x0 + in;
+                int x2 = x1 + in;
+                int x3 = x2 + in;
+                for (int i = 0; i < in; i++) {
+                    double a0 = inputs[x0 + i];
+                    double a1 = inputs[x1 + i];
+                    double a2 = inputs[x2 + i];
+                    double a3 = inputs[x3 + i];
+                    int wRow = i * hid;
+                    for (int j = 0; j < hid; j++) {
+                        gradIn[wRow + j] += a0 * delta[h0 + j] + a1 * delta[h1 + j]
+                                + a2 * delta[h2 + j] + a3 * delta[h3 + j];
+                    }
+                }
+            }
+            for (; s < n; s++) {
+                int hRow = s * hid;
+                int eRow = s * out;
+                for (int k = 0; k < out; k++) {
+                    double e = error[eRow + k];
+                    int wRow = k * hid;
+                    for (int j = 0; j < hid; j++) {
+                        gradOut[wRow + j] += e * hidden[hRow + j];
+                    }
+                }
+                int xRow = (from + s) * in;
+                for (int i = 0; i < in; i++) {
+                    double x = inputs[xRow + i];
+                    int wRow = i * hid;
+                    for (int j = 0; j < hid; j++) {
+                        gradIn[wRow + j] += x * delta[hRow + j];
+                    }
+                }
+            }
+        }
+        
+        /**
+         * 按工作者的顺序把负责的那段下标的梯度相加，得到修正值后修正这段权值
+         * 与backProcess一致，两个权值矩阵的修正值都只取本批的梯度
+         */
+        void reduce() {
+            int workerNum = workers.length;
+            for (int x = inFrom; x < inTo; x++) {
+                double sum = 0;
+                for (int w = 0; w < workerNum; w++) {
+                    sum += workers[w].gradIn[x];
+                }
+                dInWeight[x] = scale * sum;
             }
+            for (int x = outFrom; x < outTo; x++) {
+                double sum = 0;
+                for (int w = 0; w < workerNum; w++) {
+                    sum += workers[w].gradOut[x];
+                }
+                dOutWeight[x] = scale * sum;
+            }
+            momentum(inWeight, dInWeight, preInWeight, prePreInWeight, inFrom, inTo);
+            momentum(outWeight, dOutWeight, preOutWeight, prePreOutWeight, outFrom, outTo);
         }
     }
     
+    /**
+     * 导出只读的推理模型，复制当前权值，之后继续训练不影响导出的模型
+     * 模型可被多个线程同时调用，计算时不申请内存
+     * @return 推理模型
+     */
+    public BPModel freeze() {
+        return new BPModel(inputLayerNum, hiddenLayerNum, outputLayerNum, inWeight, outWeight, true);
+    }
+    
     /**
      * 给出输入，通过BP模型计算出结果
+     * 使用网络内部共享的数组，不能被多个线程同时调用，并发推理请使用freeze导出的模型
      * @param input 输入
      * @return
      */
@@ -171,53 +597,203 @@ public class BPNet {
         for (int i = 0; i < inputLayerNum; i++) {
             xi[i] = input[i]; 
         }
-        // 输入层到隐层权值和计算
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            xj[j] = 0;
-            for (int i = 0; i < inputLayerNum; i++) {
-                xj[j] += xi[i] * inWeight[i][j];
+        // 输入层到隐层权值和计算、隐层激活、隐层到输出层权值和计算
+        hidden();
+        output();
+        return xk.clone();
+    }
+    
+    /**
+     * 训练时要注意数据规约到[-1,1]或者[0,1]，否则实际输出会出现NaN或者结果之间非常相近
+     * 模拟函数getOutput，输入1到100除以100、输出除以10000规约到[0,1]，每轮随机生成20个样本，逐个样本修正权值，
+     * 学习速率设为DEMO_RHO，直到一轮的平均误差不超过DEMO_ERROR或者训练满DEMO_EPOCHS轮，
+     * 训练后在1到100上还原的平均绝对误差约为45，与累加修正值的旧实现相当
+     */
+    public void train() {
+        setLearningRate(DEMO_RHO);
+        train(new GeneratedSamples(1, 1, 20, random.nextLong(), new GeneratedSamples.Generator() {
+            @Override
+            public void generate(Random random, double[] inputs, int inOffset, double[] outputs, int outOffset) {
+                double input = random.nextInt(100) + 1;
+                outputs[outOffset] = getOutput(input) / 10000.0;
+                inputs[inOffset] = input / 100.0;
             }
+        }), 1, DEMO_EPOCHS, false, DEMO_ERROR);
+    }
+    
+    /**
+     * 从样本来源按打乱顺序的小批量训练，样本由后台线程预先读取
+     * 每轮结束时检查本轮所有样本的平均误差，不超过误差指标或者达到最大轮数即停止
+     * @param source 样本来源，输入和输出维数需与网络一致
+     * @param batchSize 每批的样本数，为1时与逐个样本调用forwardProcess和backProcess相同
+     * @param maxEpoch 最大轮数
+     */
+    public void train(SampleSource source, int batchSize, long maxEpoch) {
+        train(source, batchSize, maxEpoch, true);
+    }
+    
+    /**
+     * 从样本来源按打乱顺序的小批量训练
+     * @param source 样本来源，输入和输出维数需与网络一致
+     * @param batchSize 每批的样本数
+     * @param maxEpoch 最大轮数
+     * @param prefetch 是否由后台线程预先读取；样本读取很快且每批计算量很小时，不预读反而更快
+     */
+    public void train(SampleSource source, int batchSize, long maxEpoch, boolean prefetch) {
+        train(source, batchSize, maxEpoch, prefetch, error);
+    }
+    
+    /**
+     * 训练直到一轮的平均误差不超过targetError或者达到最大轮数
+     */
+    private void train(SampleSource source, int batchSize, long maxEpoch, boolean prefetch, double targetError) {
+        if (source.getInputNum() != inputLayerNum || source.getOutputNum() != outputLayerNum) {
+            throw new IllegalArgumentException("样本的维数与网络不一致");
         }
-        // 隐层使用S函数进行激活
-        for (int j = 0; j < hiddenLayerNum; j++) {
-            xjActive[j] = 1 / (1 + Math.exp(-xj[j]));
-        }
-        // 隐层到输出层权值和计算
-        double[] result = new double[outputLayerNum];
-        for (int k = 0; k < outputLayerNum; k++) {
-            xk[k] = 0;
-            for (int j = 0; j < hiddenLayerNum; j++) {
-                xk[k] += xjActive[j] * outWeight[j][k];
-                result[k] = xk[k];
+        listener.log("开始训练...");
+        // 批较小时每批的计算很快，多预读几批以减少两个线程之间的切换
+        int depth = prefetch ? Math.max(2, Math.min(64, 4096 / batchSize)) : 0;
+        BatchLoader loader = new BatchLoader(source, batchSize, depth, true, random.nextLong());
+        try {
+            long beginNanos = System.nanoTime();
+            long epochNanos = beginNanos;
+            long epoch = 0;
+            double epochLoss = 0; // 本轮各样本的误差之和
+            while (epoch < maxEpoch) {
+                BatchLoader.Batch batch = loader.next();
+                epochLoss += trainBatch(batch.getInputs(), batch.getOutputs(), batch.getSize()) * batch.getSize();
+                boolean endOfEpoch = batch.isEndOfEpoch();
+                loader.release(batch);
+                if (!endOfEpoch) {
+                    continue;
+                }
+                // 停止条件和输出的误差都是本轮所有样本的平均误差，单个样本的误差偶然很小时不会停止
+                double meanError = epochLoss / source.size();
+                epochLoss = 0;
+                epoch++;
+                if (listener.acceptsMetrics()) {
+                    long now = System.nanoTime();
+                    metrics.set(epoch, source.size(), meanError, now - epochNanos, epoch * 1e9 / (now - beginNanos));
+                    listener.onEpoch(metrics);
+                    epochNanos = now;
+                }
+                // 上一个快照还没写完时跳过，下一轮再保存，训练从不等待磁盘
+                if (checkpointWriter != null && epoch % checkpointInterval == 0 && !checkpointWriter.isBusy()) {
+                    checkpointWriter.submit(snapshot(checkpoint));
+                }
+                if (meanError <= targetError) {
+                    break;
+                }
             }
+        } finally {
+            loader.close();
+        }
+        if (checkpointWriter != null) {
+            saveCheckpoint();
         }
-        return result;
+        listener.log("训练结束！");
     }
     
     /**
-     * 训练时要注意数据规约到[-1,1]或者[0,1]，否则实际输出会出现NaN或者结果之间非常相近
+     * 复制当前的训练状态：权值、动量计算所用的历史权值和当前误差，在两批之间调用
+     * @return 新的快照
      */
-    public void train() {
-        System.out.println("开始训练...");
-        Random random = new Random(System.currentTimeMillis());
-        while (curError > error) {
-            Map<double[], double[]> testSet = new HashMap<double[], double[]>();
-            for (int i = 1; i <= 20; i++) {
-                double[] input = new double[1];
-                double[] output = new double[1];
-                input[0] = (random.nextInt(100) + 1);
-                output[0] = getOutput(input[0]) / 10000.0;
-                input[0] = input[0] / 10000.0;
-                testSet.put(input, output);
-            }
-            System.out.println("curError:" + curError + " error:" + error);
-            Set<Entry<double[],double[]>> entrySet = testSet.entrySet();
-            for (Entry<double[], double[]> entry : entrySet) {
-                forwardProcess(entry.getKey(), entry.getValue());
-                backProcess();
+    public BPNetSnapshot snapshot() {
+        return snapshot(new BPNetSnapshot());
+    }
+    
+    /**
+     * 把当前的训练状态复制到snapshot中，规模不变时重复使用其数组
+     */
+    private BPNetSnapshot snapshot(BPNetSnapshot snapshot) {
+        snapshot.ensure(inputLayerNum, hiddenLayerNum, outputLayerNum);
+        snapshot.curError = curError;
+        System.arraycopy(inWeight, 0, snapshot.inWeight, 0, inWeight.length);
+        System.arraycopy(outWeight, 0, snapshot.outWeight, 0, outWeight.length);
+        System.arraycopy(preInWeight, 0, snapshot.preInWeight, 0, preInWeight.length);
+        System.arraycopy(prePreInWeight, 0, snapshot.prePreInWeight, 0, prePreInWeight.length);
+        System.arraycopy(preOutWeight, 0, snapshot.preOutWeight, 0, preOutWeight.length);
+        System.arraycopy(prePreOutWeight, 0, snapshot.prePreOutWeight, 0, prePreOutWeight.length);
+        return snapshot;
+    }
+    
+    /**
+     * 从快照恢复训练状态，之后对同样的样本序列继续训练的结果与不中断时相同
+     * 样本的打乱顺序不在快照中，用train继续训练时从新的一轮开始，顺序由网络的随机数决定
+     * @param snapshot 快照
+     * @throws IllegalArgumentException 网络规模与快照不一致
+     */
+    public void restore(BPNetSnapshot snapshot) {
+        if (snapshot.inputLayerNum != inputLayerNum || snapshot.hiddenLayerNum != hiddenLayerNum
+                || snapshot.outputLayerNum != outputLayerNum) {
+            throw new IllegalArgumentException("快照与网络的规模不一致");
+        }
+        curError = snapshot.curError;
+        System.arraycopy(snapshot.inWeight, 0, inWeight, 0, inWeight.length);
+        System.arraycopy(snapshot.outWeight, 0, outWeight, 0, outWeight.length);
+        System.arraycopy(snapshot.preInWeight, 0, preInWeight, 0, preInWeight.length);
+        System.arraycopy(snapshot.prePreInWeight, 0, prePreInWeight, 0, prePreInWeight.length);
+        System.arraycopy(snapshot.preOutWeight, 0, preOutWeight, 0, preOutWeight.length);
+        System.arraycopy(snapshot.prePreOutWeight, 0, prePreOutWeight, 0, prePreOutWeight.length);
+    }
+    
+    /**
+     * 设置定期保存快照：train中每隔interval轮在后台线程中写入file，训练结束时再保存一次
+     * 恢复时用BPNetSnapshot.read读取后调用restore，只做推理时用BPModel.load
+     * @param file 快照文件，为null时停止保存
+     * @param interval 保存间隔的轮数
+     * @throws IOException 停止之前的保存时发现写入失败
+     */
+    public void setCheckpoint(File file, long interval) throws IOException {
+        if (checkpointWriter != null) {
+            CheckpointWriter old = checkpointWriter;
+            checkpointWriter = null;
+            old.close();
+        }
+        if (file != null) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("保存间隔必须为正数: " + interval);
             }
+            checkpointInterval = interval;
+            checkpointWriter = new CheckpointWriter(file);
+        }
+    }
+    
+    /**
+     * 等待正在写入的快照写完后保存当前状态，并等待写完
+     */
+    private void saveCheckpoint() {
+        try {
+            checkpointWriter.await();
+            checkpointWriter.submit(snapshot(checkpoint));
+            checkpointWriter.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (checkpointWriter.getFailure() != null) {
+            listener.log("保存快照失败: " + checkpointWriter.getFailure());
+        }
+    }
+    
+    /**
+     * 设置指标和日志的监听器，默认为每1000轮输出一次误差的ConsoleListener
+     * 设为MetricsListener.NONE时不输出任何内容
+     * @param listener 监听器
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * 设置学习速率，默认为0.1，对逐个样本和小批量训练都生效
+     * 学习速率不在快照中，恢复后继续训练时需设为相同的值
+     * @param rho 学习速率
+     */
+    public void setLearningRate(double rho) {
+        if (!(rho > 0)) {
+            throw new IllegalArgumentException("学习速率必须为正数: " + rho);
         }
-        System.out.println("训练结束！");
+        this.rho = rho;
     }
     
     public static void main(String[] args) {
@@ -234,9 +810,9 @@ public class BPNet {
             double[] output = new double[1];
             input[0] = (random.nextInt(100) + 1);
             output[0] = getOutput(input[0]);
-            input[0] = input[0] / 10000.0;
+            input[0] = input[0] / 100.0;
             double[] result = bpNet.calculate(input);
-            System.out.println("输入：" + (input[0] * 10000) + " 理想输出：" + (output[0]) 
+            System.out.println("输入：" + (input[0] * 100) + " 理想输出：" + (output[0]) 
                     + " 实际输出：" + (result[0] * 10000));
         }
     }
@@ -262,4 +838,4 @@ public class BPNet {
     
     
     
-}
\ No newline at end of file
+}
\ No newline at end of file
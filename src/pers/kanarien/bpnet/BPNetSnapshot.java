@@ -0,0 +1,147 @@
+package pers.kanarien.bpnet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import pers.kanarien.checkpoint.Snapshot;
+import pers.kanarien.checkpoint.SnapshotFile;
+
+/**
+ * BP网络的训练状态快照：权值以及动量计算所用的历史权值
+ * 输入层到隐层的修正值每次训练都会整体重新计算，不属于训练状态，不写入快照
+ * 文件格式（小端序）：4字节魔数"BPNS"、4字节版本号，之后4个4字节整数：输入层、隐层、输出层神经元数目和保留的0，
+ * 8字节当前误差，之后依次为inWeight、outWeight、preInWeight、prePreInWeight、
+ * preOutWeight、prePreOutWeight，每个数8字节，存储顺序与BPNet中的一维数组相同
+ * 两个权值数组在最前面，只用于推理时（BPModel.load）只读取这两段
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class BPNetSnapshot implements Snapshot {
+
+    private static final int MAGIC = 0x534E5042; // "BPNS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24; // 版本号之后的定长头字节数
+
+    int inputLayerNum;
+    int hiddenLayerNum;
+    int outputLayerNum;
+    double curError;
+    double[] inWeight;
+    double[] outWeight;
+    double[] preInWeight;
+    double[] prePreInWeight;
+    double[] preOutWeight;
+    double[] prePreOutWeight;
+
+    BPNetSnapshot() {
+    }
+
+    /**
+     * 按规模申请数组，规模不变时重复使用
+     */
+    void ensure(int in, int hidden, int out) {
+        if (inWeight == null || in != inputLayerNum || hidden != hiddenLayerNum || out != outputLayerNum) {
+            inputLayerNum = in;
+            hiddenLayerNum = hidden;
+            outputLayerNum = out;
+            inWeight = new double[in * hidden];
+            outWeight = new double[hidden * out];
+            preInWeight = new double[in * hidden];
+            prePreInWeight = new double[in * hidden];
+            preOutWeight = new double[hidden * out];
+            prePreOutWeight = new double[hidden * out];
+        }
+    }
+
+    @Override
+    public void writeTo(FileChannel channel) throws IOException {
+        SnapshotFile out = new SnapshotFile(channel);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.putInt(inputLayerNum).putInt(hiddenLayerNum).putInt(outputLayerNum).putInt(0);
+        out.putDouble(curError);
+        for (double[] array : new double[][] {inWeight, outWeight, preInWeight, prePreInWeight, preOutWeight,
+                prePreOutWeight}) {
+            out.putDoubles(array, array.length);
+        }
+        out.flush();
+    }
+
+    /**
+     * 写入快照文件
+     * @param file 快照文件
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        SnapshotFile.write(file, this);
+    }
+
+    /**
+     * 映射快照文件读取完整的训练状态
+     * @param file 快照文件
+     * @return 快照
+     * @throws IOException 文件不存在或者格式不对
+     */
+    public static BPNetSnapshot read(File file) throws IOException {
+        ByteBuffer in = header(file);
+        BPNetSnapshot snapshot = new BPNetSnapshot();
+        snapshot.ensure(in.getInt(), in.getInt(), in.getInt());
+        in.getInt();
+        snapshot.curError = in.getDouble();
+        for (double[] array : new double[][] {snapshot.inWeight, snapshot.outWeight, snapshot.preInWeight,
+                snapshot.prePreInWeight, snapshot.preOutWeight, snapshot.prePreOutWeight}) {
+            SnapshotFile.getDoubles(in, array, array.length);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 映射快照文件，只读取两个权值数组构造推理模型
+     */
+    static BPModel readModel(File file) throws IOException {
+        ByteBuffer in = header(file);
+        int inputLayerNum = in.getInt();
+        int hiddenLayerNum = in.getInt();
+        int outputLayerNum = in.getInt();
+        in.getInt();
+        in.getDouble();
+        double[] inWeight = new double[inputLayerNum * hiddenLayerNum];
+        double[] outWeight = new double[hiddenLayerNum * outputLayerNum];
+        SnapshotFile.getDoubles(in, inWeight, inWeight.length);
+        SnapshotFile.getDoubles(in, outWeight, outWeight.length);
+        return new BPModel(inputLayerNum, hiddenLayerNum, outputLayerNum, inWeight, outWeight, false);
+    }
+
+    private static ByteBuffer header(File file) throws IOException {
+        ByteBuffer in = SnapshotFile.map(file, MAGIC, VERSION);
+        if (in.remaining() < HEADER_SIZE) {
+            throw new IOException("快照文件不完整: " + file);
+        }
+        int position = in.position();
+        long inputs = in.getInt(position);
+        long hidden = in.getInt(position + 4);
+        long out = in.getInt(position + 8);
+        if (inputs < 1 || hidden < 1 || out < 1 || inputs * hidden > Integer.MAX_VALUE || hidden * out > Integer.MAX_VALUE) {
+            throw new IOException("快照文件头错误: " + file);
+        }
+        return in;
+    }
+
+    public int getInputLayerNum() {
+        return inputLayerNum;
+    }
+
+    public int getHiddenLayerNum() {
+        return hiddenLayerNum;
+    }
+
+    public int getOutputLayerNum() {
+        return outputLayerNum;
+    }
+
+    public double getCurError() {
+        return curError;
+    }
+
+}
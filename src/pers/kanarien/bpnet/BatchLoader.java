@@ -0,0 +1,209 @@
+package pers.kanarien.bpnet;
+
+import java.io.Closeable;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 按小批量读取样本，由后台线程预先读取，训练线程计算当前批时下一批已在准备
+ * 1. 每轮开始时打乱样本的顺序，之后按打乱后的顺序每batchSize个样本组成一批，每轮最后一批可能不满
+ * 2. 批的缓冲区固定为depth个，在两个队列之间循环使用，训练过程中不为样本申请内存
+ * 3. 一轮接一轮不停地读取，直到调用close
+ * 4. 读取很快而每批计算量又很小时（如即时生成的样本、批大小为1），线程之间交接的开销反而更大，
+ *    此时可以不预读，在调用next的线程中直接读取
+ * @author Kanarien
+ * @version 1.0
+ */
+public class BatchLoader implements Closeable {
+
+    /**
+     * 一批样本，输入和理想输出按行连续存储，用完后需通过release交还
+     */
+    public static class Batch {
+        private final double[] inputs;  // 输入，batchSize行inputNum列
+        private final double[] outputs; // 理想输出，batchSize行outputNum列
+        private int size;               // 本批的样本数
+        private long epoch;             // 本批所属的轮次，从0开始
+        private boolean endOfEpoch;     // 是否为本轮的最后一批
+
+        Batch(int batchSize, int inputNum, int outputNum) {
+            inputs = new double[batchSize * inputNum];
+            outputs = new double[batchSize * outputNum];
+        }
+
+        public double[] getInputs() {
+            return inputs;
+        }
+
+        public double[] getOutputs() {
+            return outputs;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public boolean isEndOfEpoch() {
+            return endOfEpoch;
+        }
+    }
+
+    private static final Batch FAILED = new Batch(0, 0, 0); // 读取失败时放入就绪队列的标记
+
+    private final SampleSource source;        // 样本来源
+    private final int batchSize;              // 每批的样本数
+    private final boolean shuffle;            // 每轮是否打乱样本顺序
+    private final Random random;              // 打乱顺序所用的随机数
+    private final int[] order;                // 本轮的样本顺序
+    private long epoch;                       // 正在读取的轮次
+    private int position;                     // 本轮中下一个要读取的位置
+    private final BlockingQueue<Batch> free;  // 空闲的缓冲区，不预读时为null
+    private final BlockingQueue<Batch> ready; // 已读取好的批，不预读时为null
+    private final Thread thread;              // 后台读取线程，不预读时为null
+    private final Batch current;              // 不预读时唯一的缓冲区
+    private volatile RuntimeException failure; // 读取时抛出的异常
+    private volatile boolean closed;
+
+    /**
+     * 预读时创建后立即开始在后台读取
+     * @param source 样本来源，预读时只在后台线程中读取
+     * @param batchSize 每批的样本数
+     * @param depth 缓冲区数量，即最多预先读取的批数，至少为2；为0时不预读
+     * @param shuffle 每轮是否打乱样本顺序
+     * @param seed 打乱顺序所用的随机种子
+     */
+    public BatchLoader(SampleSource source, int batchSize, int depth, boolean shuffle, long seed) {
+        if (source.size() <= 0 || batchSize <= 0 || depth == 1 || depth < 0) {
+            throw new IllegalArgumentException("样本数量、批大小必须为正数，缓冲区数量为0或者至少为2");
+        }
+        this.source = source;
+        this.batchSize = batchSize;
+        this.shuffle = shuffle;
+        this.random = new Random(seed);
+        this.order = new int[source.size()];
+        for (int s = 0; s < order.length; s++) {
+            order[s] = s;
+        }
+        if (depth == 0) {
+            free = null;
+            ready = null;
+            thread = null;
+            current = new Batch(batchSize, source.getInputNum(), source.getOutputNum());
+            return;
+        }
+        current = null;
+        free = new ArrayBlockingQueue<Batch>(depth);
+        ready = new ArrayBlockingQueue<Batch>(depth + 1);
+        for (int d = 0; d < depth; d++) {
+            free.add(new Batch(batchSize, source.getInputNum(), source.getOutputNum()));
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        }, "BatchLoader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 后台线程：不停地把样本读入空闲的缓冲区
+     */
+    private void load() {
+        try {
+            while (!closed) {
+                Batch batch = free.take();
+                fill(batch);
+                ready.put(batch);
+            }
+        } catch (InterruptedException e) {
+            // close时中断，直接退出
+        } catch (RuntimeException e) {
+            failure = e;
+            ready.offer(FAILED);
+        }
+    }
+
+    /**
+     * 按本轮的顺序读取下一批样本，每轮开始时打乱顺序
+     */
+    private void fill(Batch batch) {
+        if (position == 0 && shuffle) {
+            for (int s = order.length - 1; s > 0; s--) {
+                int t = random.nextInt(s + 1);
+                int swap = order[s];
+                order[s] = order[t];
+                order[t] = swap;
+            }
+        }
+        int inputNum = source.getInputNum();
+        int outputNum = source.getOutputNum();
+        int size = Math.min(batchSize, order.length - position);
+        for (int s = 0; s < size; s++) {
+            source.read(order[position + s], batch.inputs, s * inputNum, batch.outputs, s * outputNum);
+        }
+        batch.size = size;
+        batch.epoch = epoch;
+        position += size;
+        batch.endOfEpoch = position == order.length;
+        if (batch.endOfEpoch) {
+            position = 0;
+            epoch++;
+        }
+    }
+
+    /**
+     * 取出下一批，预读时还没有读取好则等待
+     * @return 下一批样本，用完后需调用release交还；不预读时总是同一个缓冲区，下次调用next时被覆盖
+     * @throws IllegalStateException 读取样本失败、已关闭或者等待时被中断
+     */
+    public Batch next() {
+        if (closed) {
+            throw new IllegalStateException("BatchLoader已关闭");
+        }
+        if (thread == null) {
+            fill(current);
+            return current;
+        }
+        Batch batch;
+        try {
+            batch = ready.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待样本时被中断", e);
+        }
+        if (batch == FAILED) {
+            ready.offer(FAILED);
+            throw new IllegalStateException("读取样本失败", failure);
+        }
+        return batch;
+    }
+
+    /**
+     * 交还用完的批，缓冲区将用于读取之后的样本
+     * @param batch next返回的批
+     */
+    public void release(Batch batch) {
+        if (free != null) {
+            free.offer(batch);
+        }
+    }
+
+    /**
+     * 停止后台读取
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package pers.kanarien.bpnet;
+
+import java.util.Random;
+
+/**
+ * 由函数即时生成的样本，不占用存储，每次读取都生成一个新的样本，与序号无关
+ * @author Kanarien
+ * @version 1.0
+ */
+public class GeneratedSamples implements SampleSource {
+
+    /**
+     * 样本生成函数
+     */
+    public interface Generator {
+
+        /**
+         * 生成一个样本
+         * @param random 随机数
+         * @param inputs 输入写入inputs[inOffset]开始的元素
+         * @param inOffset 输入的起始下标
+         * @param outputs 理想输出写入outputs[outOffset]开始的元素
+         * @param outOffset 理想输出的起始下标
+         */
+        void generate(Random random, double[] inputs, int inOffset, double[] outputs, int outOffset);
+    }
+
+    private final int inputNum;          // 输入维数
+    private final int outputNum;         // 输出维数
+    private final int size;              // 每轮的样本数量
+    private final Generator generator;   // 样本生成函数
+    private final Random random;         // 生成样本所用的随机数
+
+    /**
+     * @param inputNum 输入维数
+     * @param outputNum 输出维数
+     * @param size 每轮的样本数量
+     * @param seed 随机种子
+     * @param generator 样本生成函数
+     */
+    public GeneratedSamples(int inputNum, int outputNum, int size, long seed, Generator generator) {
+        this.inputNum = inputNum;
+        this.outputNum = outputNum;
+        this.size = size;
+        this.generator = generator;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int getInputNum() {
+        return inputNum;
+    }
+
+    @Override
+    public int getOutputNum() {
+        return outputNum;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void read(int index, double[] inputs, int inOffset, double[] outputs, int outOffset) {
+        generator.generate(random, inputs, inOffset, outputs, outOffset);
+    }
+
+}
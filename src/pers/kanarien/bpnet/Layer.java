@@ -0,0 +1,125 @@
+package pers.kanarien.bpnet;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 多层网络中的一层：全连接加偏置，再经过激活函数
+ * 前向和反向都按样本逐行处理，每行的计算合并在一次遍历中完成：
+ * 1. 前向：输出行先置为偏置，逐个输入累加一行权值，随即就地激活，这一行还在缓存中
+ * 2. 反向：误差项乘以激活函数的导数后，读取一行权值时同时累加权值梯度并计算传给上一层的误差
+ * 权值按输入逐行存储，weight[i * outputNum + j]，最内层循环都沿连续内存进行
+ * @author Kanarien
+ * @version 1.0
+ */
+final class Layer {
+
+    final int inputNum;              // 输入神经元数目
+    final int outputNum;             // 输出神经元数目
+    final Activation activation;     // 激活函数
+    final double[] weight;           // 权值，inputNum行outputNum列
+    final double[] bias;             // 偏置
+    final double[] gradWeight;       // 本批的权值梯度
+    final double[] gradBias;         // 本批的偏置梯度
+    final double[][] weightState;    // 优化算法的权值状态
+    final double[][] biasState;      // 优化算法的偏置状态
+    double[] output;                 // 激活输出，capacity行outputNum列
+    double[] delta;                  // 损失函数对输出的梯度，反向时就地变为误差项，capacity行outputNum列
+    private int capacity;            // 缓冲区能容纳的样本数
+
+    Layer(int inputNum, int outputNum, Activation activation, Optimizer optimizer, Random random) {
+        this.inputNum = inputNum;
+        this.outputNum = outputNum;
+        this.activation = activation;
+        weight = new double[inputNum * outputNum];
+        bias = new double[outputNum];
+        gradWeight = new double[inputNum * outputNum];
+        gradBias = new double[outputNum];
+        double range = activation.initRange(inputNum, outputNum);
+        for (int x = 0; x < weight.length; x++) {
+            weight[x] = (2 * random.nextDouble() - 1) * range;
+        }
+        weightState = new double[optimizer.getStateNum()][weight.length];
+        biasState = new double[optimizer.getStateNum()][bias.length];
+    }
+
+    void ensureCapacity(int rows) {
+        if (rows > capacity) {
+            capacity = rows;
+            output = new double[rows * outputNum];
+            delta = new double[rows * outputNum];
+        }
+    }
+
+    /**
+     * 前向：output = activation(input * weight + bias)
+     * @param input 输入，rows行inputNum列
+     * @param rows 行数
+     */
+    void forward(double[] input, int rows) {
+        int in = inputNum;
+        int out = outputNum;
+        for (int s = 0; s < rows; s++) {
+            int oRow = s * out;
+            int xRow = s * in;
+            System.arraycopy(bias, 0, output, oRow, out);
+            for (int i = 0; i < in; i++) {
+                double x = input[xRow + i];
+                int wRow = i * out;
+                for (int j = 0; j < out; j++) {
+                    output[oRow + j] += x * weight[wRow + j];
+                }
+            }
+            activation.forward(output, oRow, oRow + out);
+        }
+    }
+
+    /**
+     * 反向：delta中为损失函数对输出的梯度，计算权值和偏置的梯度，
+     * 并把损失函数对输入的梯度写入inputDelta（为null时不计算，用于第一层）
+     * @param input 前向时的输入，rows行inputNum列
+     * @param inputDelta 上一层的delta，rows行inputNum列，可以为null
+     * @param rows 行数
+     */
+    void backward(double[] input, double[] inputDelta, int rows) {
+        int in = inputNum;
+        int out = outputNum;
+        Arrays.fill(gradWeight, 0);
+        Arrays.fill(gradBias, 0);
+        for (int s = 0; s < rows; s++) {
+            int oRow = s * out;
+            int xRow = s * in;
+            activation.backward(output, delta, oRow, oRow + out);
+            for (int j = 0; j < out; j++) {
+                gradBias[j] += delta[oRow + j];
+            }
+            if (inputDelta == null) {
+                for (int i = 0; i < in; i++) {
+                    double x = input[xRow + i];
+                    int wRow = i * out;
+                    for (int j = 0; j < out; j++) {
+                        gradWeight[wRow + j] += x * delta[oRow + j];
+                    }
+                }
+                continue;
+            }
+            for (int i = 0; i < in; i++) {
+                double x = input[xRow + i];
+                int wRow = i * out;
+                double sum = 0;
+                for (int j = 0; j < out; j++) {
+                    double d = delta[oRow + j];
+                    gradWeight[wRow + j] += x * d;
+                    sum += d * weight[wRow + j];
+                }
+                inputDelta[xRow + i] = sum;
+            }
+        }
+    }
+
+    void update(Optimizer optimizer) {
+        optimizer.update(weight, gradWeight, weightState);
+        optimizer.update(bias, gradBias, biasState);
+    }
+
+}
@@ -0,0 +1,161 @@
+package pers.kanarien.bpnet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 通过内存映射文件读取的样本集，数据在堆外，由操作系统按需换入换出，可以大于堆的大小
+ * 文件格式为：4字节魔数、4字节输入维数、4字节输出维数、4字节样本数量，之后每个样本依次保存输入和理想输出，
+ * 每个数8字节，小端序
+ * 单个MappedByteBuffer最大2GB，因此按不超过1GB分段映射，每段包含整数个样本
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MappedSamples implements SampleSource {
+
+    private static final int MAGIC = 0x53445042; // "BPDS"
+    private static final int HEADER_SIZE = 16; // 文件头字节数
+    private static final long SEGMENT_SIZE = 1L << 30; // 每段最多1GB
+
+    private final int inputNum;  // 输入维数
+    private final int outputNum; // 输出维数
+    private final int size;      // 样本数量
+    private final int rowBytes;  // 每个样本的字节数
+    private final int rowsPerSegment; // 每段的样本数量
+    private final MappedByteBuffer[] segments; // 分段映射的样本数据
+
+    private MappedSamples(int inputNum, int outputNum, int size, int rowsPerSegment, MappedByteBuffer[] segments) {
+        this.inputNum = inputNum;
+        this.outputNum = outputNum;
+        this.size = size;
+        this.rowBytes = (inputNum + outputNum) * 8;
+        this.rowsPerSegment = rowsPerSegment;
+        this.segments = segments;
+    }
+
+    /**
+     * 把source的全部样本按顺序写入文件，然后映射该文件
+     * @param file 样本文件
+     * @param source 样本来源
+     * @return 内存映射样本集
+     * @throws IOException
+     */
+    public static MappedSamples build(File file, SampleSource source) throws IOException {
+        int inputNum = source.getInputNum();
+        int outputNum = source.getOutputNum();
+        int n = source.size();
+        double[] input = new double[inputNum];
+        double[] output = new double[outputNum];
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(inputNum).putInt(outputNum).putInt(n);
+            for (int s = 0; s < n; s++) {
+                source.read(s, input, 0, output, 0);
+                for (int i = 0; i < inputNum; i++) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putDouble(input[i]);
+                }
+                for (int k = 0; k < outputNum; k++) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putDouble(output[k]);
+                }
+            }
+            flush(channel, buffer);
+        } finally {
+            raf.close();
+        }
+        return open(file);
+    }
+
+    /**
+     * 映射已有的样本文件
+     * @param file 样本文件
+     * @return 内存映射样本集
+     * @throws IOException 文件不存在或格式不对
+     */
+    public static MappedSamples open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("不是样本文件: " + file);
+            }
+            int inputNum = header.getInt();
+            int outputNum = header.getInt();
+            int n = header.getInt();
+            if (inputNum <= 0 || outputNum <= 0 || n < 0) {
+                throw new IOException("样本文件头错误: " + file);
+            }
+            long rowBytes = (inputNum + outputNum) * 8L;
+            if (channel.size() < HEADER_SIZE + rowBytes * n) {
+                throw new IOException("样本文件不完整: " + file);
+            }
+            int rowsPerSegment = (int) Math.max(1, SEGMENT_SIZE / rowBytes);
+            int segmentNum = (int) (((long) n + rowsPerSegment - 1) / rowsPerSegment);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentNum];
+            for (int s = 0; s < segmentNum; s++) {
+                long first = (long) s * rowsPerSegment;
+                long rows = Math.min(rowsPerSegment, n - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * rowBytes, rows * rowBytes);
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // 映射建立后关闭文件不影响读取
+            return new MappedSamples(inputNum, outputNum, n, rowsPerSegment, segments);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public int getInputNum() {
+        return inputNum;
+    }
+
+    @Override
+    public int getOutputNum() {
+        return outputNum;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void read(int index, double[] inputs, int inOffset, double[] outputs, int outOffset) {
+        MappedByteBuffer segment = segments[index / rowsPerSegment];
+        int position = (index % rowsPerSegment) * rowBytes;
+        for (int i = 0; i < inputNum; i++, position += 8) {
+            inputs[inOffset + i] = segment.getDouble(position);
+        }
+        for (int k = 0; k < outputNum; k++, position += 8) {
+            outputs[outOffset + k] = segment.getDouble(position);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package pers.kanarien.bpnet;
+
+/**
+ * 动量法：v = alfa * v - rate * g，参数加上v
+ * 与BPNet中“本次修正值 + ALFA * (上次权值 - 上上次权值)”相同，只是不再保存两份权值的副本，只保存速度v
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MomentumOptimizer extends Optimizer {
+
+    private final double rate; // 学习速率
+    private final double alfa; // 动量因子
+
+    /**
+     * @param rate 学习速率
+     * @param alfa 动量因子，0表示普通的梯度下降
+     */
+    public MomentumOptimizer(double rate, double alfa) {
+        this.rate = rate;
+        this.alfa = alfa;
+    }
+
+    @Override
+    public int getStateNum() {
+        return 1;
+    }
+
+    @Override
+    public void update(double[] param, double[] grad, double[][] state) {
+        double[] velocity = state[0];
+        for (int x = 0; x < param.length; x++) {
+            velocity[x] = alfa * velocity[x] - rate * grad[x];
+            param[x] += velocity[x];
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package pers.kanarien.bpnet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import pers.kanarien.metrics.ConsoleListener;
+import pers.kanarien.metrics.EpochMetrics;
+import pers.kanarien.metrics.MetricsListener;
+
+/**
+ * 多层BP网络
+ * 关键点：
+ * 1. 隐层数目任意，每层有自己的神经元数目、激活函数和偏置，用addLayer依次添加，最后添加的一层为输出层
+ * 2. 激活函数可选S函数、双曲正切、ReLU及其快速近似，回归问题的输出层一般用IDENTITY
+ * 3. 优化算法可选动量法或Adam，每个参数的状态（速度、滑动平均）由网络保存，不再保存权值的历史副本
+ * 4. 误差函数与BPNet相同，为平方和误差的一半，按批内样本取平均；每层的前向、反向各在一次遍历中完成
+ * 5. 训练和calculate使用网络内部的缓冲区，不能被多个线程同时调用
+ * @author Kanarien
+ * @version 1.0
+ */
+public class MultiLayerNet {
+
+    private final int inputNum;                                // 输入维数
+    private final List<Layer> layers = new ArrayList<Layer>(); // 各层，最后一层为输出层
+    private final Random random;                               // 初始化权值和打乱样本顺序所用的随机数
+    private Optimizer optimizer = new AdamOptimizer();         // 优化算法
+    private double targetError;                                // 误差指标，每轮的平均误差不超过该值即停止训练
+    private double curError;                                   // 最近一轮的平均误差
+
+    private MetricsListener listener = new ConsoleListener(1000); // 指标和日志的监听器，默认每1000轮输出一次误差
+    private final EpochMetrics metrics = new EpochMetrics();     // 重复使用的指标对象
+
+    /**
+     * @param inputNum 输入维数
+     * @param seed 随机种子，种子相同时初始权值和训练结果相同
+     */
+    public MultiLayerNet(int inputNum, long seed) {
+        this.inputNum = inputNum;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 在最后添加一层，需在训练之前完成，setOptimizer也需在添加层之前调用
+     * @param size 神经元数目
+     * @param activation 激活函数
+     */
+    public void addLayer(int size, Activation activation) {
+        int fanIn = layers.isEmpty() ? inputNum : layers.get(layers.size() - 1).outputNum;
+        layers.add(new Layer(fanIn, size, activation, optimizer, random));
+    }
+
+    /**
+     * 小批量训练：逐层前向，由输出层的误差逐层反向，所有层的梯度都算完后再修正参数
+     * @param inputs 输入，batchSize行inputNum列，按行连续存储
+     * @param outputs 理想输出（教师信号），batchSize行输出维数列，按行连续存储
+     * @param batchSize 样本数
+     * @return 这批样本的平均误差
+     */
+    public double trainBatch(double[] inputs, double[] outputs, int batchSize) {
+        forward(inputs, batchSize);
+        // 输出层：损失函数对输出的梯度为(输出 - 教师信号) / batchSize
+        Layer last = layers.get(layers.size() - 1);
+        double loss = 0;
+        double scale = 1.0 / batchSize;
+        int n = batchSize * last.outputNum;
+        for (int x = 0; x < n; x++) {
+            double e = last.output[x] - outputs[x];
+            loss += e * e / 2.0;
+            last.delta[x] = e * scale;
+        }
+        for (int l = layers.size() - 1; l >= 0; l--) {
+            Layer layer = layers.get(l);
+            if (l > 0) {
+                Layer previous = layers.get(l - 1);
+                layer.backward(previous.output, previous.delta, batchSize);
+            } else {
+                layer.backward(inputs, null, batchSize);
+            }
+        }
+        optimizer.step();
+        for (Layer layer : layers) {
+            layer.update(optimizer);
+        }
+        return loss / batchSize;
+    }
+
+    private void forward(double[] inputs, int rows) {
+        if (layers.isEmpty()) {
+            throw new IllegalStateException("网络没有任何层");
+        }
+        double[] input = inputs;
+        for (Layer layer : layers) {
+            layer.ensureCapacity(rows);
+            layer.forward(input, rows);
+            input = layer.output;
+        }
+    }
+
+    /**
+     * 给出输入，计算输出
+     * @param input 输入
+     * @param output 输出，原有内容被覆盖
+     */
+    public void calculate(double[] input, double[] output) {
+        forward(input, 1);
+        Layer last = layers.get(layers.size() - 1);
+        System.arraycopy(last.output, 0, output, 0, last.outputNum);
+    }
+
+    /**
+     * 计算样本集上的平均误差，不修正参数
+     * @param source 样本来源
+     * @param batchSize 每次计算的样本数
+     * @return 平均误差
+     */
+    public double evaluate(SampleSource source, int batchSize) {
+        Layer last = layers.get(layers.size() - 1);
+        double[] inputs = new double[batchSize * inputNum];
+        double[] outputs = new double[batchSize * last.outputNum];
+        double loss = 0;
+        for (int from = 0; from < source.size(); from += batchSize) {
+            int rows = Math.min(batchSize, source.size() - from);
+            for (int s = 0; s < rows; s++) {
+                source.read(from + s, inputs, s * inputNum, outputs, s * last.outputNum);
+            }
+            forward(inputs, rows);
+            for (int x = 0; x < rows * last.outputNum; x++) {
+                double e = last.output[x] - outputs[x];
+                loss += e * e / 2.0;
+            }
+        }
+        return loss / source.size();
+    }
+
+    /**
+     * 从样本来源按打乱顺序的小批量训练
+     * 每轮结束时检查这一轮的平均误差，不超过误差指标或者达到最大轮数即停止
+     * @param source 样本来源，输入和输出维数需与网络一致
+     * @param batchSize 每批的样本数
+     * @param maxEpoch 最大轮数
+     * @param prefetch 是否由后台线程预先读取
+     * @return 最后一轮的平均误差
+     */
+    public double train(SampleSource source, int batchSize, long maxEpoch, boolean prefetch) {
+        if (source.getInputNum() != inputNum || source.getOutputNum() != getOutputNum()) {
+            throw new IllegalArgumentException("样本的维数与网络不一致");
+        }
+        listener.log("开始训练...");
+        int depth = prefetch ? Math.max(2, Math.min(64, 4096 / batchSize)) : 0;
+        BatchLoader loader = new BatchLoader(source, batchSize, depth, true, random.nextLong());
+        try {
+            long beginNanos = System.nanoTime();
+            long epochNanos = beginNanos;
+            long epoch = 0;
+            double epochLoss = 0;
+            while (epoch < maxEpoch) {
+                BatchLoader.Batch batch = loader.next();
+                epochLoss += trainBatch(batch.getInputs(), batch.getOutputs(), batch.getSize()) * batch.getSize();
+                boolean endOfEpoch = batch.isEndOfEpoch();
+                loader.release(batch);
+                if (!endOfEpoch) {
+                    continue;
+                }
+                epoch++;
+                curError = epochLoss / source.size();
+                epochLoss = 0;
+                if (listener.acceptsMetrics()) {
+                    long now = System.nanoTime();
+                    metrics.set(epoch, source.size(), curError, now - epochNanos, epoch * 1e9 / (now - beginNanos));
+                    listener.onEpoch(metrics);
+                    epochNanos = now;
+                }
+                if (curError <= targetError) {
+                    break;
+                }
+            }
+        } finally {
+            loader.close();
+        }
+        listener.log("训练结束！");
+        return curError;
+    }
+
+    /**
+     * 设置优化算法，需在addLayer之前调用，默认为学习速率0.001的Adam
+     * @param optimizer 优化算法
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        if (!layers.isEmpty()) {
+            throw new IllegalStateException("优化算法需在添加层之前设置");
+        }
+        this.optimizer = optimizer;
+    }
+
+    /**
+     * @param targetError 误差指标，默认为0，即训练到最大轮数
+     */
+    public void setTargetError(double targetError) {
+        this.targetError = targetError;
+    }
+
+    /**
+     * 设置指标和日志的监听器，默认为每1000轮输出一次误差的ConsoleListener
+     * @param listener 监听器
+     */
+    public void setListener(MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    public int getInputNum() {
+        return inputNum;
+    }
+
+    public int getOutputNum() {
+        return layers.get(layers.size() - 1).outputNum;
+    }
+
+    public int getLayerNum() {
+        return layers.size();
+    }
+
+    public double getCurError() {
+        return curError;
+    }
+
+}
@@ -0,0 +1,31 @@
+package pers.kanarien.bpnet;
+
+/**
+ * 参数的优化算法，由梯度修正权值和偏置
+ * 每个参数数组有getStateNum()个同样长度的状态数组（如动量），由网络申请并保存，优化算法本身只保存超参数和步数
+ * 每批样本的流程为：先调用一次step，再对每个参数数组调用update
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class Optimizer {
+
+    /**
+     * @return 每个参数数组需要的状态数组个数
+     */
+    public abstract int getStateNum();
+
+    /**
+     * 开始新的一步，每批样本调用一次，默认什么也不做
+     */
+    public void step() {
+    }
+
+    /**
+     * 按梯度修正参数
+     * @param param 参数
+     * @param grad 损失函数对参数的梯度，与param等长
+     * @param state 该参数的状态数组，共getStateNum()个，初始为0
+     */
+    public abstract void update(double[] param, double[] grad, double[][] state);
+
+}
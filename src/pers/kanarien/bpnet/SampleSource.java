@@ -0,0 +1,36 @@
+package pers.kanarien.bpnet;
+
+/**
+ * 训练样本的来源，样本按序号随机读取，读取时写入调用方提供的数组，不申请内存
+ * 实现不需要线程安全，BatchLoader只在一个后台线程中读取
+ * @author Kanarien
+ * @version 1.0
+ */
+public interface SampleSource {
+
+    /**
+     * @return 每个样本的输入维数
+     */
+    int getInputNum();
+
+    /**
+     * @return 每个样本的输出维数
+     */
+    int getOutputNum();
+
+    /**
+     * @return 样本数量，即每轮训练的样本数
+     */
+    int size();
+
+    /**
+     * 读取一个样本
+     * @param index 样本序号，0到size() - 1
+     * @param inputs 输入写入inputs[inOffset]开始的getInputNum()个元素
+     * @param inOffset 输入的起始下标
+     * @param outputs 理想输出写入outputs[outOffset]开始的getOutputNum()个元素
+     * @param outOffset 理想输出的起始下标
+     */
+    void read(int index, double[] inputs, int inOffset, double[] outputs, int outOffset);
+
+}
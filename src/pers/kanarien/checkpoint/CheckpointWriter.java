@@ -0,0 +1,164 @@
+package pers.kanarien.checkpoint;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 在后台线程中把快照写入文件
+ * 1. 每次先写入同目录下的临时文件，强制写入磁盘后再改名覆盖目标文件，进程在任何时刻被杀死，目标文件都是完整的某个快照
+ * 2. 同一时刻最多只有一个快照在写入；运行线程先用isBusy检查，空闲时才复制状态并提交，
+ *    忙时跳过这次保存，因此运行线程从不等待磁盘，快照对象也只需要一个，重复使用
+ * 3. 写入失败不影响运行，异常保存下来由getFailure或者close取出
+ * @author Kanarien
+ * @version 1.0
+ */
+public class CheckpointWriter implements Closeable {
+
+    private final File file;             // 目标文件
+    private final File temp;             // 临时文件
+    private final Thread thread;         // 后台写入线程
+    private Snapshot pending;            // 等待写入的快照，由this保护
+    private boolean closed;              // 是否已关闭，由this保护
+    private volatile boolean busy;       // 是否有快照已提交但尚未写完
+    private volatile IOException failure; // 最近一次写入失败的异常
+    private volatile long written;       // 已写完的快照数量
+
+    /**
+     * 创建后即启动后台线程
+     * @param file 快照文件
+     */
+    public CheckpointWriter(File file) {
+        this.file = file;
+        this.temp = new File(file.getPath() + ".tmp");
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "CheckpointWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void loop() {
+        while (true) {
+            Snapshot snapshot;
+            synchronized (this) {
+                while (pending == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                snapshot = pending;
+            }
+            try {
+                write(snapshot);
+                written++;
+            } catch (IOException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                pending = null;
+                busy = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void write(Snapshot snapshot) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            snapshot.writeTo(channel);
+            channel.force(false);
+        } finally {
+            raf.close();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return 是否有快照正在写入，为true时不能提交新的快照
+     */
+    public boolean isBusy() {
+        return busy;
+    }
+
+    /**
+     * 提交一个快照，立即返回，写完之前调用方不能修改该快照
+     * @param snapshot 快照
+     * @throws IllegalStateException 上一个快照尚未写完或者已关闭
+     */
+    public synchronized void submit(Snapshot snapshot) {
+        if (closed) {
+            throw new IllegalStateException("CheckpointWriter已关闭");
+        }
+        if (busy) {
+            throw new IllegalStateException("上一个快照尚未写完");
+        }
+        busy = true;
+        pending = snapshot;
+        notifyAll();
+    }
+
+    /**
+     * 等待正在写入的快照写完
+     * @throws InterruptedException 等待时被中断
+     */
+    public synchronized void await() throws InterruptedException {
+        while (busy) {
+            wait();
+        }
+    }
+
+    /**
+     * @return 最近一次写入失败的异常，没有失败时为null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return 已写完的快照数量
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 等待正在写入的快照写完后停止后台线程
+     * @throws IOException 有快照写入失败
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待快照写完时被中断", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package pers.kanarien.checkpoint;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * 可写入文件的运行状态快照
+ * 快照在运行线程中复制好状态，写入在CheckpointWriter的后台线程中进行，写入期间运行线程不会修改快照
+ * @author Kanarien
+ * @version 1.0
+ */
+public interface Snapshot {
+
+    /**
+     * 把快照写入文件
+     * @param channel 已截断为空的文件
+     * @throws IOException 写入失败
+     */
+    void writeTo(FileChannel channel) throws IOException;
+
+}
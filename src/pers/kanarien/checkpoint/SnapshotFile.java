@@ -0,0 +1,193 @@
+package pers.kanarien.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 快照文件的读写工具
+ * 快照文件都是小端序的二进制文件：4字节魔数、4字节版本号，之后是各自的定长头和原始类型数组
+ * 数组整段写入和读取，读取时映射整个文件，每个数组用一次批量复制取出，不逐个解析
+ * @author Kanarien
+ * @version 1.0
+ */
+public final class SnapshotFile {
+
+    private static final int CHUNK = 1 << 20; // 写入时缓冲区的字节数
+
+    private final FileChannel channel; // 写入的文件
+    private final ByteBuffer buffer;   // 写入缓冲区
+
+    /**
+     * @param channel 写入的文件
+     */
+    public SnapshotFile(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public SnapshotFile putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public SnapshotFile putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    public SnapshotFile putDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    public SnapshotFile putInts(int[] values, int length) throws IOException {
+        for (int from = 0; from < length; ) {
+            ensure(4);
+            int count = Math.min(length - from, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * 4);
+            from += count;
+        }
+        return this;
+    }
+
+    public SnapshotFile putLongs(long[] values, int length) throws IOException {
+        for (int from = 0; from < length; ) {
+            ensure(8);
+            int count = Math.min(length - from, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * 8);
+            from += count;
+        }
+        return this;
+    }
+
+    public SnapshotFile putFloats(float[] values, int length) throws IOException {
+        for (int from = 0; from < length; ) {
+            ensure(4);
+            int count = Math.min(length - from, buffer.remaining() / 4);
+            buffer.asFloatBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * 4);
+            from += count;
+        }
+        return this;
+    }
+
+    public SnapshotFile putDoubles(double[] values, int length) throws IOException {
+        for (int from = 0; from < length; ) {
+            ensure(8);
+            int count = Math.min(length - from, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, from, count);
+            buffer.position(buffer.position() + count * 8);
+            from += count;
+        }
+        return this;
+    }
+
+    /**
+     * 把缓冲区中剩余的内容写入文件
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * 只读映射整个快照文件并检查魔数和版本号，返回的缓冲区位于版本号之后
+     * @param file 快照文件
+     * @param magic 魔数
+     * @param version 版本号
+     * @return 小端序的映射缓冲区
+     * @throws IOException 文件不存在、过大或者魔数、版本号不对
+     */
+    public static MappedByteBuffer map(File file, int magic, int version) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("快照文件过大: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < 8 || buffer.getInt() != magic) {
+                throw new IOException("不是所需的快照文件: " + file);
+            }
+            int actual = buffer.getInt();
+            if (actual != version) {
+                throw new IOException("不支持的快照版本 " + actual + ": " + file);
+            }
+            // 映射建立后关闭文件不影响读取
+            return buffer;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 写入一个完整的快照文件，不经过临时文件
+     * @param file 快照文件
+     * @param snapshot 快照
+     * @throws IOException
+     */
+    public static void write(File file, Snapshot snapshot) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            snapshot.writeTo(channel);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 从buffer的当前位置批量读取length个int，读取后位置后移
+     */
+    public static void getInts(ByteBuffer buffer, int[] values, int length) throws IOException {
+        check(buffer, length, 4);
+        buffer.asIntBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * 4);
+    }
+
+    public static void getLongs(ByteBuffer buffer, long[] values, int length) throws IOException {
+        check(buffer, length, 8);
+        buffer.asLongBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * 8);
+    }
+
+    public static void getFloats(ByteBuffer buffer, float[] values, int length) throws IOException {
+        check(buffer, length, 4);
+        buffer.asFloatBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * 4);
+    }
+
+    public static void getDoubles(ByteBuffer buffer, double[] values, int length) throws IOException {
+        check(buffer, length, 8);
+        buffer.asDoubleBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * 8);
+    }
+
+    private static void check(ByteBuffer buffer, int length, int size) throws IOException {
+        if (length < 0 || (long) length * size > buffer.remaining()) {
+            throw new IOException("快照文件不完整");
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package pers.kanarien.metrics;
+
+/**
+ * 把指标和日志依次转发给多个监听器，如同时输出到控制台和JMX
+ * @author Kanarien
+ * @version 1.0
+ */
+public class CompositeListener extends MetricsListener {
+
+    private final MetricsListener[] listeners;
+
+    public CompositeListener(MetricsListener... listeners) {
+        this.listeners = listeners.clone();
+    }
+
+    @Override
+    public boolean acceptsMetrics() {
+        for (MetricsListener listener : listeners) {
+            if (listener.acceptsMetrics()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onIteration(IterationMetrics metrics) {
+        for (MetricsListener listener : listeners) {
+            listener.onIteration(metrics);
+        }
+    }
+
+    @Override
+    public void onEpoch(EpochMetrics metrics) {
+        for (MetricsListener listener : listeners) {
+            listener.onEpoch(metrics);
+        }
+    }
+
+    @Override
+    public void log(String message) {
+        for (MetricsListener listener : listeners) {
+            listener.log(message);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (MetricsListener listener : listeners) {
+            listener.close();
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package pers.kanarien.metrics;
+
+/**
+ * 输出到控制台的监听器：日志总是输出，迭代和训练指标每隔interval次输出一次
+ * @author Kanarien
+ * @version 1.0
+ */
+public class ConsoleListener extends MetricsListener {
+
+    private final int interval; // 输出指标的间隔，0表示只输出日志
+
+    /**
+     * @param interval 每隔多少次迭代或训练轮数输出一次指标，0表示只输出日志
+     */
+    public ConsoleListener(int interval) {
+        this.interval = interval;
+    }
+
+    @Override
+    public boolean acceptsMetrics() {
+        return interval > 0;
+    }
+
+    @Override
+    public void onIteration(IterationMetrics metrics) {
+        if (interval > 0 && metrics.getIteration() % interval == 0) {
+            System.out.format("迭代 %d：最优长度 %d，本次最优 %d，平均 %.1f，熵 %.3f，构造 %.2f ms，更新信息素 %.2f ms%n",
+                    metrics.getIteration(), metrics.getBestLength(), metrics.getIterationBestLength(),
+                    metrics.getMeanLength(), metrics.getEntropy(), metrics.getConstructionNanos() / 1e6,
+                    metrics.getPheromoneNanos() / 1e6);
+        }
+    }
+
+    @Override
+    public void onEpoch(EpochMetrics metrics) {
+        if (interval > 0 && metrics.getEpoch() % interval == 0) {
+            System.out.format("训练 %d 轮：误差 %g，每秒 %.0f 轮%n", metrics.getEpoch(), metrics.getLoss(),
+                    metrics.getEpochsPerSecond());
+        }
+    }
+
+    @Override
+    public void log(String message) {
+        System.out.println(message);
+    }
+
+}
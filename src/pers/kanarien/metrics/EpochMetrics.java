@@ -0,0 +1,52 @@
+package pers.kanarien.metrics;
+
+/**
+ * BP网络一轮训练的指标
+ * @author Kanarien
+ * @version 1.0
+ */
+public class EpochMetrics {
+
+    private long epoch; // 已完成的训练轮数
+    private int samples; // 本轮的样本数
+    private double loss; // 本轮的误差
+    private long nanos; // 本轮的耗时
+    private double epochsPerSecond; // 从训练开始到现在平均每秒的训练轮数
+
+    /**
+     * 设置本轮训练的全部指标
+     * @param epoch 已完成的训练轮数
+     * @param samples 本轮的样本数
+     * @param loss 本轮的误差
+     * @param nanos 本轮的耗时
+     * @param epochsPerSecond 从训练开始到现在平均每秒的训练轮数
+     */
+    public void set(long epoch, int samples, double loss, long nanos, double epochsPerSecond) {
+        this.epoch = epoch;
+        this.samples = samples;
+        this.loss = loss;
+        this.nanos = nanos;
+        this.epochsPerSecond = epochsPerSecond;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public double getLoss() {
+        return loss;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getEpochsPerSecond() {
+        return epochsPerSecond;
+    }
+
+}
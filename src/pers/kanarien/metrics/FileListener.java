@@ -0,0 +1,134 @@
+package pers.kanarien.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把每次迭代和每轮训练的指标写入文件，格式为CSV或JSON lines
+ * CSV中迭代和训练各有一行表头，在第一次写出该类指标时写出，日志不写入CSV；JSON lines每行带type字段
+ * 写入失败时停止写入，不影响算法运行，close时抛出IllegalStateException
+ * @author Kanarien
+ * @version 1.0
+ */
+public class FileListener extends MetricsListener {
+
+    private final Writer writer;
+    private final boolean json; // true为JSON lines，false为CSV
+    private boolean iterationHeader; // CSV是否已写出迭代的表头
+    private boolean epochHeader; // CSV是否已写出训练的表头
+    private IOException error; // 第一次写入失败的异常
+
+    private FileListener(File file, boolean json) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        this.json = json;
+    }
+
+    /**
+     * @param file 输出文件，已存在时覆盖
+     * @return 写CSV的监听器
+     * @throws IOException 无法创建文件
+     */
+    public static FileListener csv(File file) throws IOException {
+        return new FileListener(file, false);
+    }
+
+    /**
+     * @param file 输出文件，已存在时覆盖
+     * @return 写JSON lines的监听器
+     * @throws IOException 无法创建文件
+     */
+    public static FileListener jsonLines(File file) throws IOException {
+        return new FileListener(file, true);
+    }
+
+    @Override
+    public synchronized void onIteration(IterationMetrics m) {
+        if (json) {
+            write("{\"type\":\"iteration\",\"iteration\":" + m.getIteration() + ",\"constructionNanos\":"
+                    + m.getConstructionNanos() + ",\"pheromoneNanos\":" + m.getPheromoneNanos() + ",\"bestLength\":"
+                    + m.getBestLength() + ",\"iterationBestLength\":" + m.getIterationBestLength()
+                    + ",\"meanLength\":" + number(m.getMeanLength()) + ",\"entropy\":" + number(m.getEntropy()) + "}");
+        } else {
+            if (!iterationHeader) {
+                iterationHeader = true;
+                write("iteration,constructionNanos,pheromoneNanos,bestLength,iterationBestLength,meanLength,entropy");
+            }
+            write(m.getIteration() + "," + m.getConstructionNanos() + "," + m.getPheromoneNanos() + ","
+                    + m.getBestLength() + "," + m.getIterationBestLength() + "," + m.getMeanLength() + ","
+                    + m.getEntropy());
+        }
+    }
+
+    @Override
+    public synchronized void onEpoch(EpochMetrics m) {
+        if (json) {
+            write("{\"type\":\"epoch\",\"epoch\":" + m.getEpoch() + ",\"samples\":" + m.getSamples() + ",\"loss\":"
+                    + number(m.getLoss()) + ",\"nanos\":" + m.getNanos() + ",\"epochsPerSecond\":"
+                    + number(m.getEpochsPerSecond()) + "}");
+        } else {
+            if (!epochHeader) {
+                epochHeader = true;
+                write("epoch,samples,loss,nanos,epochsPerSecond");
+            }
+            write(m.getEpoch() + "," + m.getSamples() + "," + m.getLoss() + "," + m.getNanos() + ","
+                    + m.getEpochsPerSecond());
+        }
+    }
+
+    @Override
+    public synchronized void log(String message) {
+        if (json) {
+            StringBuilder line = new StringBuilder("{\"type\":\"log\",\"message\":\"");
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < ' ') {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            write(line.append("\"}").toString());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw new IllegalStateException("写入指标文件失败", error);
+        }
+    }
+
+    private void write(String line) {
+        if (error != null) {
+            return;
+        }
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * JSON不支持NaN和无穷大，写为null
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.valueOf(value);
+    }
+
+}
@@ -0,0 +1,71 @@
+package pers.kanarien.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 按2的幂分桶的直方图，记录非负整数（一般为纳秒），不加锁，可由多个线程同时记录
+ * 第b个桶记录[2^(b-1), 2^b)之间的值，分位数返回所在桶的上界，误差不超过一倍
+ * @author Kanarien
+ * @version 1.0
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值，负数按0处理
+     * @param value 值
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile 分位点，0到1之间，如0.99
+     * @return 近似分位数，即所在桶的上界，没有记录时为0
+     */
+    public long getQuantile(double quantile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= Math.max(rank, 1)) {
+                return b == 0 ? 0 : Math.min((1L << b) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+}
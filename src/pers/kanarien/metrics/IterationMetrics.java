@@ -0,0 +1,67 @@
+package pers.kanarien.metrics;
+
+/**
+ * 蚂蚁系统一次迭代的指标
+ * @author Kanarien
+ * @version 1.0
+ */
+public class IterationMetrics {
+
+    private int iteration; // 已完成的迭代数
+    private long constructionNanos; // 所有蚂蚁构造路径（含局部搜索）的耗时
+    private long pheromoneNanos; // 更新信息素和选择权值矩阵的耗时
+    private int bestLength; // 全局最优长度
+    private int iterationBestLength; // 本次迭代最优长度
+    private double meanLength; // 本次迭代的平均长度
+    private double entropy; // 信息素熵，见set方法
+
+    /**
+     * 设置本次迭代的全部指标
+     * @param iteration 已完成的迭代数
+     * @param constructionNanos 构造路径的耗时
+     * @param pheromoneNanos 更新信息素的耗时
+     * @param bestLength 全局最优长度
+     * @param iterationBestLength 本次迭代最优长度
+     * @param meanLength 本次迭代的平均长度
+     * @param entropy 每个城市出边信息素分布的归一化熵的平均值，1表示均匀分布，趋近于0表示已收敛
+     */
+    public void set(int iteration, long constructionNanos, long pheromoneNanos, int bestLength,
+            int iterationBestLength, double meanLength, double entropy) {
+        this.iteration = iteration;
+        this.constructionNanos = constructionNanos;
+        this.pheromoneNanos = pheromoneNanos;
+        this.bestLength = bestLength;
+        this.iterationBestLength = iterationBestLength;
+        this.meanLength = meanLength;
+        this.entropy = entropy;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public long getConstructionNanos() {
+        return constructionNanos;
+    }
+
+    public long getPheromoneNanos() {
+        return pheromoneNanos;
+    }
+
+    public int getBestLength() {
+        return bestLength;
+    }
+
+    public int getIterationBestLength() {
+        return iterationBestLength;
+    }
+
+    public double getMeanLength() {
+        return meanLength;
+    }
+
+    public double getEntropy() {
+        return entropy;
+    }
+
+}
@@ -0,0 +1,148 @@
+package pers.kanarien.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 把指标发布为平台MBeanServer中的MXBean，名称为pers.kanarien:type=Metrics,name=...，可用JConsole等工具查看
+ * 最近一次的指标直接保存，耗时记录在直方图中；可由多个线程同时调用
+ * @author Kanarien
+ * @version 1.0
+ */
+public class JmxListener extends MetricsListener implements MetricsMXBean {
+
+    private final ObjectName objectName;
+    private final AtomicLong iterations = new AtomicLong();
+    private final AtomicLong epochs = new AtomicLong();
+    private final Histogram constructionNanos = new Histogram();
+    private final Histogram pheromoneNanos = new Histogram();
+    private final Histogram epochNanos = new Histogram();
+    private volatile int bestLength;
+    private volatile int iterationBestLength;
+    private volatile double meanLength;
+    private volatile double entropy;
+    private volatile double loss;
+    private volatile double epochsPerSecond;
+
+    /**
+     * 创建并注册MBean
+     * @param name MBean名称中的name，同一JVM中不能重复
+     * @throws IllegalStateException 注册失败，如名称重复
+     */
+    public JmxListener(String name) {
+        try {
+            objectName = new ObjectName("pers.kanarien:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("注册MBean失败: " + name, e);
+        }
+    }
+
+    @Override
+    public void onIteration(IterationMetrics metrics) {
+        iterations.incrementAndGet();
+        constructionNanos.record(metrics.getConstructionNanos());
+        pheromoneNanos.record(metrics.getPheromoneNanos());
+        bestLength = metrics.getBestLength();
+        iterationBestLength = metrics.getIterationBestLength();
+        meanLength = metrics.getMeanLength();
+        entropy = metrics.getEntropy();
+    }
+
+    @Override
+    public void onEpoch(EpochMetrics metrics) {
+        epochs.incrementAndGet();
+        epochNanos.record(metrics.getNanos());
+        loss = metrics.getLoss();
+        epochsPerSecond = metrics.getEpochsPerSecond();
+    }
+
+    /**
+     * 注销MBean
+     */
+    @Override
+    public void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("注销MBean失败: " + objectName, e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public long getIterations() {
+        return iterations.get();
+    }
+
+    @Override
+    public int getBestLength() {
+        return bestLength;
+    }
+
+    @Override
+    public int getIterationBestLength() {
+        return iterationBestLength;
+    }
+
+    @Override
+    public double getMeanLength() {
+        return meanLength;
+    }
+
+    @Override
+    public double getEntropy() {
+        return entropy;
+    }
+
+    @Override
+    public double getConstructionMillisMean() {
+        return constructionNanos.getMean() / 1e6;
+    }
+
+    @Override
+    public double getConstructionMillisP99() {
+        return constructionNanos.getQuantile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getPheromoneMillisMean() {
+        return pheromoneNanos.getMean() / 1e6;
+    }
+
+    @Override
+    public double getPheromoneMillisP99() {
+        return pheromoneNanos.getQuantile(0.99) / 1e6;
+    }
+
+    @Override
+    public long getEpochs() {
+        return epochs.get();
+    }
+
+    @Override
+    public double getLoss() {
+        return loss;
+    }
+
+    @Override
+    public double getEpochsPerSecond() {
+        return epochsPerSecond;
+    }
+
+    @Override
+    public double getEpochMillisMean() {
+        return epochNanos.getMean() / 1e6;
+    }
+
+}
@@ -0,0 +1,55 @@
+package pers.kanarien.metrics;
+
+/**
+ * 运行指标的监听器，蚂蚁系统每次迭代、BP网络每轮训练以及运行中的日志都通过它输出
+ * 默认实现什么都不做，子类只需覆盖关心的方法；指标对象由调用方重复使用，监听器不能保存其引用
+ * acceptsMetrics返回false时调用方不计算指标，使用NONE时既不计算指标也不输出任何日志
+ * @author Kanarien
+ * @version 1.0
+ */
+public abstract class MetricsListener {
+
+    /** 不做任何事的监听器，用于在生产环境中完全关闭指标和日志 */
+    public static final MetricsListener NONE = new MetricsListener() {
+        @Override
+        public boolean acceptsMetrics() {
+            return false;
+        }
+    };
+
+    /**
+     * 是否接收迭代和训练指标，返回false时调用方不计算指标（如O(n^2)的信息素熵），也不调用onIteration和onEpoch
+     * @return 默认为true
+     */
+    public boolean acceptsMetrics() {
+        return true;
+    }
+
+    /**
+     * 蚂蚁系统完成一次迭代
+     * @param metrics 本次迭代的指标
+     */
+    public void onIteration(IterationMetrics metrics) {
+    }
+
+    /**
+     * BP网络完成一轮训练
+     * @param metrics 本轮训练的指标
+     */
+    public void onEpoch(EpochMetrics metrics) {
+    }
+
+    /**
+     * 运行中的日志，如开始、结束和最终结果
+     * @param message 日志内容
+     */
+    public void log(String message) {
+    }
+
+    /**
+     * 释放监听器占用的资源，如文件和MBean
+     */
+    public void close() {
+    }
+
+}
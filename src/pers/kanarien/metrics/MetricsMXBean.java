@@ -0,0 +1,36 @@
+package pers.kanarien.metrics;
+
+/**
+ * 通过JMX查看的运行指标，时间单位为毫秒，分位数为近似值
+ * @author Kanarien
+ * @version 1.0
+ */
+public interface MetricsMXBean {
+
+    long getIterations();
+
+    int getBestLength();
+
+    int getIterationBestLength();
+
+    double getMeanLength();
+
+    double getEntropy();
+
+    double getConstructionMillisMean();
+
+    double getConstructionMillisP99();
+
+    double getPheromoneMillisMean();
+
+    double getPheromoneMillisP99();
+
+    long getEpochs();
+
+    double getLoss();
+
+    double getEpochsPerSecond();
+
+    double getEpochMillisMean();
+
+}